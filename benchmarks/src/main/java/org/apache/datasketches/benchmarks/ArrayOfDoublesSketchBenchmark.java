@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.tuple.arrayofdoubles.ArrayOfDoublesCompactSketch;
+import org.apache.datasketches.tuple.arrayofdoubles.ArrayOfDoublesSetOperationBuilder;
+import org.apache.datasketches.tuple.arrayofdoubles.ArrayOfDoublesSketch;
+import org.apache.datasketches.tuple.arrayofdoubles.ArrayOfDoublesSketches;
+import org.apache.datasketches.tuple.arrayofdoubles.ArrayOfDoublesUnion;
+import org.apache.datasketches.tuple.arrayofdoubles.ArrayOfDoublesUpdatableSketch;
+import org.apache.datasketches.tuple.arrayofdoubles.ArrayOfDoublesUpdatableSketchBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Update, union, serialization and query latency of the ArrayOfDoubles tuple sketch.
+ * See {@link HllSketchBenchmark} for the meaning of one operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArrayOfDoublesSketchBenchmark {
+  static final int NUM_SKETCHES = 16;
+
+  @Param({"12", "16"})
+  int lgK;
+
+  @Param({"1", "4"})
+  int numValues;
+
+  @Param({"1000", "1000000"})
+  int n;
+
+  private double[] values;
+  private ArrayOfDoublesCompactSketch[] sketches;
+  private byte[] bytes;
+
+  @Setup
+  public void setup() {
+    values = new double[numValues];
+    Arrays.fill(values, 1.0);
+    sketches = new ArrayOfDoublesCompactSketch[NUM_SKETCHES];
+    long key = 0;
+    for (int s = 0; s < NUM_SKETCHES; s++) {
+      final ArrayOfDoublesUpdatableSketch sk = newSketch();
+      for (int i = 0; i < n; i++) { sk.update(key++, values); }
+      sketches[s] = sk.compact();
+    }
+    bytes = sketches[0].toByteArray();
+  }
+
+  private ArrayOfDoublesUpdatableSketch newSketch() {
+    return new ArrayOfDoublesUpdatableSketchBuilder()
+        .setNominalEntries(1 << lgK).setNumberOfValues(numValues).build();
+  }
+
+  @Benchmark
+  public ArrayOfDoublesUpdatableSketch update() {
+    final ArrayOfDoublesUpdatableSketch sk = newSketch();
+    for (int i = 0; i < n; i++) { sk.update(i, values); }
+    return sk;
+  }
+
+  @Benchmark
+  public ArrayOfDoublesCompactSketch union() {
+    final ArrayOfDoublesUnion union = new ArrayOfDoublesSetOperationBuilder()
+        .setNominalEntries(1 << lgK).setNumberOfValues(numValues).buildUnion();
+    for (int s = 0; s < NUM_SKETCHES; s++) { union.union(sketches[s]); }
+    return union.getResult();
+  }
+
+  @Benchmark
+  public byte[] serialize() {
+    return sketches[0].toByteArray();
+  }
+
+  @Benchmark
+  public ArrayOfDoublesSketch heapify() {
+    return ArrayOfDoublesSketches.heapifySketch(Memory.wrap(bytes));
+  }
+
+  @Benchmark
+  public double wrapAndEstimate() {
+    return ArrayOfDoublesSketches.wrapSketch(Memory.wrap(bytes)).getEstimate();
+  }
+
+  @Benchmark
+  public double estimate() {
+    return sketches[0].getEstimate();
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.cpc.CpcSketch;
+import org.apache.datasketches.cpc.CpcUnion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Update, union, serialization and query latency of the CPC sketch.
+ * See {@link HllSketchBenchmark} for the meaning of one operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CpcSketchBenchmark {
+  static final int NUM_SKETCHES = 16;
+
+  @Param({"11", "16"})
+  int lgK;
+
+  @Param({"1000", "1000000"})
+  int n;
+
+  private CpcSketch[] sketches;
+  private byte[] bytes;
+
+  @Setup
+  public void setup() {
+    sketches = new CpcSketch[NUM_SKETCHES];
+    long key = 0;
+    for (int s = 0; s < NUM_SKETCHES; s++) {
+      sketches[s] = new CpcSketch(lgK);
+      for (int i = 0; i < n; i++) { sketches[s].update(key++); }
+    }
+    bytes = sketches[0].toByteArray();
+  }
+
+  @Benchmark
+  public CpcSketch update() {
+    final CpcSketch sk = new CpcSketch(lgK);
+    for (int i = 0; i < n; i++) { sk.update(i); }
+    return sk;
+  }
+
+  @Benchmark
+  public CpcSketch union() {
+    final CpcUnion union = new CpcUnion(lgK);
+    for (int s = 0; s < NUM_SKETCHES; s++) { union.update(sketches[s]); }
+    return union.getResult();
+  }
+
+  @Benchmark
+  public byte[] serialize() {
+    return sketches[0].toByteArray();
+  }
+
+  @Benchmark
+  public CpcSketch heapify() {
+    return CpcSketch.heapify(bytes);
+  }
+
+  @Benchmark
+  public double estimate() {
+    return sketches[0].getEstimate();
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.hash.MurmurHash3;
+import org.apache.datasketches.thetacommon.HashTableLayout;
+import org.apache.datasketches.tuple.arrayofdoubles.ArrayOfDoublesUpdatableSketch;
+import org.apache.datasketches.tuple.arrayofdoubles.ArrayOfDoublesUpdatableSketchBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Probe latency of the hash table layouts of the QuickSelect sketches at several load factors.
+ * The search benchmarks probe every hash of a table filled to the given load factor, or as many
+ * hashes that are not in it. The insert benchmark fills an empty table to the given load factor.
+ * The update benchmark updates an ArrayOfDoubles sketch of nominal size 2^lgArrLongs / 2 with n
+ * distinct keys, for which the load factor does not apply.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashTableLayoutBenchmark {
+
+  @Param({"DOUBLE_HASHING", "LINEAR_PROBING"})
+  HashTableLayout layout;
+
+  @Param({"0.5", "0.75", "0.9375"})
+  double loadFactor;
+
+  @Param({"12", "20"})
+  int lgArrLongs;
+
+  @Param({"4"})
+  int numValues;
+
+  @Param({"1000000"})
+  int n;
+
+  private long[] hashes;
+  private long[] missingHashes;
+  private long[] table;
+  private double[] values;
+
+  @Setup
+  public void setup() {
+    final int count = (int) ((1 << lgArrLongs) * loadFactor);
+    hashes = new long[count];
+    missingHashes = new long[count];
+    for (int i = 0; i < count; i++) {
+      hashes[i] = MurmurHash3.hash(new long[] {i}, 0)[0] >>> 1;
+      missingHashes[i] = MurmurHash3.hash(new long[] {-1L - i}, 0)[0] >>> 1;
+    }
+    table = new long[1 << lgArrLongs];
+    layout.hashArrayInsert(hashes, table, lgArrLongs, Long.MAX_VALUE);
+    values = new double[numValues];
+  }
+
+  @Benchmark
+  public int searchHit() {
+    int sum = 0;
+    for (int i = 0; i < hashes.length; i++) { sum += layout.hashSearch(table, lgArrLongs, hashes[i]); }
+    return sum;
+  }
+
+  @Benchmark
+  public int searchMiss() {
+    int sum = 0;
+    for (int i = 0; i < missingHashes.length; i++) {
+      sum += layout.hashSearch(table, lgArrLongs, missingHashes[i]);
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public long[] insert() {
+    final long[] tbl = new long[1 << lgArrLongs];
+    for (int i = 0; i < hashes.length; i++) { layout.hashSearchOrInsert(tbl, lgArrLongs, hashes[i]); }
+    return tbl;
+  }
+
+  @Benchmark
+  public ArrayOfDoublesUpdatableSketch arrayOfDoublesUpdate() {
+    final ArrayOfDoublesUpdatableSketch sk = new ArrayOfDoublesUpdatableSketchBuilder()
+        .setNominalEntries(1 << (lgArrLongs - 1)).setNumberOfValues(numValues).setHashTableLayout(layout).build();
+    for (int i = 0; i < n; i++) { sk.update(i, values); }
+    return sk;
+  }
+
+}
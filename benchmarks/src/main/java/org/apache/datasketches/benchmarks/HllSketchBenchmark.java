@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.hll.HllSketch;
+import org.apache.datasketches.hll.TgtHllType;
+import org.apache.datasketches.hll.Union;
+import org.apache.datasketches.memory.Memory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Update, union, serialization and query latency of the HLL sketch.
+ *
+ * <p>Each benchmark reports the average time of one operation: <i>update</i> builds a sketch from
+ * a stream of <i>n</i> items, <i>union</i> merges {@value #NUM_SKETCHES} sketches of <i>n</i>
+ * items each, and the remaining benchmarks act on a single sketch of <i>n</i> items.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HllSketchBenchmark {
+  static final int NUM_SKETCHES = 16;
+
+  @Param({"HLL_4", "HLL_8"})
+  TgtHllType tgtHllType;
+
+  @Param({"12", "16"})
+  int lgK;
+
+  @Param({"1000", "1000000"})
+  int n;
+
+  private HllSketch[] sketches;
+  private byte[] compactBytes;
+  private Memory updatableMem;
+
+  @Setup
+  public void setup() {
+    sketches = new HllSketch[NUM_SKETCHES];
+    long key = 0;
+    for (int s = 0; s < NUM_SKETCHES; s++) {
+      sketches[s] = new HllSketch(lgK, tgtHllType);
+      for (int i = 0; i < n; i++) { sketches[s].update(key++); }
+    }
+    compactBytes = sketches[0].toCompactByteArray();
+    updatableMem = Memory.wrap(sketches[0].toUpdatableByteArray());
+  }
+
+  @Benchmark
+  public HllSketch update() {
+    final HllSketch sk = new HllSketch(lgK, tgtHllType);
+    for (int i = 0; i < n; i++) { sk.update(i); }
+    return sk;
+  }
+
+  @Benchmark
+  public HllSketch union() {
+    final Union union = new Union(lgK);
+    for (int s = 0; s < NUM_SKETCHES; s++) { union.update(sketches[s]); }
+    return union.getResult(tgtHllType);
+  }
+
+  @Benchmark
+  public byte[] serialize() {
+    return sketches[0].toCompactByteArray();
+  }
+
+  @Benchmark
+  public HllSketch heapify() {
+    return HllSketch.heapify(compactBytes);
+  }
+
+  @Benchmark
+  public double wrapAndEstimate() {
+    return HllSketch.wrap(updatableMem).getEstimate();
+  }
+
+  @Benchmark
+  public double estimate() {
+    return sketches[0].getEstimate();
+  }
+}
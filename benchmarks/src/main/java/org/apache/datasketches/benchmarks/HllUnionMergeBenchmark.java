@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.hll.HllSketch;
+import org.apache.datasketches.hll.TgtHllType;
+import org.apache.datasketches.hll.Union;
+import org.apache.datasketches.memory.WritableMemory;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the HLL Union merge of HLL mode sketches into an HLL mode union.
+ *
+ * <p>Each invocation merges {@value #NUM_SOURCES} source sketches of the same lgK into a union
+ * that is already in HLL mode, which is the rollup case. The <i>registers</i> counter is the
+ * number of source registers merged per nanosecond. The sources are on the heap, or in
+ * WritableMemory and wrapped with <i>HllSketch.writableWrap()</i> if <i>direct</i> is true.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HllUnionMergeBenchmark {
+  static final int NUM_SOURCES = 16;
+
+  @Param({"HLL_4", "HLL_6", "HLL_8"})
+  TgtHllType tgtHllType;
+
+  @Param({"12", "16", "21"})
+  int lgK;
+
+  @Param({"false", "true"})
+  boolean direct;
+
+  private HllSketch[] sources;
+  private Union union;
+
+  /**
+   * Counts the registers merged, reported by JMH as a rate.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Registers {
+    public long registers;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      registers = 0;
+    }
+  }
+
+  @Setup
+  public void setup() {
+    final int k = 1 << lgK;
+    sources = new HllSketch[NUM_SOURCES];
+    long key = 0;
+    for (int s = 0; s < NUM_SOURCES; s++) {
+      final HllSketch sk = new HllSketch(lgK, tgtHllType);
+      for (int i = 0; i < (4 * k); i++) { sk.update(key++); }
+      sources[s] = direct
+          ? HllSketch.writableWrap(WritableMemory.writableWrap(sk.toUpdatableByteArray()))
+          : sk;
+    }
+    union = new Union(lgK);
+    union.update(sources[0]); //union is now in HLL mode
+  }
+
+  @Benchmark
+  public Union merge(final Registers counter) {
+    for (int s = 0; s < NUM_SOURCES; s++) { union.update(sources[s]); }
+    counter.registers += (long) NUM_SOURCES << lgK;
+    return union;
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.hll.HllSketch;
+import org.apache.datasketches.hll.TgtHllType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the HLL vector update methods against a loop of single item updates.
+ * The sketch is warmed into HLL mode before measuring, so this measures the steady state.
+ * Scores are in operations per microsecond, where one operation is one item.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@OperationsPerInvocation(HllVectorUpdateBenchmark.ITEMS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HllVectorUpdateBenchmark {
+  static final int ITEMS = 1 << 16;
+
+  @Param({"HLL_4", "HLL_6", "HLL_8"})
+  TgtHllType tgtHllType;
+
+  @Param({"12", "21"})
+  int lgK;
+
+  @Param({"16", "256", "4096", "65536"})
+  int batchSize;
+
+  private HllSketch sketch;
+  private long[] longs;
+  private String[] strings;
+  private long next;
+
+  @Setup(Level.Trial)
+  public void setupTrial() {
+    sketch = new HllSketch(lgK, tgtHllType);
+    longs = new long[ITEMS];
+    strings = new String[ITEMS];
+    for (int i = 0; i < (4 << lgK); i++) { sketch.update(next++); }
+  }
+
+  @Setup(Level.Invocation)
+  public void setupInvocation() {
+    for (int i = 0; i < ITEMS; i++) {
+      longs[i] = next;
+      strings[i] = Long.toString(next++);
+    }
+  }
+
+  @Benchmark
+  public HllSketch longItemLoop() {
+    for (int i = 0; i < ITEMS; i++) { sketch.update(longs[i]); }
+    return sketch;
+  }
+
+  @Benchmark
+  public HllSketch longVector() {
+    for (int i = 0; i < ITEMS; i += batchSize) { sketch.updateItems(longs, i, batchSize); }
+    return sketch;
+  }
+
+  @Benchmark
+  public HllSketch stringItemLoop() {
+    for (int i = 0; i < ITEMS; i++) { sketch.update(strings[i]); }
+    return sketch;
+  }
+
+  @Benchmark
+  public HllSketch stringVector() {
+    for (int i = 0; i < ITEMS; i += batchSize) { sketch.updateItems(strings, i, batchSize); }
+    return sketch;
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.kll.ConcurrentHeapKllDoublesBuffer;
+import org.apache.datasketches.kll.ConcurrentSharedKllDoublesSketch;
+import org.apache.datasketches.kll.KllDoublesSketch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Multi-threaded update latency of one KLL doubles sketch.
+ * One operation is n updates split evenly over the given number of threads, including the
+ * final flush of the local buffers of the concurrent sketch, so lower is better and the results
+ * for different numbers of threads are directly comparable.
+ * The baseline is a single KllDoublesSketch whose update is synchronized.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KllConcurrentBenchmark {
+
+  @Param({"1", "4", "16", "64"})
+  int threads;
+
+  @Param({"200"})
+  int k;
+
+  @Param({"1000000"})
+  int n;
+
+  private double[] stream;
+  private ExecutorService writers;
+  private ExecutorService propagators;
+
+  @Setup
+  public void setup() {
+    final Random rand = new Random(1);
+    stream = new double[n];
+    for (int i = 0; i < n; i++) { stream[i] = rand.nextDouble(); }
+    writers = Executors.newFixedThreadPool(threads);
+    propagators = Executors.newFixedThreadPool(2);
+  }
+
+  @TearDown
+  public void tearDown() {
+    writers.shutdown();
+    propagators.shutdown();
+  }
+
+  @Benchmark
+  public KllDoublesSketch synchronizedUpdate() throws Exception {
+    final KllDoublesSketch sketch = KllDoublesSketch.newHeapInstance(k);
+    final Future<?>[] futures = new Future<?>[threads];
+    for (int t = 0; t < threads; t++) {
+      final int first = t;
+      futures[t] = writers.submit(() -> {
+        for (int i = first; i < n; i += threads) {
+          synchronized (sketch) { sketch.update(stream[i]); }
+        }
+      });
+    }
+    for (final Future<?> f : futures) { f.get(); }
+    return sketch;
+  }
+
+  @Benchmark
+  public ConcurrentSharedKllDoublesSketch concurrentUpdate() throws Exception {
+    final ConcurrentSharedKllDoublesSketch shared = ConcurrentSharedKllDoublesSketch.newHeapInstance(k, propagators);
+    final Future<?>[] futures = new Future<?>[threads];
+    for (int t = 0; t < threads; t++) {
+      final int first = t;
+      futures[t] = writers.submit(() -> {
+        final ConcurrentHeapKllDoublesBuffer local = shared.newLocalBuffer();
+        for (int i = first; i < n; i += threads) { local.update(stream[i]); }
+        local.flush();
+      });
+    }
+    for (final Future<?> f : futures) { f.get(); }
+    return shared;
+  }
+
+}
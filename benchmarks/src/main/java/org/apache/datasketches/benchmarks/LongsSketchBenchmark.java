@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.frequencies.ErrorType;
+import org.apache.datasketches.frequencies.LongsSketch;
+import org.apache.datasketches.memory.Memory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Update, merge, serialization and query latency of the frequent items longs sketch.
+ * The stream is drawn from a skewed distribution so there are heavy hitters to find.
+ * See {@link HllSketchBenchmark} for the meaning of one operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LongsSketchBenchmark {
+  static final int NUM_SKETCHES = 16;
+
+  @Param({"1024", "16384"})
+  int maxMapSize;
+
+  @Param({"1000", "1000000"})
+  int n;
+
+  private long[] stream;
+  private LongsSketch[] sketches;
+  private Memory mem;
+
+  @Setup
+  public void setup() {
+    final Random rand = new Random(1);
+    stream = new long[n];
+    for (int i = 0; i < n; i++) { stream[i] = skewed(rand); }
+    sketches = new LongsSketch[NUM_SKETCHES];
+    for (int s = 0; s < NUM_SKETCHES; s++) {
+      sketches[s] = new LongsSketch(maxMapSize);
+      for (int i = 0; i < n; i++) { sketches[s].update(skewed(rand)); }
+    }
+    mem = Memory.wrap(sketches[0].toByteArray());
+  }
+
+  private static long skewed(final Random rand) {
+    return (long) Math.exp(rand.nextDouble() * 20);
+  }
+
+  @Benchmark
+  public LongsSketch update() {
+    final LongsSketch sk = new LongsSketch(maxMapSize);
+    for (int i = 0; i < n; i++) { sk.update(stream[i]); }
+    return sk;
+  }
+
+  @Benchmark
+  public LongsSketch merge() {
+    final LongsSketch union = new LongsSketch(maxMapSize);
+    for (int s = 0; s < NUM_SKETCHES; s++) { union.merge(sketches[s]); }
+    return union;
+  }
+
+  @Benchmark
+  public byte[] serialize() {
+    return sketches[0].toByteArray();
+  }
+
+  @Benchmark
+  public LongsSketch heapify() {
+    return LongsSketch.getInstance(mem);
+  }
+
+  @Benchmark
+  public Object frequentItems() {
+    return sketches[0].getFrequentItems(ErrorType.NO_FALSE_POSITIVES);
+  }
+}
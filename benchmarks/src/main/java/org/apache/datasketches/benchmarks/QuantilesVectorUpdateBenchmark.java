@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.req.ReqSketch;
+import org.apache.datasketches.tdigest.TDigestDouble;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the t-digest and REQ vector update methods against a loop of single item updates.
+ * The item loops walk the same batch boundaries as the vector updates, so each batch size is a
+ * like-for-like comparison. Scores are in operations per microsecond, where one operation is one item.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@OperationsPerInvocation(QuantilesVectorUpdateBenchmark.ITEMS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuantilesVectorUpdateBenchmark {
+  static final int ITEMS = 1 << 16;
+
+  @Param({"16", "256", "4096", "65536"})
+  int batchSize;
+
+  private TDigestDouble tdigest;
+  private ReqSketch req;
+  private double[] doubles;
+  private float[] floats;
+
+  @Setup(Level.Trial)
+  public void setupTrial() {
+    tdigest = new TDigestDouble((short) 200);
+    req = ReqSketch.builder().setK(12).build();
+    doubles = new double[ITEMS];
+    floats = new float[ITEMS];
+    final Random rand = new Random(1);
+    for (int i = 0; i < ITEMS; i++) {
+      doubles[i] = rand.nextDouble();
+      floats[i] = (float) doubles[i];
+    }
+  }
+
+  @Benchmark
+  public TDigestDouble tdigestItemLoop() {
+    for (int i = 0; i < ITEMS; i += batchSize) {
+      for (int j = i; j < (i + batchSize); j++) { tdigest.update(doubles[j]); }
+    }
+    return tdigest;
+  }
+
+  @Benchmark
+  public TDigestDouble tdigestVector() {
+    for (int i = 0; i < ITEMS; i += batchSize) { tdigest.update(doubles, i, batchSize); }
+    return tdigest;
+  }
+
+  @Benchmark
+  public ReqSketch reqItemLoop() {
+    for (int i = 0; i < ITEMS; i += batchSize) {
+      for (int j = i; j < (i + batchSize); j++) { req.update(floats[j]); }
+    }
+    return req;
+  }
+
+  @Benchmark
+  public ReqSketch reqVector() {
+    for (int i = 0; i < ITEMS; i += batchSize) { req.update(floats, i, batchSize); }
+    return req;
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.tdigest.TDigestDouble;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Update, merge, serialization and query latency of the t-digest.
+ * See {@link HllSketchBenchmark} for the meaning of one operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TDigestDoubleBenchmark {
+  static final int NUM_SKETCHES = 16;
+
+  @Param({"100", "200"})
+  short k;
+
+  @Param({"1000", "1000000"})
+  int n;
+
+  private double[] stream;
+  private TDigestDouble[] sketches;
+  private Memory mem;
+
+  @Setup
+  public void setup() {
+    final Random rand = new Random(1);
+    stream = new double[n];
+    for (int i = 0; i < n; i++) { stream[i] = rand.nextDouble(); }
+    sketches = new TDigestDouble[NUM_SKETCHES];
+    for (int s = 0; s < NUM_SKETCHES; s++) {
+      sketches[s] = new TDigestDouble(k);
+      for (int i = 0; i < n; i++) { sketches[s].update(rand.nextDouble()); }
+    }
+    mem = Memory.wrap(sketches[0].toByteArray());
+  }
+
+  @Benchmark
+  public TDigestDouble update() {
+    final TDigestDouble sk = new TDigestDouble(k);
+    for (int i = 0; i < n; i++) { sk.update(stream[i]); }
+    return sk;
+  }
+
+  @Benchmark
+  public TDigestDouble merge() {
+    final TDigestDouble union = new TDigestDouble(k);
+    for (int s = 0; s < NUM_SKETCHES; s++) { union.merge(sketches[s]); }
+    return union;
+  }
+
+  @Benchmark
+  public byte[] serialize() {
+    return sketches[0].toByteArray();
+  }
+
+  @Benchmark
+  public TDigestDouble heapify() {
+    return TDigestDouble.heapify(mem);
+  }
+
+  @Benchmark
+  public double quantile() {
+    return sketches[0].getQuantile(0.99);
+  }
+
+  @Benchmark
+  public double quantileAfterUpdate() {
+    sketches[0].update(0.5);
+    return sketches[0].getQuantile(0.99);
+  }
+}
@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.benchmarks;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+import org.apache.datasketches.theta.AnotB;
+import org.apache.datasketches.theta.CompactSketch;
+import org.apache.datasketches.theta.Intersection;
+import org.apache.datasketches.theta.OrderedCompactAnotB;
+import org.apache.datasketches.theta.OrderedCompactIntersection;
+import org.apache.datasketches.theta.OrderedCompactUnion;
+import org.apache.datasketches.theta.SetOperation;
+import org.apache.datasketches.theta.SetOperationBuilder;
+import org.apache.datasketches.theta.Sketch;
+import org.apache.datasketches.theta.Union;
+import org.apache.datasketches.theta.UpdateSketch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Update, set operation, serialization and query latency of the Theta sketch.
+ * See {@link HllSketchBenchmark} for the meaning of one operation.
+ * Adjacent sketches overlap by half of their items so the intersection is not empty.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ThetaSketchBenchmark {
+  static final int NUM_SKETCHES = 16;
+
+  @Param({"12", "16"})
+  int lgK;
+
+  @Param({"1000", "1000000"})
+  int n;
+
+  private CompactSketch[] sketches;
+  private Memory[] images;
+  private Memory[] compressedImages;
+  private UpdateSketch updateSketch;
+  private List<Memory> imageList;
+  private SetOperationBuilder unionBuilder;
+  private WritableMemory dstMem;
+
+  @Setup
+  public void setup() {
+    sketches = new CompactSketch[NUM_SKETCHES];
+    images = new Memory[NUM_SKETCHES];
+    compressedImages = new Memory[NUM_SKETCHES];
+    for (int s = 0; s < NUM_SKETCHES; s++) {
+      final UpdateSketch sk = UpdateSketch.builder().setNominalEntries(1 << lgK).build();
+      final long start = (long) s * (n / 2);
+      for (int i = 0; i < n; i++) { sk.update(start + i); }
+      if (s == 0) { updateSketch = sk; }
+      sketches[s] = sk.compact();
+      images[s] = Memory.wrap(sketches[s].toByteArray());
+      compressedImages[s] = Memory.wrap(sketches[s].toByteArrayCompressed());
+    }
+    imageList = Arrays.asList(images);
+    unionBuilder = SetOperation.builder().setNominalEntries(1 << lgK);
+    dstMem = WritableMemory.allocate(Sketch.getCompactSketchMaxBytes(lgK));
+  }
+
+  @Benchmark
+  public UpdateSketch update() {
+    final UpdateSketch sk = UpdateSketch.builder().setNominalEntries(1 << lgK).build();
+    for (int i = 0; i < n; i++) { sk.update(i); }
+    return sk;
+  }
+
+  @Benchmark
+  public CompactSketch union() {
+    final Union union = SetOperation.builder().setNominalEntries(1 << lgK).buildUnion();
+    for (int s = 0; s < NUM_SKETCHES; s++) { union.union(sketches[s]); }
+    return union.getResult();
+  }
+
+  @Benchmark
+  public CompactSketch unionMemory() {
+    final Union union = SetOperation.builder().setNominalEntries(1 << lgK).buildUnion();
+    for (int s = 0; s < NUM_SKETCHES; s++) { union.union(images[s]); }
+    return union.getResult();
+  }
+
+  @Benchmark
+  public CompactSketch unionMemoryToMemory() {
+    final Union union = unionBuilder.buildUnion();
+    for (int s = 0; s < NUM_SKETCHES; s++) { union.union(images[s]); }
+    return union.getResult(true, dstMem);
+  }
+
+  @Benchmark
+  public CompactSketch unionCompressed() {
+    final Union union = unionBuilder.buildUnion();
+    for (int s = 0; s < NUM_SKETCHES; s++) { union.union(compressedImages[s]); }
+    return union.getResult();
+  }
+
+  @Benchmark
+  public CompactSketch unionOrderedCompact() {
+    return OrderedCompactUnion.union(imageList, unionBuilder, dstMem);
+  }
+
+  @Benchmark
+  public CompactSketch intersect() {
+    final Intersection inter = SetOperation.builder().buildIntersection();
+    inter.intersect(sketches[0]);
+    inter.intersect(sketches[1]);
+    return inter.getResult();
+  }
+
+  @Benchmark
+  public CompactSketch intersectMemoryToMemory() {
+    final Intersection inter = unionBuilder.buildIntersection();
+    for (int s = 0; s < NUM_SKETCHES; s++) { inter.intersect(Sketch.wrap(images[s])); }
+    return inter.getResult(true, dstMem);
+  }
+
+  @Benchmark
+  public CompactSketch intersectOrderedCompact() {
+    return OrderedCompactIntersection.intersect(imageList, unionBuilder, dstMem);
+  }
+
+  @Benchmark
+  public CompactSketch aNotBMemoryToMemory() {
+    final AnotB aNotB = unionBuilder.buildANotB();
+    aNotB.setA(Sketch.wrap(images[0]));
+    for (int s = 1; s < NUM_SKETCHES; s++) { aNotB.notB(Sketch.wrap(images[s])); }
+    return aNotB.getResult(true, dstMem, false);
+  }
+
+  @Benchmark
+  public CompactSketch aNotBOrderedCompact() {
+    return OrderedCompactAnotB.aNotB(images[0], imageList.subList(1, NUM_SKETCHES), unionBuilder, dstMem);
+  }
+
+  @Benchmark
+  public CompactSketch compact() {
+    return updateSketch.compact();
+  }
+
+  @Benchmark
+  public byte[] serialize() {
+    return sketches[0].toByteArray();
+  }
+
+  @Benchmark
+  public Sketch heapify() {
+    return Sketch.heapify(images[0]);
+  }
+
+  @Benchmark
+  public double wrapAndEstimate() {
+    return Sketch.wrap(images[0]).getEstimate();
+  }
+
+  @Benchmark
+  public double wrapCompressedEstimate() {
+    return Sketch.wrap(compressedImages[0]).getEstimate();
+  }
+
+  @Benchmark
+  public double estimate() {
+    return sketches[0].getEstimate();
+  }
+}
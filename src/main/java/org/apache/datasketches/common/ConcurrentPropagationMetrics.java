@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.common;
+
+import static org.apache.datasketches.common.Util.LS;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live counters describing the background propagation of a concurrent shared sketch and of the
+ * local buffers attached to it. An instance is owned by the {@link ConcurrentPropagator} of the
+ * shared sketch and is obtained from the <i>getPropagationMetrics()</i> method of the shared
+ * sketch, or for theta sketches of any of its local buffers as well. All values are read without
+ * locking and may be slightly stale.
+ *
+ * <p>Only background (lazy) propagations are counted here. Eager propagations, performed by the
+ * updating thread itself while a shared theta sketch is in exact mode, complete synchronously and
+ * never become pending.</p>
+ */
+public final class ConcurrentPropagationMetrics {
+  private final AtomicLong pending = new AtomicLong();
+  private final LongAdder submitted = new LongAdder();
+  private final LongAdder completed = new LongAdder();
+  private final LongAdder totalLatencyNanos = new LongAdder();
+  private final AtomicLong maxLatencyNanos = new AtomicLong();
+  private final LongAdder localBlocked = new LongAdder();
+  private final LongAdder localBlockedNanos = new LongAdder();
+
+  ConcurrentPropagationMetrics() { }
+
+  /**
+   * Returns the number of background propagations that have been handed to the executor but have
+   * not yet completed.
+   * @return the number of pending background propagations
+   */
+  public long getPendingPropagations() {
+    return pending.get();
+  }
+
+  /**
+   * Returns the total number of background propagations handed to the executor.
+   * @return the total number of submitted background propagations
+   */
+  public long getSubmittedPropagations() {
+    return submitted.sum();
+  }
+
+  /**
+   * Returns the total number of background propagations that have completed, including those
+   * discarded because the shared sketch was reset after they were submitted.
+   * @return the total number of completed background propagations
+   */
+  public long getCompletedPropagations() {
+    return completed.sum();
+  }
+
+  /**
+   * Returns the sum of the latencies of all completed background propagations, in nanoseconds.
+   * The latency of a propagation is measured from its submission to the executor until it has been
+   * absorbed by the shared sketch, so it includes the time spent queued in the executor.
+   * @return the total propagation latency in nanoseconds
+   */
+  public long getTotalPropagationLatencyNanos() {
+    return totalLatencyNanos.sum();
+  }
+
+  /**
+   * Returns the mean latency of the completed background propagations, in nanoseconds,
+   * or zero if none has completed.
+   * @return the mean propagation latency in nanoseconds
+   */
+  public double getMeanPropagationLatencyNanos() {
+    final long n = completed.sum();
+    return (n == 0) ? 0.0 : (double) totalLatencyNanos.sum() / n;
+  }
+
+  /**
+   * Returns the largest latency of any completed background propagation, in nanoseconds.
+   * @return the maximum propagation latency in nanoseconds
+   */
+  public long getMaxPropagationLatencyNanos() {
+    return maxLatencyNanos.get();
+  }
+
+  /**
+   * Returns the number of times a local buffer had to wait for its previous propagation to be
+   * absorbed by the shared sketch before it could propagate again.
+   * @return the number of times a local buffer blocked on the shared sketch
+   */
+  public long getLocalBufferBlockedCount() {
+    return localBlocked.sum();
+  }
+
+  /**
+   * Returns the total time local buffers spent blocked on the shared sketch, in nanoseconds.
+   * @return the total local buffer blocked time in nanoseconds
+   */
+  public long getLocalBufferBlockedNanos() {
+    return localBlockedNanos.sum();
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder();
+    sb.append("### ").append(this.getClass().getSimpleName()).append(" SUMMARY: ").append(LS);
+    sb.append("   Pending Propagations        : ").append(getPendingPropagations()).append(LS);
+    sb.append("   Submitted Propagations      : ").append(getSubmittedPropagations()).append(LS);
+    sb.append("   Completed Propagations      : ").append(getCompletedPropagations()).append(LS);
+    sb.append("   Mean Latency (us)           : ")
+      .append(getMeanPropagationLatencyNanos() / 1000.0).append(LS);
+    sb.append("   Max Latency (us)            : ")
+      .append(TimeUnit.NANOSECONDS.toMicros(getMaxPropagationLatencyNanos())).append(LS);
+    sb.append("   Local Buffer Blocked Count  : ").append(getLocalBufferBlockedCount()).append(LS);
+    sb.append("   Local Buffer Blocked (us)   : ")
+      .append(TimeUnit.NANOSECONDS.toMicros(getLocalBufferBlockedNanos())).append(LS);
+    sb.append("### END SKETCH SUMMARY").append(LS);
+    return sb.toString();
+  }
+
+  //restricted
+
+  long propagationSubmitted() {
+    pending.incrementAndGet();
+    submitted.increment();
+    return System.nanoTime();
+  }
+
+  long propagationCompleted(final long submitNanos) {
+    final long latency = System.nanoTime() - submitNanos;
+    totalLatencyNanos.add(latency);
+    maxLatencyNanos.accumulateAndGet(latency, Math::max);
+    completed.increment();
+    return pending.decrementAndGet();
+  }
+
+  void localBufferBlocked(final long blockedNanos) {
+    localBlocked.increment();
+    localBlockedNanos.add(blockedNanos);
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.common;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The background propagation machinery of a concurrent shared sketch. Local buffers, each updated
+ * by a single thread, hand their content to the shared sketch, which absorbs it with jobs run by
+ * this propagator, one at a time and in submission order, on the given Executor.
+ * The {@link ConcurrentPropagationMetrics} of the shared sketch are kept here.
+ *
+ * <p>The shared sketch absorbs the content of a buffer while holding its own lock, and discards it
+ * if {@link #isCurrentEpoch(long)} is false for the epoch at which the propagation started. Its
+ * <i>reset()</i> calls {@link #advanceEpoch()} while holding the same lock, so a propagation
+ * started before a reset cannot affect the sketch after it.</p>
+ */
+public final class ConcurrentPropagator {
+  static final int NUM_POOL_THREADS = 3;
+
+  private final Executor executor_;
+  private final ConcurrentPropagationMetrics metrics_;
+  private final AtomicLong epoch_;
+
+  // Signalled whenever the last pending propagation completes
+  private final Object idle_;
+
+  /**
+   * Creates a new propagator.
+   * @param executor the Executor that runs the propagations. Any Executor may be given, since the
+   * propagations of one shared sketch are never run concurrently. If it rejects a propagation, the
+   * submitting thread runs it. The executor is never shut down by the propagator. If null, an
+   * internal pool of daemon threads, shared by all propagators, is used.
+   */
+  public ConcurrentPropagator(final Executor executor) {
+    executor_ = new ConcurrentSerialExecutor(executor == null ? DefaultPool.POOL : executor);
+    metrics_ = new ConcurrentPropagationMetrics();
+    epoch_ = new AtomicLong();
+    idle_ = new Object();
+  }
+
+  /**
+   * Returns the propagation metrics of the shared sketch.
+   * @return the propagation metrics of the shared sketch
+   */
+  public ConcurrentPropagationMetrics getMetrics() {
+    return metrics_;
+  }
+
+  /**
+   * Returns the current epoch. An epoch defines an interval between two resets of the shared sketch.
+   * @return the current epoch
+   */
+  public long getEpoch() {
+    return epoch_.get();
+  }
+
+  /**
+   * Returns true if the given epoch is the current epoch.
+   * @param epoch the epoch at which a propagation started
+   * @return true if the given epoch is the current epoch
+   */
+  public boolean isCurrentEpoch(final long epoch) {
+    return epoch_.get() == epoch;
+  }
+
+  /**
+   * Starts a new epoch. Called by the shared sketch when it is reset.
+   */
+  public void advanceEpoch() {
+    epoch_.incrementAndGet();
+  }
+
+  /**
+   * Runs the given absorption of the content of a local buffer in the background, then clears
+   * the propagation flag of the local buffer.
+   * @param localPropagationInProgress the propagation flag of the local buffer
+   * @param absorb the absorption of the buffer content into the shared sketch
+   */
+  public void propagate(final AtomicBoolean localPropagationInProgress, final Runnable absorb) {
+    executor_.execute(track(absorb, localPropagationInProgress));
+  }
+
+  /**
+   * Runs the given propagation job in the background on the executor of this propagator.
+   * @param job the propagation job
+   */
+  public void execute(final Runnable job) {
+    executor_.execute(track(job, null));
+  }
+
+  /**
+   * Runs the given propagation job on the given executor instead of the executor of this
+   * propagator. The caller is responsible for not running propagations of the same shared sketch
+   * concurrently. If the executor rejects the job, the calling thread runs it.
+   * @param executor the executor for this job
+   * @param job the propagation job
+   */
+  public void execute(final Executor executor, final Runnable job) {
+    final Runnable tracked = track(job, null);
+    try {
+      executor.execute(tracked);
+    } catch (final RejectedExecutionException e) {
+      tracked.run();
+    }
+  }
+
+  /**
+   * Waits until every propagation submitted so far has completed. If the waiting thread is
+   * interrupted, this returns early with the interrupt status set.
+   */
+  public void awaitPropagation() {
+    synchronized (idle_) {
+      try {
+        while (metrics_.getPendingPropagations() > 0) {
+          idle_.wait();
+        }
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Waits until the previous propagation of a local buffer has completed, recording in the
+   * metrics whenever the buffer actually had to wait.
+   * @param localPropagationInProgress the propagation flag of the local buffer
+   */
+  public void awaitLocalPropagation(final AtomicBoolean localPropagationInProgress) {
+    if (!localPropagationInProgress.get()) { return; }
+    final long start = System.nanoTime();
+    while (localPropagationInProgress.get()) {
+      Thread.yield();
+    } //wait until previous propagation completed
+    metrics_.localBufferBlocked(System.nanoTime() - start);
+  }
+
+  //restricted
+
+  // The completion is recorded before the flag of the local buffer, if any, is cleared, so a
+  // flushed buffer never observes its own propagation as pending.
+  private Runnable track(final Runnable job, final AtomicBoolean localPropagationInProgress) {
+    final long submitNanos = metrics_.propagationSubmitted();
+    return () -> {
+      try {
+        job.run();
+      } finally {
+        final long pending = metrics_.propagationCompleted(submitNanos);
+        if (localPropagationInProgress != null) { localPropagationInProgress.set(false); }
+        if (pending == 0) {
+          synchronized (idle_) {
+            idle_.notifyAll();
+          }
+        }
+      }
+    };
+  }
+
+  private static final class DefaultPool {
+    static final ExecutorService POOL = Executors.newFixedThreadPool(NUM_POOL_THREADS, runnable -> {
+      final Thread thread = new Thread(runnable, "datasketches-propagation");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.common;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs the background propagations of one shared sketch one at a time, in submission order, on a
+ * caller-supplied Executor. The shared sketch is not safe for concurrent background propagation, so
+ * a multi-threaded executor (or one that starts a new virtual thread per task) cannot be given the
+ * propagation jobs directly.
+ *
+ * <p>At most one drain task is outstanding on the delegate at any time, and it gives its thread
+ * back after a bounded number of jobs so that a shared pool is not monopolized. If the delegate
+ * rejects the drain task the submitting thread drains the queue itself, which applies back pressure
+ * to the local buffers instead of losing propagations. Any other failure of the delegate is rethrown
+ * to the submitting thread, and the job stays queued for the next submission.</p>
+ */
+final class ConcurrentSerialExecutor implements Executor {
+  static final int MAX_JOBS_PER_DRAIN = 64;
+
+  private final Executor delegate;
+  private final Queue<Runnable> jobs = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean draining = new AtomicBoolean(false);
+
+  ConcurrentSerialExecutor(final Executor delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public void execute(final Runnable job) {
+    jobs.add(job);
+    scheduleDrain();
+  }
+
+  private void scheduleDrain() {
+    if (!draining.compareAndSet(false, true)) { return; }
+    try {
+      delegate.execute(this::drain);
+    } catch (final RejectedExecutionException e) {
+      drain(); //caller runs
+    } catch (final RuntimeException | Error e) {
+      draining.set(false); //the job stays queued for the next execute
+      throw e;
+    }
+  }
+
+  private void drain() {
+    try {
+      Runnable job;
+      int n = 0;
+      while ((n++ < MAX_JOBS_PER_DRAIN) && ((job = jobs.poll()) != null)) {
+        job.run();
+      }
+    } finally {
+      draining.set(false);
+      if (!jobs.isEmpty()) { scheduleDrain(); }
+    }
+  }
+}
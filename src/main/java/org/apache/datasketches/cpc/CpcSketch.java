@@ -85,6 +85,9 @@ public final class CpcSketch {
   double kxp;                  //used with HIP
   double hipEstAccum;          //used with HIP
 
+  //scratch space for the 128-bit hash of the current update, avoids an allocation per update
+  private final long[] hashOut = new long[2];
+
   /**
    * Constructor with default log_base2 of k
    */
@@ -309,8 +312,7 @@ public final class CpcSketch {
    * @param datum The given long datum.
    */
   public void update(final long datum) {
-    final long[] data = { datum };
-    final long[] arr = hash(data, seed);
+    final long[] arr = hash(datum, seed, hashOut);
     hashUpdate(arr[0], arr[1]);
   }
 
@@ -325,8 +327,8 @@ public final class CpcSketch {
    */
   public void update(final double datum) {
     final double d = (datum == 0.0) ? 0.0 : datum; // canonicalize -0.0, 0.0
-    final long[] data = { Double.doubleToLongBits(d) };// canonicalize all NaN forms
-    final long[] arr = hash(data, seed);
+    final long data = Double.doubleToLongBits(d);// canonicalize all NaN forms
+    final long[] arr = hash(data, seed, hashOut);
     hashUpdate(arr[0], arr[1]);
   }
 
@@ -347,7 +349,7 @@ public final class CpcSketch {
   public void update(final String datum) {
     if ((datum == null) || datum.isEmpty()) { return; }
     final byte[] data = datum.getBytes(UTF_8);
-    final long[] arr = hash(data, seed);
+    final long[] arr = hash(data, seed, hashOut);
     hashUpdate(arr[0], arr[1]);
   }
 
@@ -359,7 +361,7 @@ public final class CpcSketch {
    */
   public void update(final byte[] data) {
     if ((data == null) || (data.length == 0)) { return; }
-    final long[] arr = hash(data, seed);
+    final long[] arr = hash(data, seed, hashOut);
     hashUpdate(arr[0], arr[1]);
   }
 
@@ -371,7 +373,7 @@ public final class CpcSketch {
    */
   public void update(final ByteBuffer data) {
     if ((data == null) || data.hasRemaining() == false) { return; }
-    final long[] arr = hash(data, seed);
+    final long[] arr = hash(data, seed, hashOut);
     hashUpdate(arr[0], arr[1]);
   }
 
@@ -386,7 +388,7 @@ public final class CpcSketch {
    */
   public void update(final char[] data) {
     if ((data == null) || (data.length == 0)) { return; }
-    final long[] arr = hash(data, seed);
+    final long[] arr = hash(data, seed, hashOut);
     hashUpdate(arr[0], arr[1]);
   }
 
@@ -398,7 +400,7 @@ public final class CpcSketch {
    */
   public void update(final int[] data) {
     if ((data == null) || (data.length == 0)) { return; }
-    final long[] arr = hash(data, seed);
+    final long[] arr = hash(data, seed, hashOut);
     hashUpdate(arr[0], arr[1]);
   }
 
@@ -410,7 +412,7 @@ public final class CpcSketch {
    */
   public void update(final long[] data) {
     if ((data == null) || (data.length == 0)) { return; }
-    final long[] arr = hash(data, seed);
+    final long[] arr = hash(data, seed, hashOut);
     hashUpdate(arr[0], arr[1]);
   }
 
@@ -63,6 +63,11 @@ import org.apache.datasketches.memory.Memory;
  * be greater than the entropy of the input. For example, if the input is only a single long of 64 bits,
  * the entropy of the resulting 128 bit hash is no greater than 64 bits.
  *
+ * <p>For high-rate update paths there are two variants of each <i>hash</i> method that do not
+ * allocate a result array: <i>hash(..., hashOut)</i> writes both halves of the 128-bit result into
+ * a caller-supplied array, and <i>hash64(...)</i> returns only the first 64 bits.
+ * Both produce exactly the same bits as the allocating methods.</p>
+ *
  * @author Lee Rhodes
  */
 public final class MurmurHash3 implements Serializable {
@@ -79,8 +84,33 @@ public final class MurmurHash3 implements Serializable {
    * @return a 128-bit hash of the input as a long array of size 2.
    */
   public static long[] hash(final long key, final long seed) {
-    final HashState hashState = new HashState(seed, seed);
-    return hashState.finalMix128(key, 0, Long.BYTES);
+    return hash(key, seed, new long[2]);
+  }
+
+  /**
+   * Hash the given long into the given output array. No result array is allocated.
+   *
+   * @param key The input long.
+   * @param seed A long valued seed.
+   * @param hashOut a caller-supplied array of at least size 2 that receives the 128-bit hash.
+   * @return the given hashOut array.
+   */
+  public static long[] hash(final long key, final long seed, final long[] hashOut) {
+    Objects.requireNonNull(hashOut);
+    finalMix128(seed, seed, key, 0, Long.BYTES, hashOut);
+    return hashOut;
+  }
+
+  /**
+   * Returns the first 64 bits of the 128-bit hash of the given long without allocating a
+   * result array. This is the same as <i>hash(key, seed)[0]</i>.
+   *
+   * @param key The input long.
+   * @param seed A long valued seed.
+   * @return the first 64 bits of the 128-bit hash of the input.
+   */
+  public static long hash64(final long key, final long seed) {
+    return finalMix128(seed, seed, key, 0, Long.BYTES, null);
   }
 
   //--Hash of long[]-------------------------------------------------------
@@ -95,6 +125,18 @@ public final class MurmurHash3 implements Serializable {
     return hash(key, 0, key.length, seed);
   }
 
+  /**
+   * Hash the given long[] array into the given output array. No result array is allocated.
+   *
+   * @param key The input long[] array. It must be non-null and non-empty.
+   * @param seed A long valued seed.
+   * @param hashOut a caller-supplied array of at least size 2 that receives the 128-bit hash.
+   * @return the given hashOut array.
+   */
+  public static long[] hash(final long[] key, final long seed, final long[] hashOut) {
+    return hash(key, 0, key.length, seed, hashOut);
+  }
+
   /**
    * Hash a portion of the given long[] array.
    *
@@ -105,11 +147,60 @@ public final class MurmurHash3 implements Serializable {
    * @return a 128-bit hash of the input as a long array of size 2
    */
   public static long[] hash(final long[] key, final int offsetLongs, final int lengthLongs, final long seed) {
+    return hash(key, offsetLongs, lengthLongs, seed, new long[2]);
+  }
+
+  /**
+   * Hash a portion of the given long[] array into the given output array. No result array is allocated.
+   *
+   * @param key The input long[] array. It must be non-null and non-empty.
+   * @param offsetLongs the starting offset in longs.
+   * @param lengthLongs the length in longs of the portion of the array to be hashed.
+   * @param seed A long valued seed.
+   * @param hashOut a caller-supplied array of at least size 2 that receives the 128-bit hash.
+   * @return the given hashOut array.
+   */
+  public static long[] hash(final long[] key, final int offsetLongs, final int lengthLongs, final long seed,
+      final long[] hashOut) {
+    Objects.requireNonNull(hashOut);
+    hashLongs(key, offsetLongs, lengthLongs, seed, hashOut);
+    return hashOut;
+  }
+
+  /**
+   * Returns the first 64 bits of the 128-bit hash of the given long[] array without allocating a
+   * result array. This is the same as <i>hash(key, seed)[0]</i>.
+   *
+   * @param key The input long[] array. It must be non-null and non-empty.
+   * @param seed A long valued seed.
+   * @return the first 64 bits of the 128-bit hash of the input.
+   */
+  public static long hash64(final long[] key, final long seed) {
+    return hashLongs(key, 0, key.length, seed, null);
+  }
+
+  /**
+   * Returns the first 64 bits of the 128-bit hash of a portion of the given long[] array without
+   * allocating a result array. This is the same as <i>hash(key, offsetLongs, lengthLongs, seed)[0]</i>.
+   *
+   * @param key The input long[] array. It must be non-null and non-empty.
+   * @param offsetLongs the starting offset in longs.
+   * @param lengthLongs the length in longs of the portion of the array to be hashed.
+   * @param seed A long valued seed.
+   * @return the first 64 bits of the 128-bit hash of the input.
+   */
+  public static long hash64(final long[] key, final int offsetLongs, final int lengthLongs, final long seed) {
+    return hashLongs(key, offsetLongs, lengthLongs, seed, null);
+  }
+
+  private static long hashLongs(final long[] key, final int offsetLongs, final int lengthLongs, final long seed,
+      final long[] hashOut) {
     Objects.requireNonNull(key);
     final int arrLen = key.length;
     checkPositive(arrLen);
     Util.checkBounds(offsetLongs, lengthLongs, arrLen);
-    final HashState hashState = new HashState(seed, seed);
+    long h1 = seed;
+    long h2 = seed;
 
     // Number of full 128-bit blocks of 2 longs (the body).
     // Possible exclusion of a remainder of 1 long.
@@ -119,7 +210,8 @@ public final class MurmurHash3 implements Serializable {
     for (int i = 0; i < nblocks; i++ ) {
       final long k1 = key[offsetLongs + (i << 1)]; //offsetLongs + 0, 2, 4, ...
       final long k2 = key[offsetLongs + (i << 1) + 1]; //offsetLongs + 1, 3, 5, ...
-      hashState.blockMix128(k1, k2);
+      h1 = blockMixH1(h1, h2, k1);
+      h2 = blockMixH2(h2, h1, k2);
     }
 
     // Get the tail index wrt hashed portion, remainder length
@@ -129,7 +221,7 @@ public final class MurmurHash3 implements Serializable {
     // Get the tail
     final long k1 = rem == 0 ? 0 : key[offsetLongs + tail]; //k2 -> 0
     // Mix the tail into the hash and return
-    return hashState.finalMix128(k1, 0, lengthLongs << 3); //convert to bytes
+    return finalMix128(h1, h2, k1, 0, lengthLongs << 3, hashOut); //convert to bytes
   }
 
   //--Hash of int[]--------------------------------------------------------
@@ -144,6 +236,18 @@ public final class MurmurHash3 implements Serializable {
     return hash(key, 0, key.length, seed);
   }
 
+  /**
+   * Hash the given int[] array into the given output array. No result array is allocated.
+   *
+   * @param key The input int[] array. It must be non-null and non-empty.
+   * @param seed A long valued seed.
+   * @param hashOut a caller-supplied array of at least size 2 that receives the 128-bit hash.
+   * @return the given hashOut array.
+   */
+  public static long[] hash(final int[] key, final long seed, final long[] hashOut) {
+    return hash(key, 0, key.length, seed, hashOut);
+  }
+
   /**
    * Hash a portion of the given int[] array.
    *
@@ -154,11 +258,60 @@ public final class MurmurHash3 implements Serializable {
    * @return a 128-bit hash of the input as a long array of size 2.
    */
   public static long[] hash(final int[] key, final int offsetInts, final int lengthInts, final long seed) {
+    return hash(key, offsetInts, lengthInts, seed, new long[2]);
+  }
+
+  /**
+   * Hash a portion of the given int[] array into the given output array. No result array is allocated.
+   *
+   * @param key The input int[] array. It must be non-null and non-empty.
+   * @param offsetInts the starting offset in ints.
+   * @param lengthInts the length in ints of the portion of the array to be hashed.
+   * @param seed A long valued seed.
+   * @param hashOut a caller-supplied array of at least size 2 that receives the 128-bit hash.
+   * @return the given hashOut array.
+   */
+  public static long[] hash(final int[] key, final int offsetInts, final int lengthInts, final long seed,
+      final long[] hashOut) {
+    Objects.requireNonNull(hashOut);
+    hashInts(key, offsetInts, lengthInts, seed, hashOut);
+    return hashOut;
+  }
+
+  /**
+   * Returns the first 64 bits of the 128-bit hash of the given int[] array without allocating a
+   * result array. This is the same as <i>hash(key, seed)[0]</i>.
+   *
+   * @param key The input int[] array. It must be non-null and non-empty.
+   * @param seed A long valued seed.
+   * @return the first 64 bits of the 128-bit hash of the input.
+   */
+  public static long hash64(final int[] key, final long seed) {
+    return hashInts(key, 0, key.length, seed, null);
+  }
+
+  /**
+   * Returns the first 64 bits of the 128-bit hash of a portion of the given int[] array without
+   * allocating a result array. This is the same as <i>hash(key, offsetInts, lengthInts, seed)[0]</i>.
+   *
+   * @param key The input int[] array. It must be non-null and non-empty.
+   * @param offsetInts the starting offset in ints.
+   * @param lengthInts the length in ints of the portion of the array to be hashed.
+   * @param seed A long valued seed.
+   * @return the first 64 bits of the 128-bit hash of the input.
+   */
+  public static long hash64(final int[] key, final int offsetInts, final int lengthInts, final long seed) {
+    return hashInts(key, offsetInts, lengthInts, seed, null);
+  }
+
+  private static long hashInts(final int[] key, final int offsetInts, final int lengthInts, final long seed,
+      final long[] hashOut) {
     Objects.requireNonNull(key);
     final int arrLen = key.length;
     checkPositive(arrLen);
     Util.checkBounds(offsetInts, lengthInts, arrLen);
-    final HashState hashState = new HashState(seed, seed);
+    long h1 = seed;
+    long h2 = seed;
 
     // Number of full 128-bit blocks of 4 ints.
     // Possible exclusion of a remainder of up to 3 ints.
@@ -168,7 +321,8 @@ public final class MurmurHash3 implements Serializable {
     for (int i = 0; i < nblocks; i++ ) { //4 ints per block
       final long k1 = getLong(key, offsetInts + (i << 2), 2); //offsetInts + 0, 4, 8, ...
       final long k2 = getLong(key, offsetInts + (i << 2) + 2, 2); //offsetInts + 2, 6, 10, ...
-      hashState.blockMix128(k1, k2);
+      h1 = blockMixH1(h1, h2, k1);
+      h2 = blockMixH2(h2, h1, k2);
     }
 
     // Get the tail index wrt hashed portion, remainder length
@@ -187,7 +341,7 @@ public final class MurmurHash3 implements Serializable {
       k2 = 0;
     }
     // Mix the tail into the hash and return
-    return hashState.finalMix128(k1, k2, lengthInts << 2); //convert to bytes
+    return finalMix128(h1, h2, k1, k2, lengthInts << 2, hashOut); //convert to bytes
   }
 
   //--Hash of char[]-------------------------------------------------------
@@ -202,6 +356,18 @@ public final class MurmurHash3 implements Serializable {
     return hash(key, 0, key.length, seed);
   }
 
+  /**
+   * Hash the given char[] array into the given output array. No result array is allocated.
+   *
+   * @param key The input char[] array. It must be non-null and non-empty.
+   * @param seed A long valued seed.
+   * @param hashOut a caller-supplied array of at least size 2 that receives the 128-bit hash.
+   * @return the given hashOut array.
+   */
+  public static long[] hash(final char[] key, final long seed, final long[] hashOut) {
+    return hash(key, 0, key.length, seed, hashOut);
+  }
+
   /**
    * Hash a portion of the given char[] array.
    *
@@ -212,11 +378,60 @@ public final class MurmurHash3 implements Serializable {
    * @return a 128-bit hash of the input as a long array of size 2
    */
   public static long[] hash(final char[] key, final int offsetChars, final int lengthChars, final long seed) {
+    return hash(key, offsetChars, lengthChars, seed, new long[2]);
+  }
+
+  /**
+   * Hash a portion of the given char[] array into the given output array. No result array is allocated.
+   *
+   * @param key The input char[] array. It must be non-null and non-empty.
+   * @param offsetChars the starting offset in chars.
+   * @param lengthChars the length in chars of the portion of the array to be hashed.
+   * @param seed A long valued seed.
+   * @param hashOut a caller-supplied array of at least size 2 that receives the 128-bit hash.
+   * @return the given hashOut array.
+   */
+  public static long[] hash(final char[] key, final int offsetChars, final int lengthChars, final long seed,
+      final long[] hashOut) {
+    Objects.requireNonNull(hashOut);
+    hashChars(key, offsetChars, lengthChars, seed, hashOut);
+    return hashOut;
+  }
+
+  /**
+   * Returns the first 64 bits of the 128-bit hash of the given char[] array without allocating a
+   * result array. This is the same as <i>hash(key, seed)[0]</i>.
+   *
+   * @param key The input char[] array. It must be non-null and non-empty.
+   * @param seed A long valued seed.
+   * @return the first 64 bits of the 128-bit hash of the input.
+   */
+  public static long hash64(final char[] key, final long seed) {
+    return hashChars(key, 0, key.length, seed, null);
+  }
+
+  /**
+   * Returns the first 64 bits of the 128-bit hash of a portion of the given char[] array without
+   * allocating a result array. This is the same as <i>hash(key, offsetChars, lengthChars, seed)[0]</i>.
+   *
+   * @param key The input char[] array. It must be non-null and non-empty.
+   * @param offsetChars the starting offset in chars.
+   * @param lengthChars the length in chars of the portion of the array to be hashed.
+   * @param seed A long valued seed.
+   * @return the first 64 bits of the 128-bit hash of the input.
+   */
+  public static long hash64(final char[] key, final int offsetChars, final int lengthChars, final long seed) {
+    return hashChars(key, offsetChars, lengthChars, seed, null);
+  }
+
+  private static long hashChars(final char[] key, final int offsetChars, final int lengthChars, final long seed,
+      final long[] hashOut) {
     Objects.requireNonNull(key);
     final int arrLen = key.length;
     checkPositive(arrLen);
     Util.checkBounds(offsetChars, lengthChars, arrLen);
-    final HashState hashState = new HashState(seed, seed);
+    long h1 = seed;
+    long h2 = seed;
 
     // Number of full 128-bit blocks of 8 chars.
     // Possible exclusion of a remainder of up to 7 chars.
@@ -226,7 +441,8 @@ public final class MurmurHash3 implements Serializable {
     for (int i = 0; i < nblocks; i++ ) { //8 chars per block
       final long k1 = getLong(key, offsetChars + (i << 3), 4); //offsetChars + 0, 8, 16, ...
       final long k2 = getLong(key, offsetChars + (i << 3) + 4, 4); //offsetChars + 4, 12, 20, ...
-      hashState.blockMix128(k1, k2);
+      h1 = blockMixH1(h1, h2, k1);
+      h2 = blockMixH2(h2, h1, k2);
     }
 
     // Get the tail index wrt hashed portion, remainder length
@@ -245,7 +461,7 @@ public final class MurmurHash3 implements Serializable {
       k2 = 0;
     }
     // Mix the tail into the hash and return
-    return hashState.finalMix128(k1, k2, lengthChars << 1); //convert to bytes
+    return finalMix128(h1, h2, k1, k2, lengthChars << 1, hashOut); //convert to bytes
   }
 
   //--Hash of byte[]-------------------------------------------------------
@@ -260,6 +476,18 @@ public final class MurmurHash3 implements Serializable {
     return hash(key, 0, key.length, seed);
   }
 
+  /**
+   * Hash the given byte[] array into the given output array. No result array is allocated.
+   *
+   * @param key The input byte[] array. It must be non-null and non-empty.
+   * @param seed A long valued seed.
+   * @param hashOut a caller-supplied array of at least size 2 that receives the 128-bit hash.
+   * @return the given hashOut array.
+   */
+  public static long[] hash(final byte[] key, final long seed, final long[] hashOut) {
+    return hash(key, 0, key.length, seed, hashOut);
+  }
+
   /**
    * Hash a portion of the given byte[] array.
    *
@@ -270,11 +498,60 @@ public final class MurmurHash3 implements Serializable {
    * @return a 128-bit hash of the input as a long array of size 2.
    */
   public static long[] hash(final byte[] key, final int offsetBytes, final int lengthBytes, final long seed) {
+    return hash(key, offsetBytes, lengthBytes, seed, new long[2]);
+  }
+
+  /**
+   * Hash a portion of the given byte[] array into the given output array. No result array is allocated.
+   *
+   * @param key The input byte[] array. It must be non-null and non-empty.
+   * @param offsetBytes the starting offset in bytes.
+   * @param lengthBytes the length in bytes of the portion of the array to be hashed.
+   * @param seed A long valued seed.
+   * @param hashOut a caller-supplied array of at least size 2 that receives the 128-bit hash.
+   * @return the given hashOut array.
+   */
+  public static long[] hash(final byte[] key, final int offsetBytes, final int lengthBytes, final long seed,
+      final long[] hashOut) {
+    Objects.requireNonNull(hashOut);
+    hashBytes(key, offsetBytes, lengthBytes, seed, hashOut);
+    return hashOut;
+  }
+
+  /**
+   * Returns the first 64 bits of the 128-bit hash of the given byte[] array without allocating a
+   * result array. This is the same as <i>hash(key, seed)[0]</i>.
+   *
+   * @param key The input byte[] array. It must be non-null and non-empty.
+   * @param seed A long valued seed.
+   * @return the first 64 bits of the 128-bit hash of the input.
+   */
+  public static long hash64(final byte[] key, final long seed) {
+    return hashBytes(key, 0, key.length, seed, null);
+  }
+
+  /**
+   * Returns the first 64 bits of the 128-bit hash of a portion of the given byte[] array without
+   * allocating a result array. This is the same as <i>hash(key, offsetBytes, lengthBytes, seed)[0]</i>.
+   *
+   * @param key The input byte[] array. It must be non-null and non-empty.
+   * @param offsetBytes the starting offset in bytes.
+   * @param lengthBytes the length in bytes of the portion of the array to be hashed.
+   * @param seed A long valued seed.
+   * @return the first 64 bits of the 128-bit hash of the input.
+   */
+  public static long hash64(final byte[] key, final int offsetBytes, final int lengthBytes, final long seed) {
+    return hashBytes(key, offsetBytes, lengthBytes, seed, null);
+  }
+
+  private static long hashBytes(final byte[] key, final int offsetBytes, final int lengthBytes, final long seed,
+      final long[] hashOut) {
     Objects.requireNonNull(key);
     final int arrLen = key.length;
     checkPositive(arrLen);
     Util.checkBounds(offsetBytes, lengthBytes, arrLen);
-    final HashState hashState = new HashState(seed, seed);
+    long h1 = seed;
+    long h2 = seed;
 
     // Number of full 128-bit blocks of 16 bytes.
     // Possible exclusion of a remainder of up to 15 bytes.
@@ -284,7 +561,8 @@ public final class MurmurHash3 implements Serializable {
     for (int i = 0; i < nblocks; i++ ) { //16 bytes per block
       final long k1 = getLong(key, offsetBytes + (i << 4), 8); //offsetBytes + 0, 16, 32, ...
       final long k2 = getLong(key, offsetBytes + (i << 4) + 8, 8); //offsetBytes + 8, 24, 40, ...
-      hashState.blockMix128(k1, k2);
+      h1 = blockMixH1(h1, h2, k1);
+      h2 = blockMixH2(h2, h1, k2);
     }
 
     // Get the tail index wrt hashed portion, remainder length
@@ -303,7 +581,7 @@ public final class MurmurHash3 implements Serializable {
       k2 = 0;
     }
     // Mix the tail into the hash and return
-    return hashState.finalMix128(k1, k2, lengthBytes);
+    return finalMix128(h1, h2, k1, k2, lengthBytes, hashOut);
   }
 
   //--Hash of ByteBuffer---------------------------------------------------
@@ -315,12 +593,75 @@ public final class MurmurHash3 implements Serializable {
    * @return a 128-bit hash of the input as a long array of size 2.
    */
   public static long[] hash(final ByteBuffer buf, final long seed) {
+    return hash(buf, seed, new long[2]);
+  }
+
+  /**
+   * Hash the remaining bytes of the given ByteBuffer starting at position() into the given
+   * output array.
+   *
+   * @param buf The input ByteBuffer. It must be non-null and non-empty.
+   * @param seed A long valued seed.
+   * @param hashOut a caller-supplied array of at least size 2 that receives the 128-bit hash.
+   * @return the given hashOut array.
+   */
+  public static long[] hash(final ByteBuffer buf, final long seed, final long[] hashOut) {
+    Objects.requireNonNull(hashOut);
+    hashByteBuffer(buf, seed, hashOut);
+    return hashOut;
+  }
+
+  /**
+   * Returns the first 64 bits of the 128-bit hash of the remaining bytes of the given ByteBuffer
+   * starting at position(). This is the same as <i>hash(buf, seed)[0]</i>.
+   *
+   * @param buf The input ByteBuffer. It must be non-null and non-empty.
+   * @param seed A long valued seed.
+   * @return the first 64 bits of the 128-bit hash of the input.
+   */
+  public static long hash64(final ByteBuffer buf, final long seed) {
+    return hashByteBuffer(buf, seed, null);
+  }
+
+  private static long hashByteBuffer(final ByteBuffer buf, final long seed, final long[] hashOut) {
     Objects.requireNonNull(buf);
     final int pos = buf.position();
-    final int rem = buf.remaining();
-    checkPositive(rem);
-    final Memory mem = Memory.wrap(buf, ByteOrder.LITTLE_ENDIAN).region(pos, rem);
-    return hash(mem, seed);
+    final int lengthBytes = buf.remaining();
+    checkPositive(lengthBytes);
+    //absolute reads, so neither the position nor the byte order of buf is changed
+    final boolean bigEndian = buf.order() == ByteOrder.BIG_ENDIAN;
+    long h1 = seed;
+    long h2 = seed;
+
+    // Number of full 128-bit blocks of 16 bytes.
+    // Possible exclusion of a remainder of up to 15 bytes.
+    final int nblocks = lengthBytes >>> 4; //bytes / 16
+
+    // Process the 128-bit blocks (the body) into the hash
+    for (int i = 0; i < nblocks; i++ ) { //16 bytes per block
+      final long k1 = getLongLE(buf, pos + (i << 4), bigEndian);       //pos + 0, 16, 32, ...
+      final long k2 = getLongLE(buf, pos + (i << 4) + 8, bigEndian); //pos + 8, 24, 40, ...
+      h1 = blockMixH1(h1, h2, k1);
+      h2 = blockMixH2(h2, h1, k2);
+    }
+
+    // Get the tail index wrt hashed portion, remainder length
+    final int tail = nblocks << 4; //16 bytes per block
+    final int rem = lengthBytes - tail; // remainder bytes: 0,1,...,15
+
+    // Get the tail
+    final long k1;
+    final long k2;
+    if (rem > 8) { //k1 -> whole; k2 -> partial
+      k1 = getLongLE(buf, pos + tail, bigEndian);
+      k2 = getLong(buf, pos + tail + 8, rem - 8);
+    }
+    else { //k1 -> whole, partial or 0; k2 == 0
+      k1 = rem == 0 ? 0 : getLong(buf, pos + tail, rem);
+      k2 = 0;
+    }
+    // Mix the tail into the hash and return
+    return finalMix128(h1, h2, k1, k2, lengthBytes, hashOut);
   }
 
   //--Hash of Memory-------------------------------------------------------
@@ -328,23 +669,53 @@ public final class MurmurHash3 implements Serializable {
    * Hash the given Memory.
    *
    * <p>Note: if you want to hash only a portion of Memory, convert it to the
-   * appropriate Region first with ByteOrder = Little Endian. If it is not
-   * Little Endian a new region view will be created as Little Endian.
-   * This does not change the underlying data.
+   * appropriate Region first. The bytes are always read as Little Endian,
+   * whatever the type byte order of the Memory. No region view is created.
    *
    * @param mem The input Memory. It must be non-null and non-empty.
    * @param seed A long valued seed.
    * @return a 128-bit hash of the input as a long array of size 2.
    */
   public static long[] hash(final Memory mem, final long seed) {
+    return hash(mem, seed, new long[2]);
+  }
+
+  /**
+   * Hash the given Memory into the given output array.
+   * See {@link #hash(Memory, long)} for the treatment of byte order.
+   *
+   * @param mem The input Memory. It must be non-null and non-empty.
+   * @param seed A long valued seed.
+   * @param hashOut a caller-supplied array of at least size 2 that receives the 128-bit hash.
+   * @return the given hashOut array.
+   */
+  public static long[] hash(final Memory mem, final long seed, final long[] hashOut) {
+    Objects.requireNonNull(hashOut);
+    hashMemory(mem, seed, hashOut);
+    return hashOut;
+  }
+
+  /**
+   * Returns the first 64 bits of the 128-bit hash of the given Memory.
+   * This is the same as <i>hash(mem, seed)[0]</i>.
+   *
+   * @param mem The input Memory. It must be non-null and non-empty.
+   * @param seed A long valued seed.
+   * @return the first 64 bits of the 128-bit hash of the input.
+   */
+  public static long hash64(final Memory mem, final long seed) {
+    return hashMemory(mem, seed, null);
+  }
+
+  private static long hashMemory(final Memory mem, final long seed, final long[] hashOut) {
     Objects.requireNonNull(mem);
     final long lengthBytes = mem.getCapacity();
     checkPositive(lengthBytes);
 
-    final Memory memLE = mem.getTypeByteOrder() == ByteOrder.LITTLE_ENDIAN
-        ? mem : mem.region(0, lengthBytes, ByteOrder.LITTLE_ENDIAN);
+    final boolean bigEndian = mem.getTypeByteOrder() != ByteOrder.LITTLE_ENDIAN;
 
-    final HashState hashState = new HashState(seed, seed);
+    long h1 = seed;
+    long h2 = seed;
 
     // Number of full 128-bit blocks of 16 bytes.
     // Possible exclusion of a remainder of up to 15 bytes.
@@ -352,9 +723,10 @@ public final class MurmurHash3 implements Serializable {
 
     // Process the 128-bit blocks (the body) into the hash
     for (long i = 0; i < nblocks; i++ ) { //16 bytes per block
-      final long k1 = memLE.getLong(i << 4);       //0, 16, 32, ...
-      final long k2 = memLE.getLong((i << 4) + 8); //8, 24, 40, ...
-      hashState.blockMix128(k1, k2);
+      final long k1 = getLongLE(mem, i << 4, bigEndian);       //0, 16, 32, ...
+      final long k2 = getLongLE(mem, (i << 4) + 8, bigEndian); //8, 24, 40, ...
+      h1 = blockMixH1(h1, h2, k1);
+      h2 = blockMixH2(h2, h1, k2);
     }
 
     // Get the tail index wrt hashed portion, remainder length
@@ -365,104 +737,124 @@ public final class MurmurHash3 implements Serializable {
     final long k1;
     final long k2;
     if (rem > 8) { //k1 -> whole; k2 -> partial
-      k1 = memLE.getLong(tail);
-      k2 = getLong(memLE, tail + 8, rem - 8);
+      k1 = getLongLE(mem, tail, bigEndian);
+      k2 = getLong(mem, tail + 8, rem - 8);
     }
     else { //k1 -> whole, partial or 0; k2 == 0
-      k1 = rem == 0 ? 0 : getLong(memLE, tail, rem);
+      k1 = rem == 0 ? 0 : getLong(mem, tail, rem);
       k2 = 0;
     }
     // Mix the tail into the hash and return
-    return hashState.finalMix128(k1, k2, lengthBytes);
+    return finalMix128(h1, h2, k1, k2, lengthBytes, hashOut);
   }
 
-  //--HashState class------------------------------------------------------
+  //--Mixing functions-----------------------------------------------------
+  //The 128-bit hash state is kept by the callers in two local longs, h1 and h2,
+  //so that no state object is allocated per hash.
+
+  private static final long C1 = 0x87c37b91114253d5L;
+  private static final long C2 = 0x4cf5ad432745937fL;
+
   /**
-   * Common processing of the 128-bit hash state independent of input type.
+   * Block mix (128-bit block) of the first half of the input key into the first half of the hash state.
+   *
+   * @param h1 the first half of the hash state
+   * @param h2 the second half of the hash state
+   * @param k1 the first half of the block
+   * @return the new first half of the hash state
    */
-  private static final class HashState {
-    private static final long C1 = 0x87c37b91114253d5L;
-    private static final long C2 = 0x4cf5ad432745937fL;
-    private long h1;
-    private long h2;
-
-    HashState(final long h1, final long h2) {
-      this.h1 = h1;
-      this.h2 = h2;
-    }
+  private static long blockMixH1(long h1, final long h2, final long k1) {
+    h1 ^= mixK1(k1);
+    h1 = Long.rotateLeft(h1, 27);
+    h1 += h2;
+    return h1 * 5 + 0x52dce729;
+  }
 
-    /**
-     * Block mix (128-bit block) of input key to internal hash state.
-     *
-     * @param k1 intermediate mix value
-     * @param k2 intermediate mix value
-     */
-    void blockMix128(final long k1, final long k2) {
-      h1 ^= mixK1(k1);
-      h1 = Long.rotateLeft(h1, 27);
-      h1 += h2;
-      h1 = h1 * 5 + 0x52dce729;
-
-      h2 ^= mixK2(k2);
-      h2 = Long.rotateLeft(h2, 31);
-      h2 += h1;
-      h2 = h2 * 5 + 0x38495ab5;
-    }
+  /**
+   * Block mix (128-bit block) of the second half of the input key into the second half of the hash
+   * state. This must follow {@link #blockMixH1(long, long, long)} of the same block.
+   *
+   * @param h2 the second half of the hash state
+   * @param h1 the new first half of the hash state
+   * @param k2 the second half of the block
+   * @return the new second half of the hash state
+   */
+  private static long blockMixH2(long h2, final long h1, final long k2) {
+    h2 ^= mixK2(k2);
+    h2 = Long.rotateLeft(h2, 31);
+    h2 += h1;
+    return h2 * 5 + 0x38495ab5;
+  }
 
-    long[] finalMix128(final long k1, final long k2, final long inputLengthBytes) {
-      h1 ^= mixK1(k1);
-      h2 ^= mixK2(k2);
-      h1 ^= inputLengthBytes;
-      h2 ^= inputLengthBytes;
-      h1 += h2;
-      h2 += h1;
-      h1 = finalMix64(h1);
-      h2 = finalMix64(h2);
-      h1 += h2;
-      h2 += h1;
-      return new long[] { h1, h2 };
+  /**
+   * Final mix of the tail and the input length into the hash state.
+   *
+   * @param h1 the first half of the hash state
+   * @param h2 the second half of the hash state
+   * @param k1 intermediate mix value
+   * @param k2 intermediate mix value
+   * @param inputLengthBytes the length of the input in bytes
+   * @param hashOut if not null, receives both halves of the 128-bit hash
+   * @return the first 64 bits of the 128-bit hash
+   */
+  private static long finalMix128(long h1, long h2, final long k1, final long k2,
+      final long inputLengthBytes, final long[] hashOut) {
+    h1 ^= mixK1(k1);
+    h2 ^= mixK2(k2);
+    h1 ^= inputLengthBytes;
+    h2 ^= inputLengthBytes;
+    h1 += h2;
+    h2 += h1;
+    h1 = finalMix64(h1);
+    h2 = finalMix64(h2);
+    h1 += h2;
+    h2 += h1;
+    if (hashOut != null) {
+      hashOut[0] = h1;
+      hashOut[1] = h2;
     }
+    return h1;
+  }
 
-    /**
-     * Final self mix of h*.
-     *
-     * @param h input to final mix
-     * @return mix
-     */
-    private static long finalMix64(long h) {
-      h ^= h >>> 33;
-      h *= 0xff51afd7ed558ccdL;
-      h ^= h >>> 33;
-      h *= 0xc4ceb9fe1a85ec53L;
-      h ^= h >>> 33;
-      return h;
-    }
+  /**
+   * Final self mix of h*.
+   *
+   * @param h input to final mix
+   * @return mix
+   */
+  private static long finalMix64(long h) {
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
 
-    /**
-     * Self mix of k1
-     *
-     * @param k1 input argument
-     * @return mix
-     */
-    private static long mixK1(long k1) {
-      k1 *= C1;
-      k1 = Long.rotateLeft(k1, 31);
-      k1 *= C2;
-      return k1;
-    }
+  /**
+   * Self mix of k1
+   *
+   * @param k1 input argument
+   * @return mix
+   */
+  private static long mixK1(long k1) {
+    k1 *= C1;
+    k1 = Long.rotateLeft(k1, 31);
+    k1 *= C2;
+    return k1;
+  }
 
-    /**
-     * Self mix of k2
-     *
-     * @param k2 input argument
-     * @return mix
-     */
-    private static long mixK2(long k2) {
-      k2 *= C2;
-      k2 = Long.rotateLeft(k2, 33);
-      k2 *= C1;
-      return k2;
-    }
+  /**
+   * Self mix of k2
+   *
+   * @param k2 input argument
+   * @return mix
+   */
+  private static long mixK2(long k2) {
+    k2 *= C2;
+    k2 = Long.rotateLeft(k2, 33);
+    k2 *= C1;
+    return k2;
   }
 
   //--Helper methods-------------------------------------------------------
@@ -537,7 +929,7 @@ public final class MurmurHash3 implements Serializable {
   private static long getLong(final Memory mem, final long offsetBytes, final int rem) {
     long out = 0L;
     if (rem == 8) {
-      return mem.getLong(offsetBytes);
+      return getLongLE(mem, offsetBytes, mem.getTypeByteOrder() != ByteOrder.LITTLE_ENDIAN);
     }
     for (int i = rem; i-- > 0; ) { //i= 7,6,5,4,3,2,1,0
       final byte b = mem.getByte(offsetBytes + i);
@@ -546,6 +938,51 @@ public final class MurmurHash3 implements Serializable {
     return out;
   }
 
+  /**
+   * Gets the 8 bytes of the given Memory at the given offsetBytes as a little-endian long.
+   *
+   * @param mem The given input Memory.
+   * @param offsetBytes Zero-based offset in bytes from the start of the Memory.
+   * @param bigEndian true if the type byte order of the Memory is big-endian.
+   * @return a long
+   */
+  private static long getLongLE(final Memory mem, final long offsetBytes, final boolean bigEndian) {
+    final long v = mem.getLong(offsetBytes);
+    return bigEndian ? Long.reverseBytes(v) : v;
+  }
+
+  /**
+   * Gets the 8 bytes of the given ByteBuffer at the given absolute index as a little-endian long.
+   *
+   * @param buf The given input ByteBuffer.
+   * @param index Absolute index in bytes.
+   * @param bigEndian true if the byte order of the ByteBuffer is big-endian.
+   * @return a long
+   */
+  private static long getLongLE(final ByteBuffer buf, final int index, final boolean bigEndian) {
+    final long v = buf.getLong(index);
+    return bigEndian ? Long.reverseBytes(v) : v;
+  }
+
+  /**
+   * Gets a long from the given ByteBuffer starting at the given absolute index and continuing for
+   * remainder (rem) bytes. The bytes are extracted in little-endian order. There is no limit
+   * checking.
+   *
+   * @param buf The given input ByteBuffer.
+   * @param index Absolute index in bytes.
+   * @param rem Remainder bytes. An integer in the range [1,8].
+   * @return a long
+   */
+  private static long getLong(final ByteBuffer buf, final int index, final int rem) {
+    long out = 0L;
+    for (int i = rem; i-- > 0;) { //i= 7,6,5,4,3,2,1,0
+      final byte b = buf.get(index + i);
+      out ^= (b & 0xFFL) << i * 8; //equivalent to |=
+    }
+    return out;
+  }
+
   private static void checkPositive(final long size) {
     if (size <= 0) {
       throw new SketchesArgumentException("Array size must not be negative or zero: " + size);
@@ -20,6 +20,7 @@
 package org.apache.datasketches.hll;
 
 import static org.apache.datasketches.common.Util.invPow2;
+import static org.apache.datasketches.hll.HllUtil.KEY_BITS_26;
 import static org.apache.datasketches.hll.PreambleUtil.HLL_BYTE_ARR_START;
 import static org.apache.datasketches.hll.PreambleUtil.HLL_PREINTS;
 import static org.apache.datasketches.hll.TgtHllType.HLL_4;
@@ -204,6 +205,18 @@ abstract class AbstractHllArray extends HllSketchImpl {
 
   abstract void updateSlotWithKxQ(final int slotNo, final int value);
 
+  //HLL mode never promotes, so the whole run can go straight to the registers
+  @Override
+  HllSketchImpl couponUpdate(final int[] coupons, final int offset, final int length) {
+    final int configKmask = (1 << getLgConfigK()) - 1;
+    final int end = offset + length;
+    for (int i = offset; i < end; i++) {
+      final int coupon = coupons[i];
+      updateSlotWithKxQ(coupon & configKmask, coupon >>> KEY_BITS_26);
+    }
+    return this;
+  }
+
   abstract void updateSlotNoKxQ(final int slotNo, final int value);
 
   //Compute HLL byte array lengths, used by both heap and direct.
@@ -221,6 +234,14 @@ abstract class AbstractHllArray extends HllSketchImpl {
     return 1 << lgConfigK;
   }
 
+  static final int hllArrBytes(final TgtHllType tgtHllType, final int lgConfigK) {
+    switch (tgtHllType) {
+      case HLL_4: return hll4ArrBytes(lgConfigK);
+      case HLL_6: return hll6ArrBytes(lgConfigK);
+      default: return hll8ArrBytes(lgConfigK);
+    }
+  }
+
   /**
    * Common HIP and KxQ incremental update for all heap and direct Hll.
    * This is used when incrementally updating an existing array with non-zero values.
@@ -20,6 +20,7 @@
 package org.apache.datasketches.hll;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.datasketches.common.Util.checkBounds;
 import static org.apache.datasketches.hash.MurmurHash3.hash;
 import static org.apache.datasketches.hll.HllUtil.HLL_HIP_RSE_FACTOR;
 import static org.apache.datasketches.hll.HllUtil.HLL_NON_HIP_RSE_FACTOR;
@@ -39,8 +40,19 @@ import org.apache.datasketches.thetacommon.ThetaUtil;
  */
 abstract class BaseHllSketch {
 
+  //number of coupons hashed ahead of each pass of the vector update methods
+  private static final int COUPON_BUFFER_SIZE = 1024;
+
+  //scratch space for the 128-bit hash of the current update, avoids an allocation per update
+  private final long[] hashOut = new long[2];
+
+  //scratch space for the vector update methods, allocated on first use
+  private int[] couponBuffer;
+
   abstract void couponUpdate(int coupon);
 
+  abstract void couponUpdate(int[] coupons, int offset, int length);
+
   /**
    * Gets the size in bytes of the current sketch when serialized using
    * <i>toCompactByteArray()</i>.
@@ -298,8 +310,7 @@ abstract class BaseHllSketch {
    * @param datum The given long datum.
    */
   public void update(final long datum) {
-    final long[] data = { datum };
-    couponUpdate(coupon(hash(data, ThetaUtil.DEFAULT_UPDATE_SEED)));
+    couponUpdate(coupon(hash(datum, ThetaUtil.DEFAULT_UPDATE_SEED, hashOut)));
   }
 
   /**
@@ -313,8 +324,8 @@ abstract class BaseHllSketch {
    */
   public void update(final double datum) {
     final double d = (datum == 0.0) ? 0.0 : datum; // canonicalize -0.0, 0.0
-    final long[] data = { Double.doubleToLongBits(d) };// canonicalize all NaN & +/- infinity forms
-    couponUpdate(coupon(hash(data, ThetaUtil.DEFAULT_UPDATE_SEED)));
+    final long data = Double.doubleToLongBits(d);// canonicalize all NaN & +/- infinity forms
+    couponUpdate(coupon(hash(data, ThetaUtil.DEFAULT_UPDATE_SEED, hashOut)));
   }
 
   /**
@@ -334,7 +345,7 @@ abstract class BaseHllSketch {
   public void update(final String datum) {
     if ((datum == null) || datum.isEmpty()) { return; }
     final byte[] data = datum.getBytes(UTF_8);
-    couponUpdate(coupon(hash(data, ThetaUtil.DEFAULT_UPDATE_SEED)));
+    couponUpdate(coupon(hash(data, ThetaUtil.DEFAULT_UPDATE_SEED, hashOut)));
   }
 
   /**
@@ -351,7 +362,7 @@ abstract class BaseHllSketch {
    */
   public void update(final ByteBuffer data) {
     if ((data == null) || (data.remaining() == 0)) { return; }
-    couponUpdate(coupon(hash(data, ThetaUtil.DEFAULT_UPDATE_SEED)));
+    couponUpdate(coupon(hash(data, ThetaUtil.DEFAULT_UPDATE_SEED, hashOut)));
   }
 
   /**
@@ -362,7 +373,7 @@ abstract class BaseHllSketch {
    */
   public void update(final byte[] data) {
     if ((data == null) || (data.length == 0)) { return; }
-    couponUpdate(coupon(hash(data, ThetaUtil.DEFAULT_UPDATE_SEED)));
+    couponUpdate(coupon(hash(data, ThetaUtil.DEFAULT_UPDATE_SEED, hashOut)));
   }
 
   /**
@@ -376,7 +387,7 @@ abstract class BaseHllSketch {
    */
   public void update(final char[] data) {
     if ((data == null) || (data.length == 0)) { return; }
-    couponUpdate(coupon(hash(data, ThetaUtil.DEFAULT_UPDATE_SEED)));
+    couponUpdate(coupon(hash(data, ThetaUtil.DEFAULT_UPDATE_SEED, hashOut)));
   }
 
   /**
@@ -387,7 +398,7 @@ abstract class BaseHllSketch {
    */
   public void update(final int[] data) {
     if ((data == null) || (data.length == 0)) { return; }
-    couponUpdate(coupon(hash(data, ThetaUtil.DEFAULT_UPDATE_SEED)));
+    couponUpdate(coupon(hash(data, ThetaUtil.DEFAULT_UPDATE_SEED, hashOut)));
   }
 
   /**
@@ -398,7 +409,93 @@ abstract class BaseHllSketch {
    */
   public void update(final long[] data) {
     if ((data == null) || (data.length == 0)) { return; }
-    couponUpdate(coupon(hash(data, ThetaUtil.DEFAULT_UPDATE_SEED)));
+    couponUpdate(coupon(hash(data, ThetaUtil.DEFAULT_UPDATE_SEED, hashOut)));
+  }
+
+  // VECTOR UPDATE
+
+  /**
+   * Vector update. Presents each of the given longs, starting at the items offset for a length
+   * number of items, as a separate potential unique item. This is equivalent to, but faster than,
+   * calling {@link #update(long)} for each item.
+   *
+   * <p>Note: this is not the same as {@link #update(long[])}, which presents the whole array as a
+   * single item.</p>
+   *
+   * @param items the vector of items
+   * @param offset the starting index of the items[] array
+   * @param length the number of items
+   */
+  public void updateItems(final long[] items, final int offset, final int length) {
+    checkBounds(offset, length, items.length);
+    final int[] coupons = getCouponBuffer();
+    final int end = offset + length;
+    int i = offset;
+    while (i < end) {
+      final int n = Math.min(end - i, COUPON_BUFFER_SIZE);
+      for (int j = 0; j < n; j++) {
+        coupons[j] = coupon(hash(items[i + j], ThetaUtil.DEFAULT_UPDATE_SEED, hashOut));
+      }
+      couponUpdate(coupons, 0, n);
+      i += n;
+    }
+  }
+
+  /**
+   * Vector update. Presents each of the given Strings, starting at the items offset for a length
+   * number of items, as a separate potential unique item. This is equivalent to, but faster than,
+   * calling {@link #update(String)} for each item. Null or empty Strings are ignored.
+   *
+   * @param items the vector of items
+   * @param offset the starting index of the items[] array
+   * @param length the number of items
+   */
+  public void updateItems(final String[] items, final int offset, final int length) {
+    checkBounds(offset, length, items.length);
+    final int[] coupons = getCouponBuffer();
+    final int end = offset + length;
+    int n = 0;
+    for (int i = offset; i < end; i++) {
+      final String datum = items[i];
+      if ((datum == null) || datum.isEmpty()) { continue; }
+      coupons[n++] = coupon(hash(datum.getBytes(UTF_8), ThetaUtil.DEFAULT_UPDATE_SEED, hashOut));
+      if (n == COUPON_BUFFER_SIZE) {
+        couponUpdate(coupons, 0, n);
+        n = 0;
+      }
+    }
+    if (n > 0) { couponUpdate(coupons, 0, n); }
+  }
+
+  /**
+   * Vector update. Presents each of the given byte arrays, starting at the items offset for a
+   * length number of items, as a separate potential unique item. This is equivalent to, but faster
+   * than, calling {@link #update(byte[])} for each item. Null or empty byte arrays are ignored.
+   *
+   * @param items the vector of items
+   * @param offset the starting index of the items[] array
+   * @param length the number of items
+   */
+  public void updateItems(final byte[][] items, final int offset, final int length) {
+    checkBounds(offset, length, items.length);
+    final int[] coupons = getCouponBuffer();
+    final int end = offset + length;
+    int n = 0;
+    for (int i = offset; i < end; i++) {
+      final byte[] datum = items[i];
+      if ((datum == null) || (datum.length == 0)) { continue; }
+      coupons[n++] = coupon(hash(datum, ThetaUtil.DEFAULT_UPDATE_SEED, hashOut));
+      if (n == COUPON_BUFFER_SIZE) {
+        couponUpdate(coupons, 0, n);
+        n = 0;
+      }
+    }
+    if (n > 0) { couponUpdate(coupons, 0, n); }
+  }
+
+  private int[] getCouponBuffer() {
+    if (couponBuffer == null) { couponBuffer = new int[COUPON_BUFFER_SIZE]; }
+    return couponBuffer;
   }
 
   private static final int coupon(final long[] hash) {
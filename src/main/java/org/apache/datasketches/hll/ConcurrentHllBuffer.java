@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.hll;
+
+import org.apache.datasketches.memory.Memory;
+
+/**
+ * A thread-local buffer for updating a {@link ConcurrentHllSketch}.
+ *
+ * <p>A buffer is obtained from {@link ConcurrentHllSketch#newLocalBuffer()} and must only be
+ * updated by a single thread. It accepts the same update methods as an HllSketch, collects the
+ * resulting coupons, and merges them into the shared sketch whenever the buffer is full. The caller
+ * must call {@link #flush()} when it is done updating so that the remaining coupons become
+ * visible.</p>
+ *
+ * <p>The query and serialization methods of this class are those of the shared sketch and do not
+ * include the coupons still held in this buffer.</p>
+ */
+public final class ConcurrentHllBuffer extends BaseHllSketch {
+  private final ConcurrentHllSketch shared;
+  private final int[] buffer;
+  private int count;
+
+  ConcurrentHllBuffer(final ConcurrentHllSketch shared, final int bufferCapacity) {
+    this.shared = shared;
+    buffer = new int[bufferCapacity];
+    count = 0;
+  }
+
+  /**
+   * Merges all coupons held in this buffer into the shared sketch.
+   */
+  public void flush() {
+    if (count == 0) { return; }
+    shared.couponUpdate(buffer, 0, count);
+    count = 0;
+  }
+
+  /**
+   * Gets the number of coupons held in this buffer that are not yet visible in the shared sketch.
+   * @return the number of coupons held in this buffer.
+   */
+  public int getNumBuffered() {
+    return count;
+  }
+
+  /**
+   * Gets the shared sketch that this buffer flushes to.
+   * @return the shared sketch that this buffer flushes to.
+   */
+  public ConcurrentHllSketch getSharedSketch() {
+    return shared;
+  }
+
+  @Override
+  void couponUpdate(final int coupon) {
+    buffer[count++] = coupon;
+    if (count == buffer.length) { flush(); }
+  }
+
+  @Override
+  void couponUpdate(final int[] coupons, final int offset, final int length) {
+    flush();
+    shared.couponUpdate(coupons, offset, length);
+  }
+
+  @Override
+  public int getCompactSerializationBytes() {
+    return HllSketch.getMaxUpdatableSerializationBytes(getLgConfigK(), TgtHllType.HLL_8);
+  }
+
+  @Override
+  public double getCompositeEstimate() {
+    return shared.getEstimate();
+  }
+
+  @Override
+  CurMode getCurMode() {
+    return CurMode.HLL;
+  }
+
+  @Override
+  public double getEstimate() {
+    return shared.getEstimate();
+  }
+
+  @Override
+  public TgtHllType getTgtHllType() {
+    return TgtHllType.HLL_8;
+  }
+
+  @Override
+  public int getLgConfigK() {
+    return shared.getLgConfigK();
+  }
+
+  @Override
+  public double getLowerBound(final int numStdDev) {
+    return shared.getLowerBound(numStdDev);
+  }
+
+  @Override
+  public int getUpdatableSerializationBytes() {
+    return HllSketch.getMaxUpdatableSerializationBytes(getLgConfigK(), TgtHllType.HLL_8);
+  }
+
+  @Override
+  public double getUpperBound(final int numStdDev) {
+    return shared.getUpperBound(numStdDev);
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return shared.isEmpty();
+  }
+
+  @Override
+  public boolean isCompact() {
+    return false;
+  }
+
+  @Override
+  public boolean isMemory() {
+    return true;
+  }
+
+  @Override
+  public boolean isOffHeap() {
+    return shared.isOffHeap();
+  }
+
+  @Override
+  boolean isOutOfOrder() {
+    return true;
+  }
+
+  @Override
+  public boolean isSameResource(final Memory mem) {
+    return shared.isSameResource(mem);
+  }
+
+  /**
+   * Discards the coupons held in this buffer and resets the shared sketch to empty, as
+   * {@link ConcurrentHllSketch#reset()}. This must not be called while any other local buffer of
+   * the shared sketch is being updated or flushed.
+   */
+  @Override
+  public void reset() {
+    count = 0;
+    shared.reset();
+  }
+
+  @Override
+  public byte[] toCompactByteArray() {
+    return shared.toCompactByteArray();
+  }
+
+  @Override
+  public byte[] toUpdatableByteArray() {
+    return shared.toUpdatableByteArray();
+  }
+
+  @Override
+  public String toString(final boolean summary, final boolean detail, final boolean auxDetail,
+      final boolean all) {
+    return shared.getResult().toString(summary, detail, auxDetail, all);
+  }
+}
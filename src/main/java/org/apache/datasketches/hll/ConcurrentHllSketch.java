@@ -0,0 +1,301 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.hll;
+
+import static org.apache.datasketches.common.Util.invPow2;
+import static org.apache.datasketches.hll.HllUtil.KEY_BITS_26;
+import static org.apache.datasketches.hll.HllUtil.VAL_MASK_6;
+import static org.apache.datasketches.hll.PreambleUtil.HLL_BYTE_ARR_START;
+
+import java.nio.ByteOrder;
+import java.util.Objects;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+
+/**
+ * An HLL sketch that can be updated by many threads at once without external locking.
+ *
+ * <p>The shared state is a standard HLL_8 updatable image in HLL mode, which may be on the
+ * Java heap or in a caller supplied WritableMemory. Threads do not update this sketch directly.
+ * Instead, each thread obtains its own {@link ConcurrentHllBuffer} with
+ * {@link #newLocalBuffer()}, which collects coupons and periodically flushes them here. A flush
+ * merges each coupon into its register with a compare-and-swap loop on the 64-bit word that holds
+ * the register, keeping the larger value. Since register max is commutative and idempotent, the
+ * order in which the buffers are flushed does not matter, and after all buffers have been flushed
+ * the registers are exactly those of a single sketch that saw the whole stream.</p>
+ *
+ * <p>Because the stream is not seen in order, the HIP estimator does not apply and the sketch is
+ * marked out-of-order, so estimates and bounds come from the composite estimator. The sums
+ * needed by that estimator are maintained incrementally as registers change, so
+ * {@link #getEstimate()} is cheap and reflects every flushed coupon. The staleness of the
+ * estimate is bounded: at most the buffer capacity of each local buffer in coupons is not yet
+ * visible. A buffer capacity of one gives a real-time estimate at the cost of a shared memory access
+ * per update.</p>
+ *
+ * <p>The image in memory is an HLL_8 sketch image with the out-of-order and rebuild flags set, the same
+ * state a Union gadget is left in after a fast merge. A heapified copy of it may be given to a
+ * {@link Union}, which rebuilds the estimator registers from the HLL array, and {@link #getResult()}
+ * returns such a rebuilt copy. An existing image may be attached to with
+ * {@link #writableWrap(WritableMemory)}.</p>
+ */
+public final class ConcurrentHllSketch {
+  /**
+   * The default number of coupons a local buffer holds before it flushes to the shared sketch.
+   */
+  public static final int DEFAULT_BUFFER_CAPACITY = 256;
+
+  private final int lgConfigK;
+  private final WritableMemory wmem;
+  private final boolean littleEndian;
+  private final DoubleAdder kxq0 = new DoubleAdder();
+  private final DoubleAdder kxq1 = new DoubleAdder();
+  private final LongAdder numZeros = new LongAdder();
+
+  /**
+   * Constructs a new concurrent sketch on the Java heap.
+   * @param lgConfigK The Log2 of K for the target HLL sketch. This value must be
+   * between 4 and 21 inclusively.
+   */
+  public ConcurrentHllSketch(final int lgConfigK) {
+    this(lgConfigK, WritableMemory.allocate(
+        HllSketch.getMaxUpdatableSerializationBytes(HllUtil.checkLgK(lgConfigK), TgtHllType.HLL_8)));
+  }
+
+  /**
+   * Constructs a new concurrent sketch in the given WritableMemory. Any prior content is
+   * overwritten. The required capacity is
+   * {@link HllSketch#getMaxUpdatableSerializationBytes(int, TgtHllType)} for HLL_8, and the
+   * register array must start on an 8-byte boundary, which is always the case for memory obtained
+   * from <i>WritableMemory.allocate(...)</i>, <i>allocateDirect(...)</i> or <i>writableMap(...)</i>.
+   * @param lgConfigK The Log2 of K for the target HLL sketch. This value must be
+   * between 4 and 21 inclusively.
+   * @param dstMem the destination memory for the sketch.
+   */
+  public ConcurrentHllSketch(final int lgConfigK, final WritableMemory dstMem) {
+    Objects.requireNonNull(dstMem, "Destination Memory must not be null");
+    this.lgConfigK = HllUtil.checkLgK(lgConfigK);
+    final long minBytes = HllSketch.getMaxUpdatableSerializationBytes(lgConfigK, TgtHllType.HLL_8);
+    HllUtil.checkMemSize(minBytes, dstMem.getCapacity());
+    DirectHll8Array.checkAtomicAlignment(dstMem);
+    wmem = dstMem;
+    littleEndian = dstMem.getTypeByteOrder() == ByteOrder.LITTLE_ENDIAN;
+    initialize();
+  }
+
+  //Called by writableWrap(), the image has been checked
+  private ConcurrentHllSketch(final HllSketch atomicSketch, final WritableMemory srcWmem) {
+    lgConfigK = atomicSketch.getLgConfigK();
+    wmem = srcWmem;
+    littleEndian = srcWmem.getTypeByteOrder() == ByteOrder.LITTLE_ENDIAN;
+    final int configK = 1 << lgConfigK;
+    for (int slotNo = 0; slotNo < configK; slotNo++) {
+      final int v = srcWmem.getByte(HLL_BYTE_ARR_START + slotNo) & VAL_MASK_6;
+      if (v == 0) { numZeros.increment(); }
+      if (v < 32) { kxq0.add(invPow2(v)); } else { kxq1.add(invPow2(v)); }
+    }
+    if (getNumZeros() < configK) { DirectHll8Array.clearAtomicEmptyFlag(srcWmem); }
+  }
+
+  /**
+   * Wraps the given WritableMemory, which must hold an updatable image of an HLL_8 sketch in HLL
+   * mode, such as one left by a prior ConcurrentHllSketch or by
+   * {@link HllSketch#newAtomicInstance(int, WritableMemory)}. The registers of the image are kept and
+   * further coupons are merged into them. The out-of-order and rebuild flags of the image are set,
+   * as for {@link HllSketch#writableWrapAtomic(WritableMemory)}, which has the same requirements.
+   * @param srcWmem a writable image of an HLL_8 sketch in HLL mode.
+   * @return a concurrent sketch where the sketch data is in the given srcWmem.
+   */
+  public static ConcurrentHllSketch writableWrap(final WritableMemory srcWmem) {
+    return new ConcurrentHllSketch(HllSketch.writableWrapAtomic(srcWmem), srcWmem);
+  }
+
+  private void initialize() {
+    DirectHll8Array.initAtomicImage(lgConfigK, wmem);
+    kxq0.reset();
+    kxq0.add(1 << lgConfigK);
+    kxq1.reset();
+    numZeros.reset();
+    numZeros.add(1 << lgConfigK);
+  }
+
+  /**
+   * Returns a new local buffer with the default capacity for the exclusive use of one updating thread.
+   * @return a new local buffer with the default capacity.
+   */
+  public ConcurrentHllBuffer newLocalBuffer() {
+    return new ConcurrentHllBuffer(this, DEFAULT_BUFFER_CAPACITY);
+  }
+
+  /**
+   * Returns a new local buffer for the exclusive use of one updating thread.
+   * @param bufferCapacity the number of coupons the buffer holds before it flushes.
+   * It must be at least one.
+   * @return a new local buffer.
+   */
+  public ConcurrentHllBuffer newLocalBuffer(final int bufferCapacity) {
+    if (bufferCapacity < 1) {
+      throw new SketchesArgumentException("Buffer capacity must be at least one: " + bufferCapacity);
+    }
+    return new ConcurrentHllBuffer(this, bufferCapacity);
+  }
+
+  /**
+   * Gets the cardinality estimate of all coupons flushed so far.
+   * @return the cardinality estimate.
+   */
+  public double getEstimate() {
+    return HllEstimators.hllCompositeEstimate(lgConfigK, kxq0.sum() + kxq1.sum(), 0, getNumZeros());
+  }
+
+  /**
+   * Gets the approximate lower error bound given the specified number of Standard Deviations.
+   * @param numStdDev This must be an integer between 1 and 3, inclusive.
+   * <a href="{@docRoot}/resources/dictionary.html#numStdDev">See Number of Standard Deviations</a>
+   * @return the lower bound.
+   */
+  public double getLowerBound(final int numStdDev) {
+    HllUtil.checkNumStdDev(numStdDev);
+    return HllEstimators.hllLowerBound(lgConfigK, 0, getNumZeros(), getEstimate(), true, numStdDev);
+  }
+
+  /**
+   * Gets the approximate upper error bound given the specified number of Standard Deviations.
+   * @param numStdDev This must be an integer between 1 and 3, inclusive.
+   * <a href="{@docRoot}/resources/dictionary.html#numStdDev">See Number of Standard Deviations</a>
+   * @return the upper bound.
+   */
+  public double getUpperBound(final int numStdDev) {
+    HllUtil.checkNumStdDev(numStdDev);
+    return HllEstimators.hllUpperBound(lgConfigK, getEstimate(), true, numStdDev);
+  }
+
+  /**
+   * Gets the lgConfigK.
+   * @return the lgConfigK.
+   */
+  public int getLgConfigK() {
+    return lgConfigK;
+  }
+
+  /**
+   * Returns true if no coupons have been flushed to this sketch.
+   * @return true if no coupons have been flushed to this sketch.
+   */
+  public boolean isEmpty() {
+    return getNumZeros() == (1 << lgConfigK);
+  }
+
+  /**
+   * Returns true if the backing memory of this sketch is off-heap.
+   * @return true if the backing memory of this sketch is off-heap.
+   */
+  public boolean isOffHeap() {
+    return wmem.isDirect();
+  }
+
+  /**
+   * Returns true if the backing memory of this sketch is the same as the given Memory.
+   * @param mem the given Memory
+   * @return true if the backing memory of this sketch is the same as the given Memory.
+   */
+  public boolean isSameResource(final Memory mem) {
+    return wmem.isSameResource(mem);
+  }
+
+  /**
+   * Returns a snapshot of this sketch as an HLL_8 sketch on the Java heap.
+   * Coupons flushed while the snapshot is being taken may or may not be included.
+   * @return a snapshot of this sketch on the Java heap.
+   */
+  public HllSketch getResult() {
+    return getResult(TgtHllType.HLL_8);
+  }
+
+  /**
+   * Returns a snapshot of this sketch on the Java heap with the given target type.
+   * Coupons flushed while the snapshot is being taken may or may not be included.
+   * @param tgtHllType the TgtHllType enum of the result.
+   * @return a snapshot of this sketch on the Java heap.
+   */
+  public HllSketch getResult(final TgtHllType tgtHllType) {
+    final int bytes = HllSketch.getMaxUpdatableSerializationBytes(lgConfigK, TgtHllType.HLL_8);
+    final byte[] image = new byte[bytes];
+    wmem.getByteArray(0, image, 0, bytes);
+    final HllSketch sketch = HllSketch.heapify(Memory.wrap(image, wmem.getTypeByteOrder()));
+    return (tgtHllType == TgtHllType.HLL_8) ? sketch : sketch.copyAs(tgtHllType);
+  }
+
+  /**
+   * Serializes a snapshot of this sketch as a compact byte array of the HLL_8 type.
+   * @return a snapshot of this sketch as a compact byte array.
+   */
+  public byte[] toCompactByteArray() {
+    return getResult().toCompactByteArray();
+  }
+
+  /**
+   * Serializes a snapshot of this sketch as an updatable byte array of the HLL_8 type.
+   * @return a snapshot of this sketch as an updatable byte array.
+   */
+  public byte[] toUpdatableByteArray() {
+    return getResult().toUpdatableByteArray();
+  }
+
+  /**
+   * Resets this sketch to empty, but does not change the configured values of lgConfigK or the
+   * backing memory. This must not be called while any local buffer is being updated or flushed.
+   */
+  public void reset() {
+    initialize();
+  }
+
+  @Override
+  public String toString() {
+    return getResult().toString(true, false, false, false);
+  }
+
+  private int getNumZeros() {
+    return (int) numZeros.sum();
+  }
+
+  //Called by the local buffers
+  void couponUpdate(final int[] coupons, final int offset, final int length) {
+    final int configKmask = (1 << lgConfigK) - 1;
+    final int end = offset + length;
+    for (int i = offset; i < end; i++) {
+      final int coupon = coupons[i];
+      final int newValue = coupon >>> KEY_BITS_26;
+      final int oldValue =
+          DirectHll8Array.casMaxRegister(wmem, littleEndian, coupon & configKmask, newValue);
+      if (oldValue < newValue) {
+        if (oldValue == 0) {
+          numZeros.decrement();
+          DirectHll8Array.clearAtomicEmptyFlag(wmem);
+        }
+        if (oldValue < 32) { kxq0.add(-invPow2(oldValue)); } else { kxq1.add(-invPow2(oldValue)); }
+        if (newValue < 32) { kxq0.add(invPow2(newValue)); } else { kxq1.add(invPow2(newValue)); }
+      }
+    }
+  }
+}
@@ -19,34 +19,130 @@
 
 package org.apache.datasketches.hll;
 
+import static org.apache.datasketches.common.Util.invPow2;
 import static org.apache.datasketches.hll.HllUtil.VAL_MASK_6;
 import static org.apache.datasketches.hll.HllUtil.noWriteAccess;
 import static org.apache.datasketches.hll.PreambleUtil.HLL_BYTE_ARR_START;
+import static org.apache.datasketches.hll.PreambleUtil.extractEmptyFlag;
+import static org.apache.datasketches.hll.PreambleUtil.extractRebuildCurMinNumKxQFlag;
+import static org.apache.datasketches.hll.PreambleUtil.insertEmptyFlag;
+import static org.apache.datasketches.hll.PreambleUtil.insertOooFlag;
+import static org.apache.datasketches.hll.PreambleUtil.insertRebuildCurMinNumKxQFlag;
 
+import java.nio.ByteOrder;
+
+import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.common.SketchesStateException;
 import org.apache.datasketches.memory.Memory;
 import org.apache.datasketches.memory.WritableMemory;
 
 /**
  * Uses 8 bits per slot in a byte array.
+ *
+ * <p>In atomic mode each register is updated with a compare-and-swap loop on the 64-bit word that
+ * contains it, so several threads or processes may update the same memory concurrently. In this
+ * mode the HIP accumulator, KxQ registers, curMin and numAtCurMin in the preamble are not
+ * maintained on update. The out-of-order and rebuild flags are set instead, and the estimator
+ * registers are recomputed from the HLL array whenever an estimate is requested. The empty flag is
+ * maintained: it is set by a new or reset image and cleared by the first update.</p>
+ *
+ * <p>A read-only image with the rebuild flag set, such as an atomic image or an unfinalized union
+ * gadget, is estimated the same way, since the estimator registers cannot be written back.</p>
  * @author Lee Rhodes
  * @author Kevin Lang
  */
 class DirectHll8Array extends DirectHllArray {
+  private final boolean atomic;
+  private final boolean scanEstimates; //recompute the estimator registers from the HLL array
+  private final boolean littleEndian;
 
   //Called by HllSketch.writableWrap(), DirectCouponList.promoteListOrSetToHll
   DirectHll8Array(final int lgConfigK, final WritableMemory wmem) {
-    super(lgConfigK, TgtHllType.HLL_8, wmem);
+    this(lgConfigK, wmem, false);
+  }
+
+  //Called by HllSketch.writableWrapAtomic(), HllSketch.newAtomicInstance()
+  DirectHll8Array(final int lgConfigK, final WritableMemory wmem, final boolean atomic) {
+    super(lgConfigK, TgtHllType.HLL_8, wmem, atomic);
+    this.atomic = atomic;
+    scanEstimates = atomic;
+    littleEndian = wmem.getTypeByteOrder() == ByteOrder.LITTLE_ENDIAN;
+    if (atomic) {
+      checkAtomicAlignment(wmem);
+      insertOooFlag(wmem, true);
+      insertRebuildCurMinNumKxQFlag(wmem, true);
+    }
   }
 
   //Called by HllSketch.wrap(Memory)
   DirectHll8Array(final int lgConfigK, final Memory mem) {
     super(lgConfigK, TgtHllType.HLL_8, mem);
+    atomic = false;
+    scanEstimates = extractRebuildCurMinNumKxQFlag(mem);
+    littleEndian = mem.getTypeByteOrder() == ByteOrder.LITTLE_ENDIAN;
+  }
+
+  /**
+   * Writes an empty HLL_8 image in HLL mode with the empty, out-of-order and rebuild flags set,
+   * which is the starting state of a sketch in atomic mode.
+   * @param lgConfigK the configured Lg K
+   * @param wmem the destination memory, which must be large enough and aligned.
+   */
+  static void initAtomicImage(final int lgConfigK, final WritableMemory wmem) {
+    final byte[] image = new Hll8Array(lgConfigK).toUpdatableByteArray();
+    wmem.putByteArray(0, image, 0, image.length);
+    insertEmptyFlag(wmem, true);
+    insertOooFlag(wmem, true);
+    insertRebuildCurMinNumKxQFlag(wmem, true);
+  }
+
+  /**
+   * Clears the empty flag of an image in atomic mode if it is set. The flag is only read on the
+   * update path, and every writer writes the same value, so no compare-and-swap is needed.
+   * @param wmem the memory of an HLL_8 updatable image
+   */
+  static void clearAtomicEmptyFlag(final WritableMemory wmem) {
+    if (extractEmptyFlag(wmem)) { insertEmptyFlag(wmem, false); }
+  }
+
+  static void checkAtomicAlignment(final WritableMemory wmem) {
+    if ((wmem.getCumulativeOffset(HLL_BYTE_ARR_START) & 7L) != 0) {
+      throw new SketchesArgumentException(
+          "The HLL register array must be aligned to 8 bytes for atomic access.");
+    }
+  }
+
+  /**
+   * Atomically replaces the given HLL_8 register with the given value if the value is larger.
+   * The compare-and-swap is done on the aligned 64-bit word that contains the register, so
+   * concurrent writers of neighboring registers do not lose each other's updates.
+   * @param wmem the memory of an HLL_8 updatable image
+   * @param littleEndian true if the memory is little-endian
+   * @param slotNo the register number
+   * @param newValue the candidate value
+   * @return the value of the register before this call. If it is not less than newValue
+   * the register was not changed.
+   */
+  static int casMaxRegister(final WritableMemory wmem, final boolean littleEndian,
+      final int slotNo, final int newValue) {
+    final long wordOffset = HLL_BYTE_ARR_START + (slotNo & ~7);
+    final int byteInWord = slotNo & 7;
+    final int shift = (littleEndian ? byteInWord : 7 - byteInWord) << 3;
+    final long mask = 0xFFL << shift;
+    while (true) {
+      final long oldWord = wmem.getLong(wordOffset);
+      final int oldValue = (int) ((oldWord >>> shift) & VAL_MASK_6);
+      if (newValue <= oldValue) { return oldValue; }
+      final long newWord = (oldWord & ~mask) | ((long) newValue << shift);
+      if (wmem.compareAndSwapLong(wordOffset, oldWord, newWord)) { return oldValue; }
+    }
   }
 
   @Override
   HllSketchImpl copy() {
-    return Hll8Array.heapify(mem);
+    final HllSketch heapCopy = new HllSketch(Hll8Array.heapify(mem));
+    Union.checkRebuildCurMinNumKxQ(heapCopy);
+    return heapCopy.hllSketchImpl;
   }
 
   @Override
@@ -60,6 +156,62 @@ class DirectHll8Array extends DirectHllArray {
     return this;
   }
 
+  @Override
+  double getCompositeEstimate() {
+    if (!scanEstimates) { return super.getCompositeEstimate(); }
+    final double[] state = scanRegisters();
+    return HllEstimators.hllCompositeEstimate(lgConfigK, state[0], (int) state[1], (int) state[2]);
+  }
+
+  @Override
+  double getEstimate() {
+    return scanEstimates ? getCompositeEstimate() : super.getEstimate();
+  }
+
+  @Override
+  double getLowerBound(final int numStdDev) {
+    if (!scanEstimates) { return super.getLowerBound(numStdDev); }
+    HllUtil.checkNumStdDev(numStdDev);
+    final double[] state = scanRegisters();
+    final double estimate =
+        HllEstimators.hllCompositeEstimate(lgConfigK, state[0], (int) state[1], (int) state[2]);
+    return HllEstimators.hllLowerBound(lgConfigK, (int) state[1], (int) state[2], estimate, true,
+        numStdDev);
+  }
+
+  @Override
+  double getUpperBound(final int numStdDev) {
+    if (!scanEstimates) { return super.getUpperBound(numStdDev); }
+    HllUtil.checkNumStdDev(numStdDev);
+    return HllEstimators.hllUpperBound(lgConfigK, getCompositeEstimate(), true, numStdDev);
+  }
+
+  //Atomic mode or read-only with the rebuild flag set:
+  //recomputes {KxQ0 + KxQ1, curMin, numAtCurMin} from the HLL array,
+  //the same way as Union.checkRebuildCurMinNumKxQ(), but without writing them back.
+  private double[] scanRegisters() {
+    int curMin = 64;
+    int numAtCurMin = 0;
+    double kxq0 = 1 << lgConfigK;
+    double kxq1 = 0;
+    final int configK = 1 << lgConfigK;
+    for (int slotNo = 0; slotNo < configK; slotNo++) {
+      final int v = getSlotValue(slotNo);
+      if (v > 0) {
+        if (v < 32) { kxq0 += invPow2(v) - 1.0; }
+        else        { kxq1 += invPow2(v) - 1.0; }
+      }
+      if (v > curMin) { continue; }
+      if (v < curMin) {
+        curMin = v;
+        numAtCurMin = 1;
+      } else {
+        numAtCurMin++;
+      }
+    }
+    return new double[] {kxq0 + kxq1, curMin, numAtCurMin};
+  }
+
   @Override
   int getHllByteArrBytes() {
     return hll8ArrBytes(lgConfigK);
@@ -85,9 +237,22 @@ class DirectHll8Array extends DirectHllArray {
     throw new SketchesStateException("Improper access.");
   }
 
+  @Override
+  HllSketchImpl reset() {
+    if (!atomic) { return super.reset(); }
+    if (wmem == null) { noWriteAccess(); }
+    initAtomicImage(lgConfigK, wmem);
+    return this;
+  }
+
   @Override
   //Used by Union when source is not HLL8
   final void updateSlotNoKxQ(final int slotNo, final int newValue) {
+    if (atomic) {
+      casMaxRegister(wmem, littleEndian, slotNo, newValue);
+      clearAtomicEmptyFlag(wmem);
+      return;
+    }
     final int oldValue = getSlotValue(slotNo);
     if (newValue > oldValue) {
       wmem.putByte(HLL_BYTE_ARR_START + slotNo, (byte) (newValue & VAL_MASK_6));
@@ -98,6 +263,11 @@ class DirectHll8Array extends DirectHllArray {
   //Used by this couponUpdate()
   //updates HipAccum, CurMin, NumAtCurMin, KxQs and checks newValue > oldValue
   final void updateSlotWithKxQ(final int slotNo, final int newValue) {
+    if (atomic) { //estimator registers are recomputed on demand
+      casMaxRegister(wmem, littleEndian, slotNo, newValue);
+      clearAtomicEmptyFlag(wmem);
+      return;
+    }
     final int oldValue = getSlotValue(slotNo);
     if (newValue > oldValue) {
       wmem.putByte(HLL_BYTE_ARR_START + slotNo, (byte) (newValue & VAL_MASK_6));
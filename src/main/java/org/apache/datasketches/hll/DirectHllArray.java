@@ -19,6 +19,7 @@
 
 package org.apache.datasketches.hll;
 
+import static org.apache.datasketches.hll.HllUtil.noWriteAccess;
 import static org.apache.datasketches.hll.PreambleUtil.CUR_MIN_COUNT_INT;
 import static org.apache.datasketches.hll.PreambleUtil.HIP_ACCUM_DOUBLE;
 import static org.apache.datasketches.hll.PreambleUtil.extractCompactFlag;
@@ -66,13 +67,20 @@ abstract class DirectHllArray extends AbstractHllArray {
 
   //Memory must be already initialized and may have data
   DirectHllArray(final int lgConfigK, final TgtHllType tgtHllType, final WritableMemory wmem) {
+    this(lgConfigK, tgtHllType, wmem, false);
+  }
+
+  //Memory must be already initialized and may have data.
+  //If keepEmptyFlag is false the sketch is marked not empty.
+  DirectHllArray(final int lgConfigK, final TgtHllType tgtHllType, final WritableMemory wmem,
+      final boolean keepEmptyFlag) {
     super(checkMemCompactFlag(wmem, lgConfigK), tgtHllType, CurMode.HLL);
     this.wmem = wmem;
     mem = wmem;
     memObj = wmem.getArray();
     memAdd = wmem.getCumulativeOffset(0L);
     compact = extractCompactFlag(mem);
-    insertEmptyFlag(wmem, false);
+    if (!keepEmptyFlag) { insertEmptyFlag(wmem, false); }
   }
 
   //Memory must already be initialized and should have data
@@ -100,6 +108,12 @@ abstract class DirectHllArray extends AbstractHllArray {
     wmem.putDouble(HIP_ACCUM_DOUBLE, hipAccum + delta);
   }
 
+  @Override
+  HllSketchImpl couponUpdate(final int[] coupons, final int offset, final int length) {
+    if (wmem == null) { noWriteAccess(); }
+    return super.couponUpdate(coupons, offset, length);
+  }
+
   @Override
   void decNumAtCurMin() {
     checkReadOnly(wmem);
@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.hll;
+
+import static org.apache.datasketches.common.Util.checkBounds;
+import static org.apache.datasketches.hll.HllUtil.EMPTY;
+import static org.apache.datasketches.hll.HllUtil.getPairLow26;
+import static org.apache.datasketches.hll.HllUtil.getPairValue;
+import static org.apache.datasketches.hll.PreambleUtil.HLL_BYTE_ARR_START;
+import static org.apache.datasketches.hll.PreambleUtil.extractAuxCount;
+import static org.apache.datasketches.hll.PreambleUtil.extractCompactFlag;
+import static org.apache.datasketches.hll.PreambleUtil.extractCurMin;
+import static org.apache.datasketches.hll.PreambleUtil.extractInt;
+import static org.apache.datasketches.hll.PreambleUtil.extractLgArr;
+import static org.apache.datasketches.hll.PreambleUtil.extractLgK;
+import static org.apache.datasketches.hll.PreambleUtil.extractTgtHllType;
+
+import java.nio.ByteOrder;
+
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+
+/**
+ * Word-parallel merge of HLL arrays into an HLL_8 target, used by the Union.
+ *
+ * <p>The HLL_8 target is processed eight registers at a time as one 64-bit word. The source
+ * registers are loaded, or for HLL_4 and HLL_6 decoded, into the eight byte lanes of a word, and
+ * the lane-wise unsigned maximum of the two words is computed with a few arithmetic and logical
+ * operations (SWAR). This is possible because register values are at most 63, so the top bit of
+ * every lane is free to hold the result of a lane-wise comparison without borrowing from the
+ * neighboring lane.</p>
+ *
+ * <p>Registers are moved between Memory and the word arrays in chunks with the bulk array methods
+ * of Memory, so the inner loops run on plain Java arrays.</p>
+ *
+ * <p>The KxQ registers, curMin and numAtCurMin of the target are not updated. The caller must
+ * set the rebuild flag of the target.</p>
+ */
+final class HllArrayMerge {
+  private static final long LANE_HI_BITS = 0x8080808080808080L;
+  private static final long LANE_LO_BITS = 0x0101010101010101L;
+  private static final int CHUNK_WORDS = 64;
+
+  private HllArrayMerge() {}
+
+  /**
+   * Merges the HLL mode source into the HLL_8 target, folding the source if its lgK is larger.
+   * @param src the source in HLL mode of any TgtHllType, on heap or in Memory.
+   * @param tgt the target HLL_8 array, on heap or in Memory.
+   * @param srcLgK the lgK of the source, which must be at least the lgK of the target.
+   * @param tgtLgK the lgK of the target.
+   */
+  static void merge(final AbstractHllArray src, final AbstractHllArray tgt, final int srcLgK,
+      final int tgtLgK) {
+    assert srcLgK >= tgtLgK;
+    final TgtHllType srcType = src.getTgtHllType();
+    final Memory srcMem = src.isMemory()
+        ? ((DirectHllArray) src).mem
+        : Memory.wrap(((HllArray) src).hllByteArr);
+    final long srcStart = src.isMemory() ? HLL_BYTE_ARR_START : 0;
+
+    if (!isWordMergeable(srcMem, srcType)) {
+      final int tgtKmask = (1 << tgtLgK) - 1;
+      final int srcK = 1 << srcLgK;
+      for (int slot = 0; slot < srcK; slot++) {
+        tgt.updateSlotNoKxQ(slot & tgtKmask, src.getSlotValue(slot));
+      }
+      return;
+    }
+
+    mergeRegisters(srcMem, srcStart, srcType, srcLgK, src.getCurMin(), tgt, tgtLgK);
+
+    if (srcType == TgtHllType.HLL_4) {
+      //An AUX_TOKEN nibble decodes to curMin + 15, which never exceeds the true value held in
+      //the aux map, so the aux values can simply be merged afterwards.
+      final AuxHashMap auxHashMap = src.getAuxHashMap();
+      if (auxHashMap != null) {
+        final int tgtKmask = (1 << tgtLgK) - 1;
+        final PairIterator itr = auxHashMap.getIterator();
+        while (itr.nextValid()) {
+          tgt.updateSlotNoKxQ(itr.getSlot() & tgtKmask, itr.getValue());
+        }
+      }
+    }
+  }
+
+  /**
+   * Merges the serialized HLL mode image, compact or updatable, into the HLL_8 target without
+   * creating a sketch for the image. The image must pass {@link #isWordMergeable(Memory, TgtHllType)}
+   * and its lgK must be at least the lgK of the target.
+   * @param image a valid, non-empty HLL mode image of any TgtHllType.
+   * @param tgt the target HLL_8 array, on heap or in Memory.
+   */
+  static void merge(final Memory image, final AbstractHllArray tgt) {
+    final int srcLgK = extractLgK(image);
+    final int tgtLgK = tgt.getLgConfigK();
+    final TgtHllType srcType = extractTgtHllType(image);
+    assert srcLgK >= tgtLgK;
+    assert isWordMergeable(image, srcType);
+    final long arrEnd = HLL_BYTE_ARR_START + AbstractHllArray.hllArrBytes(srcType, srcLgK);
+    checkBounds(0, arrEnd, image.getCapacity());
+
+    mergeRegisters(image, HLL_BYTE_ARR_START, srcType, srcLgK, extractCurMin(image), tgt, tgtLgK);
+
+    if (srcType == TgtHllType.HLL_4) {
+      final int auxCount = extractAuxCount(image);
+      if (auxCount == 0) { return; }
+      final int auxInts = extractCompactFlag(image) ? auxCount : 1 << extractLgArr(image);
+      checkBounds(arrEnd, (long) auxInts << 2, image.getCapacity());
+      final int tgtKmask = (1 << tgtLgK) - 1;
+      for (int i = 0; i < auxInts; i++) {
+        final int pair = extractInt(image, arrEnd + (i << 2));
+        if (pair == EMPTY) { continue; }
+        tgt.updateSlotNoKxQ(getPairLow26(pair) & tgtKmask, getPairValue(pair));
+      }
+    }
+  }
+
+  /**
+   * Returns true if the registers of the given type can be read word-parallel from the given
+   * Memory. DirectHll6Array packs with getShort() in the Memory byte order, which is only a bit
+   * stream for little-endian Memory.
+   * @param srcMem the Memory holding the source registers
+   * @param srcType the TgtHllType of the source
+   * @return true if the registers can be read word-parallel.
+   */
+  static boolean isWordMergeable(final Memory srcMem, final TgtHllType srcType) {
+    return (srcType != TgtHllType.HLL_6) || (srcMem.getTypeByteOrder() == ByteOrder.LITTLE_ENDIAN);
+  }
+
+  //Merges the register array that starts at srcStart, but not the HLL_4 aux exceptions.
+  private static void mergeRegisters(final Memory srcMem, final long srcStart,
+      final TgtHllType srcType, final int srcLgK, final int curMin, final AbstractHllArray tgt,
+      final int tgtLgK) {
+    final boolean srcLE = srcMem.getTypeByteOrder() == ByteOrder.LITTLE_ENDIAN;
+    final WritableMemory tgtMem = tgt.isMemory()
+        ? ((DirectHllArray) tgt).wmem
+        : WritableMemory.writableWrap(((HllArray) tgt).hllByteArr);
+    final long tgtStart = tgt.isMemory() ? HLL_BYTE_ARR_START : 0;
+    final boolean tgtLE = tgtMem.getTypeByteOrder() == ByteOrder.LITTLE_ENDIAN;
+    final int tgtWords = (1 << tgtLgK) >>> 3;
+    final int srcWords = (1 << srcLgK) >>> 3;
+    final int chunkWords = Math.min(CHUNK_WORDS, tgtWords);
+    final long[] srcBuf = new long[chunkWords];
+    final long[] tgtBuf = new long[chunkWords];
+    final byte[] byteBuf = (srcType == TgtHllType.HLL_8) ? null : new byte[chunkWords * 6];
+    //Words loaded from Memory are in the lane order of that Memory. Decoded words are little-endian.
+    final boolean reverseSrc = (srcType == TgtHllType.HLL_8) ? (srcLE != tgtLE) : !tgtLE;
+    final long curMinLanes = (srcType == TgtHllType.HLL_4) ? curMin * LANE_LO_BITS : 0;
+
+    //chunkWords divides tgtWords, which divides srcWords, so no chunk wraps around the target.
+    for (int w = 0; w < srcWords; w += chunkWords) {
+      switch (srcType) {
+        case HLL_8: {
+          srcMem.getLongArray(srcStart + ((long) w << 3), srcBuf, 0, chunkWords);
+          break;
+        }
+        case HLL_6: {
+          srcMem.getByteArray(srcStart + (w * 6L), byteBuf, 0, chunkWords * 6);
+          decodeHll6(byteBuf, srcBuf, chunkWords);
+          break;
+        }
+        default: { //HLL_4
+          srcMem.getByteArray(srcStart + ((long) w << 2), byteBuf, 0, chunkWords << 2);
+          decodeHll4(byteBuf, srcBuf, chunkWords, curMinLanes);
+          break;
+        }
+      }
+      if (reverseSrc) {
+        for (int i = 0; i < chunkWords; i++) { srcBuf[i] = Long.reverseBytes(srcBuf[i]); }
+      }
+      final long tgtOffset = tgtStart + ((long) (w & (tgtWords - 1)) << 3);
+      tgtMem.getLongArray(tgtOffset, tgtBuf, 0, chunkWords);
+      boolean changed = false;
+      for (int i = 0; i < chunkWords; i++) {
+        final long tgtWord = tgtBuf[i];
+        final long maxWord = maxLanes(srcBuf[i], tgtWord);
+        changed |= maxWord != tgtWord;
+        tgtBuf[i] = maxWord;
+      }
+      if (changed) { tgtMem.putLongArray(tgtOffset, tgtBuf, 0, chunkWords); }
+    }
+  }
+
+  //8 slots of 6 bits in 6 bytes, little-endian bit order, to 8 byte lanes
+  private static void decodeHll6(final byte[] bytes, final long[] words, final int numWords) {
+    for (int w = 0, b = 0; w < numWords; w++, b += 6) {
+      final long bits = (bytes[b] & 0xFFL)
+          | ((bytes[b + 1] & 0xFFL) << 8)
+          | ((bytes[b + 2] & 0xFFL) << 16)
+          | ((bytes[b + 3] & 0xFFL) << 24)
+          | ((bytes[b + 4] & 0xFFL) << 32)
+          | ((bytes[b + 5] & 0xFFL) << 40);
+      words[w] = (bits & 0x3FL)
+          | ((bits << 2) & 0x3F00L)
+          | ((bits << 4) & 0x3F_0000L)
+          | ((bits << 6) & 0x3F00_0000L)
+          | ((bits << 8) & 0x3F_0000_0000L)
+          | ((bits << 10) & 0x3F00_0000_0000L)
+          | ((bits << 12) & 0x3F_0000_0000_0000L)
+          | ((bits << 14) & 0x3F00_0000_0000_0000L);
+    }
+  }
+
+  //8 slots of 4 bits in 4 bytes, low nibble first, to 8 byte lanes plus curMin
+  private static void decodeHll4(final byte[] bytes, final long[] words, final int numWords,
+      final long curMinLanes) {
+    for (int w = 0, b = 0; w < numWords; w++, b += 4) {
+      final long bits = (bytes[b] & 0xFFL)
+          | ((bytes[b + 1] & 0xFFL) << 8)
+          | ((bytes[b + 2] & 0xFFL) << 16)
+          | ((bytes[b + 3] & 0xFFL) << 24);
+      final long spread = (bits & 0xFL)
+          | ((bits << 4) & 0xF00L)
+          | ((bits << 8) & 0xF_0000L)
+          | ((bits << 12) & 0xF00_0000L)
+          | ((bits << 16) & 0xF_0000_0000L)
+          | ((bits << 20) & 0xF00_0000_0000L)
+          | ((bits << 24) & 0xF_0000_0000_0000L)
+          | ((bits << 28) & 0xF00_0000_0000_0000L);
+      words[w] = spread + curMinLanes; //no lane overflows: 15 + curMin < 128
+    }
+  }
+
+  /**
+   * Returns the lane-wise unsigned maximum of two words whose byte lanes are all less than 128.
+   * @param a the first word
+   * @param b the second word
+   * @return the lane-wise maximum
+   */
+  static long maxLanes(final long a, final long b) {
+    //The top bit of each lane of (a | H) - b is set exactly where a >= b, and no lane borrows.
+    final long aGeB = (((a | LANE_HI_BITS) - b) & LANE_HI_BITS) >>> 7;
+    final long mask = aGeB * 0xFFL;
+    return (a & mask) | (b & ~mask);
+  }
+}
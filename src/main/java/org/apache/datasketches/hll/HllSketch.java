@@ -244,6 +244,67 @@ public class HllSketch extends BaseHllSketch {
     return writableWrap(srcWmem, true);
   }
 
+  /**
+   * Creates a new HLL_8 sketch in the given WritableMemory in atomic mode, so that it can be
+   * updated by several threads or processes at once without external locking.
+   *
+   * <p>In atomic mode each register is updated with a compare-and-swap on the 64-bit word that
+   * contains it, so no updates are lost. The sketch starts in HLL mode, because the LIST and SET
+   * modes cannot be updated atomically. It is marked out-of-order, so estimates come from the
+   * composite estimator. The estimator registers in the preamble are not maintained on update.
+   * Instead, each call to getEstimate() or a bound recomputes them from the HLL array, which costs
+   * time proportional to K. Heapified copies are rebuilt the same way.</p>
+   *
+   * <p>Every thread or process that updates the shared memory must use its own HllSketch obtained
+   * from this method or {@link #writableWrapAtomic(WritableMemory)}. Do not use
+   * {@link #writableWrap(WritableMemory)} on memory that others are updating atomically.
+   * The capacity required is {@link #getMaxUpdatableSerializationBytes(int, TgtHllType)} for HLL_8.
+   * The register array must also start on an 8-byte boundary, which is always the case for memory
+   * obtained from <i>WritableMemory.allocate(...)</i>, <i>allocateDirect(...)</i> or
+   * <i>writableMap(...)</i> at offset zero.</p>
+   * @param lgConfigK The Log2 of K for the target HLL sketch. This value must be
+   * between 4 and 21 inclusively.
+   * @param dstMem the destination memory for the sketch.
+   * @return an HllSketch in atomic mode where the sketch data is in the given dstMem.
+   */
+  public static final HllSketch newAtomicInstance(final int lgConfigK,
+      final WritableMemory dstMem) {
+    Objects.requireNonNull(dstMem, "Destination Memory must not be null");
+    HllUtil.checkLgK(lgConfigK);
+    final long minBytes = getMaxUpdatableSerializationBytes(lgConfigK, TgtHllType.HLL_8);
+    HllUtil.checkMemSize(minBytes, dstMem.getCapacity());
+    DirectHll8Array.checkAtomicAlignment(dstMem);
+    DirectHll8Array.initAtomicImage(lgConfigK, dstMem);
+    return new HllSketch(new DirectHll8Array(lgConfigK, dstMem, true));
+  }
+
+  /**
+   * Wraps the given WritableMemory in atomic mode. The memory must be an updatable image of an
+   * HLL_8 sketch in HLL mode, such as one created by {@link #newAtomicInstance(int, WritableMemory)}.
+   * See that method for the behavior of atomic mode.
+   * @param srcWmem a writable image of an HLL_8 sketch in HLL mode.
+   * @return an HllSketch in atomic mode where the sketch data is in the given srcWmem.
+   */
+  public static final HllSketch writableWrapAtomic(final WritableMemory srcWmem) {
+    Objects.requireNonNull(srcWmem, "Source Memory must not be null");
+    checkBounds(0, 8, srcWmem.getCapacity()); //need min 8 bytes
+    if (extractCompactFlag(srcWmem)) {
+      throw new SketchesArgumentException(
+          "Cannot perform a writableWrap of a writable sketch image that is in compact form. "
+          + "Compact sketches are by definition immutable.");
+    }
+    final int lgConfigK = extractLgK(srcWmem);
+    final TgtHllType tgtHllType = extractTgtHllType(srcWmem);
+    final CurMode curMode = checkPreamble(srcWmem);
+    if ((tgtHllType != TgtHllType.HLL_8) || (curMode != CurMode.HLL)) {
+      throw new SketchesArgumentException(
+          "Atomic mode requires an HLL_8 sketch image in HLL mode: " + tgtHllType + ", " + curMode);
+    }
+    final long minBytes = getMaxUpdatableSerializationBytes(lgConfigK, tgtHllType);
+    HllUtil.checkMemSize(minBytes, srcWmem.getCapacity());
+    return new HllSketch(new DirectHll8Array(lgConfigK, srcWmem, true));
+  }
+
   //used by union and above
   static final HllSketch writableWrap( final WritableMemory srcWmem, final boolean checkRebuild) {
     Objects.requireNonNull(srcWmem, "Source Memory must not be null");
@@ -303,9 +364,9 @@ public class HllSketch extends BaseHllSketch {
       } else if (tgtHllType == TgtHllType.HLL_6) {
         directSketch = new HllSketch(new DirectHll6Array(lgConfigK, srcMem));
       } else { //Hll_8
+        //if srcMem came from a union and was not finalized, or is an atomic image, the estimator
+        //registers are recomputed on each estimate, since they cannot be written back.
         directSketch = new HllSketch(new DirectHll8Array(lgConfigK, srcMem));
-        //rebuild if srcMem came from a union and was not finalized, rather than throw exception.
-        Union.checkRebuildCurMinNumKxQ(directSketch);
       }
     } else if (curMode == CurMode.LIST) {
       directSketch =
@@ -568,4 +629,17 @@ public class HllSketch extends BaseHllSketch {
     hllSketchImpl = hllSketchImpl.couponUpdate(coupon);
   }
 
+  @Override
+  void couponUpdate(final int[] coupons, final int offset, final int length) {
+    final int end = offset + length;
+    int i = offset;
+    //LIST and SET modes may promote, so they take one coupon at a time
+    while ((i < end) && (hllSketchImpl.getCurMode() != CurMode.HLL)) {
+      couponUpdate(coupons[i++]);
+    }
+    if (i < end) {
+      hllSketchImpl = hllSketchImpl.couponUpdate(coupons, i, end - i);
+    }
+  }
+
 }
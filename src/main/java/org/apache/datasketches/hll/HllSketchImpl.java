@@ -54,6 +54,23 @@ abstract class HllSketchImpl {
 
   abstract HllSketchImpl couponUpdate(int coupon);
 
+  /**
+   * Updates this sketch with a run of coupons. The mode may change along the way, so the
+   * returned sketch must replace this one, just as with the single coupon update.
+   * @param coupons the array of coupons
+   * @param offset the index of the first coupon
+   * @param length the number of coupons
+   * @return the resulting sketch, which may be a different mode
+   */
+  HllSketchImpl couponUpdate(final int[] coupons, final int offset, final int length) {
+    HllSketchImpl impl = this;
+    final int end = offset + length;
+    for (int i = offset; i < end; i++) {
+      impl = impl.couponUpdate(coupons[i]);
+    }
+    return impl;
+  }
+
   abstract int getCompactSerializationBytes();
 
   abstract double getCompositeEstimate();
@@ -19,15 +19,31 @@
 
 package org.apache.datasketches.hll;
 
+import static org.apache.datasketches.common.Util.checkBounds;
 import static org.apache.datasketches.common.Util.invPow2;
-import static org.apache.datasketches.hll.HllUtil.AUX_TOKEN;
 import static org.apache.datasketches.hll.HllUtil.EMPTY;
-import static org.apache.datasketches.hll.HllUtil.loNibbleMask;
-import static org.apache.datasketches.hll.PreambleUtil.HLL_BYTE_ARR_START;
+import static org.apache.datasketches.hll.HllUtil.LG_INIT_LIST_SIZE;
+import static org.apache.datasketches.hll.HllUtil.checkPreamble;
+import static org.apache.datasketches.hll.PreambleUtil.HASH_SET_INT_ARR_START;
+import static org.apache.datasketches.hll.PreambleUtil.LIST_INT_ARR_START;
+import static org.apache.datasketches.hll.PreambleUtil.computeLgArr;
+import static org.apache.datasketches.hll.PreambleUtil.extractCompactFlag;
+import static org.apache.datasketches.hll.PreambleUtil.extractCurMode;
+import static org.apache.datasketches.hll.PreambleUtil.extractEmptyFlag;
+import static org.apache.datasketches.hll.PreambleUtil.extractHashSetCount;
+import static org.apache.datasketches.hll.PreambleUtil.extractInt;
+import static org.apache.datasketches.hll.PreambleUtil.extractLgArr;
+import static org.apache.datasketches.hll.PreambleUtil.extractLgK;
+import static org.apache.datasketches.hll.PreambleUtil.extractListCount;
+import static org.apache.datasketches.hll.PreambleUtil.extractRebuildCurMinNumKxQFlag;
 import static org.apache.datasketches.hll.PreambleUtil.extractTgtHllType;
-import static org.apache.datasketches.hll.TgtHllType.HLL_4;
 import static org.apache.datasketches.hll.TgtHllType.HLL_8;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.memory.Memory;
 import org.apache.datasketches.memory.WritableMemory;
@@ -319,12 +335,143 @@ public class Union extends BaseHllSketch {
     gadget.hllSketchImpl = unionImpl(sketch, gadget, lgMaxK);
   }
 
+  /**
+   * Update this union operator with the given serialized images of HllSketches. The images may be
+   * compact or updatable, of any <i>TgtHllType</i> and <i>lgConfigK</i>, and in any mode. The
+   * images are read directly from Memory without constructing sketches.
+   *
+   * <p>The images are not applied in the given order. The images in HLL mode are merged first, in
+   * order of increasing <i>lgConfigK</i>, so that the internal gadget is downsampled at most once.
+   * The coupons of the images in LIST or SET mode are then applied to the result in the given
+   * order. Since register merging is commutative, the resulting mode, <i>lgConfigK</i> and
+   * estimate are the same as those of a union updated with each image in turn, wrapped as a
+   * sketch. Null and empty images are ignored.</p>
+   *
+   * @param images the given serialized images of HllSketches.
+   */
+  public void update(final Iterable<? extends Memory> images) {
+    final List<Memory> hllImages = new ArrayList<>();
+    final List<Memory> couponImages = new ArrayList<>();
+    for (final Memory image : images) {
+      if (image == null) { continue; }
+      final CurMode curMode = checkPreamble(image);
+      if (extractEmptyFlag(image)) { continue; }
+      if (curMode == CurMode.HLL) { hllImages.add(image); }
+      else { couponImages.add(image); }
+    }
+    hllImages.sort((a, b) -> Integer.compare(extractLgK(a), extractLgK(b)));
+    for (final Memory image : hllImages) {
+      if (isImageMergeable(image)) {
+        HllArrayMerge.merge(image, (AbstractHllArray) gadget.hllSketchImpl);
+        gadget.putOutOfOrderFlag(true);
+        gadget.hllSketchImpl.putRebuildCurMinNumKxQFlag(true);
+      } else {
+        //sets the mode and lgK of the gadget, or reads registers that are not word-mergeable
+        update(extractRebuildCurMinNumKxQFlag(image) ? HllSketch.heapify(image) : HllSketch.wrap(image));
+      }
+    }
+    for (final Memory image : couponImages) {
+      couponImageUpdate(image);
+    }
+  }
+
+  /**
+   * Update this union operator with the given serialized images of HllSketches, splitting the work
+   * over the given ForkJoinPool. Each task merges a contiguous run of images into its own partial
+   * union with {@link #update(Iterable)}, and the partial unions are combined pairwise as a tree.
+   * The root partial union is merged into this union on the calling thread.
+   *
+   * <p>The result is the same as with {@link #update(Iterable)}. This union is not modified until
+   * all tasks have completed, and it must not be concurrently modified by other threads.</p>
+   *
+   * @param images the given serialized images of HllSketches.
+   * @param pool the ForkJoinPool to run on, or null for the common pool.
+   */
+  public void updateAll(final Iterable<? extends Memory> images, final ForkJoinPool pool) {
+    final List<Memory> list = new ArrayList<>();
+    for (final Memory image : images) { list.add(image); }
+    if (list.isEmpty()) { return; }
+    final ForkJoinPool fjPool = (pool == null) ? ForkJoinPool.commonPool() : pool;
+    final Union partial = fjPool.invoke(new UnionTask(list, 0, list.size(), lgMaxK));
+    checkRebuildCurMinNumKxQ(partial.gadget);
+    update(partial.gadget);
+  }
+
+  private static final class UnionTask extends RecursiveTask<Union> {
+    private static final long serialVersionUID = 1L;
+    private static final int LEAF_IMAGES = 256;
+    private final transient List<Memory> images;
+    private final int start;
+    private final int end;
+    private final int lgMaxK;
+
+    UnionTask(final List<Memory> images, final int start, final int end, final int lgMaxK) {
+      this.images = images;
+      this.start = start;
+      this.end = end;
+      this.lgMaxK = lgMaxK;
+    }
+
+    @Override
+    protected Union compute() {
+      if ((end - start) <= LEAF_IMAGES) {
+        final Union union = new Union(lgMaxK);
+        union.update(images.subList(start, end));
+        return union;
+      }
+      final int mid = (start + end) >>> 1;
+      final UnionTask right = new UnionTask(images, mid, end, lgMaxK);
+      right.fork();
+      final Union left = new UnionTask(images, start, mid, lgMaxK).compute();
+      final Union rightUnion = right.join();
+      checkRebuildCurMinNumKxQ(rightUnion.gadget);
+      left.update(rightUnion.gadget);
+      return left;
+    }
+  }
+
+  //True if the HLL mode image can be merged directly into the gadget registers
+  private boolean isImageMergeable(final Memory image) {
+    final TgtHllType srcType = extractTgtHllType(image);
+    return (gadget.getCurMode() == CurMode.HLL)
+        && !gadget.isEmpty()
+        && (extractLgK(image) >= gadget.getLgConfigK())
+        && HllArrayMerge.isWordMergeable(image, srcType)
+        //curMin of an HLL_4 image is only valid if it was finalized
+        && ((srcType != TgtHllType.HLL_4) || !extractRebuildCurMinNumKxQFlag(image));
+  }
+
+  //Applies the coupons of a LIST or SET mode image, as DirectCouponList.mergeTo() does.
+  private void couponImageUpdate(final Memory image) {
+    final boolean list = extractCurMode(image) == CurMode.LIST;
+    final int count = list ? extractListCount(image) : extractHashSetCount(image);
+    final long dataStart = list ? LIST_INT_ARR_START : HASH_SET_INT_ARR_START;
+    final int lenInts;
+    if (extractCompactFlag(image)) {
+      lenInts = count;
+    } else {
+      final int lgArr = extractLgArr(image);
+      lenInts = 1 << ((lgArr >= LG_INIT_LIST_SIZE) ? lgArr : computeLgArr(image, count, extractLgK(image)));
+    }
+    checkBounds(dataStart, (long) lenInts << 2, image.getCapacity());
+    for (int i = 0; i < lenInts; i++) {
+      final int pair = extractInt(image, dataStart + (i << 2));
+      if (pair == EMPTY) { continue; }
+      couponUpdate(pair);
+    }
+  }
+
   @Override
   void couponUpdate(final int coupon) {
     if (coupon == EMPTY) { return; }
     gadget.hllSketchImpl = gadget.hllSketchImpl.couponUpdate(coupon);
   }
 
+  @Override
+  void couponUpdate(final int[] coupons, final int offset, final int length) {
+    gadget.couponUpdate(coupons, offset, length);
+  }
+
   // Union operator logic
 
   /**
@@ -431,7 +578,7 @@ public class Union extends BaseHllSketch {
       case 21://src >  max, src >= gdt, gdtHLL, gdtMemory
       { //Action: forward HLL merge w/autofold, ooof=True
         //merge src(Hll4,6,8,heap/mem,Mode=HLL) -> gdt(Hll8,heap,Mode=HLL)
-        mergeHlltoHLLmode(source, gadget, srcLgK, gadgetLgK, srcIsMem, gdtIsMem);
+        mergeHlltoHLLmode(source, gadget);
         hllSketchImpl = gadget.putOutOfOrderFlag(true).hllSketchImpl;
         break;
       }
@@ -439,7 +586,7 @@ public class Union extends BaseHllSketch {
       { //Action: downsample gdt to srcLgK, forward HLL merge w/autofold, ooof=True
         final HllSketch gdtHll8Heap = downsample(gadget, srcLgK);
         //merge src(Hll4,6,8;heap/mem,Mode=HLL) -> gdt(Hll8,heap,hll)
-        mergeHlltoHLLmode(source, gdtHll8Heap, srcLgK, gadgetLgK, srcIsMem, false);
+        mergeHlltoHLLmode(source, gdtHll8Heap);
         hllSketchImpl = gdtHll8Heap.putOutOfOrderFlag(true).hllSketchImpl;
         break;
       }
@@ -447,7 +594,7 @@ public class Union extends BaseHllSketch {
       { //Action: downsample gdt to srcLgK, forward HLL merge w/autofold, use gdt memory, ooof=True
         final HllSketch gdtHll8Heap = downsample(gadget, srcLgK);
         //merge src(Hll4,6,8;heap/mem;Mode=HLL) -> gdt(Hll8,heap,Mode=HLL)
-        mergeHlltoHLLmode(source, gdtHll8Heap, srcLgK, gadgetLgK, srcIsMem, false);
+        mergeHlltoHLLmode(source, gdtHll8Heap);
         hllSketchImpl = useGadgetMemory(gadget, gdtHll8Heap, true).hllSketchImpl;
         break;
       }
@@ -494,274 +641,14 @@ public class Union extends BaseHllSketch {
         : HllSketch.writableWrap(wmem, false);                        //wrap & return
   }
 
-  private static final void mergeHlltoHLLmode(final HllSketch src, final HllSketch tgt,
-      final int srcLgK, final int tgtLgK, final boolean srcIsMem, final boolean tgtIsMem) {
-      final int sw = (tgtIsMem ? 1 : 0) | (srcIsMem ? 2 : 0)
-          | ((srcLgK > tgtLgK) ? 4 : 0) | ((src.getTgtHllType() != HLL_8) ? 8 : 0);
-      final int srcK = 1 << srcLgK;
-
-      switch (sw) {
-        case 0: { //HLL_8, srcLgK=tgtLgK, src=heap, tgt=heap
-          final byte[] srcArr = ((Hll8Array) src.hllSketchImpl).hllByteArr;
-          final byte[] tgtArr = ((Hll8Array) tgt.hllSketchImpl).hllByteArr;
-          for (int i = 0; i < srcK; i++) {
-            final byte srcV = srcArr[i];
-            final byte tgtV = tgtArr[i];
-            tgtArr[i] = (byte) Math.max(srcV, tgtV);
-          }
-          break;
-        }
-        case 1: { //HLL_8, srcLgK=tgtLgK, src=heap, tgt=mem
-          final byte[] srcArr = ((Hll8Array) src.hllSketchImpl).hllByteArr;
-          final WritableMemory tgtMem = tgt.getWritableMemory();
-          for (int i = 0; i < srcK; i++) {
-            final byte srcV = srcArr[i];
-            final byte tgtV = tgtMem.getByte(HLL_BYTE_ARR_START + i);
-            tgtMem.putByte(HLL_BYTE_ARR_START + i, (byte) Math.max(srcV, tgtV));
-          }
-          break;
-        }
-        case 2: { //HLL_8, srcLgK=tgtLgK, src=mem,  tgt=heap
-          final Memory srcMem = src.getMemory();
-          final byte[] tgtArr = ((Hll8Array) tgt.hllSketchImpl).hllByteArr;
-          for (int i = 0; i < srcK; i++) {
-            final byte srcV = srcMem.getByte(HLL_BYTE_ARR_START + i);
-            final byte tgtV = tgtArr[i];
-            tgtArr[i] = (byte) Math.max(srcV, tgtV);
-          }
-          break;
-        }
-        case 3: { //HLL_8, srcLgK=tgtLgK, src=mem,  tgt=mem
-          final Memory srcMem = src.getMemory();
-          final WritableMemory tgtMem = tgt.getWritableMemory();
-          for (int i = 0; i < srcK; i++) {
-            final byte srcV = srcMem.getByte(HLL_BYTE_ARR_START + i);
-            final byte tgtV = tgtMem.getByte(HLL_BYTE_ARR_START + i);
-            tgtMem.putByte(HLL_BYTE_ARR_START + i, (byte) Math.max(srcV, tgtV));
-          }
-          break;
-        }
-        case 4: { //HLL_8, srcLgK>tgtLgK, src=heap, tgt=heap
-          final int tgtKmask = (1 << tgtLgK) - 1;
-          final byte[] srcArr = ((Hll8Array) src.hllSketchImpl).hllByteArr;
-          final byte[] tgtArr = ((Hll8Array) tgt.hllSketchImpl).hllByteArr;
-          for (int i = 0; i < srcK; i++) {
-            final byte srcV = srcArr[i];
-            final int j = i & tgtKmask;
-            final byte tgtV = tgtArr[j];
-            tgtArr[j] = (byte) Math.max(srcV, tgtV);
-          }
-          break;
-        }
-        case 5: { //HLL_8, srcLgK>tgtLgK, src=heap, tgt=mem
-          final int tgtKmask = (1 << tgtLgK) - 1;
-          final byte[] srcArr = ((Hll8Array) src.hllSketchImpl).hllByteArr;
-          final WritableMemory tgtMem = tgt.getWritableMemory();
-          for (int i = 0; i < srcK; i++) {
-            final byte srcV = srcArr[i];
-            final int j = i & tgtKmask;
-            final byte tgtV = tgtMem.getByte(HLL_BYTE_ARR_START + j);
-            tgtMem.putByte(HLL_BYTE_ARR_START + j, (byte) Math.max(srcV, tgtV));
-          }
-          break;
-        }
-        case 6: { //HLL_8, srcLgK>tgtLgK, src=mem,  tgt=heap
-          final int tgtKmask = (1 << tgtLgK) - 1;
-          final Memory srcMem = src.getMemory();
-          final byte[] tgtArr = ((Hll8Array) tgt.hllSketchImpl).hllByteArr;
-          for (int i = 0; i < srcK; i++) {
-            final byte srcV = srcMem.getByte(HLL_BYTE_ARR_START + i);
-            final int j = i & tgtKmask;
-            final byte tgtV = tgtArr[j];
-            tgtArr[j] = (byte) Math.max(srcV, tgtV);
-          }
-          break;
-        }
-        case 7: { //HLL_8, srcLgK>tgtLgK, src=mem,  tgt=mem
-          final int tgtKmask = (1 << tgtLgK) - 1;
-          final Memory srcMem = src.getMemory();
-          final WritableMemory tgtMem = tgt.getWritableMemory();
-          for (int i = 0; i < srcK; i++) {
-            final byte srcV = srcMem.getByte(HLL_BYTE_ARR_START + i);
-            final int j = i & tgtKmask;
-            final byte tgtV = tgtMem.getByte(HLL_BYTE_ARR_START + j);
-            tgtMem.putByte(HLL_BYTE_ARR_START + j, (byte) Math.max(srcV, tgtV));
-          }
-          break;
-        }
-        case 8: case 9:
-        {
-          //!HLL_8, srcLgK=tgtLgK, src=heap, tgt=heap/mem
-          final AbstractHllArray tgtAbsHllArr = (AbstractHllArray)(tgt.hllSketchImpl);
-          if (src.getTgtHllType() == HLL_4) {
-            final Hll4Array src4 = (Hll4Array) src.hllSketchImpl;
-            final AuxHashMap auxHashMap = src4.getAuxHashMap();
-            final int curMin = src4.getCurMin();
-            int i = 0;
-            int j = 0;
-            while (j < srcK) {
-              final byte b = src4.hllByteArr[i++];
-              int value = Byte.toUnsignedInt(b) & loNibbleMask;
-              tgtAbsHllArr.updateSlotNoKxQ(j, value == AUX_TOKEN ? auxHashMap.mustFindValueFor(j) : value + curMin);
-              j++;
-              value = Byte.toUnsignedInt(b) >>> 4;
-              tgtAbsHllArr.updateSlotNoKxQ(j, value == AUX_TOKEN ? auxHashMap.mustFindValueFor(j) : value + curMin);
-              j++;
-            }
-          } else {
-            final Hll6Array src6 = (Hll6Array) src.hllSketchImpl;
-            int i = 0;
-            int j = 0;
-            while (j < srcK) {
-              final byte b1 = src6.hllByteArr[i++];
-              final byte b2 = src6.hllByteArr[i++];
-              final byte b3 = src6.hllByteArr[i++];
-              int value = Byte.toUnsignedInt(b1) & 0x3f;
-              tgtAbsHllArr.updateSlotNoKxQ(j++, value);
-              value = Byte.toUnsignedInt(b1) >>> 6;
-              value |= (Byte.toUnsignedInt(b2) & 0x0f) << 2;
-              tgtAbsHllArr.updateSlotNoKxQ(j++, value);
-              value = Byte.toUnsignedInt(b2) >>> 4;
-              value |= (Byte.toUnsignedInt(b3) & 3) << 4;
-              tgtAbsHllArr.updateSlotNoKxQ(j++, value);
-              value = Byte.toUnsignedInt(b3) >>> 2;
-              tgtAbsHllArr.updateSlotNoKxQ(j++, value);
-            }
-          }
-          break;
-        }
-        case 10: case 11:
-        {
-          //!HLL_8, srcLgK=tgtLgK, src=mem, tgt=heap/mem
-          final AbstractHllArray tgtAbsHllArr = (AbstractHllArray)(tgt.hllSketchImpl);
-          if (src.getTgtHllType() == HLL_4) {
-            final DirectHll4Array src4 = (DirectHll4Array) src.hllSketchImpl;
-            final AuxHashMap auxHashMap = src4.getAuxHashMap();
-            final int curMin = src4.getCurMin();
-            int i = 0;
-            int j = 0;
-            while (j < srcK) {
-              final byte b = src4.mem.getByte(HLL_BYTE_ARR_START + i++);
-              int value = Byte.toUnsignedInt(b) & loNibbleMask;
-              tgtAbsHllArr.updateSlotNoKxQ(j, value == AUX_TOKEN ? auxHashMap.mustFindValueFor(j) : value + curMin);
-              j++;
-              value = Byte.toUnsignedInt(b) >>> 4;
-              tgtAbsHllArr.updateSlotNoKxQ(j, value == AUX_TOKEN ? auxHashMap.mustFindValueFor(j) : value + curMin);
-              j++;
-            }
-          } else {
-            final DirectHll6Array src6 = (DirectHll6Array) src.hllSketchImpl;
-            int i = 0;
-            int offset = HLL_BYTE_ARR_START;
-            while (i < srcK) {
-              final byte b1 = src6.mem.getByte(offset++);
-              final byte b2 = src6.mem.getByte(offset++);
-              final byte b3 = src6.mem.getByte(offset++);
-              int value = Byte.toUnsignedInt(b1) & 0x3f;
-              tgtAbsHllArr.updateSlotNoKxQ(i++, value);
-              value = Byte.toUnsignedInt(b1) >>> 6;
-              value |= (Byte.toUnsignedInt(b2) & 0x0f) << 2;
-              tgtAbsHllArr.updateSlotNoKxQ(i++, value);
-              value = Byte.toUnsignedInt(b2) >>> 4;
-              value |= (Byte.toUnsignedInt(b3) & 3) << 4;
-              tgtAbsHllArr.updateSlotNoKxQ(i++, value);
-              value = Byte.toUnsignedInt(b3) >>> 2;
-              tgtAbsHllArr.updateSlotNoKxQ(i++, value);
-            }
-          }
-          break;
-        }
-        case 12: case 13:
-        {
-          //!HLL_8, srcLgK>tgtLgK, src=heap, tgt=heap/mem
-          final int tgtKmask = (1 << tgtLgK) - 1;
-          final AbstractHllArray tgtAbsHllArr = (AbstractHllArray)(tgt.hllSketchImpl);
-          if (src.getTgtHllType() == HLL_4) {
-            final Hll4Array src4 = (Hll4Array) src.hllSketchImpl;
-            final AuxHashMap auxHashMap = src4.getAuxHashMap();
-            final int curMin = src4.getCurMin();
-            int i = 0;
-            int j = 0;
-            while (j < srcK) {
-              final byte b = src4.hllByteArr[i++];
-              int value = Byte.toUnsignedInt(b) & loNibbleMask;
-              tgtAbsHllArr.updateSlotNoKxQ(j & tgtKmask, value == AUX_TOKEN
-                  ? auxHashMap.mustFindValueFor(j) : value + curMin);
-              j++;
-              value = Byte.toUnsignedInt(b) >>> 4;
-              tgtAbsHllArr.updateSlotNoKxQ(j & tgtKmask, value == AUX_TOKEN
-                  ? auxHashMap.mustFindValueFor(j) : value + curMin);
-              j++;
-            }
-          } else {
-            final Hll6Array src6 = (Hll6Array) src.hllSketchImpl;
-            int i = 0;
-            int j = 0;
-            while (j < srcK) {
-              final byte b1 = src6.hllByteArr[i++];
-              final byte b2 = src6.hllByteArr[i++];
-              final byte b3 = src6.hllByteArr[i++];
-              int value = Byte.toUnsignedInt(b1) & 0x3f;
-              tgtAbsHllArr.updateSlotNoKxQ(j++ & tgtKmask, value);
-              value = Byte.toUnsignedInt(b1) >>> 6;
-              value |= (Byte.toUnsignedInt(b2) & 0x0f) << 2;
-              tgtAbsHllArr.updateSlotNoKxQ(j++ & tgtKmask, value);
-              value = Byte.toUnsignedInt(b2) >>> 4;
-              value |= (Byte.toUnsignedInt(b3) & 3) << 4;
-              tgtAbsHllArr.updateSlotNoKxQ(j++ & tgtKmask, value);
-              value = Byte.toUnsignedInt(b3) >>> 2;
-              tgtAbsHllArr.updateSlotNoKxQ(j++ & tgtKmask, value);
-            }
-          }
-          break;
-        }
-        case 14: case 15:
-        {
-          //!HLL_8, srcLgK>tgtLgK, src=mem, tgt=heap/mem
-          final int tgtKmask = (1 << tgtLgK) - 1;
-          final AbstractHllArray tgtAbsHllArr = (AbstractHllArray)(tgt.hllSketchImpl);
-          if (src.getTgtHllType() == HLL_4) {
-            final DirectHll4Array src4 = (DirectHll4Array) src.hllSketchImpl;
-            final AuxHashMap auxHashMap = src4.getAuxHashMap();
-            final int curMin = src4.getCurMin();
-            int i = 0;
-            int j = 0;
-            while (j < srcK) {
-              final byte b = src4.mem.getByte(HLL_BYTE_ARR_START + i++);
-              int value = Byte.toUnsignedInt(b) & loNibbleMask;
-              tgtAbsHllArr.updateSlotNoKxQ(j & tgtKmask, value == AUX_TOKEN
-                  ? auxHashMap.mustFindValueFor(j) : value + curMin);
-              j++;
-              value = Byte.toUnsignedInt(b) >>> 4;
-              tgtAbsHllArr.updateSlotNoKxQ(j & tgtKmask, value == AUX_TOKEN
-                  ? auxHashMap.mustFindValueFor(j) : value + curMin);
-              j++;
-            }
-          } else {
-            final DirectHll6Array src6 = (DirectHll6Array) src.hllSketchImpl;
-            int i = 0;
-            int offset = HLL_BYTE_ARR_START;
-            while (i < srcK) {
-              final byte b1 = src6.mem.getByte(offset++);
-              final byte b2 = src6.mem.getByte(offset++);
-              final byte b3 = src6.mem.getByte(offset++);
-              int value = Byte.toUnsignedInt(b1) & 0x3f;
-              tgtAbsHllArr.updateSlotNoKxQ(i++ & tgtKmask, value);
-              value = Byte.toUnsignedInt(b1) >>> 6;
-              value |= (Byte.toUnsignedInt(b2) & 0x0f) << 2;
-              tgtAbsHllArr.updateSlotNoKxQ(i++ & tgtKmask, value);
-              value = Byte.toUnsignedInt(b2) >>> 4;
-              value |= (Byte.toUnsignedInt(b3) & 3) << 4;
-              tgtAbsHllArr.updateSlotNoKxQ(i++ & tgtKmask, value);
-              value = Byte.toUnsignedInt(b3) >>> 2;
-              tgtAbsHllArr.updateSlotNoKxQ(i++ & tgtKmask, value);
-            }
-          }
-          break;
-        }
-        default: break; //not possible
-      }
-      tgt.hllSketchImpl.putRebuildCurMinNumKxQFlag(true);
+  //Merges registers word-parallel, folding src if srcLgK > tgtLgK. The tgt KxQ registers are
+  //rebuilt later, see checkRebuildCurMinNumKxQ().
+  private static final void mergeHlltoHLLmode(final HllSketch src, final HllSketch tgt) {
+    final AbstractHllArray srcAbsHllArr = (AbstractHllArray) src.hllSketchImpl;
+    final AbstractHllArray tgtAbsHllArr = (AbstractHllArray) tgt.hllSketchImpl;
+    HllArrayMerge.merge(srcAbsHllArr, tgtAbsHllArr, srcAbsHllArr.getLgConfigK(),
+        tgtAbsHllArr.getLgConfigK());
+    tgt.hllSketchImpl.putRebuildCurMinNumKxQFlag(true);
   }
 
   //Used by union operator. Always copies or downsamples to Heap HLL_8.
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.kll;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The local buffer of a concurrent shared KLL doubles sketch. It is owned by a single updating
+ * thread. It holds the items in a KLL sketch on the heap of the same <em>k</em> as the shared
+ * sketch, and once it holds its buffer size of items, that sketch is handed to the shared sketch
+ * for background propagation and the buffer starts over with a second sketch.
+ *
+ * <p>At most one propagation per buffer is in flight. If the previous one has not completed when
+ * the buffer fills up again, the updating thread waits for it, which bounds the memory held by
+ * pending propagations and lets the two sketches of the buffer be reused.</p>
+ *
+ * <p>Queries are served by the shared sketch, see {@link #getSharedSketch()}.</p>
+ */
+public final class ConcurrentHeapKllDoublesBuffer {
+
+  private final ConcurrentSharedKllDoublesSketch shared_;
+  private final int localBufferSize_;
+  private KllDoublesSketch local_;
+  private KllDoublesSketch inFlight_; //owned by the shared sketch while propagation is in progress
+
+  // Set to true while propagation is in progress (or pending), cleared by the shared sketch.
+  private final AtomicBoolean localPropagationInProgress_;
+
+  ConcurrentHeapKllDoublesBuffer(final ConcurrentSharedKllDoublesSketch shared, final int localBufferSize) {
+    shared_ = shared;
+    localBufferSize_ = localBufferSize;
+    local_ = KllDoublesSketch.newHeapInstance(shared.getK());
+    inFlight_ = KllDoublesSketch.newHeapInstance(shared.getK());
+    localPropagationInProgress_ = new AtomicBoolean(false);
+  }
+
+  /**
+   * Updates this buffer with the given item. NaNs are ignored.
+   * @param item from a stream of items.
+   */
+  public void update(final double item) {
+    local_.update(item);
+    if (local_.getN() >= localBufferSize_) {
+      propagateToSharedSketch();
+    }
+  }
+
+  /**
+   * Updates this buffer with the given array (vector) of items, starting at the items
+   * offset for a length number of items. NaNs are ignored.
+   * @param items the vector of items
+   * @param offset the starting index of the items[] array
+   * @param length the number of items
+   */
+  public void update(final double[] items, final int offset, final int length) {
+    int off = offset;
+    int remaining = length;
+    while (remaining > 0) {
+      final int len = (int) Math.min(remaining, localBufferSize_ - local_.getN());
+      local_.update(items, off, len);
+      off += len;
+      remaining -= len;
+      if (local_.getN() >= localBufferSize_) {
+        propagateToSharedSketch();
+      }
+    }
+  }
+
+  /**
+   * Propagates the content of this buffer to the shared sketch and waits until it is merged.
+   * Call this when the updating thread is done so that no data is left behind in the buffer.
+   */
+  public void flush() {
+    if (!local_.isEmpty()) { propagateToSharedSketch(); }
+    awaitLocalPropagation();
+  }
+
+  /**
+   * Resets this local buffer, discarding any content not yet propagated.
+   */
+  public void reset() {
+    local_.reset();
+  }
+
+  /**
+   * Returns the number of items held by this buffer that have not been propagated yet.
+   * @return the number of items not propagated yet
+   */
+  public long getNumBuffered() {
+    return local_.getN();
+  }
+
+  /**
+   * Returns the number of items this buffer holds before it propagates.
+   * @return the local buffer size
+   */
+  public int getLocalBufferSize() {
+    return localBufferSize_;
+  }
+
+  /**
+   * Returns the shared sketch of this buffer, which serves all queries.
+   * @return the shared sketch
+   */
+  public ConcurrentSharedKllDoublesSketch getSharedSketch() {
+    return shared_;
+  }
+
+  //restricted
+
+  private void propagateToSharedSketch() {
+    awaitLocalPropagation();
+    final KllDoublesSketch full = local_;
+    local_ = inFlight_;
+    local_.reset();
+    inFlight_ = full;
+    localPropagationInProgress_.set(true);
+    shared_.propagate(localPropagationInProgress_, full);
+  }
+
+  private void awaitLocalPropagation() {
+    shared_.awaitLocalPropagation(localPropagationInProgress_);
+  }
+}
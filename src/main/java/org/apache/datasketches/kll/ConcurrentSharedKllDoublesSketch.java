@@ -0,0 +1,318 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.kll;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.datasketches.common.ConcurrentPropagationMetrics;
+import org.apache.datasketches.common.ConcurrentPropagator;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.MemoryRequestServer;
+import org.apache.datasketches.memory.WritableMemory;
+import org.apache.datasketches.quantilescommon.QuantileSearchCriteria;
+
+/**
+ * A concurrent shared KLL doubles sketch. It reflects all data processed by one or more update
+ * threads, each of which updates its own local buffer obtained from {@link #newLocalBuffer()}.
+ * A local buffer is a small KLL sketch on the heap. When it fills up it is handed to this sketch
+ * and merged in the background, so the updating threads never contend on a lock.
+ *
+ * <p>Accuracy: a local buffer of at most <i>k</i> items never compacts, so merging it is the same
+ * as updating this sketch with its items. With such buffers, which is the default, this sketch
+ * has the same rank error guarantee as a single KLL sketch of the same <i>k</i> updated with all
+ * propagated items, only in a different order. A larger local buffer compacts its level 0 like
+ * any KLL sketch, and since KLL sketches are fully mergeable the guarantee of
+ * {@link KllSketch#getNormalizedRankError(int, boolean)} for this <i>k</i> still holds for the
+ * propagated items.</p>
+ *
+ * <p>Items still held in local buffers are not reflected until the buffers propagate, either
+ * because they fill up or because they are flushed. With <i>t</i> updating threads and local
+ * buffers of <i>b</i> items, up to <i>t&middot;b</i> items can be missing from the answers of this
+ * sketch, which adds at most <i>t&middot;b/N</i> to the rank error of a query.</p>
+ *
+ * <p>The number of items is served from a snapshot taken after every propagation and never
+ * blocks. The other queries briefly exclude propagation.</p>
+ */
+public final class ConcurrentSharedKllDoublesSketch {
+  private final KllDoublesSketch sketch_;
+  private final ConcurrentPropagator propagator_;
+
+  // Number of items of the sketch, updated after every propagation
+  private volatile long volatileN_;
+
+  private ConcurrentSharedKllDoublesSketch(final KllDoublesSketch sketch, final Executor executor) {
+    sketch_ = sketch;
+    propagator_ = new ConcurrentPropagator(executor);
+    volatileN_ = sketch.getN();
+  }
+
+  /**
+   * Create a new concurrent shared sketch on the Java heap with a given parameter <em>k</em>,
+   * which propagates local buffers with the given Executor.
+   * @param k parameter that controls size of the sketch and accuracy of estimates.
+   * @param executor the Executor that merges the local buffers into this sketch. Any Executor may
+   * be given. If it rejects a propagation, the updating thread merges the buffer itself. The
+   * executor is never shut down by the sketch. If null, an internal pool of daemon threads is used.
+   * @return new concurrent shared sketch on the Java heap.
+   */
+  public static ConcurrentSharedKllDoublesSketch newHeapInstance(final int k, final Executor executor) {
+    return new ConcurrentSharedKllDoublesSketch(KllDoublesSketch.newHeapInstance(k), executor);
+  }
+
+  /**
+   * Create a new concurrent shared sketch in the given WritableMemory with a given <em>k</em>,
+   * which propagates local buffers with the given Executor.
+   * The local buffers are always on the Java heap.
+   * @param k parameter that controls size of the sketch and accuracy of estimates.
+   * @param dstMem the given destination WritableMemory object for use by the sketch
+   * @param memReqSvr the given MemoryRequestServer to request a larger WritableMemory
+   * @param executor the Executor that merges the local buffers into this sketch,
+   * see {@link #newHeapInstance(int, Executor)}.
+   * @return a new direct concurrent shared sketch
+   */
+  public static ConcurrentSharedKllDoublesSketch newDirectInstance(final int k, final WritableMemory dstMem,
+      final MemoryRequestServer memReqSvr, final Executor executor) {
+    return new ConcurrentSharedKllDoublesSketch(KllDoublesSketch.newDirectInstance(k, dstMem, memReqSvr), executor);
+  }
+
+  /**
+   * Returns a local buffer of <em>k</em> items to be used by a single updating thread along with
+   * this sketch.
+   * @return a local buffer of this sketch
+   */
+  public ConcurrentHeapKllDoublesBuffer newLocalBuffer() {
+    return newLocalBuffer(getK());
+  }
+
+  /**
+   * Returns a local buffer to be used by a single updating thread along with this sketch.
+   * See the class documentation for the accuracy of buffers of more than <em>k</em> items.
+   * @param localBufferSize the number of items the local buffer holds before it propagates
+   * @return a local buffer of this sketch
+   */
+  public ConcurrentHeapKllDoublesBuffer newLocalBuffer(final int localBufferSize) {
+    if (localBufferSize < 1) {
+      throw new SketchesArgumentException("localBufferSize must be at least 1: " + localBufferSize);
+    }
+    return new ConcurrentHeapKllDoublesBuffer(this, localBufferSize);
+  }
+
+  /**
+   * Returns the parameter <em>k</em> of this sketch and its local buffers.
+   * @return the parameter <em>k</em>
+   */
+  public int getK() {
+    return sketch_.getK();
+  }
+
+  /**
+   * Returns the number of items propagated to this sketch so far. This does not block.
+   * @return the number of items propagated to this sketch
+   */
+  public long getN() {
+    return volatileN_;
+  }
+
+  /**
+   * Returns true if no items have been propagated to this sketch.
+   * @return true if empty
+   */
+  public boolean isEmpty() {
+    return volatileN_ == 0;
+  }
+
+  /**
+   * Returns the minimum item propagated to this sketch.
+   * @return the minimum item
+   */
+  public synchronized double getMinItem() {
+    return sketch_.getMinItem();
+  }
+
+  /**
+   * Returns the maximum item propagated to this sketch.
+   * @return the maximum item
+   */
+  public synchronized double getMaxItem() {
+    return sketch_.getMaxItem();
+  }
+
+  /**
+   * Gets the approximate quantile of the given normalized rank and the given search criterion.
+   * See {@link KllDoublesSketch#getQuantile(double, QuantileSearchCriteria)}.
+   * @param rank the given normalized rank, a double in the range [0.0, 1.0].
+   * @param searchCrit If INCLUSIVE, the given rank includes all quantiles &le;
+   * the quantile directly corresponding to the given rank.
+   * @return the approximate quantile given the normalized rank.
+   */
+  public synchronized double getQuantile(final double rank, final QuantileSearchCriteria searchCrit) {
+    return sketch_.getQuantile(rank, searchCrit);
+  }
+
+  /**
+   * Gets an array of quantiles from the given array of normalized ranks.
+   * See {@link KllDoublesSketch#getQuantiles(double[], QuantileSearchCriteria)}.
+   * @param ranks the given array of normalized ranks, each of which must be
+   * in the interval [0.0,1.0].
+   * @param searchCrit if INCLUSIVE, the given ranks include all quantiles &le;
+   * the quantile directly corresponding to each rank.
+   * @return an array of quantiles corresponding to the given array of normalized ranks.
+   */
+  public synchronized double[] getQuantiles(final double[] ranks, final QuantileSearchCriteria searchCrit) {
+    return sketch_.getQuantiles(ranks, searchCrit);
+  }
+
+  /**
+   * Gets the normalized rank corresponding to the given a quantile.
+   * See {@link KllDoublesSketch#getRank(double, QuantileSearchCriteria)}.
+   * @param quantile the given quantile
+   * @param searchCrit if INCLUSIVE the given quantile is included into the rank.
+   * @return the normalized rank corresponding to the given quantile
+   */
+  public synchronized double getRank(final double quantile, final QuantileSearchCriteria searchCrit) {
+    return sketch_.getRank(quantile, searchCrit);
+  }
+
+  /**
+   * Returns an approximation to the Cumulative Distribution Function (CDF) of the input stream.
+   * See {@link KllDoublesSketch#getCDF(double[], QuantileSearchCriteria)}.
+   * @param splitPoints an array of <i>m</i> unique, monotonically increasing items.
+   * @param searchCrit if INCLUSIVE, each subinterval includes its upper split point.
+   * @return a discrete CDF array of m+1 double ranks (or cumulative probabilities) on the interval [0.0, 1.0].
+   */
+  public synchronized double[] getCDF(final double[] splitPoints, final QuantileSearchCriteria searchCrit) {
+    return sketch_.getCDF(splitPoints, searchCrit);
+  }
+
+  /**
+   * Returns an approximation to the Probability Mass Function (PMF) of the input stream.
+   * See {@link KllDoublesSketch#getPMF(double[], QuantileSearchCriteria)}.
+   * @param splitPoints an array of <i>m</i> unique, monotonically increasing items.
+   * @param searchCrit if INCLUSIVE, each subinterval includes its upper split point.
+   * @return a PMF array of m+1 probability masses as doubles on the interval [0.0, 1.0].
+   */
+  public synchronized double[] getPMF(final double[] splitPoints, final QuantileSearchCriteria searchCrit) {
+    return sketch_.getPMF(splitPoints, searchCrit);
+  }
+
+  /**
+   * Gets the normalized rank error of this sketch, see
+   * {@link KllSketch#getNormalizedRankError(int, boolean)}. It does not include the items still
+   * held in local buffers.
+   * @param pmf if true, returns the "double-sided" normalized rank error.
+   * Otherwise, it is the "single-sided" normalized rank error for all the other queries.
+   * @return the normalized rank error of this sketch
+   */
+  public double getNormalizedRankError(final boolean pmf) {
+    return KllSketch.getNormalizedRankError(getK(), pmf);
+  }
+
+  /**
+   * Returns a heap copy of the current state of this sketch as a regular KllDoublesSketch.
+   * @return a heap copy of this sketch
+   */
+  public synchronized KllDoublesSketch snapshot() {
+    return KllDoublesSketch.heapify(Memory.wrap(sketch_.toByteArray()));
+  }
+
+  /**
+   * Returns the current state of this sketch serialized as a compact KllDoublesSketch.
+   * @return a byte array of the compact form of this sketch
+   */
+  public synchronized byte[] toByteArray() {
+    return sketch_.toByteArray();
+  }
+
+  /**
+   * Returns true if this sketch is backed by WritableMemory.
+   * @return true if this sketch is backed by WritableMemory
+   */
+  public boolean hasMemory() {
+    return sketch_.hasMemory();
+  }
+
+  /**
+   * Returns the number of propagations handed to the executor that have not completed yet.
+   * @return the number of pending propagations
+   */
+  public long getPendingPropagations() {
+    return propagator_.getMetrics().getPendingPropagations();
+  }
+
+  /**
+   * Returns the propagation metrics of this sketch and of its local buffers.
+   * @return the propagation metrics of this sketch
+   */
+  public ConcurrentPropagationMetrics getPropagationMetrics() {
+    return propagator_.getMetrics();
+  }
+
+  /**
+   * Waits until every propagation handed to the executor so far has been merged.
+   */
+  public void awaitPropagation() {
+    propagator_.awaitPropagation();
+  }
+
+  /**
+   * Resets this sketch to the empty state. Propagations started before the reset are discarded.
+   * The parameter <em>k</em> will not change.
+   */
+  public synchronized void reset() {
+    propagator_.advanceEpoch();
+    sketch_.reset();
+    volatileN_ = 0;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return sketch_.toString();
+  }
+
+  //restricted
+
+  /**
+   * Merges the given local sketch in the background. The given flag is cleared once done.
+   * If the executor rejects the job, it is run by the calling thread.
+   * @param localPropagationInProgress the flag of the local buffer
+   * @param localSketch the full local sketch, which is not modified until the flag is cleared
+   */
+  void propagate(final AtomicBoolean localPropagationInProgress, final KllDoublesSketch localSketch) {
+    final long epoch = propagator_.getEpoch();
+    propagator_.propagate(localPropagationInProgress, () -> absorb(localSketch, epoch));
+  }
+
+  /**
+   * Waits until the previous propagation of a local buffer has completed.
+   * @param localPropagationInProgress the flag of the local buffer
+   */
+  void awaitLocalPropagation(final AtomicBoolean localPropagationInProgress) {
+    propagator_.awaitLocalPropagation(localPropagationInProgress);
+  }
+
+  private synchronized void absorb(final KllDoublesSketch localSketch, final long epoch) {
+    if (!propagator_.isCurrentEpoch(epoch)) { return; } //sketch was reset after this propagation started
+    sketch_.merge(localSketch);
+    volatileN_ = sketch_.getN();
+  }
+}
@@ -37,6 +37,7 @@ import org.apache.datasketches.memory.Memory;
 import org.apache.datasketches.memory.MemoryRequestServer;
 import org.apache.datasketches.memory.WritableMemory;
 import org.apache.datasketches.quantilescommon.DoublesSketchSortedView;
+import org.apache.datasketches.quantilescommon.DoublesSortedViewCache;
 import org.apache.datasketches.quantilescommon.QuantileSearchCriteria;
 import org.apache.datasketches.quantilescommon.QuantilesDoublesAPI;
 import org.apache.datasketches.quantilescommon.QuantilesDoublesSketchIterator;
@@ -48,6 +49,7 @@ import org.apache.datasketches.quantilescommon.QuantilesDoublesSketchIterator;
  */
 public abstract class KllDoublesSketch extends KllSketch implements QuantilesDoublesAPI {
   private DoublesSketchSortedView doublesSV = null;
+  private final DoublesSortedViewCache svCache = new DoublesSortedViewCache();
   final static int ITEM_BYTES = Double.BYTES;
 
   KllDoublesSketch(
@@ -293,6 +295,7 @@ public abstract class KllDoublesSketch extends KllSketch implements QuantilesDou
     setMaxItem(Double.NaN);
     setDoubleItemsArray(new double[k]);
     doublesSV = null;
+    svCache.clear();
   }
 
   @Override
@@ -533,14 +536,50 @@ public abstract class KllDoublesSketch extends KllSketch implements QuantilesDou
     return doublesSV;
   }
 
+  /**
+   * Returns the number of times the sorted view, which serves all quantile and rank queries, was
+   * built from scratch by sorting all retained items.
+   * @return the number of sorted views built from scratch
+   */
+  public long getSortedViewBuildCount() {
+    return svCache.getBuildCount();
+  }
+
+  /**
+   * Returns the number of times the sorted view was patched by merging only the items added to
+   * level 0 since the previous sorted view, because no compaction happened in between.
+   * @return the number of sorted views patched from the previous one
+   */
+  public long getSortedViewPatchCount() {
+    return svCache.getPatchCount();
+  }
+
   private final DoublesSketchSortedView refreshSortedView() {
     if (doublesSV == null) {
-      final CreateSortedView csv = new CreateSortedView();
-      doublesSV = csv.getSV();
+      final long[] signature = getLevelsSignature();
+      final int level0Count = levelsArr[1] - levelsArr[0];
+      if (svCache.canPatch(signature, getN(), level0Count)) {
+        //level 0 grows downward, so the new items are at its start
+        final int start = levelsArr[0];
+        final double[] newItems = Arrays.copyOfRange(getDoubleItemsArray(), start,
+            start + svCache.getNumNewItems(level0Count));
+        doublesSV = svCache.patch(newItems, this, level0Count);
+      } else {
+        final CreateSortedView csv = new CreateSortedView();
+        doublesSV = csv.getSV();
+      }
     }
     return doublesSV;
   }
 
+  //the boundaries of the levels above level 0, which only change when level 0 is compacted
+  private long[] getLevelsSignature() {
+    final int numLevels = getNumLevels();
+    final long[] signature = new long[numLevels];
+    for (int i = 0; i < numLevels; i++) { signature[i] = levelsArr[i + 1]; }
+    return signature;
+  }
+
   private final class CreateSortedView {
     double[] quantiles;
     long[] cumWeights;
@@ -560,8 +599,8 @@ public abstract class KllDoublesSketch extends KllSketch implements QuantilesDou
       quantiles = new double[numQuantiles];
       cumWeights = new long[numQuantiles];
       populateFromSketch(srcQuantiles, srcLevels, srcNumLevels, numQuantiles);
-      return new DoublesSketchSortedView(
-          quantiles, cumWeights, KllDoublesSketch.this);
+      return svCache.build(quantiles, cumWeights, KllDoublesSketch.this, getLevelsSignature(),
+          srcLevels[1] - srcLevels[0]);
     }
 
     private void populateFromSketch(final double[] srcQuantiles, final int[] srcLevels,
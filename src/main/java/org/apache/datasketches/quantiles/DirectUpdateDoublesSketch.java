@@ -204,6 +204,8 @@ final class DirectUpdateDoublesSketch extends DirectUpdateDoublesSketchR {
       mem_.putDouble(MIN_DOUBLE, Double.NaN);
       mem_.putDouble(MAX_DOUBLE, Double.NaN);
     }
+    doublesSV = null;
+    svCache.clear();
   }
 
   //Restricted overrides
@@ -39,6 +39,7 @@ import org.apache.datasketches.common.SketchesStateException;
 import org.apache.datasketches.memory.Memory;
 import org.apache.datasketches.memory.WritableMemory;
 import org.apache.datasketches.quantilescommon.DoublesSketchSortedView;
+import org.apache.datasketches.quantilescommon.DoublesSortedViewCache;
 import org.apache.datasketches.quantilescommon.QuantileSearchCriteria;
 import org.apache.datasketches.quantilescommon.QuantilesAPI;
 import org.apache.datasketches.quantilescommon.QuantilesDoublesAPI;
@@ -114,6 +115,8 @@ public abstract class DoublesSketch implements QuantilesDoublesAPI {
 
   DoublesSketchSortedView doublesSV = null;
 
+  final DoublesSortedViewCache svCache = new DoublesSortedViewCache();
+
   DoublesSketch(final int k) {
     checkK(k);
     k_ = k;
@@ -574,8 +577,39 @@ public abstract class DoublesSketch implements QuantilesDoublesAPI {
     return refreshSortedView();
   }
 
+  /**
+   * Returns the number of times the sorted view, which serves all quantile and rank queries, was
+   * built from scratch by sorting all retained items.
+   * @return the number of sorted views built from scratch
+   */
+  public long getSortedViewBuildCount() {
+    return svCache.getBuildCount();
+  }
+
+  /**
+   * Returns the number of times the sorted view was patched by merging only the items added to
+   * the base buffer since the previous sorted view, because the base buffer was not propagated
+   * to the levels in between.
+   * @return the number of sorted views patched from the previous one
+   */
+  public long getSortedViewPatchCount() {
+    return svCache.getPatchCount();
+  }
+
   private final DoublesSketchSortedView refreshSortedView() {
-    return (doublesSV == null) ? (doublesSV = getSV()) : doublesSV;
+    if (doublesSV == null) {
+      final long[] signature = {getBitPattern()};
+      final int bbCount = getBaseBufferCount();
+      if (svCache.canPatch(signature, getN(), bbCount)) {
+        //the base buffer is filled from its start, so the new items are at its end
+        final int start = bbCount - svCache.getNumNewItems(bbCount);
+        final double[] newItems = Arrays.copyOfRange(getCombinedBuffer(), start, bbCount);
+        doublesSV = svCache.patch(newItems, this, bbCount);
+      } else {
+        doublesSV = getSV();
+      }
+    }
+    return doublesSV;
   }
 
   private DoublesSketchSortedView getSV() {
@@ -597,7 +631,7 @@ public abstract class DoublesSketch implements QuantilesDoublesAPI {
     if (convertToCumulative(svCumWeights) != totalN) {
       throw new SketchesStateException("Sorted View is misconfigured. TotalN does not match cumWeights.");
     }
-    return new DoublesSketchSortedView(svQuantiles, svCumWeights, this);
+    return svCache.build(svQuantiles, svCumWeights, this, new long[] {getBitPattern()}, getBaseBufferCount());
   }
 
   private final static void populateFromDoublesSketch(
@@ -208,6 +208,8 @@ final class HeapUpdateDoublesSketch extends UpdateDoublesSketch {
     bitPattern_ = 0;
     minItem_ = Double.NaN;
     maxItem_ = Double.NaN;
+    doublesSV = null;
+    svCache.clear();
   }
 
   @Override
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.quantilescommon;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the sorted quantiles and cumulative weights of the last sorted view built by a doubles
+ * quantiles sketch, so that the next view can be patched instead of rebuilt from scratch.
+ *
+ * <p>The sketches this is used by hold their most recent items, each of weight one, in an unsorted
+ * buffer, which is level 0 of the KllDoublesSketch and the base buffer of the classic DoublesSketch.
+ * All other levels only change when that buffer is compacted. The sketch describes the layout of
+ * the other levels by a <i>signature</i>. If the signature is the same as when the cached view was
+ * built and the buffer only received new items since then, the new view is the cached view with the
+ * new items merged in, which takes one linear pass instead of a sort of all retained items.</p>
+ *
+ * <p>This keeps a copy of the arrays of the last view, which roughly doubles the memory used by
+ * the sorted view.</p>
+ */
+public final class DoublesSortedViewCache {
+  private double[] quantiles; //sorted, before the min and max items are included
+  private long[] cumWeights;
+  private long[] signature;
+  private long n;
+  private int bufferCount;
+  private long buildCount;
+  private long patchCount;
+
+  /**
+   * Creates an empty cache.
+   */
+  public DoublesSortedViewCache() { }
+
+  /**
+   * Returns true if the view of the sketch with the given state can be patched from the cached view.
+   * @param signature the layout of the levels other than the unsorted buffer
+   * @param n the total number of items of the sketch
+   * @param bufferCount the number of items in the unsorted buffer
+   * @return true if the view can be patched
+   */
+  public boolean canPatch(final long[] signature, final long n, final int bufferCount) {
+    if (quantiles == null) { return false; }
+    final int numNew = bufferCount - this.bufferCount;
+    return numNew > 0 && (n - this.n) == numNew && Arrays.equals(signature, this.signature);
+  }
+
+  /**
+   * Returns the number of items added to the unsorted buffer since the cached view was built,
+   * given that {@link #canPatch(long[], long, int)} is true.
+   * @param bufferCount the number of items in the unsorted buffer
+   * @return the number of new items
+   */
+  public int getNumNewItems(final int bufferCount) {
+    return bufferCount - this.bufferCount;
+  }
+
+  /**
+   * Returns a new sorted view made of the cached view and the given new items of weight one,
+   * and caches it.
+   * @param newItems the items added to the unsorted buffer since the cached view was built.
+   * They are sorted in place.
+   * @param sk the sketch
+   * @param bufferCount the number of items in the unsorted buffer
+   * @return the new sorted view
+   */
+  public DoublesSketchSortedView patch(final double[] newItems, final QuantilesDoublesAPI sk,
+      final int bufferCount) {
+    Arrays.sort(newItems);
+    final int oldLen = quantiles.length;
+    final int len = oldLen + newItems.length;
+    final double[] outQuantiles = new double[len];
+    final long[] outCumWeights = new long[len];
+    int i = 0;
+    int j = 0;
+    long prevCum = 0;
+    long cum = 0;
+    for (int o = 0; o < len; o++) {
+      if (j == newItems.length || (i < oldLen && quantiles[i] <= newItems[j])) {
+        cum += cumWeights[i] - prevCum;
+        prevCum = cumWeights[i];
+        outQuantiles[o] = quantiles[i++];
+      } else {
+        cum++;
+        outQuantiles[o] = newItems[j++];
+      }
+      outCumWeights[o] = cum;
+    }
+    quantiles = outQuantiles;
+    cumWeights = outCumWeights;
+    n = sk.getN();
+    this.bufferCount = bufferCount;
+    patchCount++;
+    return new DoublesSketchSortedView(outQuantiles, outCumWeights, sk);
+  }
+
+  /**
+   * Caches the given sorted quantiles and cumulative weights of a view built from scratch, and
+   * returns that view.
+   * @param quantiles the sorted quantiles
+   * @param cumWeights the cumulative weights
+   * @param sk the sketch
+   * @param signature the layout of the levels other than the unsorted buffer
+   * @param bufferCount the number of items in the unsorted buffer
+   * @return the new sorted view
+   */
+  public DoublesSketchSortedView build(final double[] quantiles, final long[] cumWeights,
+      final QuantilesDoublesAPI sk, final long[] signature, final int bufferCount) {
+    this.quantiles = quantiles;
+    this.cumWeights = cumWeights;
+    this.signature = signature;
+    n = sk.getN();
+    this.bufferCount = bufferCount;
+    buildCount++;
+    return new DoublesSketchSortedView(quantiles, cumWeights, sk);
+  }
+
+  /**
+   * Discards the cached view. The counters are kept.
+   */
+  public void clear() {
+    quantiles = null;
+    cumWeights = null;
+    signature = null;
+  }
+
+  /**
+   * Returns the number of sorted views built from scratch.
+   * @return the number of sorted views built from scratch
+   */
+  public long getBuildCount() {
+    return buildCount;
+  }
+
+  /**
+   * Returns the number of sorted views patched from the cached view.
+   * @return the number of sorted views patched from the cached view
+   */
+  public long getPatchCount() {
+    return patchCount;
+  }
+}
@@ -151,13 +151,6 @@ abstract class BaseReqSketch implements QuantilesFloatsAPI {
   @Override
   public abstract QuantilesFloatsSketchIterator iterator();
 
-  /**
-   * Merge other sketch into this one. The other sketch is not modified.
-   * @param other sketch to be merged into this one.
-   * @return this
-   */
-  public abstract ReqSketch merge(final ReqSketch other);
-
   /**
    * {@inheritDoc}
    * <p>The parameters k, highRankAccuracy, and reqDebug will not change.</p>
@@ -152,6 +152,30 @@ class FloatBuffer {
     return this;
   }
 
+  /**
+   * Appends the given items to the active array and increments the active count.
+   * The items are placed and the array is expanded exactly as by appending the items one at a time.
+   * @param items the given items
+   * @param offset the index of the first item to append
+   * @param length the number of items to append
+   * @return this
+   */
+  FloatBuffer append(final float[] items, final int offset, final int length) {
+    if (length == 0) { return this; }
+    int newCap = capacity_;
+    while (count_ + length > newCap) { newCap += 1 + delta_; }
+    ensureCapacity(newCap);
+    if (spaceAtBottom_) {
+      int index = capacity_ - count_ - 1;
+      for (int i = offset; i < offset + length; i++) { arr_[index--] = items[i]; }
+    } else {
+      System.arraycopy(items, offset, arr_, count_, length);
+    }
+    count_ += length;
+    sorted_ = false;
+    return this;
+  }
+
   /**
    * Ensures that the capacity of this FloatBuffer is at least newCapacity.
    * If newCapacity &lt; capacity(), no action is taken.
@@ -153,6 +153,10 @@ class ReqCompactor {
     return coin;
   }
 
+  void setCoin(final boolean coin) {
+    this.coin = coin;
+  }
+
   /**
    * Gets the lgWeight of this buffer
    * @return the lgWeight of this buffer
@@ -0,0 +1,673 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.req;
+
+import static org.apache.datasketches.common.Util.LS;
+import static org.apache.datasketches.quantilescommon.QuantileSearchCriteria.INCLUSIVE;
+import static org.apache.datasketches.req.ReqSerDe.COMPACT_C_COUNT_INT;
+import static org.apache.datasketches.req.ReqSerDe.COMPACT_C_ITEMS_START;
+import static org.apache.datasketches.req.ReqSerDe.COMPACT_C_LG_WEIGHT_BYTE;
+import static org.apache.datasketches.req.ReqSerDe.COMPACT_ESTIMATION_PRE_BYTES;
+import static org.apache.datasketches.req.ReqSerDe.COMPACT_PRE_BYTES;
+import static org.apache.datasketches.req.ReqSerDe.C_CAPACITY_INT;
+import static org.apache.datasketches.req.ReqSerDe.C_COUNT_INT;
+import static org.apache.datasketches.req.ReqSerDe.C_ITEMS_START;
+import static org.apache.datasketches.req.ReqSerDe.C_LG_WEIGHT_BYTE;
+import static org.apache.datasketches.req.ReqSerDe.C_SORTED_BYTE;
+import static org.apache.datasketches.req.ReqSerDe.EMPTY_FLAG_MASK;
+import static org.apache.datasketches.req.ReqSerDe.FLAGS_BYTE;
+import static org.apache.datasketches.req.ReqSerDe.HRA_FLAG_MASK;
+import static org.apache.datasketches.req.ReqSerDe.K_SHORT;
+import static org.apache.datasketches.req.ReqSerDe.LVL0_SORTED_FLAG_MASK;
+import static org.apache.datasketches.req.ReqSerDe.MAX_ITEM_FLOAT;
+import static org.apache.datasketches.req.ReqSerDe.MAX_NOM_SIZE_INT;
+import static org.apache.datasketches.req.ReqSerDe.MIN_ITEM_FLOAT;
+import static org.apache.datasketches.req.ReqSerDe.NUM_COMPACTORS_BYTE;
+import static org.apache.datasketches.req.ReqSerDe.N_LONG;
+import static org.apache.datasketches.req.ReqSerDe.RAW_ITEMS_FLAG_MASK;
+import static org.apache.datasketches.req.ReqSerDe.RET_ITEMS_INT;
+import static org.apache.datasketches.req.ReqSerDe.UPDATABLE_DATA_START;
+
+import java.util.Arrays;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.MemoryRequestServer;
+import org.apache.datasketches.memory.WritableMemory;
+import org.apache.datasketches.quantilescommon.FloatsSketchSortedView;
+import org.apache.datasketches.quantilescommon.QuantileSearchCriteria;
+import org.apache.datasketches.quantilescommon.QuantilesAPI;
+import org.apache.datasketches.quantilescommon.QuantilesFloatsSketchIterator;
+import org.apache.datasketches.req.ReqSerDe.SerDeFormat;
+
+/**
+ * A Relative Error Quantiles Sketch that resides in Memory.
+ *
+ * <p>A sketch obtained from {@link #wrap(Memory)} is read-only. It may wrap either a compact image
+ * produced by {@link ReqSketch#toByteArray()} or an updatable image, and all queries read the
+ * compactors directly from the Memory without deserializing the sketch.</p>
+ *
+ * <p>A sketch obtained from {@link #writableWrap(WritableMemory, MemoryRequestServer)} or from
+ * {@link ReqSketchBuilder#build(WritableMemory, MemoryRequestServer)} is updatable and requires
+ * the updatable format, which reserves the full capacity of every compactor.
+ * Updates are appended to level 0 in place. When the sketch must compress, the compactors are
+ * read from the Memory, compressed as in {@link ReqSketch} and written back. If the Memory is too
+ * small for the result, a larger one is obtained from the MemoryRequestServer.</p>
+ *
+ * <p>Either image can be converted to an on-heap sketch with {@link ReqSketch#heapify(Memory)}.</p>
+ *
+ * @see ReqSketch
+ */
+public final class ReqDirectSketch extends BaseReqSketch {
+  private final boolean readOnly;
+  private final SerDeFormat compactFormat; //null if the image is in the updatable format
+  private Memory mem;
+  private WritableMemory wmem; //null if read only
+  private MemoryRequestServer memReqSvr;
+  private FloatsSketchSortedView reqSV = null;
+
+  private ReqDirectSketch(final Memory mem, final WritableMemory wmem,
+      final MemoryRequestServer memReqSvr) {
+    this.mem = mem;
+    this.wmem = wmem;
+    this.memReqSvr = memReqSvr;
+    readOnly = wmem == null;
+    if (ReqSerDe.isUpdatableFormat(mem)) {
+      compactFormat = null;
+    } else {
+      final int flags = mem.getByte(FLAGS_BYTE) & 0xFF;
+      compactFormat = ReqSerDe.getDeserFormat((flags & EMPTY_FLAG_MASK) > 0,
+          (flags & RAW_ITEMS_FLAG_MASK) > 0, mem.getByte(NUM_COMPACTORS_BYTE) & 0xFF);
+    }
+  }
+
+  /**
+   * Creates a new empty, updatable sketch in the given WritableMemory.
+   * @param k the k parameter, see ReqSketchBuilder
+   * @param hra the high rank accuracy mode, see ReqSketchBuilder
+   * @param dstMem the destination WritableMemory. It must have at least
+   * {@link #getInitialStorageBytes(int)} bytes of capacity.
+   * @param memReqSvr the MemoryRequestServer used to obtain a larger WritableMemory. It may be null,
+   * in which case the MemoryRequestServer of the given WritableMemory is used.
+   * @return a new empty, updatable sketch
+   */
+  static ReqDirectSketch newInstance(final int k, final boolean hra, final WritableMemory dstMem,
+      final MemoryRequestServer memReqSvr) {
+    final ReqSketch sk = new ReqSketch(k, hra, null);
+    final long bytes = ReqSerDe.getUpdatableSerBytes(sk);
+    if (dstMem.isReadOnly()) { throw new SketchesArgumentException(TGT_IS_READ_ONLY_MSG); }
+    if (dstMem.getCapacity() < bytes) {
+      throw new SketchesArgumentException(
+          "The destination WritableMemory must have at least " + bytes + " bytes: " + dstMem.getCapacity());
+    }
+    ReqSerDe.putUpdatable(sk, dstMem);
+    return new ReqDirectSketch(dstMem, dstMem, memReqSvr);
+  }
+
+  /**
+   * Wraps the given Memory, which must hold a valid image of a ReqSketch in either the compact or
+   * the updatable format. The returned sketch is read-only.
+   * @param srcMem the given Memory
+   * @return a read-only sketch backed by the given Memory
+   */
+  public static ReqDirectSketch wrap(final Memory srcMem) {
+    checkImage(srcMem);
+    return new ReqDirectSketch(srcMem, null, null);
+  }
+
+  /**
+   * Wraps the given WritableMemory, which must hold a valid image of a ReqSketch in the updatable
+   * format, as an updatable sketch.
+   * @param srcMem the given WritableMemory
+   * @param memReqSvr the MemoryRequestServer used to obtain a larger WritableMemory. It may be null,
+   * in which case the MemoryRequestServer of the given WritableMemory is used.
+   * @return an updatable sketch backed by the given WritableMemory
+   */
+  public static ReqDirectSketch writableWrap(final WritableMemory srcMem,
+      final MemoryRequestServer memReqSvr) {
+    checkImage(srcMem);
+    if (!ReqSerDe.isUpdatableFormat(srcMem)) {
+      throw new SketchesArgumentException("The given WritableMemory is not in the updatable format.");
+    }
+    if (srcMem.isReadOnly()) { throw new SketchesArgumentException(TGT_IS_READ_ONLY_MSG); }
+    return new ReqDirectSketch(srcMem, srcMem, memReqSvr);
+  }
+
+  /**
+   * Returns the number of bytes required by a new empty, updatable sketch with the given k.
+   * The sketch will request more space from its MemoryRequestServer as it grows.
+   * @param k the k parameter, see ReqSketchBuilder
+   * @return the number of bytes required by a new empty, updatable sketch with the given k.
+   */
+  public static long getInitialStorageBytes(final int k) {
+    ReqSketch.checkK(k);
+    final int nomCap = ReqSketch.NOM_CAP_MULT * INIT_NUMBER_OF_SECTIONS * k;
+    return UPDATABLE_DATA_START + C_ITEMS_START + 2L * nomCap * Float.BYTES;
+  }
+
+  private static void checkImage(final Memory srcMem) {
+    if (srcMem.getCapacity() < COMPACT_PRE_BYTES
+        || srcMem.getByte(1) != ReqSerDe.SER_VER
+        || srcMem.getByte(2) != ReqSerDe.FAMILY_ID) {
+      throw new SketchesArgumentException("The given Memory does not hold a valid ReqSketch image.");
+    }
+  }
+
+  @Override
+  public int getK() {
+    return mem.getShort(K_SHORT) & 0xFFFF;
+  }
+
+  @Override
+  public boolean getHighRankAccuracyMode() {
+    return (mem.getByte(FLAGS_BYTE) & HRA_FLAG_MASK) > 0;
+  }
+
+  /**
+   * Returns the Memory backing this sketch. This may change if the sketch had to request
+   * a larger WritableMemory.
+   * @return the Memory backing this sketch.
+   */
+  public Memory getMemory() {
+    return mem;
+  }
+
+  @Override
+  public double[] getCDF(final float[] splitPoints, final QuantileSearchCriteria searchCrit) {
+    if (isEmpty()) { throw new IllegalArgumentException(QuantilesAPI.EMPTY_MSG); }
+    refreshSortedView();
+    return reqSV.getCDF(splitPoints, searchCrit);
+  }
+
+  @Override
+  public float getMaxItem() {
+    if (isEmpty()) { throw new IllegalArgumentException(QuantilesAPI.EMPTY_MSG); }
+    if (compactFormat == null || compactFormat == SerDeFormat.ESTIMATION) {
+      return mem.getFloat(MAX_ITEM_FLOAT);
+    }
+    final Levels lv = getLevels();
+    float max = mem.getFloat(lv.itemOffset[0]);
+    for (int i = 1; i < lv.count[0]; i++) { max = Math.max(max, mem.getFloat(lv.itemOffset[0] + i * Float.BYTES)); }
+    return max;
+  }
+
+  @Override
+  public float getMinItem() {
+    if (isEmpty()) { throw new IllegalArgumentException(QuantilesAPI.EMPTY_MSG); }
+    if (compactFormat == null || compactFormat == SerDeFormat.ESTIMATION) {
+      return mem.getFloat(MIN_ITEM_FLOAT);
+    }
+    final Levels lv = getLevels();
+    float min = mem.getFloat(lv.itemOffset[0]);
+    for (int i = 1; i < lv.count[0]; i++) { min = Math.min(min, mem.getFloat(lv.itemOffset[0] + i * Float.BYTES)); }
+    return min;
+  }
+
+  @Override
+  public long getN() {
+    if (compactFormat == null) { return mem.getLong(N_LONG); }
+    switch (compactFormat) {
+      case EMPTY: return 0;
+      case RAWITEMS: return mem.getByte(7) & 0xFF;
+      case EXACT: return mem.getInt(COMPACT_PRE_BYTES + COMPACT_C_COUNT_INT);
+      default: return mem.getLong(N_LONG);
+    }
+  }
+
+  @Override
+  /**
+   * This is an unsupported operation for this sketch
+   */
+  public double getNormalizedRankError(final boolean pmf) {
+    throw new UnsupportedOperationException(UNSUPPORTED_MSG);
+  }
+
+  @Override
+  public double[] getPMF(final float[] splitPoints, final QuantileSearchCriteria searchCrit) {
+    if (isEmpty()) { throw new IllegalArgumentException(QuantilesAPI.EMPTY_MSG); }
+    refreshSortedView();
+    return reqSV.getPMF(splitPoints, searchCrit);
+  }
+
+  @Override
+  public float getQuantile(final double normRank, final QuantileSearchCriteria searchCrit) {
+    if (isEmpty()) { throw new IllegalArgumentException(QuantilesAPI.EMPTY_MSG); }
+    if (normRank < 0 || normRank > 1.0) {
+      throw new SketchesArgumentException(
+        "Normalized rank must be in the range [0.0, 1.0]: " + normRank);
+    }
+    refreshSortedView();
+    return reqSV.getQuantile(normRank, searchCrit);
+  }
+
+  @Override
+  public float[] getQuantiles(final double[] normRanks, final QuantileSearchCriteria searchCrit) {
+    if (isEmpty()) { throw new IllegalArgumentException(QuantilesAPI.EMPTY_MSG); }
+    refreshSortedView();
+    final int len = normRanks.length;
+    final float[] qArr = new float[len];
+    for (int i = 0; i < len; i++) {
+      qArr[i] = reqSV.getQuantile(normRanks[i], searchCrit);
+    }
+    return qArr;
+  }
+
+  /**
+   * {@inheritDoc}
+   * The approximate probability that the true quantile is within the confidence interval
+   * specified by the upper and lower quantile bounds for this sketch is 0.95.
+   */
+  @Override
+  public float getQuantileLowerBound(final double rank) {
+    return getQuantile(getRankLowerBound(rank, 2), INCLUSIVE);
+  }
+
+  @Override
+  public float getQuantileLowerBound(final double rank, final int numStdDev) {
+    return getQuantile(getRankLowerBound(rank, numStdDev), INCLUSIVE);
+  }
+
+  /**
+   * {@inheritDoc}
+   * The approximate probability that the true quantile is within the confidence interval
+   * specified by the upper and lower quantile bounds for this sketch is 0.95.
+   */
+  @Override
+  public float getQuantileUpperBound(final double rank) {
+    return getQuantile(getRankUpperBound(rank, 2), INCLUSIVE);
+  }
+
+  @Override
+  public float getQuantileUpperBound(final double rank, final int numStdDev) {
+    return getQuantile(getRankUpperBound(rank, numStdDev), INCLUSIVE);
+  }
+
+  @Override
+  public double getRank(final float quantile, final QuantileSearchCriteria searchCrit) {
+    if (isEmpty()) { throw new IllegalArgumentException(QuantilesAPI.EMPTY_MSG); }
+    refreshSortedView();
+    return reqSV.getRank(quantile, searchCrit);
+  }
+
+  /**
+   * {@inheritDoc}
+   * The approximate probability that the true rank is within the confidence interval
+   * specified by the upper and lower rank bounds for this sketch is 0.95.
+   */
+  @Override
+  public double getRankLowerBound(final double rank) {
+    return getRankLB(getK(), getNumLevels(), rank, 2, getHighRankAccuracyMode(), getN());
+  }
+
+  @Override
+  public double getRankLowerBound(final double rank, final int numStdDev) {
+    return getRankLB(getK(), getNumLevels(), rank, numStdDev, getHighRankAccuracyMode(), getN());
+  }
+
+  @Override
+  public double[] getRanks(final float[] quantiles, final QuantileSearchCriteria searchCrit) {
+    if (isEmpty()) { throw new IllegalArgumentException(QuantilesAPI.EMPTY_MSG); }
+    refreshSortedView();
+    final int numQuantiles = quantiles.length;
+    final double[] retArr = new double[numQuantiles];
+    for (int i = 0; i < numQuantiles; i++) {
+      retArr[i] = reqSV.getRank(quantiles[i], searchCrit); //already normalized
+    }
+    return retArr;
+  }
+
+  /**
+   * {@inheritDoc}
+   * The approximate probability that the true rank is within the confidence interval
+   * specified by the upper and lower rank bounds for this sketch is 0.95.
+   */
+  @Override
+  public double getRankUpperBound(final double rank) {
+    return getRankUB(getK(), getNumLevels(), rank, 2, getHighRankAccuracyMode(), getN());
+  }
+
+  @Override
+  public double getRankUpperBound(final double rank, final int numStdDev) {
+    return getRankUB(getK(), getNumLevels(), rank, numStdDev, getHighRankAccuracyMode(), getN());
+  }
+
+  @Override
+  public int getNumRetained() {
+    if (compactFormat == null) { return mem.getInt(RET_ITEMS_INT); }
+    final Levels lv = getLevels();
+    int retItems = 0;
+    for (int i = 0; i < lv.num; i++) { retItems += lv.count[i]; }
+    return retItems;
+  }
+
+  /**
+   * Returns the size in bytes of the compact image that {@link #toByteArray()} returns.
+   * @return the size in bytes of the compact image.
+   */
+  @Override
+  public int getSerializedSizeBytes() {
+    if (isEmpty()) { return COMPACT_PRE_BYTES; }
+    final Levels lv = getLevels();
+    if (getN() <= ReqSketch.MIN_K) { return lv.count[0] * Float.BYTES + COMPACT_PRE_BYTES; }
+    if (lv.num == 1) { return COMPACT_C_ITEMS_START + lv.count[0] * Float.BYTES + COMPACT_PRE_BYTES; }
+    int bytes = COMPACT_ESTIMATION_PRE_BYTES;
+    for (int i = 0; i < lv.num; i++) { bytes += COMPACT_C_ITEMS_START + lv.count[i] * Float.BYTES; }
+    return bytes;
+  }
+
+  @Override
+  public boolean hasMemory() {
+    return true;
+  }
+
+  @Override
+  public boolean isDirect() {
+    return mem.isDirect();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return getN() == 0;
+  }
+
+  @Override
+  public boolean isEstimationMode() {
+    return getNumLevels() > 1;
+  }
+
+  @Override
+  public boolean isReadOnly() {
+    return readOnly;
+  }
+
+  @Override
+  public QuantilesFloatsSketchIterator iterator() {
+    return new ReqDirectSketchIterator(getLevels());
+  }
+
+  /**
+   * Merge other sketch into this one. The other sketch is not modified.
+   * @param other sketch to be merged into this one.
+   * @return this
+   */
+  public ReqDirectSketch merge(final ReqSketch other) {
+    if (readOnly) { throw new SketchesArgumentException(TGT_IS_READ_ONLY_MSG); }
+    if (other == null || other.isEmpty()) { return this; }
+    final ReqSketch sk = toHeap();
+    sk.merge(other);
+    store(sk);
+    return this;
+  }
+
+  @Override
+  public void reset() {
+    if (readOnly) { throw new SketchesArgumentException(TGT_IS_READ_ONLY_MSG); }
+    store(new ReqSketch(getK(), getHighRankAccuracyMode(), null));
+  }
+
+  /**
+   * Returns the compact image of this sketch, which is identical to the image returned by
+   * {@link ReqSketch#toByteArray()} for the same sketch on the heap.
+   * @return the compact image of this sketch.
+   */
+  @Override
+  public byte[] toByteArray() {
+    if (compactFormat == null) { return ReqSerDe.toByteArray(toHeap()); }
+    final int bytes = getSerializedSizeBytes();
+    final byte[] arr = new byte[bytes];
+    mem.getByteArray(0, arr, 0, bytes);
+    return arr;
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder();
+    sb.append("*******Direct Relative Error Quantiles Sketch Summary*******").append(LS);
+    sb.append("  K               : " + getK()).append(LS);
+    sb.append("  N               : " + getN()).append(LS);
+    sb.append("  Retained Items  : " + getNumRetained()).append(LS);
+    sb.append("  Min Item        : " + (isEmpty() ? Float.NaN : getMinItem())).append(LS);
+    sb.append("  Max Item        : " + (isEmpty() ? Float.NaN : getMaxItem())).append(LS);
+    sb.append("  Estimation Mode : " + isEstimationMode()).append(LS);
+    sb.append("  High Rank Acc   : " + getHighRankAccuracyMode()).append(LS);
+    sb.append("  Levels          : " + getNumLevels()).append(LS);
+    sb.append("  Updatable       : " + (compactFormat == null)).append(LS);
+    sb.append("  Read Only       : " + readOnly).append(LS);
+    sb.append("  Memory Capacity : " + mem.getCapacity()).append(LS);
+    sb.append("************************End Summary************************").append(LS);
+    return sb.toString();
+  }
+
+  @Override
+  public void update(final float item) {
+    if (readOnly) { throw new SketchesArgumentException(TGT_IS_READ_ONLY_MSG); }
+    if (Float.isNaN(item)) { return; }
+    final int retItems = wmem.getInt(RET_ITEMS_INT);
+    final long c0 = UPDATABLE_DATA_START;
+    final int count = wmem.getInt(c0 + C_COUNT_INT);
+    final int cap = wmem.getInt(c0 + C_CAPACITY_INT);
+    if (count < cap && retItems + 1 < wmem.getInt(MAX_NOM_SIZE_INT)) {
+      //append to level 0 in place
+      final long n = wmem.getLong(N_LONG);
+      if (n == 0) {
+        wmem.putFloat(MIN_ITEM_FLOAT, item);
+        wmem.putFloat(MAX_ITEM_FLOAT, item);
+      } else {
+        if (item < wmem.getFloat(MIN_ITEM_FLOAT)) { wmem.putFloat(MIN_ITEM_FLOAT, item); }
+        if (item > wmem.getFloat(MAX_ITEM_FLOAT)) { wmem.putFloat(MAX_ITEM_FLOAT, item); }
+      }
+      final int index = getHighRankAccuracyMode() ? cap - count - 1 : count;
+      wmem.putFloat(c0 + C_ITEMS_START + (long) index * Float.BYTES, item);
+      wmem.putInt(c0 + C_COUNT_INT, count + 1);
+      wmem.putByte(c0 + C_SORTED_BYTE, (byte) 0);
+      wmem.putInt(RET_ITEMS_INT, retItems + 1);
+      wmem.putLong(N_LONG, n + 1);
+      reqSV = null;
+    } else {
+      //compress or grow level 0 on the heap
+      final ReqSketch sk = toHeap();
+      sk.update(item);
+      store(sk);
+    }
+  }
+
+  @Override
+  public String viewCompactorDetail(final String fmt, final boolean allData) {
+    return toHeap().viewCompactorDetail(fmt, allData);
+  }
+
+  // SORTED VIEW
+
+  @Override
+  public FloatsSketchSortedView getSortedView() {
+    if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
+    return refreshSortedView();
+  }
+
+  private FloatsSketchSortedView refreshSortedView() {
+    if (reqSV == null) {
+      final Levels lv = getLevels();
+      int totalQuantiles = 0;
+      for (int lvl = 0; lvl < lv.num; lvl++) { totalQuantiles += lv.count[lvl]; }
+      final float[] quantiles = new float[totalQuantiles];
+      final long[] cumWeights = new long[totalQuantiles];
+      int count = 0;
+      for (int lvl = 0; lvl < lv.num; lvl++) {
+        final int len = lv.count[lvl];
+        final float[] items = new float[len];
+        mem.getFloatArray(lv.itemOffset[lvl], items, 0, len);
+        if (!lv.sorted[lvl]) { Arrays.sort(items); }
+        final long weight = 1L << lv.lgWeight[lvl];
+        //merge from the top, as in ReqSketch
+        int i = count - 1;
+        int j = len - 1;
+        for (int k = count + len; k-- > 0 && j >= 0; ) {
+          if (i >= 0 && quantiles[i] >= items[j]) {
+            quantiles[k] = quantiles[i];
+            cumWeights[k] = cumWeights[i--]; //not yet natRanks, just individual wts
+          } else {
+            quantiles[k] = items[j--];
+            cumWeights[k] = weight;
+          }
+        }
+        count += len;
+      }
+      for (int i = 1; i < totalQuantiles; i++) { cumWeights[i] += cumWeights[i - 1]; }
+      reqSV = new FloatsSketchSortedView(quantiles, cumWeights, this);
+    }
+    return reqSV;
+  }
+
+  // Direct supporting methods
+
+  /**
+   * Returns a new ReqSketch on the heap with the contents of this sketch.
+   * @return a new ReqSketch on the heap with the contents of this sketch.
+   */
+  ReqSketch toHeap() {
+    return ReqSerDe.heapify(mem);
+  }
+
+  int getNumLevels() {
+    if (compactFormat == null) { return mem.getByte(NUM_COMPACTORS_BYTE) & 0xFF; }
+    switch (compactFormat) {
+      case EMPTY: return 0;
+      case RAWITEMS:
+      case EXACT: return 1;
+      default: return mem.getByte(NUM_COMPACTORS_BYTE) & 0xFF;
+    }
+  }
+
+  /**
+   * Writes the given heap sketch back into the WritableMemory, requesting a larger
+   * WritableMemory if required.
+   * @param sk the given heap sketch
+   */
+  private void store(final ReqSketch sk) {
+    final long bytes = ReqSerDe.getUpdatableSerBytes(sk);
+    if (bytes > wmem.getCapacity()) {
+      wmem = growMemory(bytes);
+      mem = wmem;
+    }
+    ReqSerDe.putUpdatable(sk, wmem);
+    reqSV = null;
+  }
+
+  private WritableMemory growMemory(final long needBytes) {
+    memReqSvr = (memReqSvr == null) ? wmem.getMemoryRequestServer() : memReqSvr;
+    if (memReqSvr == null) {
+      throw new SketchesArgumentException(
+          "A request for more memory has been denied, "
+          + "or a default MemoryRequestServer has not been provided. Must abort. ");
+    }
+    //the whole image is rewritten by the caller, so nothing is copied here
+    final WritableMemory newMem = memReqSvr.request(wmem, needBytes);
+    memReqSvr.requestClose(wmem, newMem);
+    return newMem;
+  }
+
+  /**
+   * Locates the active items of every level in the Memory.
+   * @return the offsets, counts, weights and sorted flags of every level.
+   */
+  private Levels getLevels() {
+    final int num = getNumLevels();
+    final Levels lv = new Levels(num);
+    if (compactFormat == null) {
+      final boolean hra = getHighRankAccuracyMode();
+      long offset = UPDATABLE_DATA_START;
+      for (int i = 0; i < num; i++) {
+        final int count = mem.getInt(offset + C_COUNT_INT);
+        final int cap = mem.getInt(offset + C_CAPACITY_INT);
+        lv.count[i] = count;
+        lv.lgWeight[i] = mem.getByte(offset + C_LG_WEIGHT_BYTE);
+        lv.sorted[i] = mem.getByte(offset + C_SORTED_BYTE) != 0;
+        lv.itemOffset[i] = offset + C_ITEMS_START + (hra ? (long) (cap - count) * Float.BYTES : 0);
+        offset += C_ITEMS_START + (long) cap * Float.BYTES;
+      }
+      return lv;
+    }
+    final boolean lvl0Sorted = (mem.getByte(FLAGS_BYTE) & LVL0_SORTED_FLAG_MASK) > 0;
+    if (compactFormat == SerDeFormat.RAWITEMS) {
+      lv.count[0] = mem.getByte(7) & 0xFF;
+      lv.sorted[0] = lvl0Sorted;
+      lv.itemOffset[0] = COMPACT_PRE_BYTES;
+      return lv;
+    }
+    long offset = compactFormat == SerDeFormat.EXACT ? COMPACT_PRE_BYTES : COMPACT_ESTIMATION_PRE_BYTES;
+    for (int i = 0; i < num; i++) {
+      final int count = mem.getInt(offset + COMPACT_C_COUNT_INT);
+      lv.count[i] = count;
+      lv.lgWeight[i] = mem.getByte(offset + COMPACT_C_LG_WEIGHT_BYTE);
+      lv.sorted[i] = i > 0 || lvl0Sorted;
+      lv.itemOffset[i] = offset + COMPACT_C_ITEMS_START;
+      offset += COMPACT_C_ITEMS_START + (long) count * Float.BYTES;
+    }
+    return lv;
+  }
+
+  private static final class Levels {
+    final int num;
+    final long[] itemOffset;
+    final int[] count;
+    final byte[] lgWeight;
+    final boolean[] sorted;
+
+    Levels(final int num) {
+      this.num = num;
+      itemOffset = new long[num];
+      count = new int[num];
+      lgWeight = new byte[num];
+      sorted = new boolean[num];
+    }
+  }
+
+  private final class ReqDirectSketchIterator implements QuantilesFloatsSketchIterator {
+    private final Levels lv;
+    private int level = 0;
+    private int index = -1;
+
+    ReqDirectSketchIterator(final Levels lv) {
+      this.lv = lv;
+    }
+
+    @Override
+    public float getQuantile() {
+      return mem.getFloat(lv.itemOffset[level] + (long) index * Float.BYTES);
+    }
+
+    @Override
+    public long getWeight() {
+      return 1L << lv.lgWeight[level];
+    }
+
+    @Override
+    public boolean next() {
+      index++;
+      while (level < lv.num && index >= lv.count[level]) {
+        level++;
+        index = 0;
+      }
+      return level < lv.num;
+    }
+  }
+
+}
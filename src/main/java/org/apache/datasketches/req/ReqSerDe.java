@@ -109,6 +109,48 @@ import org.apache.datasketches.memory.WritableMemory;
    *      ||    7   |    6   |    5   |    4   |    3   |    2   |    1   |     0              |
    *  0   || (empty)|    0   |        K        | Flags  |FamID=17| SerVer |     PreInts = 2    |
    * </pre>
+   * <p>An UPDATABLE binary format sketch, used by ReqDirectSketch, reserves the full capacity
+   * of every compactor so that items can be appended to level 0 in place.
+   * The empty flag is not used; the sketch is empty if N is zero.</p>
+   *
+   * <pre>
+   * PreInts=4
+   * Updatable=true
+   *
+   * Long Adr / Byte Offset
+   *      ||    7   |    6   |    5   |    4   |    3   |    2   |    1   |     0              |
+   *  0   ||        | #Ctors |        K        | Flags  |FamID=17| SerVer |     PreInts = 4    |
+   *
+   *      ||   15   |   14   |   13   |   12   |   11   |   10   |    9   |     8              |
+   *  1   ||-----------------------------------N-----------------------------------------------|
+   *
+   *      ||   23   |   22   |   21   |   20   |   19   |   18   |   17   |    16              |
+   *  2   ||--------------MaxItem-----------------------|--------------MinItem-----------------|
+   *
+   *      ||   31   |   30   |   29   |   28   |   27   |   26   |   25   |    24              |
+   *  3   ||--------------MaxNomSize--------------------|--------------RetItems----------------|
+   *
+   *      ||        |        |        |        |        |        |        |    32              |
+   *      ||----------------C1*-------------------------|----------------C0*-------------------|
+   * </pre>
+   *
+   * <p>Each updatable compactor is laid out as follows. The items array has the full capacity
+   * of the compactor and the active items are positioned in it as in the on-heap FloatBuffer.</p>
+   *
+   * <pre>
+   * +Long Adr / +Byte Offset
+   *      ||    7   |    6   |    5   |    4   |    3   |    2   |    1   |    0   |
+   *  0   ||-----------------------------state-------------------------------------|
+   *
+   *      ||   15   |   14   |   13   |   12   |   11   |   10   |    9   |    8   |
+   *  1   ||  Coin  | Sorted |-#Sects-|--lgWt--|------------sectionSizeFlt---------|
+   *
+   *      ||   23   |   22   |   21   |   20   |   19   |   18   |   17   |   16   |
+   *  2   ||-------------capacity--------------|---------------count---------------|
+   *
+   *      ||        |        |        |        |        |        |        |   24   |
+   *  3   ||-------------------------floats[capacity]------------------------------|
+   * </pre>
    * <pre>
    * <p>Flags:</p>
    * Bit 0 : Endianness, reserved
@@ -117,7 +159,7 @@ import org.apache.datasketches.memory.WritableMemory;
    * Bit 3 : HRA
    * Bit 4 : Raw Items
    * Bit 5 : L0 Sorted
-   * Bit 6 : reserved
+   * Bit 6 : Updatable
    * Bit 7 : reserved
    * </pre>
  *
@@ -126,10 +168,45 @@ import org.apache.datasketches.memory.WritableMemory;
 class ReqSerDe {
   enum SerDeFormat { EMPTY, RAWITEMS, EXACT, ESTIMATION }
 
-  private static final byte SER_VER = 1;
-  private static final byte FAMILY_ID = (byte) Family.REQ.getID();
+  static final byte SER_VER = 1;
+  static final byte FAMILY_ID = (byte) Family.REQ.getID();
+
+  //Updatable format
+  static final int FLAGS_BYTE = 3;
+  static final int EMPTY_FLAG_MASK = 4;
+  static final int HRA_FLAG_MASK = 8;
+  static final int RAW_ITEMS_FLAG_MASK = 16;
+  static final int LVL0_SORTED_FLAG_MASK = 32;
+  static final int UPDATABLE_FLAG_MASK = 64;
+  static final int UPDATABLE_PRE_INTS = 4;
+  static final int K_SHORT = 4;
+  static final int NUM_COMPACTORS_BYTE = 6;
+  static final int N_LONG = 8;
+  static final int MIN_ITEM_FLOAT = 16;
+  static final int MAX_ITEM_FLOAT = 20;
+  static final int RET_ITEMS_INT = 24;
+  static final int MAX_NOM_SIZE_INT = 28;
+  static final int UPDATABLE_DATA_START = 32;
+  //Updatable compactor, relative to the start of the compactor
+  static final int C_STATE_LONG = 0;
+  static final int C_SECTION_SIZE_FLT = 8;
+  static final int C_LG_WEIGHT_BYTE = 12;
+  static final int C_NUM_SECTIONS_BYTE = 13;
+  static final int C_SORTED_BYTE = 14;
+  static final int C_COIN_BYTE = 15;
+  static final int C_COUNT_INT = 16;
+  static final int C_CAPACITY_INT = 20;
+  static final int C_ITEMS_START = 24;
+  //Compact format
+  static final int COMPACT_PRE_BYTES = 8;
+  static final int COMPACT_ESTIMATION_PRE_BYTES = 24;
+  //Compact compactor, relative to the start of the compactor
+  static final int COMPACT_C_LG_WEIGHT_BYTE = 12;
+  static final int COMPACT_C_COUNT_INT = 16;
+  static final int COMPACT_C_ITEMS_START = 20;
 
   static ReqSketch heapify(final Memory mem) {
+    if (isUpdatableFormat(mem)) { return heapifyUpdatable(mem); }
     final Buffer buff = mem.asBuffer();
     //Extract first 8 bytes
     final byte preInts = buff.getByte();
@@ -194,6 +271,102 @@ class ReqSerDe {
     }
   }
 
+  static boolean isUpdatableFormat(final Memory mem) {
+    return (mem.getByte(FLAGS_BYTE) & UPDATABLE_FLAG_MASK) > 0;
+  }
+
+  /**
+   * Heapifies an image in the updatable format.
+   * @param mem the given Memory
+   * @return a new ReqSketch on the heap
+   */
+  static ReqSketch heapifyUpdatable(final Memory mem) {
+    final int k = mem.getShort(K_SHORT) & 0xFFFF;
+    final boolean hra = (mem.getByte(FLAGS_BYTE) & HRA_FLAG_MASK) > 0;
+    final int numCompactors = mem.getByte(NUM_COMPACTORS_BYTE) & 0xFF;
+    final long totalN = mem.getLong(N_LONG);
+    final float minItem = mem.getFloat(MIN_ITEM_FLOAT);
+    final float maxItem = mem.getFloat(MAX_ITEM_FLOAT);
+    final List<ReqCompactor> compactors = new ArrayList<>();
+    long offset = UPDATABLE_DATA_START;
+    for (int i = 0; i < numCompactors; i++) {
+      final long state = mem.getLong(offset + C_STATE_LONG);
+      final float sectionSizeFlt = mem.getFloat(offset + C_SECTION_SIZE_FLT);
+      final byte lgWt = mem.getByte(offset + C_LG_WEIGHT_BYTE);
+      final byte numSections = mem.getByte(offset + C_NUM_SECTIONS_BYTE);
+      final boolean sorted = mem.getByte(offset + C_SORTED_BYTE) != 0;
+      final boolean coin = mem.getByte(offset + C_COIN_BYTE) != 0;
+      final int count = mem.getInt(offset + C_COUNT_INT);
+      final int cap = mem.getInt(offset + C_CAPACITY_INT);
+      final float[] arr = new float[count];
+      final int start = hra ? cap - count : 0;
+      mem.getFloatArray(offset + C_ITEMS_START + (long) start * Float.BYTES, arr, 0, count);
+      final int delta = 2 * ReqCompactor.nearestEven(sectionSizeFlt) * numSections;
+      final FloatBuffer fltBuf = FloatBuffer.reconstruct(arr, count, cap, delta, sorted, hra);
+      final ReqCompactor c = new ReqCompactor(lgWt, hra, state, sectionSizeFlt, numSections, fltBuf);
+      c.setCoin(coin);
+      compactors.add(c);
+      offset += C_ITEMS_START + (long) cap * Float.BYTES;
+    }
+    final ReqSketch sk = new ReqSketch(k, hra, totalN, minItem, maxItem, compactors);
+    sk.setMaxNomSize(sk.computeMaxNomSize());
+    sk.setRetainedItems(sk.computeTotalRetainedItems());
+    return sk;
+  }
+
+  /**
+   * Returns the number of bytes required to store the given sketch in the updatable format.
+   * @param sk the given sketch
+   * @return the number of bytes required to store the given sketch in the updatable format.
+   */
+  static long getUpdatableSerBytes(final ReqSketch sk) {
+    long bytes = UPDATABLE_DATA_START;
+    for (final ReqCompactor c : sk.getCompactors()) {
+      bytes += C_ITEMS_START + (long) c.getBuffer().getCapacity() * Float.BYTES;
+    }
+    return bytes;
+  }
+
+  /**
+   * Writes the given sketch into the given WritableMemory in the updatable format.
+   * The WritableMemory must have at least getUpdatableSerBytes(sk) bytes of capacity.
+   * @param sk the given sketch
+   * @param wmem the destination WritableMemory
+   */
+  static void putUpdatable(final ReqSketch sk, final WritableMemory wmem) {
+    final List<ReqCompactor> compactors = sk.getCompactors();
+    final boolean hra = sk.getHighRankAccuracyMode();
+    wmem.putByte(0, (byte) UPDATABLE_PRE_INTS);
+    wmem.putByte(1, SER_VER);
+    wmem.putByte(2, FAMILY_ID);
+    wmem.putByte(FLAGS_BYTE, (byte) ((hra ? HRA_FLAG_MASK : 0) | UPDATABLE_FLAG_MASK));
+    wmem.putShort(K_SHORT, (short) sk.getK());
+    wmem.putByte(NUM_COMPACTORS_BYTE, (byte) compactors.size());
+    wmem.putByte(7, (byte) 0);
+    wmem.putLong(N_LONG, sk.getN());
+    wmem.putFloat(MIN_ITEM_FLOAT, sk.isEmpty() ? Float.NaN : sk.getMinItem());
+    wmem.putFloat(MAX_ITEM_FLOAT, sk.isEmpty() ? Float.NaN : sk.getMaxItem());
+    wmem.putInt(RET_ITEMS_INT, sk.getNumRetained());
+    wmem.putInt(MAX_NOM_SIZE_INT, sk.getMaxNomSize());
+    long offset = UPDATABLE_DATA_START;
+    for (final ReqCompactor c : compactors) {
+      final FloatBuffer buf = c.getBuffer();
+      final int count = buf.getCount();
+      final int cap = buf.getCapacity();
+      wmem.putLong(offset + C_STATE_LONG, c.getState());
+      wmem.putFloat(offset + C_SECTION_SIZE_FLT, c.getSectionSizeFlt());
+      wmem.putByte(offset + C_LG_WEIGHT_BYTE, c.getLgWeight());
+      wmem.putByte(offset + C_NUM_SECTIONS_BYTE, (byte) c.getNumSections());
+      wmem.putByte(offset + C_SORTED_BYTE, (byte) (buf.isSorted() ? 1 : 0));
+      wmem.putByte(offset + C_COIN_BYTE, (byte) (c.getCoin() ? 1 : 0));
+      wmem.putInt(offset + C_COUNT_INT, count);
+      wmem.putInt(offset + C_CAPACITY_INT, cap);
+      final int start = hra ? cap - count : 0;
+      wmem.putFloatArray(offset + C_ITEMS_START + (long) start * Float.BYTES, buf.getArray(), start, count);
+      offset += C_ITEMS_START + (long) cap * Float.BYTES;
+    }
+  }
+
   static final Compactor extractCompactor(final Buffer buff, final boolean lvl0Sorted,
       final boolean hra) {
     final long state = buff.getLong();
@@ -252,7 +425,7 @@ class ReqSerDe {
     return SerDeFormat.ESTIMATION;
   }
 
-  private static SerDeFormat getDeserFormat(final boolean empty, final boolean rawItems,
+  static SerDeFormat getDeserFormat(final boolean empty, final boolean rawItems,
       final int numCompactors) {
     if (numCompactors <= 1) {
       if (empty) { return SerDeFormat.EMPTY; }
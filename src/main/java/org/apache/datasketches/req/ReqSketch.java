@@ -20,6 +20,7 @@
 package org.apache.datasketches.req;
 
 import static org.apache.datasketches.common.Util.LS;
+import static org.apache.datasketches.common.Util.checkBounds;
 import static org.apache.datasketches.quantilescommon.QuantileSearchCriteria.INCLUSIVE;
 
 import java.util.ArrayList;
@@ -377,7 +378,11 @@ public final class ReqSketch extends BaseReqSketch {
     return new ReqSketchIterator(this);
   }
 
-  @Override
+  /**
+   * Merge other sketch into this one. The other sketch is not modified.
+   * @param other sketch to be merged into this one.
+   * @return this
+   */
   public ReqSketch merge(final ReqSketch other) {
     if (other == null || other.isEmpty()) { return this; }
     if (other.hra != hra) {
@@ -458,6 +463,55 @@ public final class ReqSketch extends BaseReqSketch {
     reqSV = null;
   }
 
+  /**
+   * Vector update. Updates this sketch with the given array (vector) of items, starting at the items
+   * offset for a length number of items. The result is the same as updating with each item in turn,
+   * but runs of items are appended to level 0 in bulk and the need to compress is checked once per run.
+   * @param items the vector of items. NaN items are ignored.
+   * @param offset the starting index of the items[] array
+   * @param length the number of items
+   */
+  public void update(final float[] items, final int offset, final int length) {
+    checkBounds(offset, length, items.length);
+    final int end = offset + length;
+    int i = offset;
+    while (i < end) {
+      final int len = Math.min(end - i, maxNomSize - retItems); //at most one compression per run
+      if (hasNaN(items, i, len)) {
+        for (int j = i; j < i + len; j++) { update(items[j]); }
+        i += len;
+        continue;
+      }
+      if (isEmpty()) {
+        minItem = items[i];
+        maxItem = items[i];
+      }
+      for (int j = i; j < i + len; j++) {
+        final float item = items[j];
+        if (item < minItem) { minItem = item; }
+        if (item > maxItem) { maxItem = item; }
+      }
+      final FloatBuffer buf = compactors.get(0).getBuffer();
+      buf.append(items, i, len);
+      retItems += len;
+      totalN += len;
+      i += len;
+      if (retItems >= maxNomSize) {
+        buf.sort();
+        compress();
+      }
+    }
+    reqSV = null;
+  }
+
+  private static boolean hasNaN(final float[] items, final int offset, final int length) {
+    final int end = offset + length;
+    for (int i = offset; i < end; i++) {
+      if (Float.isNaN(items[i])) { return true; }
+    }
+    return false;
+  }
+
   @Override
   public String viewCompactorDetail(final String fmt, final boolean allData) {
     final StringBuilder sb = new StringBuilder();
@@ -518,7 +572,7 @@ public final class ReqSketch extends BaseReqSketch {
     this.retItems = retItems;
   }
 
-  private static void checkK(final int k) {
+  static void checkK(final int k) {
     if ((k & 1) > 0 || k < 4 || k > 1024) {
       throw new SketchesArgumentException(
           "<i>K</i> must be even and in the range [4, 1024]: " + k );
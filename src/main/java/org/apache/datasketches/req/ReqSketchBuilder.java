@@ -22,6 +22,9 @@ package org.apache.datasketches.req;
 import static org.apache.datasketches.common.Util.LS;
 import static org.apache.datasketches.common.Util.TAB;
 
+import org.apache.datasketches.memory.MemoryRequestServer;
+import org.apache.datasketches.memory.WritableMemory;
+
 /**
  * For building a new ReqSketch
  *
@@ -51,6 +54,19 @@ public class ReqSketchBuilder {
     return sk;
   }
 
+  /**
+   * Returns a new, empty ReqDirectSketch in the given WritableMemory with the current
+   * configuration of the builder. The ReqDebug is not used by the direct sketch.
+   * @param dstMem the destination WritableMemory. It must have at least
+   * {@link ReqDirectSketch#getInitialStorageBytes(int)} bytes of capacity.
+   * @param memReqSvr the MemoryRequestServer used to obtain a larger WritableMemory as the sketch
+   * grows. It may be null, in which case the MemoryRequestServer of the given WritableMemory is used.
+   * @return a new ReqDirectSketch
+   */
+  public ReqDirectSketch build(final WritableMemory dstMem, final MemoryRequestServer memReqSvr) {
+    return ReqDirectSketch.newInstance(bK, bHRA, dstMem, memReqSvr);
+  }
+
   /**
    * Gets the builder configured High Rank Accuracy.
    * @return the builder configured High Rank Accuracy.
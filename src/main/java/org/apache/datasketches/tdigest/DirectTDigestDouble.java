@@ -0,0 +1,564 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.tdigest;
+
+import static org.apache.datasketches.common.Util.LS;
+
+import java.util.Arrays;
+
+import org.apache.datasketches.common.Family;
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesStateException;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+import org.apache.datasketches.quantilescommon.QuantilesAPI;
+import org.apache.datasketches.tdigest.TDigestDouble.Flags;
+
+/**
+ * t-Digest that resides in Memory.
+ *
+ * <p>A digest obtained from {@link #wrap(Memory)} is read-only. It may wrap either the serialized
+ * form produced by {@link TDigestDouble#toByteArray()} or the updatable form described below, and
+ * {@link #getRank(double)} and {@link #getQuantile(double)} read the centroids directly from the Memory.</p>
+ *
+ * <p>A digest obtained from {@link #newInstance(short, WritableMemory)} or
+ * {@link #writableWrap(WritableMemory)} is updatable. The updatable form has a fixed size, given by
+ * {@link #getUpdatableStorageBytes(short)}, which holds the arrays of centroids and of buffered values
+ * at their full capacity. Updates are appended to the buffer in the Memory. {@link #compress()} reuses
+ * scratch arrays that are allocated once per instance, so it does not allocate after the first call.
+ * The trade-off is that an updatable instance keeps about twice the size of its Memory image on the
+ * heap once it has compressed. The heap TDigestDouble does not retain such scratch and allocates it
+ * on every compression instead, to keep its footprint small when many digests are held.
+ * Results are identical to those of a TDigestDouble given the same input.</p>
+ *
+ * <pre>
+ * Updatable form:
+ * Long Adr / Byte Offset
+ *      ||    7   |    6   |    5   |    4   |    3   |    2   |    1   |     0              |
+ *  0   ||     unused      | Flags  |        K        | FamID  | SerVer |   PreLongs = 5     |
+ *
+ *      ||   15   |   14   |   13   |   12   |   11   |   10   |    9   |     8              |
+ *  1   ||----------------NumBuffered---------------|---------------NumCentroids-------------|
+ *
+ *  2   ||----------------------------------MinValue-------------------------------------------|
+ *  3   ||----------------------------------MaxValue-------------------------------------------|
+ *  4   ||-------------------------------CentroidsWeight---------------------------------------|
+ *
+ *      || followed by means double[capacity], weights long[capacity],
+ *      || and buffered values double[capacity * 4]
+ * </pre>
+ */
+public final class DirectTDigestDouble {
+  static final byte PREAMBLE_LONGS_UPDATABLE = 5;
+  static final int K_SHORT = 3;
+  static final int FLAGS_BYTE = 5;
+  static final int NUM_CENTROIDS_INT = 8;
+  static final int NUM_BUFFERED_INT = 12;
+  static final int MIN_DOUBLE = 16;
+  static final int MAX_DOUBLE = 24;
+  static final int CENTROIDS_WEIGHT_LONG = 32;
+  static final int MEANS_START = 40;
+
+  // serialized (compact) form
+  private static final int COMPACT_NUM_CENTROIDS_INT = 8;
+  private static final int COMPACT_MIN_DOUBLE = 16;
+  private static final int COMPACT_MAX_DOUBLE = 24;
+  private static final int COMPACT_CENTROIDS_START = 32;
+  private static final int COMPACT_CENTROID_BYTES = Double.BYTES + Long.BYTES;
+
+  private final Memory mem;
+  private final WritableMemory wmem; // null if read only
+  private final boolean updatable;
+  private final short k;
+  private final int capacity;
+  private double[] mergeValues; // scratch for compress()
+  private long[] mergeWeights;
+  private double[] mergeMeans;
+  private long[] mergeCentroidWeights;
+  private TDigestDouble compressedCopy; // read-only updatable form with buffered values
+
+  private DirectTDigestDouble(final Memory mem, final WritableMemory wmem) {
+    this.mem = mem;
+    this.wmem = wmem;
+    updatable = (mem.getByte(FLAGS_BYTE) & (1 << Flags.IS_UPDATABLE.ordinal())) > 0;
+    k = mem.getShort(K_SHORT);
+    capacity = TDigestDouble.getCentroidsCapacity(k);
+  }
+
+  /**
+   * Creates a new empty, updatable digest in the given WritableMemory.
+   * @param k affects the size of TDigest and its estimation error
+   * @param dstMem destination, which must have at least getUpdatableStorageBytes(k) bytes
+   * @return a new empty, updatable digest
+   */
+  public static DirectTDigestDouble newInstance(final short k, final WritableMemory dstMem) {
+    checkDestination(k, dstMem);
+    putHeader(dstMem, k, false);
+    dstMem.putInt(NUM_CENTROIDS_INT, 0);
+    dstMem.putInt(NUM_BUFFERED_INT, 0);
+    dstMem.putDouble(MIN_DOUBLE, Double.POSITIVE_INFINITY);
+    dstMem.putDouble(MAX_DOUBLE, Double.NEGATIVE_INFINITY);
+    dstMem.putLong(CENTROIDS_WEIGHT_LONG, 0);
+    return new DirectTDigestDouble(dstMem, dstMem);
+  }
+
+  /**
+   * Creates a new updatable digest in the given WritableMemory with the contents of the given TDigestDouble.
+   * @param source the TDigestDouble to copy
+   * @param dstMem destination, which must have at least getUpdatableStorageBytes(source.getK()) bytes
+   * @return a new updatable digest
+   */
+  public static DirectTDigestDouble newInstance(final TDigestDouble source, final WritableMemory dstMem) {
+    checkDestination(source.getK(), dstMem);
+    source.putUpdatable(dstMem);
+    return new DirectTDigestDouble(dstMem, dstMem);
+  }
+
+  /**
+   * Wraps the given Memory, which must hold either the serialized form of a TDigestDouble
+   * or the updatable form. The returned digest is read-only.
+   * @param srcMem the given Memory
+   * @return a read-only digest backed by the given Memory
+   */
+  public static DirectTDigestDouble wrap(final Memory srcMem) {
+    checkImage(srcMem);
+    return new DirectTDigestDouble(srcMem, null);
+  }
+
+  /**
+   * Wraps the given WritableMemory, which must hold the updatable form, as an updatable digest.
+   * @param srcMem the given WritableMemory
+   * @return an updatable digest backed by the given WritableMemory
+   */
+  public static DirectTDigestDouble writableWrap(final WritableMemory srcMem) {
+    checkImage(srcMem);
+    if ((srcMem.getByte(FLAGS_BYTE) & (1 << Flags.IS_UPDATABLE.ordinal())) == 0) {
+      throw new SketchesArgumentException("The given WritableMemory is not in the updatable form");
+    }
+    if (srcMem.isReadOnly()) { throw new SketchesArgumentException(QuantilesAPI.TGT_IS_READ_ONLY_MSG); }
+    return new DirectTDigestDouble(srcMem, srcMem);
+  }
+
+  /**
+   * @param k parameter k (compression)
+   * @return the size in bytes of the updatable form for the given k
+   */
+  public static int getUpdatableStorageBytes(final short k) {
+    final int capacity = TDigestDouble.getCentroidsCapacity(k);
+    return getBufferStart(capacity) + capacity * TDigestDouble.BUFFER_MULTIPLIER * Double.BYTES;
+  }
+
+  /**
+   * @return parameter k (compression) that was used to configure this TDigest
+   */
+  public short getK() {
+    return k;
+  }
+
+  /**
+   * @return the Memory backing this TDigest
+   */
+  public Memory getMemory() {
+    return mem;
+  }
+
+  /**
+   * @return true if this TDigest cannot be updated
+   */
+  public boolean isReadOnly() {
+    return wmem == null;
+  }
+
+  /**
+   * Update this TDigest with the given value
+   * @param value to update the TDigest with
+   */
+  public void update(final double value) {
+    checkWritable();
+    if (Double.isNaN(value)) { return; }
+    int numBuffered = wmem.getInt(NUM_BUFFERED_INT);
+    if (numBuffered == capacity * TDigestDouble.BUFFER_MULTIPLIER) {
+      compress();
+      numBuffered = 0;
+    }
+    wmem.putDouble(getBufferStart(capacity) + (long) numBuffered * Double.BYTES, value);
+    wmem.putInt(NUM_BUFFERED_INT, numBuffered + 1);
+    if (value < wmem.getDouble(MIN_DOUBLE)) { wmem.putDouble(MIN_DOUBLE, value); }
+    if (value > wmem.getDouble(MAX_DOUBLE)) { wmem.putDouble(MAX_DOUBLE, value); }
+  }
+
+  /**
+   * Process buffered values and merge centroids if needed
+   */
+  public void compress() {
+    checkWritable();
+    final int numBuffered = wmem.getInt(NUM_BUFFERED_INT);
+    if (numBuffered == 0) { return; }
+    final int numCentroids = wmem.getInt(NUM_CENTROIDS_INT);
+    if (mergeValues == null) {
+      final int len = capacity * (TDigestDouble.BUFFER_MULTIPLIER + 1);
+      mergeValues = new double[len];
+      mergeWeights = new long[len];
+      mergeMeans = new double[capacity];
+      mergeCentroidWeights = new long[capacity];
+    }
+    wmem.getDoubleArray(getBufferStart(capacity), mergeValues, 0, numBuffered);
+    Arrays.fill(mergeWeights, 0, numBuffered, 1);
+    wmem.getDoubleArray(MEANS_START, mergeValues, numBuffered, numCentroids);
+    wmem.getLongArray(getWeightsStart(capacity), mergeWeights, numBuffered, numCentroids);
+    final long centroidsWeight = wmem.getLong(CENTROIDS_WEIGHT_LONG) + numBuffered;
+    final boolean reverseMerge = (wmem.getByte(FLAGS_BYTE) & (1 << Flags.REVERSE_MERGE.ordinal())) > 0;
+    final int newNumCentroids = TDigestDouble.mergeCentroids(k, reverseMerge, centroidsWeight,
+        mergeValues, mergeWeights, numBuffered + numCentroids, mergeMeans, mergeCentroidWeights);
+    wmem.putDoubleArray(MEANS_START, mergeMeans, 0, newNumCentroids);
+    wmem.putLongArray(getWeightsStart(capacity), mergeCentroidWeights, 0, newNumCentroids);
+    wmem.putInt(NUM_CENTROIDS_INT, newNumCentroids);
+    wmem.putInt(NUM_BUFFERED_INT, 0);
+    wmem.putLong(CENTROIDS_WEIGHT_LONG, centroidsWeight);
+    putHeader(wmem, k, !reverseMerge);
+    wmem.putDouble(MIN_DOUBLE, Math.min(wmem.getDouble(MIN_DOUBLE), mergeMeans[0]));
+    wmem.putDouble(MAX_DOUBLE, Math.max(wmem.getDouble(MAX_DOUBLE), mergeMeans[newNumCentroids - 1]));
+  }
+
+  /**
+   * @return true if TDigest has not seen any data
+   */
+  public boolean isEmpty() {
+    return getNumCentroids() == 0 && getNumBuffered() == 0;
+  }
+
+  /**
+   * @return minimum value seen by TDigest
+   */
+  public double getMinValue() {
+    if (isEmpty()) { throw new SketchesStateException(QuantilesAPI.EMPTY_MSG); }
+    return getMin();
+  }
+
+  /**
+   * @return maximum value seen by TDigest
+   */
+  public double getMaxValue() {
+    if (isEmpty()) { throw new SketchesStateException(QuantilesAPI.EMPTY_MSG); }
+    return getMax();
+  }
+
+  /**
+   * @return total weight
+   */
+  public long getTotalWeight() {
+    if (updatable) { return mem.getLong(CENTROIDS_WEIGHT_LONG) + getNumBuffered(); }
+    if (isCompactEmpty()) { return 0; }
+    if (isCompactSingleValue()) { return 1; }
+    long weight = 0;
+    final int numCentroids = getNumCentroids();
+    for (int i = 0; i < numCentroids; i++) { weight += getWeight(i); }
+    return weight;
+  }
+
+  /**
+   * Compute approximate normalized rank of the given value.
+   * If this TDigest is updatable, buffered values are compressed first.
+   * @param value to be ranked
+   * @return normalized rank (from 0 to 1 inclusive)
+   */
+  public double getRank(final double value) {
+    if (isEmpty()) { throw new SketchesStateException(QuantilesAPI.EMPTY_MSG); }
+    if (Double.isNaN(value)) { throw new SketchesArgumentException("Operation is undefined for Nan"); }
+    final double minValue = getMin();
+    final double maxValue = getMax();
+    if (value < minValue) { return 0; }
+    if (value > maxValue) { return 1; }
+    final int numBuffered = getNumBuffered();
+    final int numCentroids0 = getNumCentroids();
+    if (numCentroids0 + numBuffered == 1) { return 0.5; }
+    if (numBuffered > 0) {
+      if (wmem == null) { return getCompressedCopy().getRank(value); }
+      compress(); // side effect
+    }
+    final int numCentroids = getNumCentroids();
+    final double centroidsWeight = getTotalWeight();
+
+    // left tail
+    final double firstMean = getMean(0);
+    if (value < firstMean) {
+      if (firstMean - minValue > 0) {
+        if (value == minValue) { return 0.5 / centroidsWeight; }
+        return (1.0 + (value - minValue) / (firstMean - minValue) * (getWeight(0) / 2.0 - 1.0));
+      }
+      return 0; // should never happen
+    }
+
+    // right tail
+    final double lastMean = getMean(numCentroids - 1);
+    if (value > lastMean) {
+      if (maxValue - lastMean > 0) {
+        if (value == maxValue) { return 1.0 - 0.5 / centroidsWeight; }
+        return 1.0 - ((1.0 + (maxValue - value) / (maxValue - lastMean)
+            * (getWeight(numCentroids - 1) / 2.0 - 1.0)) / centroidsWeight);
+      }
+      return 1; // should never happen
+    }
+
+    int lower = lowerBound(numCentroids, value);
+    if (lower == numCentroids) { throw new SketchesStateException("lower == end in getRank()"); }
+    int upper = upperBound(lower, numCentroids, value);
+    if (upper == 0) { throw new SketchesStateException("upper == begin in getRank()"); }
+    if (value < getMean(lower)) { lower--; }
+    if (upper == numCentroids || !(getMean(upper - 1) < value)) { upper--; }
+
+    double weightBelow = 0;
+    int i = 0;
+    while (i != lower) { weightBelow += getWeight(i++); }
+    weightBelow += getWeight(lower) / 2.0;
+
+    double weightDelta = 0;
+    while (i != upper) { weightDelta += getWeight(i++); }
+    weightDelta -= getWeight(lower) / 2.0;
+    weightDelta += getWeight(upper) / 2.0;
+    if (getMean(upper) - getMean(lower) > 0) {
+      return (weightBelow + weightDelta * (value - getMean(lower))
+          / (getMean(upper) - getMean(lower))) / centroidsWeight;
+    }
+    return (weightBelow + weightDelta / 2.0) / centroidsWeight;
+  }
+
+  /**
+   * Compute approximate quantile value corresponding to the given normalized rank.
+   * If this TDigest is updatable, buffered values are compressed first.
+   * @param rank normalized rank (from 0 to 1 inclusive)
+   * @return quantile value corresponding to the given rank
+   */
+  public double getQuantile(final double rank) {
+    if (isEmpty()) { throw new SketchesStateException(QuantilesAPI.EMPTY_MSG); }
+    if (Double.isNaN(rank)) { throw new SketchesArgumentException("Operation is undefined for Nan"); }
+    if (rank < 0 || rank > 1) { throw new SketchesArgumentException("Normalized rank must be within [0, 1]"); }
+    if (getNumBuffered() > 0) {
+      if (wmem == null) { return getCompressedCopy().getQuantile(rank); }
+      compress(); // side effect
+    }
+    final int numCentroids = getNumCentroids();
+    if (numCentroids == 1) { return getMean(0); }
+
+    // at least 2 centroids
+    final double minValue = getMin();
+    final double maxValue = getMax();
+    final double centroidsWeight = getTotalWeight();
+    final double weight = rank * centroidsWeight;
+    if (weight < 1) { return minValue; }
+    if (weight > centroidsWeight - 1.0) { return maxValue; }
+    final double firstWeight = getWeight(0);
+    if (firstWeight > 1 && weight < firstWeight / 2.0) {
+      return minValue + (weight - 1.0) / (firstWeight / 2.0 - 1.0) * (getMean(0) - minValue);
+    }
+    final double lastWeight = getWeight(numCentroids - 1);
+    if (lastWeight > 1 && centroidsWeight - weight <= lastWeight / 2.0) {
+      return maxValue + (centroidsWeight - weight - 1.0) / (lastWeight / 2.0 - 1.0) * (maxValue - getMean(numCentroids - 1));
+    }
+
+    // interpolate between extremes
+    double weightSoFar = firstWeight / 2.0;
+    for (int i = 0; i < numCentroids - 1; i++) {
+      final double dw = (getWeight(i) + getWeight(i + 1)) / 2.0;
+      if (weightSoFar + dw > weight) {
+        // the target weight is between centroids i and i+1
+        double leftWeight = 0;
+        if (getWeight(i) == 1) {
+          if (weight - weightSoFar < 0.5) { return getMean(i); }
+          leftWeight = 0.5;
+        }
+        double rightWeight = 0;
+        if (getWeight(i + 1) == 1) {
+          if (weightSoFar + dw - weight <= 0.5) { return getMean(i + 1); }
+          rightWeight = 0.5;
+        }
+        final double w1 = weight - weightSoFar - leftWeight;
+        final double w2 = weightSoFar + dw - weight - rightWeight;
+        return TDigestDouble.weightedAverage(getMean(i), w1, getMean(i + 1), w2);
+      }
+      weightSoFar += dw;
+    }
+    final double w1 = weight - centroidsWeight - getWeight(numCentroids - 1) / 2.0;
+    final double w2 = getWeight(numCentroids - 1) / 2.0 - w1;
+    return TDigestDouble.weightedAverage(getWeight(numCentroids - 1), w1, maxValue, w2);
+  }
+
+  /**
+   * Serialize this TDigest to the byte array form of TDigestDouble.toByteArray().
+   * @return byte array
+   */
+  public byte[] toByteArray() {
+    if (updatable) { return TDigestDouble.heapify(mem).toByteArray(); }
+    final int bytes = isCompactEmpty() || isCompactSingleValue()
+        ? Long.BYTES + (isCompactEmpty() ? 0 : Double.BYTES)
+        : COMPACT_CENTROIDS_START + getNumCentroids() * COMPACT_CENTROID_BYTES;
+    final byte[] arr = new byte[bytes];
+    mem.getByteArray(0, arr, 0, bytes);
+    return arr;
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder();
+    sb.append("DirectMergingDigest").append(LS)
+      .append(" Compression: ").append(k).append(LS)
+      .append(" Updatable: ").append(updatable).append(LS)
+      .append(" Read Only: ").append(isReadOnly()).append(LS)
+      .append(" Centroids: ").append(getNumCentroids()).append(LS)
+      .append(" Buffered: ").append(getNumBuffered()).append(LS)
+      .append(" Total Weight: ").append(getTotalWeight()).append(LS);
+    if (!isEmpty()) {
+      sb.append(" Min: ").append(getMin()).append(LS)
+        .append(" Max: ").append(getMax()).append(LS);
+    }
+    return sb.toString();
+  }
+
+  static void putHeader(final WritableMemory wmem, final short k, final boolean reverseMerge) {
+    wmem.putByte(0, PREAMBLE_LONGS_UPDATABLE);
+    wmem.putByte(1, TDigestDouble.SERIAL_VERSION);
+    wmem.putByte(2, (byte) Family.TDIGEST.getID());
+    wmem.putShort(K_SHORT, k);
+    wmem.putByte(FLAGS_BYTE, (byte) ((1 << Flags.IS_UPDATABLE.ordinal())
+        | (reverseMerge ? 1 << Flags.REVERSE_MERGE.ordinal() : 0)));
+    wmem.putShort(6, (short) 0); // unused
+  }
+
+  static int getWeightsStart(final int capacity) {
+    return MEANS_START + capacity * Double.BYTES;
+  }
+
+  static int getBufferStart(final int capacity) {
+    return getWeightsStart(capacity) + capacity * Long.BYTES;
+  }
+
+  private static void checkDestination(final short k, final WritableMemory dstMem) {
+    final int bytes = getUpdatableStorageBytes(k);
+    if (dstMem.isReadOnly()) { throw new SketchesArgumentException(QuantilesAPI.TGT_IS_READ_ONLY_MSG); }
+    if (dstMem.getCapacity() < bytes) {
+      throw new SketchesArgumentException("Destination memory too small: " + dstMem.getCapacity() + " < " + bytes);
+    }
+  }
+
+  private static void checkImage(final Memory srcMem) {
+    if (srcMem.getCapacity() < Long.BYTES) {
+      throw new SketchesArgumentException("Memory too small: " + srcMem.getCapacity());
+    }
+    final byte sketchType = srcMem.getByte(2);
+    if (sketchType != (byte) Family.TDIGEST.getID()) {
+      throw new SketchesArgumentException("Sketch type mismatch: expected " + Family.TDIGEST.getID() + ", actual " + sketchType);
+    }
+    final byte serialVersion = srcMem.getByte(1);
+    if (serialVersion != TDigestDouble.SERIAL_VERSION) {
+      throw new SketchesArgumentException("Serial version mismatch: expected " + TDigestDouble.SERIAL_VERSION
+          + ", actual " + serialVersion);
+    }
+  }
+
+  private void checkWritable() {
+    if (wmem == null) { throw new SketchesArgumentException(QuantilesAPI.TGT_IS_READ_ONLY_MSG); }
+  }
+
+  private TDigestDouble getCompressedCopy() {
+    if (compressedCopy == null) {
+      compressedCopy = TDigestDouble.heapify(mem);
+      compressedCopy.compress();
+    }
+    return compressedCopy;
+  }
+
+  private boolean isCompactEmpty() {
+    return (mem.getByte(FLAGS_BYTE) & (1 << Flags.IS_EMPTY.ordinal())) > 0;
+  }
+
+  private boolean isCompactSingleValue() {
+    return (mem.getByte(FLAGS_BYTE) & (1 << Flags.IS_SINGLE_VALUE.ordinal())) > 0;
+  }
+
+  private int getNumCentroids() {
+    if (updatable) { return mem.getInt(NUM_CENTROIDS_INT); }
+    if (isCompactEmpty()) { return 0; }
+    if (isCompactSingleValue()) { return 1; }
+    return mem.getInt(COMPACT_NUM_CENTROIDS_INT);
+  }
+
+  private int getNumBuffered() {
+    return updatable ? mem.getInt(NUM_BUFFERED_INT) : 0;
+  }
+
+  private double getMin() {
+    if (updatable) { return mem.getDouble(MIN_DOUBLE); }
+    if (isCompactSingleValue()) { return mem.getDouble(Long.BYTES); }
+    return mem.getDouble(COMPACT_MIN_DOUBLE);
+  }
+
+  private double getMax() {
+    if (updatable) { return mem.getDouble(MAX_DOUBLE); }
+    if (isCompactSingleValue()) { return mem.getDouble(Long.BYTES); }
+    return mem.getDouble(COMPACT_MAX_DOUBLE);
+  }
+
+  private double getMean(final int i) {
+    if (updatable) { return mem.getDouble(MEANS_START + (long) i * Double.BYTES); }
+    if (isCompactSingleValue()) { return mem.getDouble(Long.BYTES); }
+    return mem.getDouble(COMPACT_CENTROIDS_START + (long) i * COMPACT_CENTROID_BYTES);
+  }
+
+  private long getWeight(final int i) {
+    if (updatable) { return mem.getLong(getWeightsStart(capacity) + (long) i * Long.BYTES); }
+    if (isCompactSingleValue()) { return 1; }
+    return mem.getLong(COMPACT_CENTROIDS_START + (long) i * COMPACT_CENTROID_BYTES + Double.BYTES);
+  }
+
+  // see BinarySearch.lowerBound()
+  private int lowerBound(final int last, final double value) {
+    int first = 0;
+    int count = last;
+    while (count > 0) {
+      final int step = count / 2;
+      final int current = first + step;
+      if (getMean(current) < value) {
+        first = current + 1;
+        count -= step + 1;
+      } else {
+        count = step;
+      }
+    }
+    return first;
+  }
+
+  // see BinarySearch.upperBound()
+  private int upperBound(final int first0, final int last, final double value) {
+    int first = first0;
+    int count = last - first;
+    while (count > 0) {
+      final int step = count / 2;
+      final int current = first + step;
+      if (!(value < getMean(current))) {
+        first = current + 1;
+        count -= step + 1;
+      } else {
+        count = step;
+      }
+    }
+    return first;
+  }
+}
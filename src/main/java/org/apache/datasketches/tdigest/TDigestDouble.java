@@ -20,6 +20,7 @@
 package org.apache.datasketches.tdigest;
 
 import static org.apache.datasketches.common.Util.LS;
+import static org.apache.datasketches.common.Util.checkBounds;
 
 import java.nio.ByteOrder;
 import java.util.Arrays;
@@ -58,16 +59,16 @@ public final class TDigestDouble {
   private int numBuffered_;
   private double[] bufferValues_;
 
-  private static final int BUFFER_MULTIPLIER = 4;
+  static final int BUFFER_MULTIPLIER = 4;
 
   private static final byte PREAMBLE_LONGS_EMPTY_OR_SINGLE = 1;
   private static final byte PREAMBLE_LONGS_MULTIPLE = 2;
-  private static final byte SERIAL_VERSION = 1;
+  static final byte SERIAL_VERSION = 1;
 
   private static final int COMPAT_DOUBLE = 1;
   private static final int COMPAT_FLOAT = 2;
 
-  private enum Flags { IS_EMPTY, IS_SINGLE_VALUE, REVERSE_MERGE }
+  enum Flags { IS_EMPTY, IS_SINGLE_VALUE, REVERSE_MERGE, IS_UPDATABLE }
 
   /**
    * Constructor with the default K
@@ -104,6 +105,40 @@ public final class TDigestDouble {
     maxValue_ = Math.max(maxValue_, value);
   }
 
+  /**
+   * Update this TDigest with the given array of values, starting at the given offset for the given
+   * length. The result is the same as updating with each value in turn, but the values are copied
+   * into the buffer in runs and the check for a full buffer is made once per run.
+   * @param values array of values. NaN values are ignored.
+   * @param offset index of the first value to update with
+   * @param length number of values to update with
+   */
+  public void update(final double[] values, final int offset, final int length) {
+    checkBounds(offset, length, values.length);
+    final int bufferCapacity = centroidsCapacity_ * BUFFER_MULTIPLIER;
+    final int end = offset + length;
+    int i = offset;
+    while (i < end) {
+      while (i < end && Double.isNaN(values[i])) { i++; }
+      if (i == end) { break; }
+      if (numBuffered_ == bufferCapacity) { compress(); }
+      final int runEnd = Math.min(end, i + bufferCapacity - numBuffered_);
+      int num = numBuffered_;
+      double min = minValue_;
+      double max = maxValue_;
+      for (; i < runEnd; i++) {
+        final double value = values[i];
+        if (Double.isNaN(value)) { continue; }
+        bufferValues_[num++] = value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+      }
+      numBuffered_ = num;
+      minValue_ = min;
+      maxValue_ = max;
+    }
+  }
+
   /**
    * Merge the given TDigest into this one
    * @param other TDigest to merge
@@ -353,6 +388,7 @@ public final class TDigestDouble {
     }
     final short k = buff.getShort();
     final byte flagsByte = buff.getByte();
+    if ((flagsByte & (1 << Flags.IS_UPDATABLE.ordinal())) > 0) { return heapifyUpdatable(mem, k, flagsByte); }
     final boolean isEmpty = (flagsByte & (1 << Flags.IS_EMPTY.ordinal())) > 0;
     final boolean isSingleValue = (flagsByte & (1 << Flags.IS_SINGLE_VALUE.ordinal())) > 0;
     final byte expectedPreambleLongs = isEmpty || isSingleValue ? PREAMBLE_LONGS_EMPTY_OR_SINGLE : PREAMBLE_LONGS_MULTIPLE;
@@ -393,6 +429,39 @@ public final class TDigestDouble {
     return new TDigestDouble(reverseMerge, k, min, max, means, weights, totalWeight, null);
   }
 
+  // the updatable format of DirectTDigestDouble
+  private static TDigestDouble heapifyUpdatable(final Memory mem, final short k, final byte flagsByte) {
+    final boolean reverseMerge = (flagsByte & (1 << Flags.REVERSE_MERGE.ordinal())) > 0;
+    final int capacity = getCentroidsCapacity(k);
+    final int numCentroids = mem.getInt(DirectTDigestDouble.NUM_CENTROIDS_INT);
+    final int numBuffered = mem.getInt(DirectTDigestDouble.NUM_BUFFERED_INT);
+    final double[] means = new double[numCentroids];
+    final long[] weights = new long[numCentroids];
+    final double[] buffer = new double[numBuffered];
+    mem.getDoubleArray(DirectTDigestDouble.MEANS_START, means, 0, numCentroids);
+    mem.getLongArray(DirectTDigestDouble.getWeightsStart(capacity), weights, 0, numCentroids);
+    mem.getDoubleArray(DirectTDigestDouble.getBufferStart(capacity), buffer, 0, numBuffered);
+    return new TDigestDouble(reverseMerge, k, mem.getDouble(DirectTDigestDouble.MIN_DOUBLE),
+        mem.getDouble(DirectTDigestDouble.MAX_DOUBLE), means, weights,
+        mem.getLong(DirectTDigestDouble.CENTROIDS_WEIGHT_LONG), buffer);
+  }
+
+  /**
+   * Writes this TDigest into the given WritableMemory in the updatable format of DirectTDigestDouble.
+   * @param wmem the destination, which must have at least DirectTDigestDouble.getUpdatableStorageBytes(k) bytes
+   */
+  void putUpdatable(final WritableMemory wmem) {
+    DirectTDigestDouble.putHeader(wmem, k_, reverseMerge_);
+    wmem.putInt(DirectTDigestDouble.NUM_CENTROIDS_INT, numCentroids_);
+    wmem.putInt(DirectTDigestDouble.NUM_BUFFERED_INT, numBuffered_);
+    wmem.putDouble(DirectTDigestDouble.MIN_DOUBLE, minValue_);
+    wmem.putDouble(DirectTDigestDouble.MAX_DOUBLE, maxValue_);
+    wmem.putLong(DirectTDigestDouble.CENTROIDS_WEIGHT_LONG, centroidsWeight_);
+    wmem.putDoubleArray(DirectTDigestDouble.MEANS_START, centroidMeans_, 0, numCentroids_);
+    wmem.putLongArray(DirectTDigestDouble.getWeightsStart(centroidsCapacity_), centroidWeights_, 0, numCentroids_);
+    wmem.putDoubleArray(DirectTDigestDouble.getBufferStart(centroidsCapacity_), bufferValues_, 0, numBuffered_);
+  }
+
   // compatibility with the format of the reference implementation
   // default byte order of ByteBuffer is used there, which is big endian
   private static TDigestDouble heapifyCompat(final Memory mem) {
@@ -488,9 +557,7 @@ public final class TDigestDouble {
     k_ = k;
     minValue_ = min;
     maxValue_ = max;
-    if (k < 10) { throw new SketchesArgumentException("k must be at least 10"); }
-    final int fudge = k < 30 ? 30 : 10;
-    centroidsCapacity_ = k_ * 2 + fudge;
+    centroidsCapacity_ = getCentroidsCapacity(k);
     centroidMeans_ = new double[centroidsCapacity_];
     centroidWeights_ = new long[centroidsCapacity_];
     bufferValues_ =  new double[centroidsCapacity_ * BUFFER_MULTIPLIER];
@@ -508,52 +575,82 @@ public final class TDigestDouble {
     }
   }
 
+  /**
+   * @param k parameter k (compression)
+   * @return the capacity of the array of centroids for the given k
+   */
+  static int getCentroidsCapacity(final short k) {
+    if (k < 10) { throw new SketchesArgumentException("k must be at least 10"); }
+    final int fudge = k < 30 ? 30 : 10;
+    return k * 2 + fudge;
+  }
+
   // assumes that there is enough room in the input arrays to add centroids from this TDigest
   private void merge(final double[] values, final long[] weights, final long weight, int num) {
     System.arraycopy(centroidMeans_, 0, values, num, numCentroids_);
     System.arraycopy(centroidWeights_, 0, weights, num, numCentroids_);
     num += numCentroids_;
     centroidsWeight_ += weight;
-    numCentroids_ = 0;
+    numCentroids_ = mergeCentroids(k_, reverseMerge_, centroidsWeight_, values, weights, num,
+        centroidMeans_, centroidWeights_);
+    numBuffered_ = 0;
+    reverseMerge_ = !reverseMerge_;
+    minValue_ = Math.min(minValue_, centroidMeans_[0]);
+    maxValue_ = Math.max(maxValue_, centroidMeans_[numCentroids_ - 1]);
+  }
+
+  /**
+   * Sorts the given values with their weights and merges them into centroids.
+   * Shared by TDigestDouble and DirectTDigestDouble.
+   * @param k parameter k (compression)
+   * @param reverseMerge if true the values are merged in descending order
+   * @param totalWeight the sum of the given weights
+   * @param values the values to merge, which are sorted in place
+   * @param weights the weights of the values
+   * @param num the number of values
+   * @param means the destination for the means of the centroids
+   * @param centroidWeights the destination for the weights of the centroids
+   * @return the number of centroids
+   */
+  static int mergeCentroids(final short k, final boolean reverseMerge, final long totalWeight,
+      final double[] values, final long[] weights, final int num,
+      final double[] means, final long[] centroidWeights) {
     Sort.stableSort(values, weights, num);
-    if (reverseMerge_) { // this might be avoidable if stableSort could be implemented with a boolean parameter to invert the logic
+    if (reverseMerge) { // this might be avoidable if stableSort could be implemented with a boolean parameter to invert the logic
       Sort.reverse(values, num);
       Sort.reverse(weights, num);
     }
-    centroidMeans_[0] = values[0];
-    centroidWeights_[0] = weights[0];
-    numCentroids_++;
+    means[0] = values[0];
+    centroidWeights[0] = weights[0];
+    int numCentroids = 1;
     int current = 1;
     double weightSoFar = 0;
+    final double normalizer = ScaleFunction.normalizer(k * 2, totalWeight);
     while (current != num) {
-      final double proposedWeight = centroidWeights_[numCentroids_ - 1] + weights[current];
+      final double proposedWeight = centroidWeights[numCentroids - 1] + weights[current];
       boolean addThis = false;
       if (current != 1 && current != num - 1) {
-        final double q0 = weightSoFar / centroidsWeight_;
-        final double q2 = (weightSoFar + proposedWeight) / centroidsWeight_;
-        final double normalizer = ScaleFunction.normalizer(k_ * 2, centroidsWeight_);
-        addThis = proposedWeight <= centroidsWeight_ * Math.min(ScaleFunction.max(q0, normalizer), ScaleFunction.max(q2, normalizer));
+        final double q0 = weightSoFar / totalWeight;
+        final double q2 = (weightSoFar + proposedWeight) / totalWeight;
+        addThis = proposedWeight <= totalWeight * Math.min(ScaleFunction.max(q0, normalizer), ScaleFunction.max(q2, normalizer));
       }
       if (addThis) { // merge into existing centroid
-        centroidWeights_[numCentroids_ - 1] += weights[current];
-        centroidMeans_[numCentroids_ - 1] += (values[current] - centroidMeans_[numCentroids_ - 1])
-            * weights[current] / centroidWeights_[numCentroids_ - 1];
+        centroidWeights[numCentroids - 1] += weights[current];
+        means[numCentroids - 1] += (values[current] - means[numCentroids - 1])
+            * weights[current] / centroidWeights[numCentroids - 1];
       } else { // copy to a new centroid
-        weightSoFar += centroidWeights_[numCentroids_ - 1];
-        centroidMeans_[numCentroids_] = values[current];
-        centroidWeights_[numCentroids_] = weights[current];
-        numCentroids_++;
+        weightSoFar += centroidWeights[numCentroids - 1];
+        means[numCentroids] = values[current];
+        centroidWeights[numCentroids] = weights[current];
+        numCentroids++;
       }
       current++;
     }
-    if (reverseMerge_) {
-      Sort.reverse(centroidMeans_, numCentroids_);
-      Sort.reverse(centroidWeights_, numCentroids_);
+    if (reverseMerge) {
+      Sort.reverse(means, numCentroids);
+      Sort.reverse(centroidWeights, numCentroids);
     }
-    numBuffered_ = 0;
-    reverseMerge_ = !reverseMerge_;
-    minValue_ = Math.min(minValue_, centroidMeans_[0]);
-    maxValue_ = Math.max(maxValue_, centroidMeans_[numCentroids_ - 1]);
+    return numCentroids;
   }
 
   private boolean isSingleValue() {
@@ -583,7 +680,7 @@ public final class TDigestDouble {
     }
   }
 
-  private static double weightedAverage(final double x1, final double w1, final double x2, final double w2) {
+  static double weightedAverage(final double x1, final double w1, final double x2, final double w2) {
     return (x1 * w1 + x2 * w2) / (w1 + w2);
   }
 }
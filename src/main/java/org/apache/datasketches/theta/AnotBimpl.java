@@ -21,13 +21,15 @@ package org.apache.datasketches.theta;
 
 import static org.apache.datasketches.common.Util.exactLog2OfLong;
 import static org.apache.datasketches.thetacommon.HashOperations.convertToHashTable;
-import static org.apache.datasketches.thetacommon.HashOperations.hashSearch;
+import static org.apache.datasketches.thetacommon.HashOperations.hashInsertOnly;
+import static org.apache.datasketches.thetacommon.HashOperations.minLgHashTableSize;
 
 import java.util.Arrays;
 
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.memory.Memory;
 import org.apache.datasketches.memory.WritableMemory;
+import org.apache.datasketches.thetacommon.HashTableLayout;
 import org.apache.datasketches.thetacommon.ThetaUtil;
 
 /**
@@ -170,12 +172,21 @@ final class AnotBimpl extends AnotB {
 
     //Rebuild/get hashtable of skB
     final long[] hashTableB; //read only
-    final long[] thetaCache = skB.getCache();
+    HashTableLayout layoutB = HashTableLayout.DOUBLE_HASHING;
     final int countB = skB.getRetainedEntries(true);
-    if (skB instanceof CompactSketch) {
+    if (skB instanceof DirectCompressedCompactSketch) { //ordered, decoded lazily up to minTheta
+      final int lgArrLongs = minLgHashTableSize(countB, ThetaUtil.REBUILD_THRESHOLD);
+      hashTableB = new long[1 << lgArrLongs];
+      final HashIterator it = skB.iterator();
+      while (it.next() && (it.get() < minThetaLong)) {
+        hashInsertOnly(hashTableB, lgArrLongs, it.get());
+      }
+    } else if (skB instanceof CompactSketch) {
+      final long[] thetaCache = skB.getCache();
       hashTableB = convertToHashTable(thetaCache, countB, minThetaLong, ThetaUtil.REBUILD_THRESHOLD);
-    } else {
-      hashTableB = thetaCache;
+    } else { //searched in place, with its own layout
+      hashTableB = skB.getCache();
+      layoutB = skB.getHashTableLayout();
     }
 
     //build temporary result arrays of skA
@@ -187,7 +198,7 @@ final class AnotBimpl extends AnotB {
     for (int i = 0; i < countA; i++) {
       final long hash = hashArrA[i];
       if (hash != 0 && hash < minThetaLong) { //only allows hashes of A < minTheta
-        final int index = hashSearch(hashTableB, lgHTBLen, hash);
+        final int index = layoutB.hashSearch(hashTableB, lgHTBLen, hash);
         if (index == -1) {
           tmpHashArrA[nonMatches] = hash;
           nonMatches++;
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.theta;
+
+import static org.apache.datasketches.theta.PreambleUtil.extractCurCount;
+import static org.apache.datasketches.thetacommon.QuickSelect.selectExcludingZeros;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.datasketches.memory.WritableMemory;
+import org.apache.datasketches.thetacommon.HashOperations;
+
+/**
+ * A quick select and rebuild of the full size hash table of a direct QuickSelect sketch that runs
+ * on another thread. The source Memory is only read, and must not be written until this rebuild
+ * is done. The rebuilt hash table goes to a scratch array owned by the sketch, which the updating
+ * thread then copies back into the source Memory, see {@link #copyTo(WritableMemory, int)}.
+ *
+ * <p>This is the same computation as {@link Rebuilder#quickSelectAndRebuild(WritableMemory, int, int)},
+ * except that the result goes to the scratch array. The two scratch arrays are allocated once per
+ * sketch and reused by every rebuild.</p>
+ */
+final class BackgroundRebuild implements Runnable {
+  private final WritableMemory srcMem;
+  private final int preambleLongs;
+  private final int lgNomLongs;
+  private final int lgArrLongs;
+  private final long[] srcArr;
+  private final long[] tgtArr;
+  private final CountDownLatch done = new CountDownLatch(1);
+  private long thetaLong;
+  private int curCount;
+  private Throwable failure;
+  long pauseNanos; //accumulated by the updating thread only
+
+  /**
+   * Constructs a rebuild of the hash table in the given Memory.
+   * @param srcMem the Memory of the sketch
+   * @param preambleLongs the number of preamble longs
+   * @param lgNomLongs the log2 of the nominal entries
+   * @param lgArrLongs the log2 of the hash table size
+   * @param srcArr scratch array for the source hash table, of size at least 2^lgArrLongs
+   * @param tgtArr scratch array for the rebuilt hash table, of size at least 2^lgArrLongs
+   */
+  BackgroundRebuild(final WritableMemory srcMem, final int preambleLongs, final int lgNomLongs,
+      final int lgArrLongs, final long[] srcArr, final long[] tgtArr) {
+    this.srcMem = srcMem;
+    this.preambleLongs = preambleLongs;
+    this.lgNomLongs = lgNomLongs;
+    this.lgArrLongs = lgArrLongs;
+    this.srcArr = srcArr;
+    this.tgtArr = tgtArr;
+  }
+
+  @Override
+  public void run() {
+    try {
+      final int arrLongs = 1 << lgArrLongs;
+      srcMem.getLongArray(preambleLongs << 3, srcArr, 0, arrLongs);
+
+      final int pivot = (1 << lgNomLongs) + 1; // (K+1) pivot for QS
+      thetaLong = selectExcludingZeros(srcArr, extractCurCount(srcMem), pivot);
+      Arrays.fill(tgtArr, 0, arrLongs, 0L);
+      curCount = HashOperations.hashArrayInsert(srcArr, tgtArr, lgArrLongs, thetaLong);
+    } catch (final Throwable t) {
+      failure = t;
+    } finally {
+      done.countDown();
+    }
+  }
+
+  boolean isDone() {
+    return done.getCount() == 0;
+  }
+
+  /**
+   * Waits for this rebuild to complete.
+   */
+  void await() {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        done.await();
+        break;
+      } catch (final InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) { Thread.currentThread().interrupt(); }
+    if (failure instanceof RuntimeException) { throw (RuntimeException) failure; }
+    if (failure instanceof Error) { throw (Error) failure; }
+  }
+
+  /**
+   * Copies the rebuilt hash table into the hash table region of the given Memory.
+   * Only call this after {@link #await()}.
+   * @param dstMem the given Memory, which has the same layout as the source Memory
+   * @param dstPreambleLongs the number of preamble longs of the given Memory
+   */
+  void copyTo(final WritableMemory dstMem, final int dstPreambleLongs) {
+    dstMem.putLongArray(dstPreambleLongs << 3, tgtArr, 0, 1 << lgArrLongs);
+  }
+
+  /**
+   * @return the new theta as a long. Only call this after {@link #await()}.
+   */
+  long getThetaLong() {
+    return thetaLong;
+  }
+
+  /**
+   * @return the number of hashes in the rebuilt hash table. Only call this after {@link #await()}.
+   */
+  int getCurCount() {
+    return curCount;
+  }
+}
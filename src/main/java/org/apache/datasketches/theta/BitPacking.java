@@ -20,6 +20,7 @@
 package org.apache.datasketches.theta;
 
 import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.Memory;
 
 /**
  * Used as part of Theta compression.
@@ -82,6 +83,97 @@ public class BitPacking {
     }
   }
 
+  /**
+   * Computes the number of bits required to pack the deltas between consecutive hashes of the
+   * given ascending array, where the first delta is taken from zero.
+   * @param hashes the given hashes in ascending order, all positive
+   * @param count the number of hashes to consider
+   * @return the number of bits per delta, which is in the range [1, 63] if count &gt; 0
+   */
+  public static int computeDeltaBits(final long[] hashes, final int count) {
+    long previous = 0;
+    long ored = 0;
+    for (int i = 0; i < count; i++) {
+      ored |= hashes[i] - previous;
+      previous = hashes[i];
+    }
+    return 64 - Long.numberOfLeadingZeros(ored);
+  }
+
+  /**
+   * Packs the deltas between consecutive hashes of the given ascending array, where the first
+   * delta is taken from zero. This is the hash layout of the compressed (Serialization Version 4)
+   * compact theta sketch: whole blocks of eight deltas followed by an unaligned tail.
+   * @param hashes the given hashes in ascending order, all positive
+   * @param count the number of hashes to pack
+   * @param entryBits the number of bits per delta, see {@link #computeDeltaBits(long[], int)}
+   * @param buffer the output byte array buffer, which must be zero from <i>bufOffset</i> onwards
+   * @param bufOffset the byte offset in the buffer
+   * @return the number of bytes written, which is <i>ceil(count * entryBits / 8)</i>
+   */
+  public static int packDeltas(final long[] hashes, final int count, final int entryBits,
+      final byte[] buffer, final int bufOffset) {
+    final long[] deltas = new long[8];
+    long previous = 0;
+    int offsetBytes = bufOffset;
+    int i;
+    for (i = 0; i + 7 < count; i += 8) {
+      for (int j = 0; j < 8; j++) {
+        deltas[j] = hashes[i + j] - previous;
+        previous = hashes[i + j];
+      }
+      packBitsBlock8(deltas, 0, buffer, offsetBytes, entryBits);
+      offsetBytes += entryBits;
+    }
+    int offsetBits = 0;
+    for (; i < count; i++) {
+      packBits(hashes[i] - previous, entryBits, buffer, offsetBytes, offsetBits);
+      previous = hashes[i];
+      offsetBytes += (offsetBits + entryBits) >>> 3;
+      offsetBits = (offsetBits + entryBits) & 7;
+    }
+    return offsetBytes - bufOffset + (offsetBits > 0 ? 1 : 0);
+  }
+
+  /**
+   * Unpacks hashes that were packed by {@link #packDeltas(long[], int, int, byte[], int)}.
+   * @param mem the Memory that holds the packed deltas
+   * @param memOffset the byte offset of the packed deltas in the Memory
+   * @param hashes the output array, which receives the hashes in ascending order
+   * @param count the number of hashes to unpack
+   * @param entryBits the number of bits per delta
+   * @return the number of bytes read
+   */
+  public static int unpackDeltas(final Memory mem, final long memOffset, final long[] hashes,
+      final int count, final int entryBits) {
+    final byte[] bytes = new byte[entryBits]; // temporary buffer for unpacking
+    long offsetBytes = memOffset;
+    int i;
+    for (i = 0; i + 7 < count; i += 8) {
+      mem.getByteArray(offsetBytes, bytes, 0, entryBits);
+      unpackBitsBlock8(hashes, i, bytes, 0, entryBits);
+      offsetBytes += entryBits;
+    }
+    if (i < count) {
+      final int tailBytes = (((count - i) * entryBits) + 7) >>> 3;
+      mem.getByteArray(offsetBytes, bytes, 0, tailBytes);
+      offsetBytes += tailBytes;
+      int bufOffset = 0;
+      int offsetBits = 0;
+      for (; i < count; i++) {
+        unpackBits(hashes, i, entryBits, bytes, bufOffset, offsetBits);
+        bufOffset += (offsetBits + entryBits) >>> 3;
+        offsetBits = (offsetBits + entryBits) & 7;
+      }
+    }
+    long previous = 0;
+    for (i = 0; i < count; i++) {
+      hashes[i] += previous;
+      previous = hashes[i];
+    }
+    return (int) (offsetBytes - memOffset);
+  }
+
   // pack given number of bits from a block of 8 64-bit values into bytes
   // we don't need 0 and 64 bits
   // we assume that higher bits (which we are not packing) are zeros
@@ -231,6 +231,23 @@ final class CompactOperations {
       throw new SketchesArgumentException("Insufficient Memory: " + dstBytes
         + ", Need: " + outBytes);
     }
+    loadCompactPreamble(seedHash, curCount, thetaLong, dstMem, flags, preLongs);
+    if (curCount > 0) { //theta could be < 1.0.
+      dstMem.putLongArray(preLongs << 3, compactHashArr, 0, curCount);
+    }
+    return dstMem; //if prelongs == 3 & curCount == 0, theta could be < 1.0.
+  }
+
+  //Loads all preamble fields of a compact sketch, but not the hash array, which starts at
+  // preLongs << 3. Used by loadCompactMemory() and OrderedCompactUnion.
+  static final void loadCompactPreamble(
+      final short seedHash,
+      final int curCount,
+      final long thetaLong,
+      final WritableMemory dstMem,
+      final byte flags,
+      final int preLongs)
+  {
     final byte famID = (byte) Family.COMPACT.getID();
 
     //Caution: The following loads directly into Memory without creating a heap byte[] first,
@@ -250,10 +267,6 @@ final class CompactOperations {
     insertFlags(dstMem, flags);
     insertSeedHash(dstMem, seedHash);
 
-    if ((preLongs == 1) && (curCount == 1)) { //singleItem, theta = 1.0
-      dstMem.putLong(8, compactHashArr[0]);
-      return dstMem;
-    }
     if (preLongs > 1) {
       insertCurCount(dstMem, curCount);
       insertP(dstMem, (float) 1.0);
@@ -261,10 +274,6 @@ final class CompactOperations {
     if (preLongs > 2) {
       insertThetaLong(dstMem, thetaLong);
     }
-    if (curCount > 0) { //theta could be < 1.0.
-      dstMem.putLongArray(preLongs << 3, compactHashArr, 0, curCount);
-    }
-    return dstMem; //if prelongs == 3 & curCount == 0, theta could be < 1.0.
   }
 
   /**
@@ -21,10 +21,13 @@ package org.apache.datasketches.theta;
 
 import static org.apache.datasketches.theta.PreambleUtil.THETA_LONG;
 
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.apache.datasketches.common.ConcurrentPropagationMetrics;
+import org.apache.datasketches.common.ConcurrentPropagator;
 import org.apache.datasketches.common.ResizeFactor;
 import org.apache.datasketches.common.SuppressFBWarnings;
 import org.apache.datasketches.memory.WritableMemory;
@@ -45,6 +48,13 @@ final class ConcurrentDirectQuickSelectSketch extends DirectQuickSelectSketch
   // The propagation thread
   private ExecutorService executorService_;
 
+  // True if the propagations run on a caller-supplied executor rather than on the pool threads
+  // of the ConcurrentPropagationService
+  private final boolean hasPropagationExecutor_;
+
+  // Runs the background propagations and keeps their metrics
+  private final ConcurrentPropagator propagator_;
+
   // A flag to coordinate between several eager propagation threads
   private final AtomicBoolean sharedPropagationInProgress_;
 
@@ -69,9 +79,10 @@ final class ConcurrentDirectQuickSelectSketch extends DirectQuickSelectSketch
    * @param seed       <a href="{@docRoot}/resources/dictionary.html#seed">See Update Hash Seed</a>.
    * @param maxConcurrencyError the max error value including error induced by concurrency.
    * @param dstMem     the given Memory object destination. It cannot be null.
+   * @param executor   the caller-supplied propagation executor, or null for the default pool.
    */
   ConcurrentDirectQuickSelectSketch(final int lgNomLongs, final long seed,
-      final double maxConcurrencyError, final WritableMemory dstMem) {
+      final double maxConcurrencyError, final WritableMemory dstMem, final Executor executor) {
     super(lgNomLongs, seed, 1.0F, //p
       ResizeFactor.X1, //rf,
       null, dstMem, false); //unionGadget
@@ -82,11 +93,13 @@ final class ConcurrentDirectQuickSelectSketch extends DirectQuickSelectSketch
         maxConcurrencyError);
     sharedPropagationInProgress_ = new AtomicBoolean(false);
     epoch_ = 0;
+    hasPropagationExecutor_ = executor != null;
+    propagator_ = new ConcurrentPropagator(executor);
     initBgPropagationService();
   }
 
   ConcurrentDirectQuickSelectSketch(final UpdateSketch sketch, final long seed,
-      final double maxConcurrencyError, final WritableMemory dstMem) {
+      final double maxConcurrencyError, final WritableMemory dstMem, final Executor executor) {
     super(sketch.getLgNomLongs(), seed, 1.0F, //p
         ResizeFactor.X1, //rf,
         null, //mem Req Svr
@@ -97,6 +110,8 @@ final class ConcurrentDirectQuickSelectSketch extends DirectQuickSelectSketch
         maxConcurrencyError);
     sharedPropagationInProgress_ = new AtomicBoolean(false);
     epoch_ = 0;
+    hasPropagationExecutor_ = executor != null;
+    propagator_ = new ConcurrentPropagator(executor);
     initBgPropagationService();
     for (final long hashIn : sketch.getCache()) {
       propagate(hashIn);
@@ -187,6 +202,10 @@ final class ConcurrentDirectQuickSelectSketch extends DirectQuickSelectSketch
 
   @Override
   public void awaitBgPropagationTermination() {
+    if (hasPropagationExecutor_) { //the caller owns the executor, only wait for our jobs
+      propagator_.awaitPropagation();
+      return;
+    }
     try {
       executorService_.shutdown();
       while (!executorService_.awaitTermination(1, TimeUnit.MILLISECONDS)) {
@@ -199,9 +218,20 @@ final class ConcurrentDirectQuickSelectSketch extends DirectQuickSelectSketch
 
   @Override
   public final void initBgPropagationService() {
+    if (hasPropagationExecutor_) { return; }
     executorService_ = ConcurrentPropagationService.getExecutorService(Thread.currentThread().getId());
   }
 
+  @Override
+  public ConcurrentPropagationMetrics getPropagationMetrics() {
+    return propagator_.getMetrics();
+  }
+
+  @Override
+  public ConcurrentPropagator getPropagator() {
+    return propagator_;
+  }
+
   @Override
   public boolean propagate(final AtomicBoolean localPropagationInProgress,
                            final Sketch sketchIn, final long singleHash) {
@@ -223,7 +253,11 @@ final class ConcurrentDirectQuickSelectSketch extends DirectQuickSelectSketch
     // otherwise, be nonblocking, let background thread do the work
     final ConcurrentBackgroundThetaPropagation job = new ConcurrentBackgroundThetaPropagation(
         this, localPropagationInProgress, sketchIn, singleHash, epoch);
-    executorService_.execute(job);
+    if (hasPropagationExecutor_) {
+      propagator_.execute(job);
+    } else {
+      propagator_.execute(executorService_, job);
+    }
     return true;
   }
 
@@ -258,7 +292,9 @@ final class ConcurrentDirectQuickSelectSketch extends DirectQuickSelectSketch
   private void advanceEpoch() {
     awaitBgPropagationTermination();
     startEagerPropagation();
-    ConcurrentPropagationService.resetExecutorService(Thread.currentThread().getId());
+    if (!hasPropagationExecutor_) {
+      ConcurrentPropagationService.resetExecutorService(Thread.currentThread().getId());
+    }
     //no inspection NonAtomicOperationOnVolatileField
     // this increment of a volatile field is done within the scope of the propagation
     // synchronization and hence is done by a single thread.
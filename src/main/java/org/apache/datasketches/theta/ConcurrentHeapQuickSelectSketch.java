@@ -19,10 +19,13 @@
 
 package org.apache.datasketches.theta;
 
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.apache.datasketches.common.ConcurrentPropagationMetrics;
+import org.apache.datasketches.common.ConcurrentPropagator;
 import org.apache.datasketches.common.ResizeFactor;
 import org.apache.datasketches.common.SuppressFBWarnings;
 
@@ -42,6 +45,13 @@ final class ConcurrentHeapQuickSelectSketch extends HeapQuickSelectSketch
   // The propagation thread
   private volatile ExecutorService executorService_;
 
+  // True if the propagations run on a caller-supplied executor rather than on the pool threads
+  // of the ConcurrentPropagationService
+  private final boolean hasPropagationExecutor_;
+
+  // Runs the background propagations and keeps their metrics
+  private final ConcurrentPropagator propagator_;
+
   //A flag to coordinate between several eager propagation threads
   private final AtomicBoolean sharedPropagationInProgress_;
 
@@ -65,10 +75,11 @@ final class ConcurrentHeapQuickSelectSketch extends HeapQuickSelectSketch
    * @param lgNomLongs <a href="{@docRoot}/resources/dictionary.html#lgNomLogs">See lgNomLongs</a>.
    * @param seed       <a href="{@docRoot}/resources/dictionary.html#seed">See seed</a>
    * @param maxConcurrencyError the max error value including error induced by concurrency
+   * @param executor   the caller-supplied propagation executor, or null for the default pool
    *
    */
   ConcurrentHeapQuickSelectSketch(final int lgNomLongs, final long seed,
-      final double maxConcurrencyError) {
+      final double maxConcurrencyError, final Executor executor) {
     super(lgNomLongs, seed, 1.0F, //p
         ResizeFactor.X1, //rf,
         false); //unionGadget
@@ -79,11 +90,13 @@ final class ConcurrentHeapQuickSelectSketch extends HeapQuickSelectSketch
         maxConcurrencyError);
     sharedPropagationInProgress_ = new AtomicBoolean(false);
     epoch_ = 0;
+    hasPropagationExecutor_ = executor != null;
+    propagator_ = new ConcurrentPropagator(executor);
     initBgPropagationService();
   }
 
   ConcurrentHeapQuickSelectSketch(final UpdateSketch sketch, final long seed,
-      final double maxConcurrencyError) {
+      final double maxConcurrencyError, final Executor executor) {
     super(sketch.getLgNomLongs(), seed, 1.0F, //p
         ResizeFactor.X1, //rf,
         false); //unionGadget
@@ -92,6 +105,8 @@ final class ConcurrentHeapQuickSelectSketch extends HeapQuickSelectSketch
         maxConcurrencyError);
     sharedPropagationInProgress_ = new AtomicBoolean(false);
     epoch_ = 0;
+    hasPropagationExecutor_ = executor != null;
+    propagator_ = new ConcurrentPropagator(executor);
     initBgPropagationService();
     for (final long hashIn : sketch.getCache()) {
       propagate(hashIn);
@@ -182,6 +197,10 @@ final class ConcurrentHeapQuickSelectSketch extends HeapQuickSelectSketch
 
   @Override
   public void awaitBgPropagationTermination() {
+    if (hasPropagationExecutor_) { //the caller owns the executor, only wait for our jobs
+      propagator_.awaitPropagation();
+      return;
+    }
     try {
       executorService_.shutdown();
       while (!executorService_.awaitTermination(1, TimeUnit.MILLISECONDS)) {
@@ -194,9 +213,20 @@ final class ConcurrentHeapQuickSelectSketch extends HeapQuickSelectSketch
 
   @Override
   public void initBgPropagationService() {
+    if (hasPropagationExecutor_) { return; }
     executorService_ = ConcurrentPropagationService.getExecutorService(Thread.currentThread().getId());
   }
 
+  @Override
+  public ConcurrentPropagationMetrics getPropagationMetrics() {
+    return propagator_.getMetrics();
+  }
+
+  @Override
+  public ConcurrentPropagator getPropagator() {
+    return propagator_;
+  }
+
   @Override
   public boolean propagate(final AtomicBoolean localPropagationInProgress,
                            final Sketch sketchIn, final long singleHash) {
@@ -218,7 +248,11 @@ final class ConcurrentHeapQuickSelectSketch extends HeapQuickSelectSketch
     // otherwise, be nonblocking, let background thread do the work
     final ConcurrentBackgroundThetaPropagation job = new ConcurrentBackgroundThetaPropagation(
         this, localPropagationInProgress, sketchIn, singleHash, epoch);
-    executorService_.execute(job);
+    if (hasPropagationExecutor_) {
+      propagator_.execute(job);
+    } else {
+      propagator_.execute(executorService_, job);
+    }
     return true;
   }
 
@@ -253,7 +287,9 @@ final class ConcurrentHeapQuickSelectSketch extends HeapQuickSelectSketch
   private void advanceEpoch() {
     awaitBgPropagationTermination();
     startEagerPropagation();
-    ConcurrentPropagationService.resetExecutorService(Thread.currentThread().getId());
+    if (!hasPropagationExecutor_) {
+      ConcurrentPropagationService.resetExecutorService(Thread.currentThread().getId());
+    }
     //no inspection NonAtomicOperationOnVolatileField
     // this increment of a volatile field is done within the scope of the propagation
     // synchronization and hence is done by a single thread
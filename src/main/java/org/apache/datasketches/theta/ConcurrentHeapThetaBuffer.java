@@ -25,6 +25,7 @@ import static org.apache.datasketches.theta.UpdateReturnState.RejectedOverTheta;
 
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.apache.datasketches.common.ConcurrentPropagationMetrics;
 import org.apache.datasketches.common.ResizeFactor;
 import org.apache.datasketches.thetacommon.HashOperations;
 
@@ -94,9 +95,7 @@ final class ConcurrentHeapThetaBuffer extends HeapQuickSelectSketch {
    * @param hash to be propagated
    */
   private boolean propagateToSharedSketch(final long hash) {
-    //noinspection StatementWithEmptyBody
-    while (localPropagationInProgress.get()) {
-    } //busy wait until previous propagation completed
+    awaitLocalPropagation();
     localPropagationInProgress.set(true);
     final boolean res = shared.propagate(localPropagationInProgress, null, hash);
     //in this case the parent empty_ and curCount_ were not touched
@@ -108,9 +107,7 @@ final class ConcurrentHeapThetaBuffer extends HeapQuickSelectSketch {
    * Propagates the content of the buffer as a sketch to the shared sketch
    */
   private void propagateToSharedSketch() {
-    //noinspection StatementWithEmptyBody
-    while (localPropagationInProgress.get()) {
-    } //busy wait until previous propagation completed
+    awaitLocalPropagation();
 
     final CompactSketch compactSketch = compact(propagateOrderedCompact, null);
     localPropagationInProgress.set(true);
@@ -120,6 +117,14 @@ final class ConcurrentHeapThetaBuffer extends HeapQuickSelectSketch {
     thetaLong_ = shared.getVolatileTheta();
   }
 
+  /**
+   * Busy waits until the previous propagation of this buffer has completed, recording in the
+   * shared sketch metrics whenever it actually had to wait.
+   */
+  private void awaitLocalPropagation() {
+    shared.getPropagator().awaitLocalPropagation(localPropagationInProgress);
+  }
+
   //Public Sketch overrides proxies to shared concurrent sketch
 
   @Override
@@ -183,6 +188,11 @@ final class ConcurrentHeapThetaBuffer extends HeapQuickSelectSketch {
     localPropagationInProgress.set(false);
   }
 
+  @Override
+  public ConcurrentPropagationMetrics getPropagationMetrics() {
+    return shared.getPropagationMetrics();
+  }
+
   //Restricted UpdateSketch overrides
 
   /**
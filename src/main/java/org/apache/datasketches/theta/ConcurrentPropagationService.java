@@ -21,11 +21,14 @@ package org.apache.datasketches.theta;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import org.apache.datasketches.common.SuppressFBWarnings;
 
 /**
- * Pool of threads to serve <i>all</i> propagation tasks in the system.
+ * Pool of threads to serve <i>all</i> propagation tasks in the system, except those of shared
+ * sketches built with a caller-supplied executor.
+ * The pool threads are named daemon threads, so they never keep the JVM alive.
  *
  * @author Eshcar Hillel
  */
@@ -65,8 +68,16 @@ final class ConcurrentPropagationService {
   @SuppressWarnings("static-method")
   private ExecutorService initExecutorService(final int i) {
     if (propagationExecutorService[i] == null) {
-      propagationExecutorService[i] = Executors.newSingleThreadExecutor();
+      propagationExecutorService[i] = Executors.newSingleThreadExecutor(threadFactory(i));
     }
     return propagationExecutorService[i];
   }
+
+  private static ThreadFactory threadFactory(final int i) {
+    return runnable -> {
+      final Thread thread = new Thread(runnable, "datasketches-theta-propagation-" + i);
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
 }
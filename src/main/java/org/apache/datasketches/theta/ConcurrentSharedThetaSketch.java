@@ -21,6 +21,8 @@ package org.apache.datasketches.theta;
 
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.apache.datasketches.common.ConcurrentPropagationMetrics;
+import org.apache.datasketches.common.ConcurrentPropagator;
 import org.apache.datasketches.memory.WritableMemory;
 
 /**
@@ -78,6 +80,18 @@ interface ConcurrentSharedThetaSketch {
    */
   void initBgPropagationService();
 
+  /**
+   * Returns the propagation metrics of this shared sketch
+   * @return the propagation metrics of this shared sketch
+   */
+  ConcurrentPropagationMetrics getPropagationMetrics();
+
+  /**
+   * Returns the propagator that runs the background propagations of this shared sketch
+   * @return the propagator of this shared sketch
+   */
+  ConcurrentPropagator getPropagator();
+
   /**
    * (Eager) Propagates the given sketch or hash value into this sketch
    * @param localPropagationInProgress the flag to be updated when propagation is done
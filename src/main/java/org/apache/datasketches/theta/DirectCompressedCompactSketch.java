@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.theta;
+
+import static org.apache.datasketches.theta.CompactOperations.computeCompactPreLongs;
+import static org.apache.datasketches.theta.CompactSketch.wholeBytesToHoldBits;
+import static org.apache.datasketches.theta.PreambleUtil.EMPTY_FLAG_MASK;
+import static org.apache.datasketches.theta.PreambleUtil.extractEntryBitsV4;
+import static org.apache.datasketches.theta.PreambleUtil.extractFlags;
+import static org.apache.datasketches.theta.PreambleUtil.extractNumEntriesBytesV4;
+import static org.apache.datasketches.theta.PreambleUtil.extractPreLongs;
+import static org.apache.datasketches.theta.PreambleUtil.extractSeedHash;
+import static org.apache.datasketches.theta.PreambleUtil.extractThetaLongV4;
+
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+import org.apache.datasketches.thetacommon.ThetaUtil;
+
+/**
+ * An off-heap (Direct), compact, ordered, read-only sketch that wraps a compressed
+ * (Serialization Version 4) binary image.
+ *
+ * <p>The preamble is read in place, so the count, theta and estimate are available without
+ * decoding any hashes. The iterator decodes the bit-packed deltas lazily, one block of eight at
+ * a time, so consumers that stop early, such as the set operations, only decode the prefix they
+ * need. A full <i>long[]</i> of hashes is only built when the cache itself is requested.</p>
+ *
+ * <p>The sketch behaves like its uncompressed equivalent: <i>toByteArray()</i> and
+ * <i>getCurrentBytes()</i> refer to the Serialization Version 3 form, while
+ * <i>toByteArrayCompressed()</i> returns a copy of the wrapped image.</p>
+ */
+class DirectCompressedCompactSketch extends DirectCompactSketch {
+
+  /**
+   * Construct this sketch with the given memory.
+   * @param mem Read-only Memory object holding a Serialization Version 4 image.
+   */
+  DirectCompressedCompactSketch(final Memory mem) {
+    super(mem);
+  }
+
+  /**
+   * Wraps the given Memory, which must be a SerVer 4, compressed CompactSketch image.
+   * @param srcMem <a href="{@docRoot}/resources/dictionary.html#mem">See Memory</a>
+   * @param seedHash The update seedHash.
+   * <a href="{@docRoot}/resources/dictionary.html#seedHash">See Seed Hash</a>.
+   * @return this sketch
+   */
+  static DirectCompressedCompactSketch wrapInstance(final Memory srcMem, final short seedHash) {
+    ThetaUtil.checkSeedHashes((short) extractSeedHash(srcMem), seedHash);
+    return new DirectCompressedCompactSketch(srcMem);
+  }
+
+  //Sketch Overrides
+
+  @Override
+  public CompactSketch compact(final boolean dstOrdered, final WritableMemory dstMem) {
+    return CompactOperations.componentsToCompact(getThetaLong(), getRetainedEntries(true), getSeedHash(),
+        isEmpty(), true, true, dstOrdered, dstMem, getCache());
+  }
+
+  @Override
+  public int getCurrentBytes() {
+    final int curCount = getRetainedEntries(true);
+    return (computeCompactPreLongs(isEmpty(), curCount, getThetaLong()) + curCount) << 3;
+  }
+
+  @Override
+  public double getEstimate() {
+    return Sketch.estimate(getThetaLong(), getRetainedEntries(true));
+  }
+
+  @Override
+  public int getRetainedEntries(final boolean valid) {
+    final int numEntriesBytes = extractNumEntriesBytesV4(mem_);
+    final int offsetBytes = extractPreLongs(mem_) << 3;
+    int numEntries = 0;
+    for (int i = 0; i < numEntriesBytes; i++) {
+      numEntries |= Byte.toUnsignedInt(mem_.getByte(offsetBytes + i)) << (i << 3);
+    }
+    return numEntries;
+  }
+
+  @Override
+  public long getThetaLong() {
+    return (extractPreLongs(mem_) > 1) ? extractThetaLongV4(mem_) : Long.MAX_VALUE;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    final boolean emptyFlag = (extractFlags(mem_) & EMPTY_FLAG_MASK) > 0;
+    return emptyFlag || ((getRetainedEntries(true) == 0) && (getThetaLong() == Long.MAX_VALUE));
+  }
+
+  @Override
+  public boolean isOrdered() {
+    return true;
+  }
+
+  @Override
+  public HashIterator iterator() {
+    final long offsetBytes = (extractPreLongs(mem_) << 3) + extractNumEntriesBytesV4(mem_);
+    return new MemoryCompressedHashIterator(mem_, offsetBytes, getRetainedEntries(true),
+        extractEntryBitsV4(mem_));
+  }
+
+  @Override
+  public byte[] toByteArray() {
+    final byte[] byteArrOut = new byte[getCurrentBytes()];
+    compact(true, WritableMemory.writableWrap(byteArrOut));
+    return byteArrOut;
+  }
+
+  @Override
+  public byte[] toByteArrayCompressed() {
+    final int outBytes = (extractPreLongs(mem_) << 3) + extractNumEntriesBytesV4(mem_)
+        + wholeBytesToHoldBits(getRetainedEntries(true) * extractEntryBitsV4(mem_));
+    final byte[] byteArrOut = new byte[outBytes];
+    mem_.getByteArray(0, byteArrOut, 0, outBytes);
+    return byteArrOut;
+  }
+
+  //restricted methods
+
+  @Override
+  long[] getCache() {
+    final long[] cache = new long[getRetainedEntries(true)];
+    final HashIterator it = iterator();
+    for (int i = 0; it.next(); i++) { cache[i] = it.get(); }
+    return cache;
+  }
+
+  @Override
+  int getCompactPreambleLongs() {
+    return computeCompactPreLongs(isEmpty(), getRetainedEntries(true), getThetaLong());
+  }
+
+  @Override
+  int getCurrentPreambleLongs() {
+    return getCompactPreambleLongs();
+  }
+}
@@ -30,6 +30,7 @@ import static org.apache.datasketches.theta.PreambleUtil.THETA_LONG;
 import static org.apache.datasketches.theta.PreambleUtil.extractLgArrLongs;
 import static org.apache.datasketches.theta.PreambleUtil.extractLgNomLongs;
 import static org.apache.datasketches.theta.PreambleUtil.extractPreLongs;
+import static org.apache.datasketches.theta.PreambleUtil.extractThetaLong;
 import static org.apache.datasketches.theta.PreambleUtil.getMemBytes;
 import static org.apache.datasketches.theta.PreambleUtil.insertCurCount;
 import static org.apache.datasketches.theta.PreambleUtil.insertFamilyID;
@@ -53,6 +54,10 @@ import static org.apache.datasketches.theta.UpdateReturnState.InsertedCountIncre
 import static org.apache.datasketches.theta.UpdateReturnState.RejectedDuplicate;
 import static org.apache.datasketches.theta.UpdateReturnState.RejectedOverTheta;
 
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
 import org.apache.datasketches.common.Family;
 import org.apache.datasketches.common.ResizeFactor;
 import org.apache.datasketches.common.SketchesArgumentException;
@@ -70,11 +75,23 @@ import org.apache.datasketches.thetacommon.ThetaUtil;
  * This Memory can be off-heap, which if managed properly will greatly reduce the need for
  * the JVM to perform garbage collection.</p>
  *
+ * <p>If a rebuild executor is set, the rebuilds at full hash table size run in the background, see
+ * {@link UpdateSketchBuilder#setRebuildExecutor(Executor)}. While a rebuild is pending, new hashes
+ * are kept in a small side table on the heap, and any read of the sketch waits for the rebuild.</p>
+ *
  * @author Lee Rhodes
  * @author Kevin Lang
  */
 class DirectQuickSelectSketch extends DirectQuickSelectSketchR {
   MemoryRequestServer memReqSvr_ = null; //never serialized
+  private final RebuildMetrics rebuildMetrics_ = new RebuildMetrics();
+  private Executor rebuildExecutor_ = null; //null: rebuild synchronously
+  private BackgroundRebuild pendingRebuild_ = null;
+  private long[] rebuildSrcArr_ = null; //scratch of background rebuilds, allocated once
+  private long[] rebuildTgtArr_ = null;
+  private long[] sideTable_ = null; //hashes inserted while a background rebuild is pending
+  private int lgSideLongs_;
+  private int sideCount_;
 
   private DirectQuickSelectSketch(
       final long seed,
@@ -236,8 +253,44 @@ class DirectQuickSelectSketch extends DirectQuickSelectSketchR {
 
   //UpdateSketch
 
+  @Override
+  public double getEstimate() {
+    awaitRebuild();
+    return super.getEstimate();
+  }
+
+  @Override
+  public int getRetainedEntries(final boolean valid) {
+    awaitRebuild();
+    return super.getRetainedEntries(valid);
+  }
+
+  @Override
+  public long getThetaLong() {
+    awaitRebuild();
+    return super.getThetaLong();
+  }
+
+  @Override
+  public HashIterator iterator() {
+    awaitRebuild();
+    return super.iterator();
+  }
+
+  @Override
+  public byte[] toByteArray() {
+    awaitRebuild();
+    return super.toByteArray();
+  }
+
+  @Override
+  public RebuildMetrics getRebuildMetrics() {
+    return rebuildMetrics_;
+  }
+
   @Override
   public UpdateSketch rebuild() {
+    awaitRebuild();
     final int lgNomLongs = getLgNomLongs();
     final int preambleLongs = wmem_.getByte(PREAMBLE_LONGS_BYTE) & 0X3F;
     if (getRetainedEntries(true) > (1 << lgNomLongs)) {
@@ -252,6 +305,7 @@ class DirectQuickSelectSketch extends DirectQuickSelectSketchR {
     //hash table size and hashTableThreshold stays the same
     //lgArrLongs stays the same
     //thetaLongs resets to p
+    awaitRebuild();
     final int arrLongs = 1 << getLgArrLongs();
     final int preambleLongs = wmem_.getByte(PREAMBLE_LONGS_BYTE) & 0X3F;
     final int preBytes = preambleLongs << 3;
@@ -266,11 +320,46 @@ class DirectQuickSelectSketch extends DirectQuickSelectSketchR {
 
   //restricted methods
 
+  /**
+   * Sets the Executor that runs the rebuilds at full hash table size in the background,
+   * or null to rebuild synchronously.
+   * @param executor the given Executor or null
+   */
+  void setRebuildExecutor(final Executor executor) {
+    awaitRebuild();
+    rebuildExecutor_ = executor;
+    if (executor != null) {
+      //the side table holds up to k/8 hashes at a load factor of 1/2,
+      //which is the free space left in the full size hash table at its rebuild threshold.
+      lgSideLongs_ = Math.max(getLgNomLongs() - 2, ThetaUtil.MIN_LG_ARR_LONGS);
+      sideTable_ = new long[1 << lgSideLongs_];
+      sideCount_ = 0;
+    } else {
+      sideTable_ = null;
+    }
+  }
+
+  @Override
+  long[] getCache() {
+    awaitRebuild();
+    return super.getCache();
+  }
+
+  @Override
+  WritableMemory getMemory() {
+    awaitRebuild();
+    return super.getMemory();
+  }
+
   @Override
   UpdateReturnState hashUpdate(final long hash) {
     HashOperations.checkHashCorruption(hash);
 
     wmem_.putByte(FLAGS_BYTE, (byte) (wmem_.getByte(FLAGS_BYTE) & ~EMPTY_FLAG_MASK));
+    if (pendingRebuild_ != null) {
+      if (!pendingRebuild_.isDone()) { return sideTableUpdate(hash); }
+      finishRebuild();
+    }
     final long thetaLong = getThetaLong();
     final int lgNomLongs = getLgNomLongs();
     //The over-theta test
@@ -298,7 +387,14 @@ class DirectQuickSelectSketch extends DirectQuickSelectSketchR {
         assert (lgArrLongs == (lgNomLongs + 1))
             : "lgArr: " + lgArrLongs + ", lgNom: " + lgNomLongs;
         //rebuild, refresh curCount based on # values in the hashtable.
-        quickSelectAndRebuild(wmem_, preambleLongs, lgNomLongs);
+        final long startNanos = System.nanoTime();
+        if (rebuildExecutor_ != null) {
+          startRebuild(preambleLongs, lgNomLongs, lgArrLongs);
+          pendingRebuild_.pauseNanos += System.nanoTime() - startNanos;
+        } else {
+          quickSelectAndRebuild(wmem_, preambleLongs, lgNomLongs);
+          rebuildMetrics_.rebuildCompleted(System.nanoTime() - startNanos, false);
+        }
         return InsertedCountIncrementedRebuilt;
       } //end of rebuild, exit
 
@@ -338,4 +434,81 @@ class DirectQuickSelectSketch extends DirectQuickSelectSketchR {
     return InsertedCountIncremented;
   }
 
+  private void startRebuild(final int preambleLongs, final int lgNomLongs, final int lgArrLongs) {
+    final int arrLongs = 1 << lgArrLongs;
+    if (rebuildSrcArr_ == null || rebuildSrcArr_.length < arrLongs) {
+      rebuildSrcArr_ = new long[arrLongs];
+      rebuildTgtArr_ = new long[arrLongs];
+    }
+    final BackgroundRebuild task =
+        new BackgroundRebuild(wmem_, preambleLongs, lgNomLongs, lgArrLongs, rebuildSrcArr_, rebuildTgtArr_);
+    pendingRebuild_ = task;
+    try {
+      rebuildExecutor_.execute(task);
+    } catch (final RejectedExecutionException e) {
+      task.run(); //caller runs
+    }
+  }
+
+  /**
+   * Inserts the given hash, which is not over theta, into the side table while a background
+   * rebuild is pending. The hash table in Memory is only read. If the side table becomes full this
+   * waits for the rebuild to complete.
+   * @param hash the given hash
+   * @return the UpdateReturnState
+   */
+  private UpdateReturnState sideTableUpdate(final long hash) {
+    if (HashOperations.continueCondition(extractThetaLong(wmem_), hash)) {
+      return RejectedOverTheta;
+    }
+    final int preambleLongs = wmem_.getByte(PREAMBLE_LONGS_BYTE) & 0X3F;
+    if (HashOperations.hashSearchMemory(wmem_, getLgArrLongs(), hash, preambleLongs << 3) >= 0
+        || HashOperations.hashSearchOrInsert(sideTable_, lgSideLongs_, hash) >= 0) {
+      return RejectedDuplicate;
+    }
+    sideCount_++;
+    if (sideCount_ >= (1 << (lgSideLongs_ - 1))) { awaitRebuild(); }
+    return InsertedCountIncremented;
+  }
+
+  /**
+   * Waits for a pending background rebuild, if any, and copies its result into the Memory of this sketch.
+   */
+  private void awaitRebuild() {
+    if (pendingRebuild_ == null) { return; }
+    if (!pendingRebuild_.isDone()) { rebuildMetrics_.rebuildBlocked(); }
+    finishRebuild();
+  }
+
+  /**
+   * Waits for the pending background rebuild, copies the rebuilt hash table back into the Memory of
+   * this sketch and inserts the hashes of the side table that are below the new theta.
+   */
+  private void finishRebuild() {
+    final long startNanos = System.nanoTime();
+    final BackgroundRebuild task = pendingRebuild_;
+    pendingRebuild_ = null;
+    task.await();
+    final WritableMemory mem = wmem_;
+    final int preambleLongs = mem.getByte(PREAMBLE_LONGS_BYTE) & 0X3F;
+    final int lgArrLongs = getLgArrLongs();
+    final long thetaLong = task.getThetaLong();
+    int curCount = task.getCurCount();
+    task.copyTo(mem, preambleLongs);
+    insertThetaLong(mem, thetaLong);
+    if (sideCount_ > 0) {
+      for (int i = 0; i < sideTable_.length; i++) {
+        final long hash = sideTable_[i];
+        if (hash != 0 && hash < thetaLong
+            && HashOperations.hashSearchOrInsertMemory(mem, lgArrLongs, hash, preambleLongs << 3) < 0) {
+          curCount++;
+        }
+      }
+      Arrays.fill(sideTable_, 0L);
+      sideCount_ = 0;
+    }
+    insertCurCount(mem, curCount);
+    rebuildMetrics_.rebuildCompleted(task.pauseNanos + (System.nanoTime() - startNanos), true);
+  }
+
 }
@@ -42,6 +42,7 @@ import org.apache.datasketches.common.ResizeFactor;
 import org.apache.datasketches.memory.Memory;
 import org.apache.datasketches.memory.WritableMemory;
 import org.apache.datasketches.thetacommon.HashOperations;
+import org.apache.datasketches.thetacommon.HashTableLayout;
 import org.apache.datasketches.thetacommon.ThetaUtil;
 
 /**
@@ -59,6 +60,7 @@ class HeapQuickSelectSketch extends HeapUpdateSketch {
   boolean empty_;
 
   private long[] cache_;
+  private HashTableLayout layout_ = HashTableLayout.DOUBLE_HASHING;
 
   private HeapQuickSelectSketch(final int lgNomLongs, final long seed, final float p,
       final ResizeFactor rf, final int preambleLongs, final Family family) {
@@ -92,7 +94,7 @@ class HeapQuickSelectSketch extends HeapUpdateSketch {
     }
 
     lgArrLongs_ = ThetaUtil.startingSubMultiple(lgNomLongs + 1, rf.lg(), ThetaUtil.MIN_LG_ARR_LONGS);
-    hashTableThreshold_ = getHashTableThreshold(lgNomLongs, lgArrLongs_);
+    hashTableThreshold_ = getHashTableThreshold(lgNomLongs, lgArrLongs_, layout_);
     curCount_ = 0;
     thetaLong_ = (long)(p * LONG_MAX_VALUE_AS_DOUBLE);
     empty_ = true; //other flags: bigEndian = readOnly = compact = ordered = false;
@@ -128,7 +130,7 @@ class HeapQuickSelectSketch extends HeapUpdateSketch {
     final HeapQuickSelectSketch hqss = new HeapQuickSelectSketch(lgNomLongs, seed, p, memRF,
         preambleLongs, family);
     hqss.lgArrLongs_ = lgArrLongs;
-    hqss.hashTableThreshold_ = getHashTableThreshold(lgNomLongs, lgArrLongs);
+    hqss.hashTableThreshold_ = getHashTableThreshold(lgNomLongs, lgArrLongs, hqss.layout_);
     hqss.curCount_ = extractCurCount(srcMem);
     hqss.thetaLong_ = extractThetaLong(srcMem);
     hqss.empty_ = PreambleUtil.isEmptyFlag(srcMem);
@@ -197,7 +199,7 @@ class HeapQuickSelectSketch extends HeapUpdateSketch {
       cache_ = new long[1 << lgArrLongsSM];
       lgArrLongs_ = lgArrLongsSM;
     }
-    hashTableThreshold_ = getHashTableThreshold(lgNomLongs_, lgArrLongs_);
+    hashTableThreshold_ = getHashTableThreshold(lgNomLongs_, lgArrLongs_, layout_);
     empty_ = true;
     curCount_ = 0;
     thetaLong_ =  (long)(getP() * LONG_MAX_VALUE_AS_DOUBLE);
@@ -205,11 +207,41 @@ class HeapQuickSelectSketch extends HeapUpdateSketch {
 
   //restricted methods
 
+  /**
+   * Changes the layout of the hash table, rebuilding it if the layout is different.
+   * Theta and the retained hashes do not change.
+   * @param layout the new layout
+   */
+  void setHashTableLayout(final HashTableLayout layout) {
+    if (layout == layout_) { return; }
+    layout_ = layout;
+    final long[] tgtArr = new long[cache_.length];
+    curCount_ = layout_.hashArrayInsert(cache_, tgtArr, lgArrLongs_, thetaLong_);
+    cache_ = tgtArr;
+    hashTableThreshold_ = getHashTableThreshold(lgNomLongs_, lgArrLongs_, layout_);
+    if (isOutOfSpace(curCount_)) { //only possible if the new layout has a lower rebuild threshold
+      quickSelectAndRebuild();
+    }
+  }
+
+  @Override
+  HashTableLayout getHashTableLayout() {
+    return layout_;
+  }
+
   @Override
   long[] getCache() {
     return cache_;
   }
 
+  @Override
+  long[] getSerializedCache() {
+    if (layout_ == HashTableLayout.DOUBLE_HASHING) { return cache_; }
+    final long[] tgtArr = new long[cache_.length];
+    HashOperations.hashArrayInsert(cache_, tgtArr, lgArrLongs_, thetaLong_);
+    return tgtArr;
+  }
+
   @Override
   int getCompactPreambleLongs() {
     return CompactOperations.computeCompactPreLongs(empty_, curCount_, thetaLong_);
@@ -246,7 +278,7 @@ class HeapQuickSelectSketch extends HeapUpdateSketch {
     }
 
     //The duplicate test
-    if (HashOperations.hashSearchOrInsert(cache_, lgArrLongs_, hash) >= 0) {
+    if (layout_.hashSearchOrInsert(cache_, lgArrLongs_, hash) >= 0) {
       return RejectedDuplicate; //Duplicate, not inserted
     }
     //insertion occurred, must increment curCount
@@ -287,13 +319,13 @@ class HeapQuickSelectSketch extends HeapUpdateSketch {
     lgArrLongs_ += lgResizeFactor; // new arr size
 
     final long[] tgtArr = new long[1 << lgArrLongs_];
-    final int newCount = HashOperations.hashArrayInsert(cache_, tgtArr, lgArrLongs_, thetaLong_);
+    final int newCount = layout_.hashArrayInsert(cache_, tgtArr, lgArrLongs_, thetaLong_);
 
     assert newCount == curCount_;  //Assumes no dirty values.
     curCount_ = newCount;
 
     cache_ = tgtArr;
-    hashTableThreshold_ = getHashTableThreshold(lgNomLongs_, lgArrLongs_);
+    hashTableThreshold_ = getHashTableThreshold(lgNomLongs_, lgArrLongs_, layout_);
   }
 
   //array stays the same size. Changes theta and thus count
@@ -306,7 +338,7 @@ class HeapQuickSelectSketch extends HeapUpdateSketch {
 
     // now we rebuild to clean up dirty data, update count, reconfigure as a hash table
     final long[] tgtArr = new long[arrLongs];
-    curCount_ = HashOperations.hashArrayInsert(cache_, tgtArr, lgArrLongs_, thetaLong_);
+    curCount_ = layout_.hashArrayInsert(cache_, tgtArr, lgArrLongs_, thetaLong_);
     cache_ = tgtArr;
     //hashTableThreshold stays the same
   }
@@ -316,10 +348,12 @@ class HeapQuickSelectSketch extends HeapUpdateSketch {
    *
    * @param lgNomLongs <a href="{@docRoot}/resources/dictionary.html#lgNomLongs">See lgNomLongs</a>.
    * @param lgArrLongs <a href="{@docRoot}/resources/dictionary.html#lgArrLongs">See lgArrLongs</a>.
+   * @param layout the layout of the hash table
    * @return the hash table threshold
    */
-  private static final int getHashTableThreshold(final int lgNomLongs, final int lgArrLongs) {
-    final double fraction = (lgArrLongs <= lgNomLongs) ? ThetaUtil.RESIZE_THRESHOLD : ThetaUtil.REBUILD_THRESHOLD;
+  private static final int getHashTableThreshold(final int lgNomLongs, final int lgArrLongs,
+      final HashTableLayout layout) {
+    final double fraction = (lgArrLongs <= lgNomLongs) ? layout.getResizeThreshold() : layout.getRebuildThreshold();
     return (int) (fraction * (1 << lgArrLongs));
   }
 
@@ -136,10 +136,19 @@ abstract class HeapUpdateSketch extends UpdateSketch {
 
     //Data
     final int arrLongs = 1 << getLgArrLongs();
-    final long[] cache = getCache();
+    final long[] cache = getSerializedCache();
     memOut.putLongArray(preBytes, cache, 0, arrLongs); //load byteArrOut
 
     return byteArrOut;
   }
 
+  /**
+   * Returns the hash table in the layout of the serialized form, which is the cache itself unless
+   * the sketch uses a different hash table layout on the heap.
+   * @return the hash table in the layout of the serialized form
+   */
+  long[] getSerializedCache() {
+    return getCache();
+  }
+
 }
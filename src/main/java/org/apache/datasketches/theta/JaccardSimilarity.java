@@ -26,6 +26,10 @@ import static org.apache.datasketches.thetacommon.BoundsOnRatiosInThetaSketchedS
 import static org.apache.datasketches.thetacommon.BoundsOnRatiosInThetaSketchedSets.getLowerBoundForBoverA;
 import static org.apache.datasketches.thetacommon.BoundsOnRatiosInThetaSketchedSets.getUpperBoundForBoverA;
 
+import java.util.concurrent.Executor;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.Memory;
 import org.apache.datasketches.thetacommon.ThetaUtil;
 
 /**
@@ -95,6 +99,65 @@ public final class JaccardSimilarity {
     return new double[] {lb, est, ub};
   }
 
+  /**
+   * Computes the Jaccard similarity index with upper and lower bounds of all pairs of the given
+   * sketches. The result for each pair is the same as that of {@link #jaccard(Sketch, Sketch)},
+   * but each sketch is sorted only once and the union and intersection of a pair are counted
+   * without building them, which is much faster for many sketches.
+   *
+   * @param sketches the given sketches. A null element is treated as by
+   * {@link #jaccard(Sketch, Sketch)}.
+   * @return a double array of three symmetric matrices: {LowerBounds, Estimates, UpperBounds},
+   * where element [i][j] of each matrix is for the pair of sketches i and j.
+   */
+  public static double[][][] jaccardMatrix(final Sketch[] sketches) {
+    return jaccardMatrix(sketches, null);
+  }
+
+  /**
+   * Computes the Jaccard similarity index with upper and lower bounds of all pairs of the given
+   * sketches, in parallel using the given Executor.
+   * See {@link #jaccardMatrix(Sketch[])}.
+   *
+   * <p>The pairs are split into square blocks of sketches, and each block is run as one task of the
+   * given Executor. If the Executor rejects a task, the calling thread runs it. This method returns
+   * when all blocks are done. The Executor is not shut down.</p>
+   *
+   * @param sketches the given sketches
+   * @param executor the Executor that runs the blocks of pairs, or null to run them on the
+   * calling thread.
+   * @return a double array of three symmetric matrices: {LowerBounds, Estimates, UpperBounds},
+   * where element [i][j] of each matrix is for the pair of sketches i and j.
+   */
+  public static double[][][] jaccardMatrix(final Sketch[] sketches, final Executor executor) {
+    if (sketches == null) {
+      throw new SketchesArgumentException("The array of sketches must not be null.");
+    }
+    return JaccardSimilarityMatrix.compute(sketches.clone(), executor);
+  }
+
+  /**
+   * Computes the Jaccard similarity index with upper and lower bounds of all pairs of the given
+   * serialized sketches, in parallel using the given Executor. Each image is wrapped, not copied,
+   * except as needed to sort its hashes. See {@link #jaccardMatrix(Sketch[], Executor)}.
+   *
+   * @param images the given serialized sketches. A null element is treated as a null sketch.
+   * @param executor the Executor that runs the blocks of pairs, or null to run them on the
+   * calling thread.
+   * @return a double array of three symmetric matrices: {LowerBounds, Estimates, UpperBounds},
+   * where element [i][j] of each matrix is for the pair of sketches i and j.
+   */
+  public static double[][][] jaccardMatrix(final Memory[] images, final Executor executor) {
+    if (images == null) {
+      throw new SketchesArgumentException("The array of images must not be null.");
+    }
+    final Sketch[] sketches = new Sketch[images.length];
+    for (int i = 0; i < images.length; i++) {
+      sketches[i] = images[i] == null ? null : Sketch.wrap(images[i]);
+    }
+    return JaccardSimilarityMatrix.compute(sketches, executor);
+  }
+
   /**
    * Returns true if the two given sketches have exactly the same hash values and the same
    * theta values. Thus, they are equivalent.
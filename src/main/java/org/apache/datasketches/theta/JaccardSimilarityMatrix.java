@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.theta;
+
+import static org.apache.datasketches.common.Util.LONG_MAX_VALUE_AS_DOUBLE;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.datasketches.common.BoundsOnRatiosInSampledSets;
+import org.apache.datasketches.thetacommon.ThetaUtil;
+
+/**
+ * Computes the Jaccard similarity of all pairs of a list of Theta sketches.
+ *
+ * <p>Each sketch is compacted and sorted once. The intersection and union counts of a pair are
+ * then computed by a sorted merge of the hashes of the two sketches below their smaller theta,
+ * which gives the same counts as the union and intersection built by
+ * {@link JaccardSimilarity#jaccard(Sketch, Sketch)}. The pairs are split into square blocks of
+ * {@link #BLOCK} by {@link #BLOCK} sketches, so the hash arrays of a block are reused while they
+ * are in cache, and the blocks may be run in parallel by a given Executor.</p>
+ */
+final class JaccardSimilarityMatrix {
+  static final int BLOCK = 32;
+  private static final int MAX_UNION_COUNT = 1 << ThetaUtil.MAX_LG_NOM_LONGS;
+
+  private final Sketch[] sketches;
+  private final long[][] hashes; //sorted, null for null or empty sketches
+  private final long[] thetaLongs;
+  private final double[][] lbs;
+  private final double[][] ests;
+  private final double[][] ubs;
+
+  private JaccardSimilarityMatrix(final Sketch[] sketches) {
+    final int n = sketches.length;
+    this.sketches = sketches;
+    hashes = new long[n][];
+    thetaLongs = new long[n];
+    lbs = new double[n][n];
+    ests = new double[n][n];
+    ubs = new double[n][n];
+  }
+
+  static double[][][] compute(final Sketch[] sketches, final Executor executor) {
+    final JaccardSimilarityMatrix matrix = new JaccardSimilarityMatrix(sketches);
+    final int numBlocks = (sketches.length + BLOCK - 1) / BLOCK;
+    if (executor == null) {
+      for (int b = 0; b < numBlocks; b++) { matrix.prepare(b); }
+      for (int bi = 0; bi < numBlocks; bi++) {
+        for (int bj = bi; bj < numBlocks; bj++) { matrix.fillBlock(bi, bj); }
+      }
+    } else {
+      runAll(executor, numBlocks, b -> matrix.prepare(b));
+      runAll(executor, (numBlocks * (numBlocks + 1)) / 2, t -> {
+        //map the task index to the block pair (bi, bj) with bi <= bj
+        int bi = 0;
+        int rem = t;
+        while (rem >= numBlocks - bi) {
+          rem -= numBlocks - bi;
+          bi++;
+        }
+        matrix.fillBlock(bi, bi + rem);
+      });
+    }
+    return new double[][][] {matrix.lbs, matrix.ests, matrix.ubs};
+  }
+
+  private interface Task {
+    void run(int index);
+  }
+
+  private static void runAll(final Executor executor, final int numTasks, final Task task) {
+    final CountDownLatch done = new CountDownLatch(numTasks);
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    for (int t = 0; t < numTasks; t++) {
+      final int index = t;
+      final Runnable runnable = () -> {
+        try {
+          if (failure.get() == null) { task.run(index); }
+        } catch (final Throwable e) {
+          failure.compareAndSet(null, e);
+        } finally {
+          done.countDown();
+        }
+      };
+      try {
+        executor.execute(runnable);
+      } catch (final RejectedExecutionException e) {
+        runnable.run(); //caller runs
+      }
+    }
+    boolean interrupted = false;
+    while (true) {
+      try {
+        done.await();
+        break;
+      } catch (final InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) { Thread.currentThread().interrupt(); }
+    final Throwable t = failure.get();
+    if (t instanceof RuntimeException) { throw (RuntimeException) t; }
+    if (t instanceof Error) { throw (Error) t; }
+  }
+
+  //compacts and sorts the sketches of the given block once
+  private void prepare(final int block) {
+    final short expectedSeedHash = ThetaUtil.computeSeedHash(ThetaUtil.DEFAULT_UPDATE_SEED);
+    final int end = Math.min(sketches.length, (block + 1) * BLOCK);
+    for (int i = block * BLOCK; i < end; i++) {
+      final Sketch sk = sketches[i];
+      if (sk == null || sk.isEmpty()) { continue; }
+      ThetaUtil.checkSeedHashes(expectedSeedHash, sk.getSeedHash());
+      thetaLongs[i] = sk.getThetaLong();
+      final long[] cache = (sk.isCompact() && sk.isOrdered()) ? sk.getCache() : sk.compact(true, null).getCache();
+      hashes[i] = cache;
+    }
+  }
+
+  private void fillBlock(final int bi, final int bj) {
+    final int n = sketches.length;
+    final int iEnd = Math.min(n, (bi + 1) * BLOCK);
+    final int jEnd = Math.min(n, (bj + 1) * BLOCK);
+    for (int i = bi * BLOCK; i < iEnd; i++) {
+      for (int j = (bi == bj) ? i : bj * BLOCK; j < jEnd; j++) {
+        final double[] result = pair(i, j);
+        lbs[i][j] = lbs[j][i] = result[0];
+        ests[i][j] = ests[j][i] = result[1];
+        ubs[i][j] = ubs[j][i] = result[2];
+      }
+    }
+  }
+
+  //the same corner cases and bounds as JaccardSimilarity.jaccard(Sketch, Sketch)
+  private double[] pair(final int i, final int j) {
+    final Sketch skA = sketches[i];
+    final Sketch skB = sketches[j];
+    if (skA == null || skB == null) { return new double[] {0.0, 0.0, 0.0}; }
+    if (skA == skB) { return new double[] {1.0, 1.0, 1.0}; }
+    final long[] a = hashes[i];
+    final long[] b = hashes[j];
+    if (a == null && b == null) { return new double[] {1.0, 1.0, 1.0}; }
+    if (a == null || b == null) { return new double[] {0.0, 0.0, 0.0}; }
+    if (a.length + b.length > MAX_UNION_COUNT) {
+      return JaccardSimilarity.jaccard(skA, skB); //the union would be reduced to its maximum size
+    }
+
+    final long thetaLongA = thetaLongs[i];
+    final long thetaLongB = thetaLongs[j];
+    final long minThetaLong = Math.min(thetaLongA, thetaLongB);
+    final int lenA = countLessThan(a, minThetaLong);
+    final int lenB = countLessThan(b, minThetaLong);
+    final int countInter = countIntersection(a, lenA, b, lenB);
+    final int countUnion = lenA + lenB - countInter;
+
+    //Check for identical data
+    if (countUnion == a.length && countUnion == b.length
+        && thetaLongA == minThetaLong && thetaLongB == minThetaLong) {
+      return new double[] {1.0, 1.0, 1.0};
+    }
+    if (countUnion <= 0) { return new double[] {0.0, 0.5, 1.0}; }
+    final double f = minThetaLong / LONG_MAX_VALUE_AS_DOUBLE;
+    final double lb = BoundsOnRatiosInSampledSets.getLowerBoundForBoverA(countUnion, countInter, f);
+    final double est = (double) countInter / countUnion;
+    final double ub = BoundsOnRatiosInSampledSets.getUpperBoundForBoverA(countUnion, countInter, f);
+    return new double[] {lb, est, ub};
+  }
+
+  static int countLessThan(final long[] sorted, final long thetaLong) {
+    final int idx = Arrays.binarySearch(sorted, thetaLong);
+    return idx >= 0 ? idx : ~idx;
+  }
+
+  static int countIntersection(final long[] a, final int lenA, final long[] b, final int lenB) {
+    int count = 0;
+    int ia = 0;
+    int ib = 0;
+    while (ia < lenA && ib < lenB) {
+      final long ha = a[ia];
+      final long hb = b[ib];
+      if (ha < hb) {
+        ia++;
+      } else if (ha > hb) {
+        ib++;
+      } else {
+        count++;
+        ia++;
+        ib++;
+      }
+    }
+    return count;
+  }
+
+}
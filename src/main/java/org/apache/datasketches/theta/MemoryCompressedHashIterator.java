@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.theta;
+
+import static org.apache.datasketches.theta.CompactSketch.wholeBytesToHoldBits;
+
+import org.apache.datasketches.memory.Memory;
+
+/**
+ * Iterates over the hashes of a compressed (Serialization Version 4) compact sketch image,
+ * decoding one block of eight bit-packed deltas at a time directly from the given Memory.
+ * The hashes are returned in ascending order.
+ */
+class MemoryCompressedHashIterator implements HashIterator {
+  private final Memory mem;
+  private final int entryBits;
+  private final int numEntries;
+  private final long[] block;
+  private final byte[] bytes;
+  private long offsetBytes; //next packed byte in mem
+  private int decoded;      //number of entries decoded so far
+  private int blockIndex;
+  private int blockCount;
+  private long hash;
+
+  MemoryCompressedHashIterator(final Memory mem, final long offsetBytes, final int numEntries,
+      final int entryBits) {
+    this.mem = mem;
+    this.entryBits = entryBits;
+    this.numEntries = numEntries;
+    this.offsetBytes = offsetBytes;
+    block = new long[8];
+    bytes = new byte[entryBits];
+    decoded = 0;
+    blockIndex = 0;
+    blockCount = 0;
+    hash = 0;
+  }
+
+  @Override
+  public long get() {
+    return hash;
+  }
+
+  @Override
+  public boolean next() {
+    if (blockIndex == blockCount) {
+      if (decoded == numEntries) { return false; }
+      decodeBlock();
+    }
+    hash += block[blockIndex++];
+    return true;
+  }
+
+  private void decodeBlock() {
+    final int remaining = numEntries - decoded;
+    if (remaining >= 8) {
+      mem.getByteArray(offsetBytes, bytes, 0, entryBits);
+      BitPacking.unpackBitsBlock8(block, 0, bytes, 0, entryBits);
+      offsetBytes += entryBits;
+      blockCount = 8;
+    } else { //the tail is packed without block alignment
+      mem.getByteArray(offsetBytes, bytes, 0, wholeBytesToHoldBits(remaining * entryBits));
+      int bufOffset = 0;
+      int bitOffset = 0;
+      for (int i = 0; i < remaining; i++) {
+        BitPacking.unpackBits(block, i, entryBits, bytes, bufOffset, bitOffset);
+        bufOffset += (bitOffset + entryBits) >>> 3;
+        bitOffset = (bitOffset + entryBits) & 7;
+      }
+      blockCount = remaining;
+    }
+    decoded += blockCount;
+    blockIndex = 0;
+  }
+
+}
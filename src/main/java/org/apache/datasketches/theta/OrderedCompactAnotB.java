@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.theta;
+
+import static org.apache.datasketches.theta.OrderedCompactIntersection.toCompact;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+import org.apache.datasketches.thetacommon.ThetaUtil;
+
+/**
+ * The set difference of a Theta Sketch image <i>A</i> and any number of images <i>B</i>, computed
+ * on their sorted hash arrays.
+ *
+ * <p>The hashes of <i>A</i> below the minimum theta are scanned in order, and each is looked up in
+ * every <i>B</i> with a galloping search that resumes where the previous lookup ended, so no hash
+ * tables are built. SerVer 3 ordered compact images are read in place from Memory. Any other image
+ * is first heapified and sorted.</p>
+ *
+ * <p>The result is the same as that of an AnotB built by the same SetOperationBuilder, given
+ * <i>A</i> with <i>setA</i> and each <i>B</i> in order with <i>notB</i>, with the result
+ * obtained by <i>getResult(true, dstMem, false)</i>.</p>
+ */
+public final class OrderedCompactAnotB {
+
+  private OrderedCompactAnotB() {}
+
+  /**
+   * Returns the hashes of <i>A</i> that are in none of the <i>B</i> images, as an ordered
+   * CompactSketch. Null and empty <i>B</i> images are ignored.
+   * @param imageA the image of sketch <i>A</i>, which must not be null
+   * @param imagesB the images of the <i>B</i> sketches
+   * @param bldr the builder that supplies the seed
+   * @param dstMem the destination Memory for the result, or null for a result on the java heap
+   * @return the ordered CompactSketch result
+   */
+  public static CompactSketch aNotB(final Memory imageA, final Collection<? extends Memory> imagesB,
+      final SetOperationBuilder bldr, final WritableMemory dstMem) {
+    Objects.requireNonNull(bldr, "SetOperationBuilder must not be null");
+    if (imageA == null) {
+      throw new SketchesArgumentException("The input argument <i>A</i> must not be null");
+    }
+    final long seed = bldr.getSeed();
+    final short seedHash = ThetaUtil.computeSeedHash(seed);
+    final OrderedHashArray a = OrderedHashArray.wrap(imageA, seed);
+    if (a.empty) { return toCompact(Long.MAX_VALUE, 0, seedHash, true, dstMem, new long[0]); }
+
+    final List<OrderedHashArray> bList = new ArrayList<>(imagesB.size());
+    long thetaLong = a.thetaLong;
+    for (final Memory image : imagesB) {
+      if (image == null) { continue; }
+      final OrderedHashArray b = OrderedHashArray.wrap(image, seed);
+      if (b.empty) { continue; }
+      thetaLong = Math.min(thetaLong, b.thetaLong);
+      bList.add(b);
+    }
+    final int numBs = bList.size();
+    final OrderedHashArray[] bs = bList.toArray(new OrderedHashArray[numBs]);
+    final int[] bEnds = new int[numBs];
+    for (int i = 0; i < numBs; i++) { bEnds[i] = bs[i].countBelow(thetaLong); }
+    final int aEnd = a.countBelow(thetaLong);
+    final long[] hashArr = new long[aEnd];
+    final int curCount = subtract(a, aEnd, bs, bEnds, numBs, hashArr);
+
+    if ((curCount == 0) && isExactPrefixCovering(a, bs, numBs)) {
+      return toCompact(Long.MAX_VALUE, 0, seedHash, true, dstMem, hashArr);
+    }
+    return toCompact(thetaLong, curCount, seedHash, false, dstMem, hashArr);
+  }
+
+  /**
+   * Returns the hashes among the first aEnd of <i>A</i> that are not among the first bEnds[i] of
+   * any <i>B</i>.
+   * @param a the operand <i>A</i>
+   * @param aEnd the exclusive end index of <i>A</i>
+   * @param bs the <i>B</i> operands
+   * @param bEnds the exclusive end index of each <i>B</i>
+   * @param numBs the number of <i>B</i> operands
+   * @param out receives the remaining hashes in ascending order, or if null the scan stops at the
+   * first remaining hash
+   * @return the number of remaining hashes found
+   */
+  private static int subtract(final OrderedHashArray a, final int aEnd, final OrderedHashArray[] bs,
+      final int[] bEnds, final int numBs, final long[] out) {
+    final int[] pos = new int[numBs];
+    int count = 0;
+    for (int j = 0; j < aEnd; j++) {
+      final long hash = a.get(j);
+      boolean found = false;
+      for (int i = 0; i < numBs; i++) {
+        final int p = bs[i].gallop(pos[i], bEnds[i], hash);
+        pos[i] = p;
+        if ((p < bEnds[i]) && (bs[i].get(p) == hash)) {
+          found = true;
+          break;
+        }
+      }
+      if (found) { continue; }
+      if (out == null) { return 1; }
+      out[count++] = hash;
+    }
+    return count;
+  }
+
+  //Mirrors the AnotB, which sets empty if the result becomes empty while theta is still 1.0, and
+  // then ignores any further B. This can only happen within the run of exact mode B at the start.
+  private static boolean isExactPrefixCovering(final OrderedHashArray a, final OrderedHashArray[] bs,
+      final int numBs) {
+    if (a.thetaLong != Long.MAX_VALUE) { return false; }
+    int prefix = 0;
+    while ((prefix < numBs) && (bs[prefix].thetaLong == Long.MAX_VALUE)) { prefix++; }
+    if (prefix == numBs) { return true; } //the full difference was exact and found nothing
+    if (prefix == 0) { return false; }
+    final int[] ends = new int[prefix];
+    for (int i = 0; i < prefix; i++) { ends[i] = bs[i].count; }
+    return subtract(a, a.count, bs, ends, prefix, null) == 0;
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.theta;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesStateException;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+import org.apache.datasketches.thetacommon.ThetaUtil;
+
+/**
+ * Multi-way intersection of Theta Sketch images by a leapfrog join of their sorted hash arrays.
+ *
+ * <p>The operands are ordered by the number of hashes below the minimum theta. Starting with the
+ * smallest operand, each candidate hash is looked up in the other operands with a galloping
+ * search that resumes where the previous lookup ended, and a miss advances the candidate to the
+ * hash that was found instead. The cost is therefore close to that of scanning the smallest
+ * operand, with no hash tables built. SerVer 3 ordered compact images are read in place from
+ * Memory. Any other image is first heapified and sorted.</p>
+ *
+ * <p>The result is the same as that of an Intersection built by the same SetOperationBuilder
+ * and given the same images in the same order, with the result obtained by
+ * <i>getResult(true, dstMem)</i>.</p>
+ */
+public final class OrderedCompactIntersection {
+
+  private OrderedCompactIntersection() {}
+
+  /**
+   * Returns the intersection of the given sketch images as an ordered CompactSketch.
+   * @param images the given sketch images, none of which may be null
+   * @param bldr the builder that supplies the seed
+   * @param dstMem the destination Memory for the result, or null for a result on the java heap
+   * @return the ordered CompactSketch result
+   */
+  public static CompactSketch intersect(final Collection<? extends Memory> images,
+      final SetOperationBuilder bldr, final WritableMemory dstMem) {
+    Objects.requireNonNull(bldr, "SetOperationBuilder must not be null");
+    if (images.isEmpty()) {
+      throw new SketchesStateException(
+          "An intersection of no sketches would represent the infinite set, "
+          + "which is not a legal result.");
+    }
+    final long seed = bldr.getSeed();
+    final short seedHash = ThetaUtil.computeSeedHash(seed);
+    final OrderedHashArray[] ops = new OrderedHashArray[images.size()];
+    int numOps = 0;
+    boolean anyEmpty = false;
+    long thetaLong = Long.MAX_VALUE;
+    for (final Memory image : images) {
+      if (image == null) {
+        throw new SketchesArgumentException("Intersection argument must not be null.");
+      }
+      if (anyEmpty) { continue; } //empty rule, the remaining images are not examined
+      final OrderedHashArray op = OrderedHashArray.wrap(image, seed);
+      anyEmpty = op.empty;
+      thetaLong = Math.min(thetaLong, op.thetaLong);
+      ops[numOps++] = op;
+    }
+    if (anyEmpty) { return toCompact(Long.MAX_VALUE, 0, seedHash, true, dstMem, new long[0]); }
+
+    //Join over the hashes below the minimum theta, smallest operand first
+    final OrderedHashArray[] sorted = Arrays.copyOf(ops, numOps);
+    final int[] ends = new int[numOps];
+    for (int i = 0; i < numOps; i++) { ends[i] = sorted[i].countBelow(thetaLong); }
+    sortByEnd(sorted, ends, numOps);
+    final long[] hashArr = new long[ends[0]];
+    final int curCount = join(sorted, ends, numOps, hashArr);
+
+    if ((curCount == 0) && isExactPrefixDisjoint(ops, numOps)) {
+      return toCompact(Long.MAX_VALUE, 0, seedHash, true, dstMem, hashArr);
+    }
+    return toCompact(thetaLong, curCount, seedHash, false, dstMem, hashArr);
+  }
+
+  /**
+   * Leapfrog join of the first ends[i] hashes of each operand.
+   * @param ops the operands, the first of which drives the join
+   * @param ends the exclusive end index of each operand
+   * @param numOps the number of operands
+   * @param out receives the common hashes in ascending order, or if null the join stops at the
+   * first common hash
+   * @return the number of common hashes found
+   */
+  static int join(final OrderedHashArray[] ops, final int[] ends, final int numOps,
+      final long[] out) {
+    final int[] pos = new int[numOps];
+    final OrderedHashArray lead = ops[0];
+    int count = 0;
+    outer:
+    while (pos[0] < ends[0]) {
+      long target = lead.get(pos[0]);
+      for (int i = 1; i < numOps; i++) {
+        final int p = ops[i].gallop(pos[i], ends[i], target);
+        pos[i] = p;
+        if (p == ends[i]) { break outer; }
+        final long hash = ops[i].get(p);
+        if (hash != target) { //miss, leap the lead forward
+          pos[0] = lead.gallop(pos[0] + 1, ends[0], hash);
+          continue outer;
+        }
+      }
+      if (out == null) { return 1; }
+      out[count++] = target;
+      pos[0]++;
+    }
+    return count;
+  }
+
+  //Mirrors the Intersection, which sets empty if the intersection becomes empty while theta is
+  // still 1.0, and then stays empty. This can only happen within the run of exact mode operands
+  // at the start.
+  private static boolean isExactPrefixDisjoint(final OrderedHashArray[] ops, final int numOps) {
+    int prefix = 0;
+    while ((prefix < numOps) && (ops[prefix].thetaLong == Long.MAX_VALUE)) { prefix++; }
+    if (prefix < 2) { return false; }
+    if (prefix == numOps) { return true; } //the full join was exact and found nothing
+    final OrderedHashArray[] sorted = Arrays.copyOf(ops, prefix);
+    final int[] ends = new int[prefix];
+    for (int i = 0; i < prefix; i++) { ends[i] = sorted[i].count; }
+    sortByEnd(sorted, ends, prefix);
+    return join(sorted, ends, prefix, null) == 0;
+  }
+
+  //Insertion sort of the operands by ascending end index, there are only a few operands
+  private static void sortByEnd(final OrderedHashArray[] ops, final int[] ends, final int numOps) {
+    for (int i = 1; i < numOps; i++) {
+      final OrderedHashArray op = ops[i];
+      final int end = ends[i];
+      int j = i - 1;
+      while ((j >= 0) && (ends[j] > end)) {
+        ops[j + 1] = ops[j];
+        ends[j + 1] = ends[j];
+        j--;
+      }
+      ops[j + 1] = op;
+      ends[j + 1] = end;
+    }
+  }
+
+  static CompactSketch toCompact(final long thetaLong, final int curCount, final short seedHash,
+      final boolean empty, final WritableMemory dstMem, final long[] hashArr) {
+    return CompactOperations.componentsToCompact(
+        thetaLong, curCount, seedHash, empty, true, true, true, dstMem, Arrays.copyOf(hashArr, curCount));
+  }
+}
@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.theta;
+
+import static org.apache.datasketches.common.Util.LONG_MAX_VALUE_AS_DOUBLE;
+import static org.apache.datasketches.theta.CompactOperations.computeCompactPreLongs;
+import static org.apache.datasketches.theta.CompactOperations.loadCompactPreamble;
+import static org.apache.datasketches.theta.PreambleUtil.COMPACT_FLAG_MASK;
+import static org.apache.datasketches.theta.PreambleUtil.EMPTY_FLAG_MASK;
+import static org.apache.datasketches.theta.PreambleUtil.ORDERED_FLAG_MASK;
+import static org.apache.datasketches.theta.PreambleUtil.READ_ONLY_FLAG_MASK;
+import static org.apache.datasketches.theta.PreambleUtil.SINGLEITEM_FLAG_MASK;
+
+import java.util.Collection;
+import java.util.Objects;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+import org.apache.datasketches.thetacommon.ThetaUtil;
+
+/**
+ * Union of ordered compact Theta Sketch images by a k-way merge.
+ *
+ * <p>The hash arrays of the inputs are read in place from Memory and merged in ascending order.
+ * The distinct hashes below the union theta are written straight into the destination Memory,
+ * and the merge stops as soon as <i>k</i> + 1 of them have been seen or every input has reached
+ * the union theta. No hash table is built and no hashes are copied onto the java heap.</p>
+ *
+ * <p>Inputs that are not SerVer 3 ordered compact images, for example update sketch images or
+ * compressed SerVer 4 images, are accepted but are first heapified and sorted.</p>
+ *
+ * <p>The result is the same as that of a Union built by the same SetOperationBuilder, given the
+ * same inputs, with the result obtained by <i>getResult(true, dstMem)</i>.</p>
+ */
+public final class OrderedCompactUnion {
+
+  private OrderedCompactUnion() {}
+
+  /**
+   * Returns the union of the given sketch images as an ordered CompactSketch in the given
+   * destination Memory. Null and empty images are ignored.
+   *
+   * <p>The destination must have at least 24 + 8<i>n</i> bytes, where <i>n</i> is the smaller of
+   * <i>k</i> and the total number of retained entries of the inputs, or 8 bytes if all inputs are
+   * empty.</p>
+   *
+   * @param images the given sketch images
+   * @param bldr the builder that supplies the nominal entries, seed and <i>p</i> of the union
+   * @param dstMem the destination Memory for the result
+   * @return an ordered CompactSketch backed by the destination Memory
+   * @throws SketchesArgumentException if an image is truncated or corrupt, or was built with a
+   * different seed
+   */
+  public static CompactSketch union(final Collection<? extends Memory> images,
+      final SetOperationBuilder bldr, final WritableMemory dstMem) {
+    Objects.requireNonNull(bldr, "SetOperationBuilder must not be null");
+    Objects.requireNonNull(dstMem, "Destination Memory must not be null");
+    final int k = 1 << bldr.getLgNominalEntries();
+    final long seed = bldr.getSeed();
+    final short seedHash = ThetaUtil.computeSeedHash(seed);
+
+    //Gather the inputs, their union theta and the union empty state. As in UnionImpl, the theta
+    // of p only applies once a hash has been offered to the gadget, so this follows input order.
+    final int numImages = images.size();
+    final Memory[] srcMems = new Memory[numImages];
+    final long[] srcOffsets = new long[numImages];
+    final int[] srcCounts = new int[numImages];
+    final long pThetaLong = (long) (bldr.getP() * LONG_MAX_VALUE_AS_DOUBLE);
+    int numSrcs = 0;
+    long totalCount = 0;
+    long thetaLong = Long.MAX_VALUE;
+    boolean offered = false;
+    boolean empty = true;
+    for (final Memory image : images) {
+      if (image == null) { continue; }
+      final OrderedHashArray src = OrderedHashArray.wrap(image, seed);
+      if (src.empty) { continue; }
+      final Memory mem = src.mem;
+      final long offset = src.offset;
+      final int count = src.count;
+      final long thetaLongIn = src.thetaLong;
+      empty = false;
+      if ((count == 1) && (thetaLongIn == Long.MAX_VALUE)) {
+        offered = true; //a single item goes straight to the gadget
+      } else {
+        thetaLong = Math.min(Math.min(thetaLong, thetaLongIn), offered ? pThetaLong : Long.MAX_VALUE);
+        offered |= (count > 0) && (mem.getLong(offset) < thetaLong);
+      }
+      if (count == 0) { continue; }
+      srcMems[numSrcs] = mem;
+      srcOffsets[numSrcs] = offset;
+      srcCounts[numSrcs] = count;
+      numSrcs++;
+      totalCount += count;
+    }
+    if (offered) { thetaLong = Math.min(thetaLong, pThetaLong); }
+
+    final int maxOut = (int) Math.min(k, totalCount);
+    final long needBytes = empty ? 8 : (3L + maxOut) << 3;
+    if (dstMem.getCapacity() < needBytes) {
+      throw new SketchesArgumentException("Insufficient Memory: " + dstMem.getCapacity()
+        + ", Need: " + needBytes);
+    }
+
+    //k-way merge, writing the hashes at 3 preamble longs, then moving them if fewer are needed
+    final long dataStart = 3L << 3;
+    final MergeHeap heap = new MergeHeap(srcMems, srcOffsets, srcCounts, numSrcs);
+    int curCount = 0;
+    long prevHash = 0;
+    while (!heap.isEmpty()) {
+      final long hash = heap.peek();
+      if (hash >= thetaLong) { break; }
+      heap.advance();
+      if (hash == prevHash) { continue; }
+      prevHash = hash;
+      if (curCount == k) {
+        thetaLong = hash; //the (k + 1)th smallest
+        break;
+      }
+      dstMem.putLong(dataStart + ((long) curCount << 3), hash);
+      curCount++;
+    }
+
+    final int preLongs = computeCompactPreLongs(empty, curCount, thetaLong);
+    if (preLongs < 3) {
+      for (int i = 0; i < curCount; i++) {
+        dstMem.putLong((preLongs + i) << 3, dstMem.getLong(dataStart + (i << 3)));
+      }
+    }
+    final boolean single = !empty && (curCount == 1) && (thetaLong == Long.MAX_VALUE);
+    int flags = READ_ONLY_FLAG_MASK | COMPACT_FLAG_MASK | ORDERED_FLAG_MASK; //always LE
+    flags |= empty ? EMPTY_FLAG_MASK : 0;
+    flags |= single ? SINGLEITEM_FLAG_MASK : 0;
+    loadCompactPreamble(seedHash, curCount, thetaLong, dstMem, (byte) flags, preLongs);
+    return new DirectCompactSketch(dstMem);
+  }
+
+  /**
+   * A binary min-heap of the current hashes of the sources. Each source is an ascending array
+   * of hashes in Memory.
+   */
+  private static final class MergeHeap {
+    private final Memory[] mems;
+    private final long[] offsets; //byte offset of the current hash of each source
+    private final long[] ends;
+    private final long[] heads; //heap ordered current hashes
+    private final int[] srcs;   //source index of each heap entry
+    private int size;
+
+    MergeHeap(final Memory[] mems, final long[] offsets, final int[] counts, final int numSrcs) {
+      this.mems = mems;
+      this.offsets = offsets;
+      ends = new long[numSrcs];
+      heads = new long[numSrcs];
+      srcs = new int[numSrcs];
+      for (int i = 0; i < numSrcs; i++) {
+        ends[i] = offsets[i] + ((long) counts[i] << 3);
+        heads[i] = mems[i].getLong(offsets[i]);
+        srcs[i] = i;
+      }
+      size = numSrcs;
+      for (int i = (size >>> 1) - 1; i >= 0; i--) { siftDown(i); }
+    }
+
+    boolean isEmpty() {
+      return size == 0;
+    }
+
+    long peek() {
+      return heads[0];
+    }
+
+    //Replaces the smallest hash with the next hash of its source, or removes the source.
+    void advance() {
+      final int src = srcs[0];
+      final long next = offsets[src] + 8;
+      offsets[src] = next;
+      if (next < ends[src]) {
+        heads[0] = mems[src].getLong(next);
+      } else {
+        size--;
+        heads[0] = heads[size];
+        srcs[0] = srcs[size];
+      }
+      siftDown(0);
+    }
+
+    private void siftDown(final int start) {
+      int i = start;
+      final long head = heads[i];
+      final int src = srcs[i];
+      while (true) {
+        int child = (i << 1) + 1;
+        if (child >= size) { break; }
+        if (((child + 1) < size) && (heads[child + 1] < heads[child])) { child++; }
+        if (heads[child] >= head) { break; }
+        heads[i] = heads[child];
+        srcs[i] = srcs[child];
+        i = child;
+      }
+      heads[i] = head;
+      srcs[i] = src;
+    }
+  }
+}
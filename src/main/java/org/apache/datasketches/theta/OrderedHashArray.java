@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.theta;
+
+import static org.apache.datasketches.theta.PreambleUtil.COMPACT_FLAG_MASK;
+import static org.apache.datasketches.theta.PreambleUtil.ORDERED_FLAG_MASK;
+import static org.apache.datasketches.theta.PreambleUtil.extractCurCount;
+import static org.apache.datasketches.theta.PreambleUtil.extractFamilyID;
+import static org.apache.datasketches.theta.PreambleUtil.extractFlags;
+import static org.apache.datasketches.theta.PreambleUtil.extractPreLongs;
+import static org.apache.datasketches.theta.PreambleUtil.extractSeedHash;
+import static org.apache.datasketches.theta.PreambleUtil.extractSerVer;
+import static org.apache.datasketches.theta.PreambleUtil.extractThetaLong;
+import static org.apache.datasketches.theta.SingleItemSketch.otherCheckForSingleItem;
+
+import org.apache.datasketches.common.Family;
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.thetacommon.ThetaUtil;
+
+/**
+ * A read-only view of the ascending hash array of a Theta Sketch image, used by the set
+ * operations on ordered compact sketches. SerVer 3 ordered compact images are read in place.
+ * Any other image is heapified and sorted.
+ */
+final class OrderedHashArray {
+  final Memory mem;
+  final long offset; //byte offset of the first hash
+  final int count;
+  final long thetaLong;
+  final boolean empty;
+
+  private OrderedHashArray(final Memory mem, final long offset, final int count,
+      final long thetaLong, final boolean empty) {
+    this.mem = mem;
+    this.offset = offset;
+    this.count = count;
+    this.thetaLong = thetaLong;
+    this.empty = empty;
+  }
+
+  /**
+   * Returns a view of the given image, which must not be null.
+   * @param image the given sketch image
+   * @param seed the expected seed, checked against the seed hash of a non-empty image
+   * @return a view of the hash array of the image
+   * @throws SketchesArgumentException if the image is truncated or corrupt
+   */
+  static OrderedHashArray wrap(final Memory image, final long seed) {
+    final long cap = image.getCapacity();
+    if (cap < 8) {
+      throw new SketchesArgumentException("Image too small for a sketch preamble: " + cap);
+    }
+    if (isOrderedCompactSerVer3(image)) {
+      if (PreambleUtil.isEmptyFlag(image)) {
+        return new OrderedHashArray(image, 8, 0, Long.MAX_VALUE, true);
+      }
+      ThetaUtil.checkSeedHashes(ThetaUtil.computeSeedHash(seed), (short) extractSeedHash(image));
+      if (otherCheckForSingleItem(image)) {
+        checkCapacity(cap, 16);
+        return new OrderedHashArray(image, 8, 1, Long.MAX_VALUE, false);
+      }
+      final int preLongs = extractPreLongs(image);
+      checkCapacity(cap, (long) preLongs << 3);
+      final long thetaLong = (preLongs > 2) ? extractThetaLong(image) : Long.MAX_VALUE;
+      final int count = extractCurCount(image);
+      checkCapacity(cap, ((long) preLongs + count) << 3);
+      return new OrderedHashArray(image, preLongs << 3, count, thetaLong,
+          (count == 0) && (thetaLong == Long.MAX_VALUE));
+    }
+    final CompactSketch csk = Sketch.heapify(image, seed).compact(true, null);
+    return new OrderedHashArray(Memory.wrap(csk.getCache()), 0, csk.getRetainedEntries(true),
+        csk.getThetaLong(), csk.isEmpty());
+  }
+
+  private static void checkCapacity(final long cap, final long needBytes) {
+    if (cap < needBytes) {
+      throw new SketchesArgumentException("Possible corruption: image capacity " + cap
+          + " < " + needBytes + " bytes required by its preamble");
+    }
+  }
+
+  static boolean isOrderedCompactSerVer3(final Memory mem) {
+    if ((extractSerVer(mem) != 3) || (extractFamilyID(mem) != Family.COMPACT.getID())) {
+      return false;
+    }
+    final int flags = extractFlags(mem);
+    return ((flags & COMPACT_FLAG_MASK) != 0) && ((flags & ORDERED_FLAG_MASK) != 0);
+  }
+
+  long get(final int index) {
+    return mem.getLong(offset + ((long) index << 3));
+  }
+
+  /**
+   * Returns the number of hashes less than the given thetaLong.
+   * @param thetaLong the given thetaLong
+   * @return the number of hashes less than the given thetaLong.
+   */
+  int countBelow(final long thetaLong) {
+    if ((count == 0) || (get(count - 1) < thetaLong)) { return count; }
+    return gallop(0, count, thetaLong);
+  }
+
+  /**
+   * Galloping (exponential) search for the first index in [from, end) whose hash is at least the
+   * given target, or end if there is none. The cost grows with the log of the distance moved.
+   * @param from the first index to examine
+   * @param end the exclusive end index
+   * @param target the target hash
+   * @return the first index in [from, end) whose hash is at least the target, or end.
+   */
+  int gallop(final int from, final int end, final long target) {
+    int lo = from;
+    int step = 1;
+    int hi = from;
+    while ((hi < end) && (get(hi) < target)) {
+      lo = hi + 1;
+      hi += step;
+      step <<= 1;
+    }
+    hi = Math.min(hi, end);
+    while (lo < hi) { //binary search in [lo, hi), where get(hi) >= target or hi == end
+      final int mid = (lo + hi) >>> 1;
+      if (get(mid) < target) { lo = mid + 1; }
+      else { hi = mid; }
+    }
+    return lo;
+  }
+}
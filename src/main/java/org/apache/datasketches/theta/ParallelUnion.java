@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.theta;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.Memory;
+
+/**
+ * Parallel union of many Theta Sketches or serialized Theta Sketch images.
+ *
+ * <p>The inputs are split into runs of contiguous inputs, and each run is merged into its own
+ * partial Union on the given Executor, which may be a ForkJoinPool. The partial results are then
+ * combined pairwise as a tree, also on the Executor. All Unions are built on the java heap by the
+ * given SetOperationBuilder, which also supplies the nominal entries, seed and <i>p</i>.</p>
+ *
+ * <p>The partial unions share the smallest union theta seen so far. Hashes at or above it can
+ * never appear in the final result, so each partial union rejects them before they reach its
+ * internal hash table, just as the early stop of a single Union does.</p>
+ *
+ * <p>The result is the same as that of a single Union given the same inputs in any order.</p>
+ */
+public final class ParallelUnion {
+
+  /**
+   * The default number of inputs merged by each partial union.
+   */
+  public static final int DEFAULT_INPUTS_PER_TASK = 512;
+
+  private ParallelUnion() {}
+
+  /**
+   * Returns the union of the given sketches, computed on the given Executor.
+   * Null and empty sketches are ignored.
+   * @param sketches the given sketches
+   * @param bldr the builder that configures each partial union
+   * @param executor the Executor, for example a ForkJoinPool
+   * @return the ordered, compact, on-heap result of the union
+   */
+  public static CompactSketch union(final Collection<? extends Sketch> sketches,
+      final SetOperationBuilder bldr, final Executor executor) {
+    return union(sketches, bldr, executor, DEFAULT_INPUTS_PER_TASK);
+  }
+
+  /**
+   * Returns the union of the given sketches, computed on the given Executor.
+   * Null and empty sketches are ignored.
+   * @param sketches the given sketches
+   * @param bldr the builder that configures each partial union
+   * @param executor the Executor, for example a ForkJoinPool
+   * @param inputsPerTask the number of sketches merged by each partial union
+   * @return the ordered, compact, on-heap result of the union
+   */
+  public static CompactSketch union(final Collection<? extends Sketch> sketches,
+      final SetOperationBuilder bldr, final Executor executor, final int inputsPerTask) {
+    return reduce(new ArrayList<Object>(sketches), bldr, executor, inputsPerTask);
+  }
+
+  /**
+   * Returns the union of the given serialized sketch images, computed on the given Executor.
+   * The images may be of any form accepted by {@link Union#union(Memory)}.
+   * @param images the given sketch images
+   * @param bldr the builder that configures each partial union
+   * @param executor the Executor, for example a ForkJoinPool
+   * @return the ordered, compact, on-heap result of the union
+   */
+  public static CompactSketch unionImages(final Collection<? extends Memory> images,
+      final SetOperationBuilder bldr, final Executor executor) {
+    return unionImages(images, bldr, executor, DEFAULT_INPUTS_PER_TASK);
+  }
+
+  /**
+   * Returns the union of the given serialized sketch images, computed on the given Executor.
+   * The images may be of any form accepted by {@link Union#union(Memory)}.
+   * @param images the given sketch images
+   * @param bldr the builder that configures each partial union
+   * @param executor the Executor, for example a ForkJoinPool
+   * @param inputsPerTask the number of images merged by each partial union
+   * @return the ordered, compact, on-heap result of the union
+   */
+  public static CompactSketch unionImages(final Collection<? extends Memory> images,
+      final SetOperationBuilder bldr, final Executor executor, final int inputsPerTask) {
+    return reduce(new ArrayList<Object>(images), bldr, executor, inputsPerTask);
+  }
+
+  private static CompactSketch reduce(final List<Object> inputs, final SetOperationBuilder bldr,
+      final Executor executor, final int inputsPerTask) {
+    Objects.requireNonNull(bldr, "SetOperationBuilder must not be null");
+    Objects.requireNonNull(executor, "Executor must not be null");
+    if (inputsPerTask < 1) {
+      throw new SketchesArgumentException("inputsPerTask must be at least 1: " + inputsPerTask);
+    }
+    final AtomicLong minThetaLong = new AtomicLong(Long.MAX_VALUE);
+    final int numInputs = inputs.size();
+    List<CompletableFuture<CompactSketch>> level = new ArrayList<>();
+    for (int start = 0; start < numInputs; start += inputsPerTask) {
+      final List<Object> run = inputs.subList(start, Math.min(numInputs, start + inputsPerTask));
+      level.add(CompletableFuture.supplyAsync(() -> partialUnion(run, bldr, minThetaLong), executor));
+    }
+    if (level.isEmpty()) { return bldr.buildUnion().getResult(); }
+
+    while (level.size() > 1) {
+      final List<CompletableFuture<CompactSketch>> next = new ArrayList<>((level.size() + 1) / 2);
+      for (int i = 0; i < level.size(); i += 2) {
+        if ((i + 1) == level.size()) {
+          next.add(level.get(i));
+        } else {
+          next.add(level.get(i).thenCombineAsync(level.get(i + 1),
+              (a, b) -> partialUnion(pair(a, b), bldr, minThetaLong), executor));
+        }
+      }
+      level = next;
+    }
+    try {
+      return level.get(0).join();
+    } catch (final CompletionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) { throw (RuntimeException) cause; }
+      if (cause instanceof Error) { throw (Error) cause; }
+      throw e;
+    }
+  }
+
+  private static CompactSketch partialUnion(final List<Object> inputs,
+      final SetOperationBuilder bldr, final AtomicLong minThetaLong) {
+    final UnionImpl union = (UnionImpl) bldr.buildUnion();
+    for (final Object input : inputs) {
+      union.lowerUnionThetaLong(minThetaLong.get());
+      if (input instanceof Memory) {
+        union.union((Memory) input);
+      } else {
+        union.union((Sketch) input);
+      }
+      final long thetaLong = union.getThetaLong();
+      if (thetaLong < minThetaLong.get()) {
+        minThetaLong.accumulateAndGet(thetaLong, Math::min);
+      }
+    }
+    return union.getResult();
+  }
+
+  private static List<Object> pair(final CompactSketch a, final CompactSketch b) {
+    final List<Object> list = new ArrayList<>(2);
+    list.add(a);
+    list.add(b);
+    return list;
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.theta;
+
+import static org.apache.datasketches.common.Util.LS;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live counters describing the rebuilds of a direct QuickSelect sketch at its full hash table
+ * size, which is when theta is lowered and the hash table is rebuilt to hold only <i>k</i>
+ * entries. An instance is owned by the sketch and is obtained from
+ * {@link UpdateSketch#getRebuildMetrics()}. All values are read without locking and may be
+ * slightly stale.
+ *
+ * <p>The pause of a rebuild is the time the updating thread itself spends on it. For a synchronous
+ * rebuild that is the whole quick select and rebuild of the hash table. For a background rebuild,
+ * see {@link UpdateSketchBuilder#setRebuildExecutor(java.util.concurrent.Executor)}, it is the time
+ * to submit the rebuild, any time spent waiting for it to complete, and the time to switch to the
+ * rebuilt hash table.</p>
+ */
+public final class RebuildMetrics {
+  private final LongAdder rebuilds = new LongAdder();
+  private final LongAdder backgroundRebuilds = new LongAdder();
+  private final LongAdder blocked = new LongAdder();
+  private final LongAdder totalPauseNanos = new LongAdder();
+  private final AtomicLong maxPauseNanos = new AtomicLong();
+
+  RebuildMetrics() { }
+
+  /**
+   * Returns the number of completed rebuilds, both synchronous and in the background.
+   * @return the number of completed rebuilds
+   */
+  public long getRebuilds() {
+    return rebuilds.sum();
+  }
+
+  /**
+   * Returns the number of completed rebuilds that were run in the background.
+   * @return the number of completed background rebuilds
+   */
+  public long getBackgroundRebuilds() {
+    return backgroundRebuilds.sum();
+  }
+
+  /**
+   * Returns the number of times the updating thread had to wait for a background rebuild to
+   * complete, either because its side buffer was full or because the sketch was read.
+   * @return the number of times the sketch blocked on a background rebuild
+   */
+  public long getBlockedCount() {
+    return blocked.sum();
+  }
+
+  /**
+   * Returns the sum of the pauses of all completed rebuilds, in nanoseconds.
+   * @return the total rebuild pause in nanoseconds
+   */
+  public long getTotalPauseNanos() {
+    return totalPauseNanos.sum();
+  }
+
+  /**
+   * Returns the mean pause of the completed rebuilds, in nanoseconds, or zero if none has completed.
+   * @return the mean rebuild pause in nanoseconds
+   */
+  public double getMeanPauseNanos() {
+    final long n = rebuilds.sum();
+    return (n == 0) ? 0.0 : (double) totalPauseNanos.sum() / n;
+  }
+
+  /**
+   * Returns the largest pause of any completed rebuild, in nanoseconds.
+   * @return the maximum rebuild pause in nanoseconds
+   */
+  public long getMaxPauseNanos() {
+    return maxPauseNanos.get();
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder();
+    sb.append("### ").append(this.getClass().getSimpleName()).append(" SUMMARY: ").append(LS);
+    sb.append("   Rebuilds                    : ").append(getRebuilds()).append(LS);
+    sb.append("   Background Rebuilds         : ").append(getBackgroundRebuilds()).append(LS);
+    sb.append("   Blocked Count               : ").append(getBlockedCount()).append(LS);
+    sb.append("   Mean Pause (us)             : ").append(getMeanPauseNanos() / 1000.0).append(LS);
+    sb.append("   Max Pause (us)              : ")
+      .append(TimeUnit.NANOSECONDS.toMicros(getMaxPauseNanos())).append(LS);
+    sb.append("### END SKETCH SUMMARY").append(LS);
+    return sb.toString();
+  }
+
+  //restricted
+
+  void rebuildCompleted(final long pauseNanos, final boolean background) {
+    totalPauseNanos.add(pauseNanos);
+    maxPauseNanos.accumulateAndGet(pauseNanos, Math::max);
+    rebuilds.increment();
+    if (background) { backgroundRebuilds.increment(); }
+  }
+
+  void rebuildBlocked() {
+    blocked.increment();
+  }
+}
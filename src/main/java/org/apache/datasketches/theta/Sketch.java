@@ -36,6 +36,7 @@ import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.memory.Memory;
 import org.apache.datasketches.memory.WritableMemory;
 import org.apache.datasketches.thetacommon.BinomialBoundsN;
+import org.apache.datasketches.thetacommon.HashTableLayout;
 import org.apache.datasketches.thetacommon.ThetaUtil;
 
 /**
@@ -585,6 +586,15 @@ public abstract class Sketch {
    */
   abstract long[] getCache();
 
+  /**
+   * Gets the layout of the internal cache array when it is a hash table, which is how it must be
+   * searched. This is the layout of the serialized form unless overridden.
+   * @return the layout of the internal cache array.
+   */
+  HashTableLayout getHashTableLayout() {
+    return HashTableLayout.DOUBLE_HASHING;
+  }
+
   /**
    * Gets preamble longs if stored in compact form. If this sketch is already in compact form,
    * this is identical to the call {@link #getCurrentPreambleLongs()}.
@@ -320,7 +320,15 @@ final class UnionImpl extends Union {
     if (curCountIn > 0) {
       if (sketchIn.isOrdered() && (sketchIn instanceof CompactSketch)) { //Use early stop
         //Ordered, thus compact
-        if (sketchIn.hasMemory()) {
+        if (sketchIn instanceof DirectCompressedCompactSketch) { //decode only up to the early stop
+          final HashIterator it = sketchIn.iterator();
+          while (it.next()) {
+            final long hashIn = it.get();
+            if (hashIn >= unionThetaLong_) { break; } // "early stop"
+            gadget_.hashUpdate(hashIn); //backdoor update, hash function is bypassed
+          }
+        }
+        else if (sketchIn.hasMemory()) {
           final Memory skMem = ((CompactSketch) sketchIn).getMemory();
           final int preambleLongs = skMem.getByte(PREAMBLE_LONGS_BYTE) & 0X3F;
           for (int i = 0; i < curCountIn; i++ ) {
@@ -366,9 +374,7 @@ final class UnionImpl extends Union {
     final int serVer = extractSerVer(skMem);
     final int fam = extractFamilyID(skMem);
 
-    if (serVer == 4) { // compressed ordered compact
-      // performance can be improved by decompression while performing the union
-      // potentially only partial decompression might be needed
+    if (serVer == 4) { // compressed ordered compact, decoded lazily up to the early stop
       ThetaUtil.checkSeedHashes(expectedSeedHash_, (short) extractSeedHash(skMem));
       final CompactSketch csk = CompactSketch.wrap(skMem);
       union(csk);
@@ -504,6 +510,20 @@ final class UnionImpl extends Union {
 
   //Restricted
 
+  /**
+   * Lowers the union theta to the given thetaLong if it is smaller, so that hashes at or above it
+   * are no longer admitted to the gadget. Used by ParallelUnion to share the minimum theta
+   * between partial unions.
+   * @param thetaLong the given thetaLong
+   */
+  void lowerUnionThetaLong(final long thetaLong) {
+    if (thetaLong >= unionThetaLong_) { return; }
+    unionThetaLong_ = thetaLong;
+    if (gadget_.hasMemory()) {
+      insertUnionThetaLong((WritableMemory)gadget_.getMemory(), unionThetaLong_);
+    }
+  }
+
   @Override
   long[] getCache() {
     return gadget_.getCache();
@@ -22,7 +22,7 @@ package org.apache.datasketches.theta;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.apache.datasketches.common.Util.LONG_MAX_VALUE_AS_DOUBLE;
 import static org.apache.datasketches.common.Util.checkBounds;
-import static org.apache.datasketches.hash.MurmurHash3.hash;
+import static org.apache.datasketches.hash.MurmurHash3.hash64;
 import static org.apache.datasketches.theta.CompactOperations.componentsToCompact;
 import static org.apache.datasketches.theta.PreambleUtil.BIG_ENDIAN_FLAG_MASK;
 import static org.apache.datasketches.theta.PreambleUtil.COMPACT_FLAG_MASK;
@@ -45,11 +45,13 @@ import static org.apache.datasketches.theta.UpdateReturnState.RejectedNullOrEmpt
 import java.nio.ByteBuffer;
 import java.util.Objects;
 
+import org.apache.datasketches.common.ConcurrentPropagationMetrics;
 import org.apache.datasketches.common.Family;
 import org.apache.datasketches.common.ResizeFactor;
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.memory.Memory;
 import org.apache.datasketches.memory.WritableMemory;
+import org.apache.datasketches.thetacommon.HashTableLayout;
 import org.apache.datasketches.thetacommon.ThetaUtil;
 
 /**
@@ -140,6 +142,26 @@ public abstract class UpdateSketch extends Sketch {
     return HeapQuickSelectSketch.heapifyInstance(srcMem, expectedSeed);
   }
 
+  /**
+   * Instantiates an on-heap QuickSelect UpdateSketch from Memory with the given hash table layout.
+   * The serialized hash table is converted to the given layout.
+   * @param srcMem <a href="{@docRoot}/resources/dictionary.html#mem">See Memory</a>
+   * It must have a size of at least 24 bytes and hold a QuickSelect sketch.
+   * @param expectedSeed the seed used to validate the given Memory image.
+   * <a href="{@docRoot}/resources/dictionary.html#seed">See Update Hash Seed</a>.
+   * @param layout the hash table layout of the returned sketch
+   * @return an UpdateSketch
+   */
+  public static UpdateSketch heapify(final Memory srcMem, final long expectedSeed, final HashTableLayout layout) {
+    Objects.requireNonNull(layout, "HashTableLayout must not be null");
+    final UpdateSketch sketch = heapify(srcMem, expectedSeed);
+    if (!(sketch instanceof HeapQuickSelectSketch)) {
+      throw new SketchesArgumentException("A hash table layout can only be given for a QuickSelect sketch.");
+    }
+    ((HeapQuickSelectSketch) sketch).setHashTableLayout(layout);
+    return sketch;
+  }
+
   //Sketch interface
 
   @Override
@@ -211,6 +233,23 @@ public abstract class UpdateSketch extends Sketch {
    */
   public abstract UpdateSketch rebuild();
 
+  /**
+   * Returns the background propagation metrics if this is a concurrent shared sketch or a local
+   * buffer of one, otherwise null. A local buffer returns the metrics of its shared sketch.
+   * @return the background propagation metrics, or null if this is not a concurrent sketch
+   */
+  public ConcurrentPropagationMetrics getPropagationMetrics() {
+    return null;
+  }
+
+  /**
+   * Returns the rebuild metrics if this is a direct QuickSelect sketch, otherwise null.
+   * @return the rebuild metrics, or null if this is not a direct QuickSelect sketch
+   */
+  public RebuildMetrics getRebuildMetrics() {
+    return null;
+  }
+
   /**
    * Present this sketch with a long.
    *
@@ -219,8 +258,7 @@ public abstract class UpdateSketch extends Sketch {
    * <a href="{@docRoot}/resources/dictionary.html#updateReturnState">See Update Return State</a>
    */
   public UpdateReturnState update(final long datum) {
-    final long[] data = { datum };
-    return hashUpdate(hash(data, getSeed())[0] >>> 1);
+    return hashUpdate(hash64(datum, getSeed()) >>> 1);
   }
 
   /**
@@ -236,8 +274,8 @@ public abstract class UpdateSketch extends Sketch {
    */
   public UpdateReturnState update(final double datum) {
     final double d = (datum == 0.0) ? 0.0 : datum; // canonicalize -0.0, 0.0
-    final long[] data = { Double.doubleToLongBits(d) };// canonicalize all NaN & +/- infinity forms
-    return hashUpdate(hash(data, getSeed())[0] >>> 1);
+    final long data = Double.doubleToLongBits(d);// canonicalize all NaN & +/- infinity forms
+    return hashUpdate(hash64(data, getSeed()) >>> 1);
   }
 
   /**
@@ -258,7 +296,7 @@ public abstract class UpdateSketch extends Sketch {
       return RejectedNullOrEmpty;
     }
     final byte[] data = datum.getBytes(UTF_8);
-    return hashUpdate(hash(data, getSeed())[0] >>> 1);
+    return hashUpdate(hash64(data, getSeed()) >>> 1);
   }
 
   /**
@@ -273,7 +311,7 @@ public abstract class UpdateSketch extends Sketch {
     if ((data == null) || (data.length == 0)) {
       return RejectedNullOrEmpty;
     }
-    return hashUpdate(hash(data, getSeed())[0] >>> 1);
+    return hashUpdate(hash64(data, getSeed()) >>> 1);
   }
 
   /**
@@ -288,7 +326,7 @@ public abstract class UpdateSketch extends Sketch {
     if (buffer == null || buffer.hasRemaining() == false) {
       return RejectedNullOrEmpty;
     }
-    return hashUpdate(hash(buffer, getSeed())[0] >>> 1);
+    return hashUpdate(hash64(buffer, getSeed()) >>> 1);
   }
 
   /**
@@ -306,7 +344,7 @@ public abstract class UpdateSketch extends Sketch {
     if ((data == null) || (data.length == 0)) {
       return RejectedNullOrEmpty;
     }
-    return hashUpdate(hash(data, getSeed())[0] >>> 1);
+    return hashUpdate(hash64(data, getSeed()) >>> 1);
   }
 
   /**
@@ -321,7 +359,7 @@ public abstract class UpdateSketch extends Sketch {
     if ((data == null) || (data.length == 0)) {
       return RejectedNullOrEmpty;
     }
-    return hashUpdate(hash(data, getSeed())[0] >>> 1);
+    return hashUpdate(hash64(data, getSeed()) >>> 1);
   }
 
   /**
@@ -336,7 +374,7 @@ public abstract class UpdateSketch extends Sketch {
     if ((data == null) || (data.length == 0)) {
       return RejectedNullOrEmpty;
     }
-    return hashUpdate(hash(data, getSeed())[0] >>> 1);
+    return hashUpdate(hash64(data, getSeed()) >>> 1);
   }
 
   //restricted methods
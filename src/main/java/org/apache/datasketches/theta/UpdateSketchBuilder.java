@@ -23,6 +23,9 @@ import static org.apache.datasketches.common.Util.LS;
 import static org.apache.datasketches.common.Util.TAB;
 import static org.apache.datasketches.common.Util.ceilingPowerOf2;
 
+import java.util.Objects;
+import java.util.concurrent.Executor;
+
 import org.apache.datasketches.common.Family;
 import org.apache.datasketches.common.ResizeFactor;
 import org.apache.datasketches.common.SketchesArgumentException;
@@ -31,6 +34,7 @@ import org.apache.datasketches.common.SuppressFBWarnings;
 import org.apache.datasketches.memory.DefaultMemoryRequestServer;
 import org.apache.datasketches.memory.MemoryRequestServer;
 import org.apache.datasketches.memory.WritableMemory;
+import org.apache.datasketches.thetacommon.HashTableLayout;
 import org.apache.datasketches.thetacommon.ThetaUtil;
 
 /**
@@ -45,9 +49,12 @@ public class UpdateSketchBuilder {
   private Family bFam;
   private float bP;
   private MemoryRequestServer bMemReqSvr;
+  private Executor bRebuildExecutor;
+  private HashTableLayout bLayout;
 
   //Fields for concurrent theta sketch
   private int bNumPoolThreads;
+  private Executor bPropagationExecutor;
   private int bLocalLgNomLongs;
   private boolean bPropagateOrderedCompact;
   private double bMaxConcurrencyError;
@@ -65,11 +72,14 @@ public class UpdateSketchBuilder {
    * be fixed at either {@link ResizeFactor#X1} or {@link ResizeFactor#X2}.</li>
    * <li>MemoryRequestServer (Direct only):
    * {@link org.apache.datasketches.memory.DefaultMemoryRequestServer}.</li>
+   * <li>RebuildExecutor (Direct only): null (rebuild synchronously)</li>
+   * <li>HashTableLayout (QuickSelect on the Java heap only): {@link HashTableLayout#DOUBLE_HASHING}</li>
    * </ul>
    * Parameters unique to the concurrent sketches only:
    * <ul>
    * <li>Number of local Nominal Entries: 4</li>
    * <li>Concurrent NumPoolThreads: 3</li>
+   * <li>Concurrent PropagationExecutor: null (use the internal pool threads)</li>
    * <li>Concurrent PropagateOrderedCompact: true</li>
    * <li>Concurrent MaxConcurrencyError: 0</li>
    * </ul>
@@ -81,8 +91,11 @@ public class UpdateSketchBuilder {
     bRF = ResizeFactor.X8;
     bFam = Family.QUICKSELECT;
     bMemReqSvr = new DefaultMemoryRequestServer();
+    bRebuildExecutor = null;
+    bLayout = HashTableLayout.DOUBLE_HASHING;
     // Default values for concurrent sketch
     bNumPoolThreads = ConcurrentPropagationService.NUM_POOL_THREADS;
+    bPropagationExecutor = null;
     bLocalLgNomLongs = 4; //default is smallest legal QS sketch
     bPropagateOrderedCompact = true;
     bMaxConcurrencyError = 0;
@@ -267,6 +280,64 @@ public class UpdateSketchBuilder {
     return bMemReqSvr;
   }
 
+  /**
+   * Sets the Executor that runs the rebuilds of direct QuickSelect sketches built afterwards by
+   * this builder with a destination Memory. Once such a sketch has reached its full hash table size,
+   * each time the hash table reaches its rebuild threshold theta must be lowered and the hash table
+   * rebuilt, which is a pause of the updating thread proportional to <i>k</i>.
+   *
+   * <p>With an executor the quick select and rebuild run in the background, into a scratch array
+   * on the heap of the full hash table size, which is allocated once per sketch. Meanwhile the
+   * given Memory is only read and new hashes go to a side table on the heap of up to <i>k</i>/8
+   * entries. When the rebuild is done the updating thread copies the rebuilt hash table back into
+   * the given Memory and inserts the hashes of the side table, so the sketch stays in the given
+   * Memory. The sketch then retains the same hashes and theta as one rebuilt synchronously. If the side table fills up, or the
+   * sketch is read, before the rebuild is done, the updating thread waits for it. If the executor
+   * rejects a rebuild, the updating thread runs it.</p>
+   *
+   * <p>The pauses are reported by the {@link UpdateSketch#getRebuildMetrics() rebuild metrics}.
+   * If null, which is the default, rebuilds are synchronous. The executor is never shut down by
+   * the sketch.</p>
+   *
+   * @param executor the given Executor, or null to rebuild synchronously
+   * @return this UpdateSketchBuilder
+   */
+  public UpdateSketchBuilder setRebuildExecutor(final Executor executor) {
+    bRebuildExecutor = executor;
+    return this;
+  }
+
+  /**
+   * Gets the Executor used for background rebuilds of direct QuickSelect sketches.
+   * @return the Executor used for background rebuilds, or null if rebuilds are synchronous
+   */
+  public Executor getRebuildExecutor() {
+    return bRebuildExecutor;
+  }
+
+  /**
+   * Sets the layout of the hash table of QuickSelect sketches built afterwards by this builder on
+   * the Java heap. Sketches built with a destination Memory and concurrent shared sketches always use
+   * {@link HashTableLayout#DOUBLE_HASHING}, which is the layout of the serialized form, and
+   * building one with another layout throws an exception. Serializing a sketch converts its hash
+   * table to that layout.
+   *
+   * @param layout the given HashTableLayout
+   * @return this UpdateSketchBuilder
+   */
+  public UpdateSketchBuilder setHashTableLayout(final HashTableLayout layout) {
+    bLayout = Objects.requireNonNull(layout, "HashTableLayout must not be null");
+    return this;
+  }
+
+  /**
+   * Gets the layout of the hash table of QuickSelect sketches on the Java heap.
+   * @return the HashTableLayout
+   */
+  public HashTableLayout getHashTableLayout() {
+    return bLayout;
+  }
+
   /**
    * Sets the number of pool threads used for background propagation in the concurrent sketches.
    * @param numPoolThreads the given number of pool threads
@@ -283,6 +354,32 @@ public class UpdateSketchBuilder {
     return bNumPoolThreads;
   }
 
+  /**
+   * Sets the Executor that runs the background propagation of the concurrent shared sketches
+   * built afterwards by this builder. Any Executor may be given, including one that starts a
+   * virtual thread per task. The propagation jobs of one shared sketch are still run one at a time
+   * and in order; if the executor rejects a job, the local buffer that submitted it runs it
+   * instead. The executor is never shut down by the sketch.
+   *
+   * <p>If null, which is the default, the internal pool of <i>NumPoolThreads</i> daemon threads
+   * is used.</p>
+   *
+   * @param executor the given Executor, or null for the internal pool
+   * @return this UpdateSketchBuilder
+   */
+  public UpdateSketchBuilder setPropagationExecutor(final Executor executor) {
+    bPropagationExecutor = executor;
+    return this;
+  }
+
+  /**
+   * Gets the Executor used for background propagation in the concurrent sketches.
+   * @return the Executor used for background propagation, or null if the internal pool is used
+   */
+  public Executor getPropagationExecutor() {
+    return bPropagationExecutor;
+  }
+
   /**
    * Sets the Propagate Ordered Compact flag to the given value. Used with concurrent sketches.
    *
@@ -366,11 +463,18 @@ public class UpdateSketchBuilder {
       }
       case QUICKSELECT: {
         if (dstMem == null) {
-          sketch =  new HeapQuickSelectSketch(bLgNomLongs, bSeed, bP, bRF, false);
+          final HeapQuickSelectSketch hqss = new HeapQuickSelectSketch(bLgNomLongs, bSeed, bP, bRF, false);
+          hqss.setHashTableLayout(bLayout);
+          sketch = hqss;
         }
         else {
-          sketch = new DirectQuickSelectSketch(
+          if (bLayout != HashTableLayout.DOUBLE_HASHING) {
+            throw new SketchesArgumentException("A Direct sketch must use the DOUBLE_HASHING hash table layout.");
+          }
+          final DirectQuickSelectSketch dqss = new DirectQuickSelectSketch(
               bLgNomLongs, bSeed, bP, bRF, bMemReqSvr, dstMem, false);
+          if (bRebuildExecutor != null) { dqss.setRebuildExecutor(bRebuildExecutor); }
+          sketch = dqss;
         }
         break;
       }
@@ -389,6 +493,7 @@ public class UpdateSketchBuilder {
    * <p>The parameters unique to the shared concurrent sketch are:
    * <ul>
    * <li>Number of Pool Threads (default is 3)</li>
+   * <li>Propagation Executor (default is null, which uses the pool threads)</li>
    * <li>Maximum Concurrency Error</li>
    * </ul>
    *
@@ -411,6 +516,7 @@ public class UpdateSketchBuilder {
    * <p>The parameters unique to the shared concurrent sketch are:
    * <ul>
    * <li>Number of Pool Threads (default is 3)</li>
+   * <li>Propagation Executor (default is null, which uses the pool threads)</li>
    * <li>Maximum Concurrency Error</li>
    * </ul>
    *
@@ -427,11 +533,13 @@ public class UpdateSketchBuilder {
   @SuppressFBWarnings(value = "ST_WRITE_TO_STATIC_FROM_INSTANCE_METHOD",
       justification = "Harmless in Builder, fix later")
   public UpdateSketch buildShared(final WritableMemory dstMem) {
+    checkSharedHashTableLayout();
     ConcurrentPropagationService.NUM_POOL_THREADS = bNumPoolThreads;
     if (dstMem == null) {
-      return new ConcurrentHeapQuickSelectSketch(bLgNomLongs, bSeed, bMaxConcurrencyError);
+      return new ConcurrentHeapQuickSelectSketch(bLgNomLongs, bSeed, bMaxConcurrencyError, bPropagationExecutor);
     } else {
-      return new ConcurrentDirectQuickSelectSketch(bLgNomLongs, bSeed, bMaxConcurrencyError, dstMem);
+      return new ConcurrentDirectQuickSelectSketch(bLgNomLongs, bSeed, bMaxConcurrencyError, dstMem,
+          bPropagationExecutor);
     }
   }
 
@@ -444,6 +552,7 @@ public class UpdateSketchBuilder {
    * <p>The parameters unique to the shared concurrent sketch are:
    * <ul>
    * <li>Number of Pool Threads (default is 3)</li>
+   * <li>Propagation Executor (default is null, which uses the pool threads)</li>
    * <li>Maximum Concurrency Error</li>
    * </ul>
    *
@@ -462,11 +571,20 @@ public class UpdateSketchBuilder {
   @SuppressFBWarnings(value = "ST_WRITE_TO_STATIC_FROM_INSTANCE_METHOD",
       justification = "Harmless in Builder, fix later")
   public UpdateSketch buildSharedFromSketch(final UpdateSketch sketch, final WritableMemory dstMem) {
+    checkSharedHashTableLayout();
     ConcurrentPropagationService.NUM_POOL_THREADS = bNumPoolThreads;
     if (dstMem == null) {
-      return new ConcurrentHeapQuickSelectSketch(sketch, bSeed, bMaxConcurrencyError);
+      return new ConcurrentHeapQuickSelectSketch(sketch, bSeed, bMaxConcurrencyError, bPropagationExecutor);
     } else {
-      return new ConcurrentDirectQuickSelectSketch(sketch, bSeed, bMaxConcurrencyError, dstMem);
+      return new ConcurrentDirectQuickSelectSketch(sketch, bSeed, bMaxConcurrencyError, dstMem,
+          bPropagationExecutor);
+    }
+  }
+
+  private void checkSharedHashTableLayout() {
+    if (bLayout != HashTableLayout.DOUBLE_HASHING) {
+      throw new SketchesArgumentException(
+          "A concurrent shared sketch must use the DOUBLE_HASHING hash table layout.");
     }
   }
 
@@ -481,6 +599,9 @@ public class UpdateSketchBuilder {
    * <li>Propagate Ordered Compact flag</li>
    * </ul>
    *
+   * <p>The local buffer propagates through the executor of the given shared sketch and reports
+   * to its {@link UpdateSketch#getPropagationMetrics() propagation metrics}.</p>
+   *
    * @param shared the concurrent shared sketch to be accessed via the concurrent local sketch.
    * @return an UpdateSketch to be used as a per-thread local buffer.
    */
@@ -506,8 +627,13 @@ public class UpdateSketchBuilder {
     sb.append("Family:").append(TAB).append(bFam).append(LS);
     final String mrsStr = bMemReqSvr.getClass().getSimpleName();
     sb.append("MemoryRequestServer:").append(TAB).append(mrsStr).append(LS);
+    final String rbStr = (bRebuildExecutor == null) ? "null" : bRebuildExecutor.getClass().getSimpleName();
+    sb.append("RebuildExecutor:").append(TAB).append(rbStr).append(LS);
+    sb.append("HashTableLayout:").append(TAB).append(bLayout).append(LS);
     sb.append("Propagate Ordered Compact").append(TAB).append(bPropagateOrderedCompact).append(LS);
     sb.append("NumPoolThreads").append(TAB).append(bNumPoolThreads).append(LS);
+    final String exStr = (bPropagationExecutor == null) ? "null" : bPropagationExecutor.getClass().getSimpleName();
+    sb.append("PropagationExecutor").append(TAB).append(exStr).append(LS);
     sb.append("MaxConcurrencyError").append(TAB).append(bMaxConcurrencyError).append(LS);
     sb.append("MaxNumLocalThreads").append(TAB).append(bMaxNumLocalThreads).append(LS);
     return sb.toString();
@@ -183,6 +183,125 @@ public final class HashOperations {
     return count;
   }
 
+  //ON-HEAP, LINEAR PROBING
+
+  /**
+   * This is a linear probing search scheme for on-heap. The probe starts at the slot given by the
+   * low bits of the hash and moves to the next slot, so consecutive probes stay within the same or the
+   * adjacent cache line. Returns the index if found, -1 if not found.
+   *
+   * @param hashTable The hash table to search. Its size must be a power of 2.
+   * @param lgArrLongs The log_base2(hashTable.length).
+   * <a href="{@docRoot}/resources/dictionary.html#lgArrLongs">See lgArrLongs</a>.
+   * @param hash The hash value to search for. It must not be zero.
+   * @return Current probe index if found, -1 if not found.
+   */
+  public static int hashSearchLinear(final long[] hashTable, final int lgArrLongs, final long hash) {
+    if (hash == 0) {
+      throw new SketchesArgumentException("Given hash must not be zero: " + hash);
+    }
+    final int arrayMask = (1 << lgArrLongs) - 1;
+    int curProbe = (int) (hash & arrayMask);
+    final int loopIndex = curProbe;
+    do {
+      final long arrVal = hashTable[curProbe];
+      if (arrVal == EMPTY) {
+        return -1; // not found
+      } else if (arrVal == hash) {
+        return curProbe; // found
+      }
+      curProbe = (curProbe + 1) & arrayMask;
+    } while (curProbe != loopIndex);
+    return -1;
+  }
+
+  /**
+   * This is a linear probing insert scheme for on-heap.
+   * This method assumes that the input hash is not a duplicate.
+   * Returns the index of insertion, which is always positive or zero.
+   * Throws an exception if the table has no empty slot.
+   *
+   * @param hashTable the hash table to insert into. Its size must be a power of 2.
+   * @param lgArrLongs The log_base2(hashTable.length).
+   * <a href="{@docRoot}/resources/dictionary.html#lgArrLongs">See lgArrLongs</a>.
+   * @param hash The hash value to be inserted into an empty slot. It must not be zero.
+   * @return index of insertion.  Always positive or zero.
+   */
+  public static int hashInsertOnlyLinear(final long[] hashTable, final int lgArrLongs, final long hash) {
+    final int arrayMask = (1 << lgArrLongs) - 1;
+    int curProbe = (int) (hash & arrayMask);
+    final int loopIndex = curProbe;
+    do {
+      if (hashTable[curProbe] == EMPTY) {
+        hashTable[curProbe] = hash;
+        return curProbe;
+      }
+      curProbe = (curProbe + 1) & arrayMask;
+    } while (curProbe != loopIndex);
+    throw new SketchesArgumentException("No empty slot in table!");
+  }
+
+  /**
+   * This is a linear probing insert scheme for on-heap.
+   * Returns index &ge; 0 if found (duplicate); &lt; 0 if inserted, inserted at -(index + 1).
+   * Throws an exception if the value is not found and table has no empty slot.
+   *
+   * @param hashTable The hash table to insert into. Its size must be a power of 2.
+   * @param lgArrLongs The log_base2(hashTable.length).
+   * <a href="{@docRoot}/resources/dictionary.html#lgArrLongs">See lgArrLongs</a>.
+   * @param hash The hash value to be potentially inserted into an empty slot only if it is not
+   * a duplicate of any other hash value in the table. It must not be zero.
+   * @return index &ge; 0 if found (duplicate); &lt; 0 if inserted, inserted at -(index + 1).
+   */
+  public static int hashSearchOrInsertLinear(final long[] hashTable, final int lgArrLongs, final long hash) {
+    final int arrayMask = (1 << lgArrLongs) - 1;
+    int curProbe = (int) (hash & arrayMask);
+    final int loopIndex = curProbe;
+    do {
+      final long arrVal = hashTable[curProbe];
+      if (arrVal == EMPTY) {
+        hashTable[curProbe] = hash; // insert value
+        return ~curProbe;
+      } else if (arrVal == hash) {
+        return curProbe; // found a duplicate
+      }
+      curProbe = (curProbe + 1) & arrayMask;
+    } while (curProbe != loopIndex);
+    throw new SketchesArgumentException("Hash not found and no empty slots!");
+  }
+
+  /**
+   * Inserts the given long array into the given linear probing hashTable of the target size,
+   * ignores duplicates and counts the values inserted.
+   * This is the linear probing equivalent of
+   * {@link #hashArrayInsert(long[], long[], int, long)}, with the same checks.
+   *
+   * @param srcArr the source hash array to be potentially inserted
+   * @param hashTable The hash table to insert into. Its size must be a power of 2.
+   * @param lgArrLongs The log_base2(hashTable.length).
+   * <a href="{@docRoot}/resources/dictionary.html#lgArrLongs">See lgArrLongs</a>.
+   * @param thetaLong The theta value that all input hash values are compared against.
+   * It must greater than zero.
+   * <a href="{@docRoot}/resources/dictionary.html#thetaLong">See Theta Long</a>
+   * @return the count of values actually inserted
+   */
+  public static int hashArrayInsertLinear(final long[] srcArr, final long[] hashTable,
+      final int lgArrLongs, final long thetaLong) {
+    int count = 0;
+    checkThetaCorruption(thetaLong);
+    for (int i = 0; i < srcArr.length; i++) {
+      final long hash = srcArr[i];
+      checkHashCorruption(hash);
+      if (continueCondition(thetaLong, hash)) {
+        continue;
+      }
+      if (hashSearchOrInsertLinear(hashTable, lgArrLongs, hash) < 0) {
+        count++;
+      }
+    }
+    return count;
+  }
+
   //With Memory or WritableMemory
 
   /**
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.thetacommon;
+
+/**
+ * The layout of the on-heap hash tables of the QuickSelect sketches.
+ *
+ * <p>The layout only affects the sketch while it is on the Java heap. Serialized sketches always
+ * use the {@link #DOUBLE_HASHING} layout, so a sketch with another layout is converted when it is
+ * serialized and can be read back by any version of the library.</p>
+ */
+public enum HashTableLayout {
+
+  /**
+   * Open addressing with double hashing: the probe stride is derived from the hash, so successive
+   * probes are spread over the whole table. This tolerates a high load factor, and the table is
+   * rebuilt at {@link ThetaUtil#REBUILD_THRESHOLD}, but at large <i>k</i> almost every probe is a
+   * cache miss. This is the default and the layout of the serialized sketches.
+   */
+  DOUBLE_HASHING(ThetaUtil.REBUILD_THRESHOLD) {
+    @Override
+    public int hashSearch(final long[] hashTable, final int lgArrLongs, final long hash) {
+      return HashOperations.hashSearch(hashTable, lgArrLongs, hash);
+    }
+
+    @Override
+    public int hashInsertOnly(final long[] hashTable, final int lgArrLongs, final long hash) {
+      return HashOperations.hashInsertOnly(hashTable, lgArrLongs, hash);
+    }
+
+    @Override
+    public int hashSearchOrInsert(final long[] hashTable, final int lgArrLongs, final long hash) {
+      return HashOperations.hashSearchOrInsert(hashTable, lgArrLongs, hash);
+    }
+
+    @Override
+    public int hashArrayInsert(final long[] srcArr, final long[] hashTable, final int lgArrLongs,
+        final long thetaLong) {
+      return HashOperations.hashArrayInsert(srcArr, hashTable, lgArrLongs, thetaLong);
+    }
+  },
+
+  /**
+   * Open addressing with linear probing: successive probes visit adjacent slots, so most searches
+   * touch a single cache line. Clusters grow quickly with the load factor, so the table is rebuilt
+   * at {@link #LINEAR_PROBING_REBUILD_THRESHOLD}, which means more frequent rebuilds at full size.
+   */
+  LINEAR_PROBING(HashTableLayout.LINEAR_PROBING_REBUILD_THRESHOLD) {
+    @Override
+    public int hashSearch(final long[] hashTable, final int lgArrLongs, final long hash) {
+      return HashOperations.hashSearchLinear(hashTable, lgArrLongs, hash);
+    }
+
+    @Override
+    public int hashInsertOnly(final long[] hashTable, final int lgArrLongs, final long hash) {
+      return HashOperations.hashInsertOnlyLinear(hashTable, lgArrLongs, hash);
+    }
+
+    @Override
+    public int hashSearchOrInsert(final long[] hashTable, final int lgArrLongs, final long hash) {
+      return HashOperations.hashSearchOrInsertLinear(hashTable, lgArrLongs, hash);
+    }
+
+    @Override
+    public int hashArrayInsert(final long[] srcArr, final long[] hashTable, final int lgArrLongs,
+        final long thetaLong) {
+      return HashOperations.hashArrayInsertLinear(srcArr, hashTable, lgArrLongs, thetaLong);
+    }
+  };
+
+  /**
+   * The load factor at which a full size linear probing hash table is rebuilt.
+   */
+  public static final double LINEAR_PROBING_REBUILD_THRESHOLD = 3.0 / 4.0;
+
+  private final double rebuildThreshold;
+
+  HashTableLayout(final double rebuildThreshold) {
+    this.rebuildThreshold = rebuildThreshold;
+  }
+
+  /**
+   * Returns the load factor at which a hash table that has reached its full size is rebuilt.
+   * @return the load factor at which a full size hash table is rebuilt
+   */
+  public double getRebuildThreshold() {
+    return rebuildThreshold;
+  }
+
+  /**
+   * Returns the load factor at which a hash table that has not reached its full size is resized.
+   * This is the same for all layouts.
+   * @return the load factor at which a hash table is resized
+   */
+  public double getResizeThreshold() {
+    return ThetaUtil.RESIZE_THRESHOLD;
+  }
+
+  /**
+   * Searches the given hash table for the given hash.
+   * @param hashTable The hash table to search. Its size must be a power of 2.
+   * @param lgArrLongs The log_base2(hashTable.length).
+   * @param hash The hash value to search for. It must not be zero.
+   * @return Current probe index if found, -1 if not found.
+   */
+  public abstract int hashSearch(long[] hashTable, int lgArrLongs, long hash);
+
+  /**
+   * Inserts the given hash, which must not be a duplicate, into the given hash table.
+   * @param hashTable the hash table to insert into. Its size must be a power of 2.
+   * @param lgArrLongs The log_base2(hashTable.length).
+   * @param hash The hash value to be inserted into an empty slot. It must not be zero.
+   * @return index of insertion.  Always positive or zero.
+   */
+  public abstract int hashInsertOnly(long[] hashTable, int lgArrLongs, long hash);
+
+  /**
+   * Inserts the given hash into the given hash table if it is not a duplicate.
+   * @param hashTable The hash table to insert into. Its size must be a power of 2.
+   * @param lgArrLongs The log_base2(hashTable.length).
+   * @param hash The hash value to be inserted. It must not be zero.
+   * @return index &ge; 0 if found (duplicate); &lt; 0 if inserted, inserted at -(index + 1).
+   */
+  public abstract int hashSearchOrInsert(long[] hashTable, int lgArrLongs, long hash);
+
+  /**
+   * Inserts the hashes of the given array that are less than thetaLong into the given hash table,
+   * ignoring zeros and duplicates.
+   * @param srcArr the source hash array to be potentially inserted
+   * @param hashTable The hash table to insert into. Its size must be a power of 2.
+   * @param lgArrLongs The log_base2(hashTable.length).
+   * @param thetaLong The theta value that all input hash values are compared against.
+   * @return the count of values actually inserted
+   */
+  public abstract int hashArrayInsert(long[] srcArr, long[] hashTable, int lgArrLongs, long thetaLong);
+
+}
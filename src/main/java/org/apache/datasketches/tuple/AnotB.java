@@ -30,6 +30,7 @@ import java.util.Arrays;
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.common.SketchesStateException;
 import org.apache.datasketches.common.SuppressFBWarnings;
+import org.apache.datasketches.thetacommon.HashTableLayout;
 import org.apache.datasketches.thetacommon.SetOperationCornerCases;
 import org.apache.datasketches.thetacommon.SetOperationCornerCases.AnotbAction;
 import org.apache.datasketches.thetacommon.SetOperationCornerCases.CornerCase;
@@ -76,13 +77,16 @@ public final class AnotB<S extends Summary> {
   private int curCount_ = 0;
 
   private static final Method GET_CACHE;
+  private static final Method GET_HASH_TABLE_LAYOUT;
 
   static {
     try {
       GET_CACHE = org.apache.datasketches.theta.Sketch.class.getDeclaredMethod("getCache");
       GET_CACHE.setAccessible(true);
+      GET_HASH_TABLE_LAYOUT = org.apache.datasketches.theta.Sketch.class.getDeclaredMethod("getHashTableLayout");
+      GET_HASH_TABLE_LAYOUT.setAccessible(true);
     } catch (final Exception e) {
-      throw new SketchesStateException("Could not reflect getCache(): " + e);
+      throw new SketchesStateException("Could not reflect getCache() or getHashTableLayout(): " + e);
     }
   }
 
@@ -561,13 +565,16 @@ public final class AnotB<S extends Summary> {
     final long[] hashTableB; //read only
 
     final long[] hashCacheB;
-    try { hashCacheB = (long[])GET_CACHE.invoke(skB);
+    final HashTableLayout layoutB;
+    try {
+      hashCacheB = (long[])GET_CACHE.invoke(skB);
+      layoutB = (HashTableLayout)GET_HASH_TABLE_LAYOUT.invoke(skB);
     } catch (final Exception e) { throw new SketchesStateException("Reflection Exception " + e); }
 
     if (skB instanceof org.apache.datasketches.theta.CompactSketch) {
       final int countB = skB.getRetainedEntries(true);
       hashTableB = convertToHashTable(hashCacheB, countB, minThetaLong, ThetaUtil.REBUILD_THRESHOLD);
-    } else {
+    } else { //searched in place, with its own layout
       hashTableB = hashCacheB;
     }
 
@@ -581,7 +588,7 @@ public final class AnotB<S extends Summary> {
     for (int i = 0; i < countA; i++) {
       final long hash = hashArrA[i];
       if (hash != 0 && hash < minThetaLong) { //skips hashes of A >= minTheta
-        final int index = hashSearch(hashTableB, lgHTBLen, hash);
+        final int index = layoutB.hashSearch(hashTableB, lgHTBLen, hash);
         if (index == -1) { //not found
           tmpHashArrA[nonMatches] = hash;
           tmpSummaryArrA[nonMatches] = (S) summaryArrA[i].copy();
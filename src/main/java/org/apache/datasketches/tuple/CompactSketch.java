@@ -23,11 +23,13 @@ import static org.apache.datasketches.thetacommon.HashOperations.count;
 
 import java.lang.reflect.Array;
 import java.nio.ByteOrder;
+import java.util.Arrays;
 
 import org.apache.datasketches.common.ByteArrayUtil;
 import org.apache.datasketches.common.Family;
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.theta.BitPacking;
 
 /**
  * CompactSketches are never created directly. They are created as a result of
@@ -43,13 +45,14 @@ public final class CompactSketch<S extends Summary> extends Sketch<S> {
   private static final byte serialVersionWithSummaryClassNameUID = 1;
   private static final byte serialVersionUIDLegacy = 2;
   private static final byte serialVersionUID = 3;
+  private static final byte serialVersionCompressedUID = 4;
   private static final short defaultSeedHash = (short) 37836; // for compatibility with C++
   private final long[] hashArr_;
   private S[] summaryArr_;
 
   private enum FlagsLegacy { IS_BIG_ENDIAN, IS_EMPTY, HAS_ENTRIES, IS_THETA_INCLUDED }
 
-  private enum Flags { IS_BIG_ENDIAN, IS_READ_ONLY, IS_EMPTY, IS_COMPACT, IS_ORDERED }
+  enum Flags { IS_BIG_ENDIAN, IS_READ_ONLY, IS_EMPTY, IS_COMPACT, IS_ORDERED }
 
   /**
    * Create a CompactSketch from correct components
@@ -79,13 +82,30 @@ public final class CompactSketch<S extends Summary> extends Sketch<S> {
     final byte version = mem.getByte(offset++);
     final byte familyId = mem.getByte(offset++);
     SerializerDeserializer.validateFamily(familyId, preambleLongs);
-    if (version > serialVersionUID) {
+    if (version > serialVersionCompressedUID) {
       throw new SketchesArgumentException(
-          "Unsupported serial version. Expected: " + serialVersionUID + " or lower, actual: " + version);
+          "Unsupported serial version. Expected: " + serialVersionCompressedUID + " or lower, actual: " + version);
     }
     SerializerDeserializer
       .validateType(mem.getByte(offset++), SerializerDeserializer.SketchType.CompactSketch);
-    if (version <= serialVersionUIDLegacy) { // legacy serial format
+    if (version == serialVersionCompressedUID) { // compressed serial format
+      final int entryBits = mem.getByte(offset++) & 0xff;
+      offset++; //skip flags, always compact, read-only and ordered
+      offset += 2; //skip seed hash
+      empty_ = false;
+      thetaLong_ = Long.MAX_VALUE;
+      if (preambleLongs > 1) {
+        thetaLong_ = mem.getLong(offset);
+        offset += Long.BYTES;
+      }
+      final int count = mem.getInt(offset);
+      offset += Integer.BYTES;
+      hashArr_ = new long[count];
+      offset += BitPacking.unpackDeltas(mem, offset, hashArr_, count, entryBits);
+      for (int i = 0; i < count; i++) {
+        offset += readSummary(mem, offset, i, count, deserializer);
+      }
+    } else if (version <= serialVersionUIDLegacy) { // legacy serial format
       final byte flags = mem.getByte(offset++);
       final boolean isBigEndian = (flags & 1 << FlagsLegacy.IS_BIG_ENDIAN.ordinal()) > 0;
       if (isBigEndian ^ ByteOrder.nativeOrder().equals(ByteOrder.BIG_ENDIAN)) {
@@ -245,6 +265,68 @@ public final class CompactSketch<S extends Summary> extends Sketch<S> {
     return bytes;
   }
 
+  // Layout of the compressed (Serial Version 4) form:
+  // Long || Start Byte Adr:
+  // Adr:
+  //      ||    7   |    6   |    5   |    4   |    3   |    2   |    1   |     0              |
+  //  0   ||    seed hash    |  Flags | #Bits  | SkType | FamID  | SerVer |  Preamble_Longs    |
+  //      ||   15   |   14   |   13   |   12   |   11   |   10   |    9   |     8              |
+  //  1   ||---------------------------Theta Long, only if estimating----------------------------|
+  // followed by the number of retained entries as an int, the hash deltas in ascending hash order,
+  // bit-packed with #Bits bits each (the same layout as the compressed theta CompactSketch),
+  // and finally the summaries in the same order.
+
+  /**
+   * Gets the sketch as a compressed byte array. The hashes are stored in ascending order as
+   * bit-packed deltas, which is usually several times smaller than the full 64-bit hashes.
+   * Empty sketches and sketches with a single item in exact mode are not compressed.
+   * Both forms can be read back by heapify.
+   * @return the sketch as a compressed byte array
+   */
+  public byte[] toByteArrayCompressed() {
+    final int count = getRetainedEntries();
+    if (count == 0 || (count == 1 && !isEstimationMode())) { return toByteArray(); }
+    final long[] hashes = hashArr_.clone();
+    Arrays.sort(hashes);
+    final byte[][] summariesBytes = new byte[count][];
+    int summariesSizeBytes = 0;
+    for (int i = 0; i < count; i++) {
+      final int index = Arrays.binarySearch(hashes, hashArr_[i]);
+      summariesBytes[index] = summaryArr_[i].toByteArray();
+      summariesSizeBytes += summariesBytes[index].length;
+    }
+    final int entryBits = BitPacking.computeDeltaBits(hashes, count);
+    final int preambleLongs = isEstimationMode() ? 2 : 1;
+    final int sizeBytes = Long.BYTES * preambleLongs + Integer.BYTES
+        + (int) (((long) count * entryBits + 7) >>> 3) + summariesSizeBytes;
+    final byte[] bytes = new byte[sizeBytes];
+    int offset = 0;
+    bytes[offset++] = (byte) preambleLongs;
+    bytes[offset++] = serialVersionCompressedUID;
+    bytes[offset++] = (byte) Family.TUPLE.getID();
+    bytes[offset++] = (byte) SerializerDeserializer.SketchType.CompactSketch.ordinal();
+    bytes[offset++] = (byte) entryBits;
+    bytes[offset++] = (byte) (
+        (1 << Flags.IS_COMPACT.ordinal())
+      | (1 << Flags.IS_READ_ONLY.ordinal())
+      | (1 << Flags.IS_ORDERED.ordinal())
+    );
+    ByteArrayUtil.putShortLE(bytes, offset, defaultSeedHash);
+    offset += Short.BYTES;
+    if (isEstimationMode()) {
+      ByteArrayUtil.putLongLE(bytes, offset, thetaLong_);
+      offset += Long.BYTES;
+    }
+    ByteArrayUtil.putIntLE(bytes, offset, count);
+    offset += Integer.BYTES;
+    offset += BitPacking.packDeltas(hashes, count, entryBits, bytes, offset);
+    for (int i = 0; i < count; i++) {
+      System.arraycopy(summariesBytes[i], 0, bytes, offset, summariesBytes[i].length);
+      offset += summariesBytes[i].length;
+    }
+    return bytes;
+  }
+
   @Override
   public TupleSketchIterator<S> iterator() {
     return new TupleSketchIterator<>(hashArr_, summaryArr_);
@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.datasketches.common.ConcurrentPropagationMetrics;
+import org.apache.datasketches.common.ConcurrentPropagator;
+
+/**
+ * A concurrent shared tuple sketch. It reflects all data processed by one or more update threads,
+ * each of which updates its own local buffer obtained from
+ * {@link UpdatableSketchBuilder#buildLocal(ConcurrentSharedTupleSketch)}. When a local buffer
+ * fills up its content is handed to this sketch and absorbed in the background, so the updating
+ * threads never contend on a lock. Summaries of keys that are present both here and in a
+ * propagated buffer are combined with the given SummarySetOperations <i>union</i>, which therefore
+ * must be consistent with how the summaries are updated.
+ *
+ * <p>The estimate is served from a snapshot taken after every propagation and never blocks.
+ * The other queries briefly exclude propagation. Data still held in local buffers is not reflected
+ * until the buffers propagate, either because they fill up or because they are flushed.</p>
+ *
+ * @param <S> type of Summary
+ */
+public final class ConcurrentSharedTupleSketch<S extends Summary> {
+  private final QuickSelectSketch<S> sketch_;
+  private final SummarySetOperations<S> summarySetOps_;
+  private final ConcurrentPropagator propagator_;
+
+  // Theta value and estimate of the sketch, updated after every propagation
+  private volatile long volatileThetaLong_;
+  private volatile double volatileEstimate_;
+
+  ConcurrentSharedTupleSketch(final int nomEntries, final int lgResizeFactor,
+      final float samplingProbability, final SummaryFactory<S> summaryFactory,
+      final SummarySetOperations<S> summarySetOps, final Executor executor) {
+    sketch_ = new QuickSelectSketch<>(nomEntries, lgResizeFactor, samplingProbability, summaryFactory);
+    summarySetOps_ = summarySetOps;
+    propagator_ = new ConcurrentPropagator(executor);
+    updateSnapshot();
+  }
+
+  /**
+   * Estimates the cardinality of the set (number of unique values presented to the sketch)
+   * @return best estimate of the number of unique values
+   */
+  public double getEstimate() {
+    return volatileEstimate_;
+  }
+
+  /**
+   * Gets the approximate lower error bound given the specified number of Standard Deviations.
+   * @param numStdDev
+   * <a href="{@docRoot}/resources/dictionary.html#numStdDev">See Number of Standard Deviations</a>
+   * @return the lower bound.
+   */
+  public synchronized double getLowerBound(final int numStdDev) {
+    return sketch_.getLowerBound(numStdDev);
+  }
+
+  /**
+   * Gets the approximate upper error bound given the specified number of Standard Deviations.
+   * @param numStdDev
+   * <a href="{@docRoot}/resources/dictionary.html#numStdDev">See Number of Standard Deviations</a>
+   * @return the upper bound.
+   */
+  public synchronized double getUpperBound(final int numStdDev) {
+    return sketch_.getUpperBound(numStdDev);
+  }
+
+  /**
+   * <a href="{@docRoot}/resources/dictionary.html#empty">See Empty</a>
+   * @return true if empty.
+   */
+  public synchronized boolean isEmpty() {
+    return sketch_.isEmpty();
+  }
+
+  /**
+   * Returns true if the sketch is Estimation Mode (as opposed to Exact Mode).
+   * @return true if the sketch is in estimation mode.
+   */
+  public synchronized boolean isEstimationMode() {
+    return sketch_.isEstimationMode();
+  }
+
+  /**
+   * @return number of retained entries
+   */
+  public synchronized int getRetainedEntries() {
+    return sketch_.getRetainedEntries();
+  }
+
+  /**
+   * Gets the value of theta as a long
+   * @return the value of theta as a long
+   */
+  public long getThetaLong() {
+    return volatileThetaLong_;
+  }
+
+  /**
+   * Gets the value of theta as a double between zero and one
+   * @return the value of theta as a double
+   */
+  public double getTheta() {
+    return volatileThetaLong_ / (double) Long.MAX_VALUE;
+  }
+
+  /**
+   * Returns a compact copy of the current state of this sketch, which may be used with all of
+   * the tuple set operations and serialized.
+   * @return compact sketch
+   */
+  public synchronized CompactSketch<S> compact() {
+    return sketch_.compact();
+  }
+
+  /**
+   * Gets the SummarySetOperations used to combine propagated summaries
+   * @return the SummarySetOperations
+   */
+  public SummarySetOperations<S> getSummarySetOperations() {
+    return summarySetOps_;
+  }
+
+  /**
+   * Returns the number of propagations handed to the executor that have not completed yet.
+   * @return the number of pending propagations
+   */
+  public long getPendingPropagations() {
+    return propagator_.getMetrics().getPendingPropagations();
+  }
+
+  /**
+   * Returns the propagation metrics of this sketch and of its local buffers.
+   * @return the propagation metrics of this sketch
+   */
+  public ConcurrentPropagationMetrics getPropagationMetrics() {
+    return propagator_.getMetrics();
+  }
+
+  /**
+   * Waits until every propagation handed to the executor so far has been absorbed.
+   */
+  public void awaitPropagation() {
+    propagator_.awaitPropagation();
+  }
+
+  /**
+   * Resets this sketch to the empty state. Propagations started before the reset are discarded.
+   */
+  public synchronized void reset() {
+    propagator_.advanceEpoch();
+    sketch_.reset();
+    updateSnapshot();
+  }
+
+  @Override
+  public synchronized String toString() {
+    return sketch_.toString();
+  }
+
+  //restricted
+
+  /**
+   * Absorbs the given buffer content in the background. The given flag is cleared once done.
+   * If the executor rejects the job, it is run by the calling thread.
+   * @param localPropagationInProgress the flag of the local buffer
+   * @param sketchIn the compacted content of the local buffer
+   */
+  void propagate(final AtomicBoolean localPropagationInProgress, final CompactSketch<S> sketchIn) {
+    final long epoch = propagator_.getEpoch();
+    propagator_.propagate(localPropagationInProgress, () -> absorb(sketchIn, epoch));
+  }
+
+  /**
+   * Waits until the previous propagation of a local buffer has completed.
+   * @param localPropagationInProgress the flag of the local buffer
+   */
+  void awaitLocalPropagation(final AtomicBoolean localPropagationInProgress) {
+    propagator_.awaitLocalPropagation(localPropagationInProgress);
+  }
+
+  private synchronized void absorb(final CompactSketch<S> sketchIn, final long epoch) {
+    if (!propagator_.isCurrentEpoch(epoch)) { return; } //sketch was reset after this propagation started
+    if (!sketchIn.isEmpty()) { sketch_.setEmpty(false); }
+    final TupleSketchIterator<S> it = sketchIn.iterator();
+    while (it.next()) {
+      sketch_.merge(it.getHash(), it.getSummary(), summarySetOps_);
+    }
+    updateSnapshot();
+  }
+
+  private void updateSnapshot() {
+    volatileThetaLong_ = sketch_.getThetaLong();
+    volatileEstimate_ = sketch_.getEstimate();
+  }
+}
@@ -0,0 +1,625 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple;
+
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.apache.datasketches.common.Family;
+import org.apache.datasketches.common.ResizeFactor;
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesReadOnlyException;
+import org.apache.datasketches.hash.MurmurHash3;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+import org.apache.datasketches.thetacommon.HashOperations;
+import org.apache.datasketches.thetacommon.QuickSelect;
+import org.apache.datasketches.thetacommon.ThetaUtil;
+
+/**
+ * Direct QuickSelect tuple sketch for summaries of fixed width.
+ * <p>This is the equivalent of UpdatableSketch that keeps its hash table and the state of all of
+ * its summaries in a given Memory owned and managed by the caller, so that no Java object is held
+ * per retained entry. This Memory can be off-heap, which if managed properly will greatly reduce
+ * the need for the JVM to perform garbage collection.</p>
+ *
+ * <p>Updates read the state of the summary from Memory into a single reusable summary, apply the
+ * update and write the state back. Summary objects are only created when the sketch is iterated
+ * or compacted.</p>
+ *
+ * <p>The hash table grows within the given Memory, which must be large enough for the configured
+ * resize factor. {@link #getMaxBytes(int, int)} gives the size needed in all cases.</p>
+ *
+ * @param <U> Type of the value, which is passed to update method of a Summary
+ * @param <S> Type of the UpdatableSummary&lt;U&gt; of fixed width
+ */
+public class DirectUpdatableSketch<U, S extends UpdatableSummary<U> & FixedWidthSummary>
+    extends Sketch<S> {
+
+  static final byte serialVersionUID = 1;
+
+  private enum Flags { IS_BIG_ENDIAN, IS_IN_SAMPLING_MODE, IS_EMPTY, HAS_ENTRIES }
+
+  // Layout of first 32 bytes:
+  // Long || Start Byte Adr:
+  // Adr:
+  //      ||    7   |    6   |    5   |    4   |    3   |    2   |    1   |     0              |
+  //  0   ||   RF   |  lgArr | lgNom  |  Flags | SkType | FamID  | SerVer |  Preamble_Longs    |
+  //      ||   15   |   14   |   13   |   12   |   11   |   10   |    9   |     8              |
+  //  1   ||---------Retained Entries----------|-----------Summary Width Bytes---------------|
+  //      ||   23   |   22   |   21   |   20   |   19   |   18   |   17   |    16              |
+  //  2   ||-------------------------------Theta Long-------------------------------------------|
+  //      ||   31   |   30   |   29   |   28   |   27   |   26   |   25   |    24              |
+  //  3   ||-----------------------------------|-----------P (float)----------------------------|
+  // Followed by the hash table (longs) and then the summary table, both of current capacity.
+
+  static final int PREAMBLE_LONGS_BYTE = 0;
+  static final int SERIAL_VERSION_BYTE = 1;
+  static final int FAMILY_ID_BYTE = 2;
+  static final int SKETCH_TYPE_BYTE = 3;
+  static final int FLAGS_BYTE = 4;
+  static final int LG_NOM_ENTRIES_BYTE = 5;
+  static final int LG_CUR_CAPACITY_BYTE = 6;
+  static final int LG_RESIZE_FACTOR_BYTE = 7;
+  static final int SUMMARY_WIDTH_INT = 8;
+  static final int RETAINED_ENTRIES_INT = 12;
+  static final int THETA_LONG = 16;
+  static final int SAMPLING_P_FLOAT = 24;
+  static final int ENTRIES_START = 32;
+
+  private final Memory mem_;
+  private final WritableMemory wmem_; //null if read-only
+  private final int summaryWidth_;
+  // a summary as created by the factory, used to initialize new entries
+  private final S newSummary_;
+  // the reusable summary through which updates are applied
+  private final S scratch_;
+  // these can be derived from the mem_ contents, but are kept here for performance
+  private int lgCurrentCapacity_;
+  private int rebuildThreshold_;
+  private long summariesOffset_;
+
+  /**
+   * Construct a new sketch using the given WritableMemory as its backing store.
+   * @param nomEntries Nominal number of entries. Forced to the nearest power of 2 greater than
+   * or equal to the given value.
+   * @param lgResizeFactor log2(resizeFactor) - value from 0 to 3:
+   * <pre>
+   * 0 - no resizing (max size allocated),
+   * 1 - double internal hash table each time it reaches a threshold
+   * 2 - grow four times
+   * 3 - grow eight times (default)
+   * </pre>
+   * @param samplingProbability
+   * <a href="{@docRoot}/resources/dictionary.html#p">See Sampling Probability</a>
+   * @param summaryFactory An instance of a SummaryFactory of fixed width summaries.
+   * @param dstMem the destination WritableMemory, which is initialized by this sketch.
+   */
+  public DirectUpdatableSketch(final int nomEntries, final int lgResizeFactor,
+      final float samplingProbability, final SummaryFactory<S> summaryFactory,
+      final WritableMemory dstMem) {
+    this(checkNewMemory(nomEntries, lgResizeFactor, summaryFactory, dstMem), nomEntries,
+        lgResizeFactor, samplingProbability, summaryFactory, dstMem);
+  }
+
+  private DirectUpdatableSketch(final int summaryWidth, final int nomEntries,
+      final int lgResizeFactor, final float samplingProbability,
+      final SummaryFactory<S> summaryFactory, final WritableMemory dstMem) {
+    super((long) (Long.MAX_VALUE * (double) samplingProbability), true, summaryFactory);
+    mem_ = dstMem;
+    wmem_ = dstMem;
+    summaryWidth_ = summaryWidth;
+    newSummary_ = summaryFactory.newSummary();
+    scratch_ = summaryFactory.newSummary();
+    final int startingCapacity = Util.getStartingCapacity(nomEntries, lgResizeFactor);
+    wmem_.putByte(PREAMBLE_LONGS_BYTE, PREAMBLE_LONGS);
+    wmem_.putByte(SERIAL_VERSION_BYTE, serialVersionUID);
+    wmem_.putByte(FAMILY_ID_BYTE, (byte) Family.TUPLE.getID());
+    wmem_.putByte(SKETCH_TYPE_BYTE,
+        (byte) SerializerDeserializer.SketchType.FixedWidthQuickSelectSketch.ordinal());
+    final boolean isBigEndian = ByteOrder.nativeOrder().equals(ByteOrder.BIG_ENDIAN);
+    wmem_.putByte(FLAGS_BYTE, (byte) (
+        (isBigEndian ? 1 << Flags.IS_BIG_ENDIAN.ordinal() : 0)
+        | (samplingProbability < 1f ? 1 << Flags.IS_IN_SAMPLING_MODE.ordinal() : 0)
+        | (1 << Flags.IS_EMPTY.ordinal())
+    ));
+    wmem_.putByte(LG_NOM_ENTRIES_BYTE, (byte) ThetaUtil.checkNomLongs(nomEntries));
+    wmem_.putByte(LG_RESIZE_FACTOR_BYTE, (byte) lgResizeFactor);
+    wmem_.putInt(SUMMARY_WIDTH_INT, summaryWidth);
+    wmem_.putLong(THETA_LONG, thetaLong_);
+    wmem_.putFloat(SAMPLING_P_FLOAT, samplingProbability);
+    initHashTable(startingCapacity);
+  }
+
+  private DirectUpdatableSketch(final Memory srcMem, final WritableMemory wmem,
+      final SummaryFactory<S> summaryFactory) {
+    super(srcMem.getLong(THETA_LONG),
+        (srcMem.getByte(FLAGS_BYTE) & (1 << Flags.IS_EMPTY.ordinal())) != 0, summaryFactory);
+    mem_ = srcMem;
+    wmem_ = wmem;
+    newSummary_ = summaryFactory.newSummary();
+    scratch_ = summaryFactory.newSummary();
+    summaryWidth_ = srcMem.getInt(SUMMARY_WIDTH_INT);
+    lgCurrentCapacity_ = srcMem.getByte(LG_CUR_CAPACITY_BYTE);
+    summariesOffset_ = ENTRIES_START + ((long) Long.BYTES << lgCurrentCapacity_);
+    rebuildThreshold_ = computeRebuildThreshold(1 << lgCurrentCapacity_, getNominalEntries());
+  }
+
+  /**
+   * Wraps the given WritableMemory, which must hold the image of a DirectUpdatableSketch, as an
+   * updatable sketch.
+   * @param <U> Type of the value, which is passed to update method of a Summary
+   * @param <S> Type of the UpdatableSummary&lt;U&gt; of fixed width
+   * @param srcMem the given WritableMemory
+   * @param summaryFactory the SummaryFactory of the summaries stored in the image
+   * @return an updatable sketch backed by the given WritableMemory
+   */
+  public static <U, S extends UpdatableSummary<U> & FixedWidthSummary> DirectUpdatableSketch<U, S>
+      writableWrap(final WritableMemory srcMem, final SummaryFactory<S> summaryFactory) {
+    checkImage(srcMem, summaryFactory);
+    return new DirectUpdatableSketch<>(srcMem, srcMem, summaryFactory);
+  }
+
+  /**
+   * Wraps the given Memory, which must hold the image of a DirectUpdatableSketch, as a read-only
+   * sketch. Any attempt to update it throws a SketchesReadOnlyException.
+   * @param <U> Type of the value, which is passed to update method of a Summary
+   * @param <S> Type of the UpdatableSummary&lt;U&gt; of fixed width
+   * @param srcMem the given Memory
+   * @param summaryFactory the SummaryFactory of the summaries stored in the image
+   * @return a read-only sketch backed by the given Memory
+   */
+  public static <U, S extends UpdatableSummary<U> & FixedWidthSummary> DirectUpdatableSketch<U, S>
+      wrap(final Memory srcMem, final SummaryFactory<S> summaryFactory) {
+    checkImage(srcMem, summaryFactory);
+    return new DirectUpdatableSketch<>(srcMem, null, summaryFactory);
+  }
+
+  /**
+   * Returns the number of bytes of Memory needed by a sketch of the given nominal entries and
+   * summary width to grow to its maximum size.
+   * @param nomEntries Nominal number of entries
+   * @param summaryWidthBytes the fixed width of the summaries in bytes
+   * @return the number of bytes of Memory needed in all cases
+   */
+  public static int getMaxBytes(final int nomEntries, final int summaryWidthBytes) {
+    final int lgNomEntries = ThetaUtil.checkNomLongs(nomEntries);
+    return getBytes(2 << lgNomEntries, summaryWidthBytes);
+  }
+
+  //Sketch
+
+  @Override
+  public CompactSketch<S> compact() {
+    final int count = getRetainedEntries();
+    if (count == 0) {
+      if (empty_) { return new CompactSketch<>(null, null, Long.MAX_VALUE, true); }
+      return new CompactSketch<>(null, null, thetaLong_, false);
+    }
+    final long[] hashArr = new long[count];
+    final S[] summaryArr = newSummaryArray(count);
+    final int capacity = 1 << lgCurrentCapacity_;
+    int i = 0;
+    for (int j = 0; j < capacity; j++) {
+      final long hash = mem_.getLong(ENTRIES_START + ((long) j << 3));
+      if (hash != 0) {
+        hashArr[i] = hash;
+        summaryArr[i] = readSummary(j);
+        i++;
+      }
+    }
+    return new CompactSketch<>(hashArr, summaryArr, thetaLong_, empty_);
+  }
+
+  @Override
+  public int getRetainedEntries() {
+    return mem_.getInt(RETAINED_ENTRIES_INT);
+  }
+
+  @Override
+  public int getCountLessThanThetaLong(final long thetaLong) {
+    final int capacity = 1 << lgCurrentCapacity_;
+    int count = 0;
+    for (int j = 0; j < capacity; j++) {
+      final long hash = mem_.getLong(ENTRIES_START + ((long) j << 3));
+      if ((hash != 0) && (hash < thetaLong)) { count++; }
+    }
+    return count;
+  }
+
+  /**
+   * Returns a copy of the Memory image of this sketch, which can be wrapped again.
+   * @return a copy of the Memory image of this sketch
+   */
+  @Override
+  public byte[] toByteArray() {
+    final byte[] bytes = new byte[getCurrentBytes()];
+    mem_.getByteArray(0, bytes, 0, bytes.length);
+    return bytes;
+  }
+
+  @Override
+  public TupleSketchIterator<S> iterator() {
+    return new DirectIterator();
+  }
+
+  //DirectUpdatableSketch
+
+  /**
+   * Gets the configured nominal number of entries
+   * @return nominal number of entries
+   */
+  public int getNominalEntries() {
+    return 1 << mem_.getByte(LG_NOM_ENTRIES_BYTE);
+  }
+
+  /**
+   * Gets the Log base 2 of the configured nominal entries
+   * @return Log base 2 of the configured nominal entries
+   */
+  public int getLgK() {
+    return mem_.getByte(LG_NOM_ENTRIES_BYTE);
+  }
+
+  /**
+   * Gets the configured resize factor
+   * @return resize factor
+   */
+  public ResizeFactor getResizeFactor() {
+    return ResizeFactor.getRF(mem_.getByte(LG_RESIZE_FACTOR_BYTE));
+  }
+
+  /**
+   * Gets the configured sampling probability
+   * @return sampling probability
+   */
+  public float getSamplingProbability() {
+    return mem_.getFloat(SAMPLING_P_FLOAT);
+  }
+
+  /**
+   * Get current capacity
+   * @return current capacity
+   */
+  public int getCurrentCapacity() {
+    return 1 << lgCurrentCapacity_;
+  }
+
+  /**
+   * Returns the number of bytes of the Memory currently used by this sketch.
+   * @return the number of bytes of the Memory currently used by this sketch
+   */
+  public int getCurrentBytes() {
+    return getBytes(1 << lgCurrentCapacity_, summaryWidth_);
+  }
+
+  /**
+   * Returns the Memory backing this sketch
+   * @return the Memory backing this sketch
+   */
+  public Memory getMemory() {
+    return mem_;
+  }
+
+  /**
+   * Returns true if this sketch cannot be updated
+   * @return true if this sketch cannot be updated
+   */
+  public boolean isReadOnly() {
+    return wmem_ == null;
+  }
+
+  /**
+   * Rebuilds reducing the actual number of entries to the nominal number of entries if needed
+   */
+  public void trim() {
+    checkWritable();
+    if (getRetainedEntries() > getNominalEntries()) {
+      updateTheta();
+      resize(1 << lgCurrentCapacity_);
+    }
+  }
+
+  /**
+   * Resets this sketch an empty state.
+   */
+  public void reset() {
+    checkWritable();
+    setEmpty(true);
+    setThetaLong((long) (Long.MAX_VALUE * (double) getSamplingProbability()));
+    initHashTable(Util.getStartingCapacity(getNominalEntries(), mem_.getByte(LG_RESIZE_FACTOR_BYTE)));
+  }
+
+  /**
+   * Updates this sketch with a long key and U value.
+   * The value is passed to update() method of the Summary object associated with the key
+   *
+   * @param key The given long key
+   * @param value The given U value
+   */
+  public void update(final long key, final U value) {
+    insertOrIgnore(MurmurHash3.hash64(key, ThetaUtil.DEFAULT_UPDATE_SEED) >>> 1, value);
+  }
+
+  /**
+   * Updates this sketch with a double key and U value.
+   * The value is passed to update() method of the Summary object associated with the key
+   *
+   * @param key The given double key
+   * @param value The given U value
+   */
+  public void update(final double key, final U value) {
+    update(Util.doubleToLongArray(key), value);
+  }
+
+  /**
+   * Updates this sketch with a String key and U value.
+   * The value is passed to update() method of the Summary object associated with the key
+   *
+   * @param key The given String key
+   * @param value The given U value
+   */
+  public void update(final String key, final U value) {
+    update(Util.stringToByteArray(key), value);
+  }
+
+  /**
+   * Updates this sketch with a byte[] key and U value.
+   * The value is passed to update() method of the Summary object associated with the key
+   *
+   * @param key The given byte[] key
+   * @param value The given U value
+   */
+  public void update(final byte[] key, final U value) {
+    if ((key == null) || (key.length == 0)) { return; }
+    insertOrIgnore(MurmurHash3.hash64(key, ThetaUtil.DEFAULT_UPDATE_SEED) >>> 1, value);
+  }
+
+  /**
+   * Updates this sketch with a ByteBuffer and U value
+   * The value is passed to the update() method of the Summary object associated with the key
+   *
+   * @param buffer The given ByteBuffer key
+   * @param value The given U value
+   */
+  public void update(final ByteBuffer buffer, final U value) {
+    if (buffer == null || buffer.hasRemaining() == false) { return; }
+    insertOrIgnore(MurmurHash3.hash64(buffer, ThetaUtil.DEFAULT_UPDATE_SEED) >>> 1, value);
+  }
+
+  /**
+   * Updates this sketch with a int[] key and U value.
+   * The value is passed to update() method of the Summary object associated with the key
+   *
+   * @param key The given int[] key
+   * @param value The given U value
+   */
+  public void update(final int[] key, final U value) {
+    if ((key == null) || (key.length == 0)) { return; }
+    insertOrIgnore(MurmurHash3.hash64(key, ThetaUtil.DEFAULT_UPDATE_SEED) >>> 1, value);
+  }
+
+  /**
+   * Updates this sketch with a long[] key and U value.
+   * The value is passed to update() method of the Summary object associated with the key
+   *
+   * @param key The given long[] key
+   * @param value The given U value
+   */
+  public void update(final long[] key, final U value) {
+    if ((key == null) || (key.length == 0)) { return; }
+    insertOrIgnore(MurmurHash3.hash64(key, ThetaUtil.DEFAULT_UPDATE_SEED) >>> 1, value);
+  }
+
+  //restricted
+
+  void insertOrIgnore(final long hash, final U value) {
+    checkWritable();
+    setEmpty(false);
+    if (hash >= thetaLong_) { return; }
+    int index = HashOperations.hashSearchOrInsertMemory(wmem_, lgCurrentCapacity_, hash, ENTRIES_START);
+    final long offset;
+    if (index < 0) {
+      index = ~index;
+      offset = summaryOffset(index);
+      newSummary_.write(wmem_, offset);
+      wmem_.putInt(RETAINED_ENTRIES_INT, wmem_.getInt(RETAINED_ENTRIES_INT) + 1);
+    } else {
+      offset = summaryOffset(index);
+    }
+    scratch_.read(wmem_, offset);
+    scratch_.update(value);
+    scratch_.write(wmem_, offset);
+    rebuildIfNeeded();
+  }
+
+  private void rebuildIfNeeded() {
+    if (getRetainedEntries() <= rebuildThreshold_) { return; }
+    final int capacity = 1 << lgCurrentCapacity_;
+    if (capacity > getNominalEntries()) {
+      updateTheta();
+      resize(capacity);
+    } else {
+      resize(capacity << mem_.getByte(LG_RESIZE_FACTOR_BYTE));
+    }
+  }
+
+  private void updateTheta() {
+    final int count = getRetainedEntries();
+    final long[] hashArr = new long[count];
+    final int capacity = 1 << lgCurrentCapacity_;
+    int i = 0;
+    for (int j = 0; j < capacity; j++) {
+      final long hash = mem_.getLong(ENTRIES_START + ((long) j << 3));
+      if (hash != 0) { hashArr[i++] = hash; }
+    }
+    setThetaLong(QuickSelect.select(hashArr, 0, count - 1, getNominalEntries()));
+  }
+
+  // rebuild in the same memory
+  private void resize(final int newCapacity) {
+    checkMemory(wmem_, newCapacity, summaryWidth_);
+    final int capacity = 1 << lgCurrentCapacity_;
+    final long[] hashes = new long[capacity];
+    final byte[] summaries = new byte[capacity * summaryWidth_];
+    wmem_.getLongArray(ENTRIES_START, hashes, 0, capacity);
+    wmem_.getByteArray(summariesOffset_, summaries, 0, summaries.length);
+    initHashTable(newCapacity);
+    int count = 0;
+    for (int i = 0; i < capacity; i++) {
+      if ((hashes[i] != 0) && (hashes[i] < thetaLong_)) {
+        final int index = HashOperations.hashInsertOnlyMemory(wmem_, lgCurrentCapacity_, hashes[i],
+            ENTRIES_START);
+        wmem_.putByteArray(summaryOffset(index), summaries, i * summaryWidth_, summaryWidth_);
+        count++;
+      }
+    }
+    wmem_.putInt(RETAINED_ENTRIES_INT, count);
+  }
+
+  private void initHashTable(final int capacity) {
+    lgCurrentCapacity_ = Integer.numberOfTrailingZeros(capacity);
+    summariesOffset_ = ENTRIES_START + ((long) Long.BYTES << lgCurrentCapacity_);
+    rebuildThreshold_ = computeRebuildThreshold(capacity, getNominalEntries());
+    wmem_.putByte(LG_CUR_CAPACITY_BYTE, (byte) lgCurrentCapacity_);
+    wmem_.putInt(RETAINED_ENTRIES_INT, 0);
+    wmem_.clear(ENTRIES_START, (long) Long.BYTES << lgCurrentCapacity_); // clear hashes only
+  }
+
+  private long summaryOffset(final int index) {
+    return summariesOffset_ + ((long) index * summaryWidth_);
+  }
+
+  private S readSummary(final int index) {
+    @SuppressWarnings("unchecked")
+    final S summary = (S) newSummary_.copy();
+    summary.read(mem_, summaryOffset(index));
+    return summary;
+  }
+
+  @SuppressWarnings("unchecked")
+  private S[] newSummaryArray(final int length) {
+    return (S[]) Array.newInstance(newSummary_.getClass(), length);
+  }
+
+  private void setThetaLong(final long thetaLong) {
+    thetaLong_ = thetaLong;
+    wmem_.putLong(THETA_LONG, thetaLong);
+  }
+
+  private void setEmpty(final boolean empty) {
+    if (empty_ == empty) { return; }
+    empty_ = empty;
+    if (empty) {
+      wmem_.setBits(FLAGS_BYTE, (byte) (1 << Flags.IS_EMPTY.ordinal()));
+    } else {
+      wmem_.clearBits(FLAGS_BYTE, (byte) (1 << Flags.IS_EMPTY.ordinal()));
+    }
+  }
+
+  private void checkWritable() {
+    if (wmem_ == null) {
+      throw new SketchesReadOnlyException("This sketch wraps a read-only Memory.");
+    }
+  }
+
+  private static int computeRebuildThreshold(final int capacity, final int nomEntries) {
+    if (capacity > nomEntries) {
+      return (int) (capacity * ThetaUtil.REBUILD_THRESHOLD);
+    } else {
+      return (int) (capacity * ThetaUtil.RESIZE_THRESHOLD);
+    }
+  }
+
+  private static int getBytes(final int capacity, final int summaryWidth) {
+    return ENTRIES_START + (capacity * (Long.BYTES + summaryWidth));
+  }
+
+  private static void checkMemory(final Memory mem, final int capacity, final int summaryWidth) {
+    final int bytes = getBytes(capacity, summaryWidth);
+    if (mem.getCapacity() < bytes) {
+      throw new SketchesArgumentException("Not enough memory: " + mem.getCapacity()
+          + ", expected at least " + bytes);
+    }
+  }
+
+  private static <S extends FixedWidthSummary> int checkNewMemory(final int nomEntries,
+      final int lgResizeFactor, final SummaryFactory<S> summaryFactory, final WritableMemory dstMem) {
+    final int summaryWidth = summaryFactory.newSummary().getFixedWidthBytes();
+    checkMemory(dstMem, Util.getStartingCapacity(nomEntries, lgResizeFactor), summaryWidth);
+    return summaryWidth;
+  }
+
+  private static <S extends FixedWidthSummary> void checkImage(final Memory mem,
+      final SummaryFactory<S> summaryFactory) {
+    SerializerDeserializer.validateFamily(mem.getByte(FAMILY_ID_BYTE), mem.getByte(PREAMBLE_LONGS_BYTE));
+    SerializerDeserializer.validateType(mem.getByte(SKETCH_TYPE_BYTE),
+        SerializerDeserializer.SketchType.FixedWidthQuickSelectSketch);
+    final byte version = mem.getByte(SERIAL_VERSION_BYTE);
+    if (version != serialVersionUID) {
+      throw new SketchesArgumentException("Serial version mismatch. Expected: " + serialVersionUID
+          + ", actual: " + version);
+    }
+    final boolean isBigEndian = (mem.getByte(FLAGS_BYTE) & (1 << Flags.IS_BIG_ENDIAN.ordinal())) != 0;
+    if (isBigEndian ^ ByteOrder.nativeOrder().equals(ByteOrder.BIG_ENDIAN)) {
+      throw new SketchesArgumentException("Byte order mismatch");
+    }
+    final int summaryWidth = summaryFactory.newSummary().getFixedWidthBytes();
+    if (mem.getInt(SUMMARY_WIDTH_INT) != summaryWidth) {
+      throw new SketchesArgumentException("Summary width mismatch. Expected: " + summaryWidth
+          + ", actual: " + mem.getInt(SUMMARY_WIDTH_INT));
+    }
+    checkMemory(mem, 1 << mem.getByte(LG_CUR_CAPACITY_BYTE), summaryWidth);
+  }
+
+  /**
+   * Iterates over the hash table in Memory. Each call of getSummary() returns a new summary read
+   * from Memory.
+   */
+  private final class DirectIterator extends TupleSketchIterator<S> {
+    private final int capacity_ = 1 << lgCurrentCapacity_;
+    private int i_ = -1;
+
+    DirectIterator() {
+      super(null, null);
+    }
+
+    @Override
+    public boolean next() {
+      i_++;
+      while (i_ < capacity_) {
+        if (mem_.getLong(ENTRIES_START + ((long) i_ << 3)) > 0) { return true; }
+        i_++;
+      }
+      return false;
+    }
+
+    @Override
+    public long getHash() {
+      return mem_.getLong(ENTRIES_START + ((long) i_ << 3));
+    }
+
+    @Override
+    public S getSummary() {
+      return readSummary(i_);
+    }
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple;
+
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+
+/**
+ * Interface for a Summary whose state always occupies the same number of bytes and can be written
+ * to and read back from Memory in place. Only the state that changes with updates is stored.
+ * Configuration, such as the mode of a DoubleSummary, comes from the SummaryFactory that created
+ * the summary. Such summaries can be kept in a {@link DirectUpdatableSketch}, which stores them in
+ * Memory instead of as one Java object per retained entry.
+ */
+public interface FixedWidthSummary extends Summary {
+
+  /**
+   * Returns the number of bytes occupied by the state of this summary in Memory.
+   * This must be the same for all summaries created by the same SummaryFactory.
+   * @return the number of bytes occupied by the state of this summary
+   */
+  int getFixedWidthBytes();
+
+  /**
+   * Writes the state of this summary to the given Memory at the given offset.
+   * @param mem the destination Memory
+   * @param offsetBytes the offset in bytes of the summary within the given Memory
+   */
+  void write(WritableMemory mem, long offsetBytes);
+
+  /**
+   * Replaces the state of this summary by the one stored in the given Memory at the given offset.
+   * @param mem the source Memory
+   * @param offsetBytes the offset in bytes of the summary within the given Memory
+   */
+  void read(Memory mem, long offsetBytes);
+
+}
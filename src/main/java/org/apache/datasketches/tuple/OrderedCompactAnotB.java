@@ -0,0 +1,283 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple;
+
+import static java.lang.Math.min;
+
+import java.util.Arrays;
+
+import org.apache.datasketches.common.Family;
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+import org.apache.datasketches.theta.BitPacking;
+import org.apache.datasketches.tuple.CompactSketch.Flags;
+import org.apache.datasketches.thetacommon.SetOperationCornerCases;
+import org.apache.datasketches.thetacommon.SetOperationCornerCases.AnotbAction;
+import org.apache.datasketches.thetacommon.SetOperationCornerCases.CornerCase;
+
+/**
+ * The set difference of two serialized Tuple CompactSketch images, computed on their sorted hash
+ * arrays without heapifying either sketch.
+ *
+ * <p>The hashes of <i>A</i> and <i>B</i> below the minimum theta are merged in ascending order.
+ * Summaries are never deserialized: the serialized summaries of the surviving entries of <i>A</i>
+ * are copied as they are into the destination. The {@link SummaryDeserializer} is only asked for
+ * the size of each serialized summary, see {@link SummaryDeserializer#getSummarySizeBytes(Memory, long)}.</p>
+ *
+ * <p>Serial version 3 images and compressed (serial version 4) images are read in place. The hashes
+ * of a serial version 3 image that is not flagged as ordered are sorted first. Images of older
+ * serial versions are heapified and serialized again.</p>
+ *
+ * <p>The result is the same as that of {@link AnotB#aNotB(Sketch, Sketch)} given the heapified
+ * images, and is written to the destination as an ordered serial version 3 CompactSketch image
+ * that can be heapified with {@link Sketches#heapifySketch(Memory, SummaryDeserializer)}.</p>
+ */
+public final class OrderedCompactAnotB {
+  private static final byte serialVersionUIDLegacy = 2;
+  private static final byte serialVersionUID = 3;
+  private static final byte serialVersionCompressedUID = 4;
+  private static final short defaultSeedHash = (short) 37836; // for compatibility with C++
+
+  private OrderedCompactAnotB() {}
+
+  /**
+   * Computes <i>A</i> and not <i>B</i> of two serialized Tuple CompactSketch images and writes the
+   * result to the given destination as an ordered CompactSketch image.
+   * @param imageA the image of sketch <i>A</i>
+   * @param imageB the image of sketch <i>B</i>
+   * @param deserializer the SummaryDeserializer of the summaries of both images
+   * @param dstMem the destination for the result
+   * @param <S> Type of Summary
+   * @return the number of bytes written to the destination
+   */
+  public static <S extends Summary> long aNotB(final Memory imageA, final Memory imageB,
+      final SummaryDeserializer<S> deserializer, final WritableMemory dstMem) {
+    if (imageA == null || imageB == null || deserializer == null || dstMem == null) {
+      throw new SketchesArgumentException("No argument may be null for this operation.");
+    }
+    final Image a = Image.wrap(imageA, deserializer, true);
+    final Image b = Image.wrap(imageB, deserializer, false);
+
+    final int id = SetOperationCornerCases.createCornerCaseId(
+        a.thetaLong, a.count, a.empty, b.thetaLong, b.count, b.empty);
+    final AnotbAction anotbAction = CornerCase.caseIdToCornerCase(id).getAnotbAction();
+    final long minThetaLong = min(a.thetaLong, b.thetaLong);
+
+    switch (anotbAction) {
+      case EMPTY_1_0_T: {
+        return write(a, new int[0], 0, Long.MAX_VALUE, true, dstMem);
+      }
+      case DEGEN_MIN_0_F: {
+        return write(a, new int[0], 0, minThetaLong, false, dstMem);
+      }
+      case DEGEN_THA_0_F: {
+        return write(a, new int[0], 0, a.thetaLong, false, dstMem);
+      }
+      case TRIM_A: {
+        final int[] survivors = new int[a.count];
+        int count = 0;
+        for (int i = 0; i < a.count && a.hashes[i] < minThetaLong; i++) { survivors[count++] = i; }
+        return write(a, survivors, count, minThetaLong, a.empty, dstMem);
+      }
+      case SKETCH_A: {
+        final int[] survivors = new int[a.count];
+        for (int i = 0; i < a.count; i++) { survivors[i] = i; }
+        return write(a, survivors, a.count, a.thetaLong, a.empty, dstMem);
+      }
+      default: { //FULL_ANOTB, both A and B have valid entries.
+        final int[] survivors = new int[a.count];
+        int count = 0;
+        int j = 0;
+        for (int i = 0; i < a.count; i++) {
+          final long hash = a.hashes[i];
+          if (hash >= minThetaLong) { break; }
+          while (j < b.count && b.hashes[j] < hash) { j++; }
+          if (j < b.count && b.hashes[j] == hash) { continue; }
+          survivors[count++] = i;
+        }
+        return write(a, survivors, count, minThetaLong, count == 0 && minThetaLong == Long.MAX_VALUE, dstMem);
+      }
+    }
+  }
+
+  // Writes the serial version 3 layout of CompactSketch.toByteArray(), flagged as ordered,
+  // copying the summary bytes of the given entries of A.
+  private static long write(final Image a, final int[] survivors, final int count, final long thetaLong,
+      final boolean empty, final WritableMemory dstMem) {
+    final boolean estimating = thetaLong < Long.MAX_VALUE && !empty;
+    final boolean isSingleItem = count == 1 && !estimating;
+    final int preambleLongs = empty || isSingleItem ? 1 : estimating ? 3 : 2;
+    long sizeBytes = (long) Long.BYTES * (preambleLongs + count);
+    for (int i = 0; i < count; i++) { sizeBytes += a.summarySizes[survivors[i]]; }
+    if (dstMem.getCapacity() < sizeBytes) {
+      throw new SketchesArgumentException("Destination Memory is too small. Required: " + sizeBytes
+          + ", capacity: " + dstMem.getCapacity());
+    }
+    dstMem.putByte(0, (byte) preambleLongs);
+    dstMem.putByte(1, serialVersionUID);
+    dstMem.putByte(2, (byte) Family.TUPLE.getID());
+    dstMem.putByte(3, (byte) SerializerDeserializer.SketchType.CompactSketch.ordinal());
+    dstMem.putByte(4, (byte) 0);
+    dstMem.putByte(5, (byte) (
+        (1 << Flags.IS_COMPACT.ordinal())
+      | (1 << Flags.IS_READ_ONLY.ordinal())
+      | (1 << Flags.IS_ORDERED.ordinal())
+      | (empty ? 1 << Flags.IS_EMPTY.ordinal() : 0)
+    ));
+    dstMem.putShort(6, defaultSeedHash);
+    long offset = Long.BYTES;
+    if (preambleLongs > 1) {
+      dstMem.putInt(offset, count);
+      dstMem.putInt(offset + Integer.BYTES, 0);
+      offset += Long.BYTES;
+      if (estimating) {
+        dstMem.putLong(offset, thetaLong);
+        offset += Long.BYTES;
+      }
+    }
+    for (int i = 0; i < count; i++) {
+      final int index = survivors[i];
+      dstMem.putLong(offset, a.hashes[index]);
+      offset += Long.BYTES;
+      a.mem.copyTo(a.summaryOffsets[index], dstMem, offset, a.summarySizes[index]);
+      offset += a.summarySizes[index];
+    }
+    return offset;
+  }
+
+  /**
+   * The hashes of a CompactSketch image in ascending order, and for sketch <i>A</i> the location
+   * of the serialized summary of each hash.
+   */
+  private static final class Image {
+    final Memory mem;
+    final boolean empty;
+    final long thetaLong;
+    final int count;
+    final long[] hashes;
+    final long[] summaryOffsets;
+    final int[] summarySizes;
+
+    private Image(final Memory mem, final boolean empty, final long thetaLong, final int count,
+        final boolean withSummaries) {
+      this.mem = mem;
+      this.empty = empty;
+      this.thetaLong = thetaLong;
+      this.count = count;
+      hashes = new long[count];
+      summaryOffsets = withSummaries ? new long[count] : null;
+      summarySizes = withSummaries ? new int[count] : null;
+    }
+
+    static <S extends Summary> Image wrap(final Memory mem, final SummaryDeserializer<S> deserializer,
+        final boolean withSummaries) {
+      final byte preambleLongs = mem.getByte(0);
+      final byte version = mem.getByte(1);
+      SerializerDeserializer.validateFamily(mem.getByte(2), preambleLongs);
+      if (version > serialVersionCompressedUID) {
+        throw new SketchesArgumentException(
+            "Unsupported serial version. Expected: " + serialVersionCompressedUID + " or lower, actual: " + version);
+      }
+      SerializerDeserializer.validateType(mem.getByte(3), SerializerDeserializer.SketchType.CompactSketch);
+      if (version <= serialVersionUIDLegacy) {
+        final byte[] bytes = new CompactSketch<>(mem, deserializer).toByteArray();
+        return wrap(Memory.wrap(bytes), deserializer, withSummaries);
+      }
+      return version == serialVersionCompressedUID
+          ? wrapCompressed(mem, preambleLongs, deserializer, withSummaries)
+          : wrapCurrent(mem, preambleLongs, deserializer, withSummaries);
+    }
+
+    private static <S extends Summary> Image wrapCompressed(final Memory mem, final byte preambleLongs,
+        final SummaryDeserializer<S> deserializer, final boolean withSummaries) {
+      final int entryBits = mem.getByte(4) & 0xff;
+      long offset = Long.BYTES;
+      long thetaLong = Long.MAX_VALUE;
+      if (preambleLongs > 1) {
+        thetaLong = mem.getLong(offset);
+        offset += Long.BYTES;
+      }
+      final int count = mem.getInt(offset);
+      offset += Integer.BYTES;
+      final Image image = new Image(mem, false, thetaLong, count, withSummaries);
+      offset += BitPacking.unpackDeltas(mem, offset, image.hashes, count, entryBits);
+      if (withSummaries) {
+        for (int i = 0; i < count; i++) {
+          image.summaryOffsets[i] = offset;
+          image.summarySizes[i] = deserializer.getSummarySizeBytes(mem, offset);
+          offset += image.summarySizes[i];
+        }
+      }
+      return image;
+    }
+
+    private static <S extends Summary> Image wrapCurrent(final Memory mem, final byte preambleLongs,
+        final SummaryDeserializer<S> deserializer, final boolean withSummaries) {
+      final byte flags = mem.getByte(5);
+      final boolean empty = (flags & 1 << Flags.IS_EMPTY.ordinal()) != 0;
+      long thetaLong = Long.MAX_VALUE;
+      int count = 0;
+      long offset = Long.BYTES;
+      if (!empty) {
+        if (preambleLongs == 1) {
+          count = 1;
+        } else {
+          count = mem.getInt(offset);
+          offset += Long.BYTES;
+          if (preambleLongs > 2) {
+            thetaLong = mem.getLong(offset);
+            offset += Long.BYTES;
+          }
+        }
+      }
+      final Image image = new Image(mem, empty, thetaLong, count, withSummaries);
+      final boolean ordered = (flags & 1 << Flags.IS_ORDERED.ordinal()) != 0 || count < 2;
+      // the summaries of an unordered image are located first and permuted once the hashes are sorted
+      final boolean permute = withSummaries && !ordered;
+      final long[] summaryOffsets = permute ? new long[count] : image.summaryOffsets;
+      final int[] summarySizes = permute ? new int[count] : image.summarySizes;
+      for (int i = 0; i < count; i++) {
+        image.hashes[i] = mem.getLong(offset);
+        offset += Long.BYTES;
+        final int summarySize = deserializer.getSummarySizeBytes(mem, offset);
+        if (withSummaries) {
+          summaryOffsets[i] = offset;
+          summarySizes[i] = summarySize;
+        }
+        offset += summarySize;
+      }
+      if (ordered) { return image; }
+      if (!permute) {
+        Arrays.sort(image.hashes);
+        return image;
+      }
+      final long[] unordered = image.hashes.clone();
+      Arrays.sort(image.hashes);
+      for (int i = 0; i < count; i++) {
+        final int index = Arrays.binarySearch(image.hashes, unordered[i]);
+        image.summaryOffsets[index] = summaryOffsets[i];
+        image.summarySizes[index] = summarySizes[i];
+      }
+      return image;
+    }
+  }
+
+}
@@ -33,7 +33,7 @@ public final class SerializerDeserializer {
    */
   @SuppressWarnings("javadoc")
   public static enum SketchType { QuickSelectSketch, CompactSketch, ArrayOfDoublesQuickSelectSketch,
-    ArrayOfDoublesCompactSketch, ArrayOfDoublesUnion }
+    ArrayOfDoublesCompactSketch, ArrayOfDoublesUnion, FixedWidthQuickSelectSketch }
 
   static final int TYPE_BYTE_OFFSET = 3;
 
@@ -39,4 +39,18 @@ public interface SummaryDeserializer<S extends Summary> {
    */
   public DeserializeResult<S> heapifySummary(Memory mem);
 
+  /**
+   * Returns the number of bytes of the serialized Summary that starts at the given offset,
+   * without necessarily deserializing it. This is used by operations that read sketch images
+   * directly from Memory and only need to skip over or copy the summaries.
+   * The default implementation heapifies the summary. Deserializers of summaries with a fixed or
+   * self-describing size should override it.
+   * @param mem Memory object with serialized representations of Summaries
+   * @param offsetBytes the offset of the Summary in the given Memory
+   * @return the number of bytes of the serialized Summary
+   */
+  default int getSummarySizeBytes(final Memory mem, final long offsetBytes) {
+    return heapifySummary(mem.region(offsetBytes, mem.getCapacity() - offsetBytes)).getSize();
+  }
+
 }
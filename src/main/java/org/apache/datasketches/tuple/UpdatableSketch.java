@@ -102,7 +102,7 @@ public class UpdatableSketch<U, S extends UpdatableSummary<U>> extends QuickSele
    * @param value The given U value
    */
   public void update(final long key, final U value) {
-    update(new long[] {key}, value);
+    insertOrIgnore(MurmurHash3.hash64(key, ThetaUtil.DEFAULT_UPDATE_SEED) >>> 1, value);
   }
 
   /**
@@ -136,7 +136,7 @@ public class UpdatableSketch<U, S extends UpdatableSummary<U>> extends QuickSele
    */
   public void update(final byte[] key, final U value) {
     if ((key == null) || (key.length == 0)) { return; }
-    insertOrIgnore(MurmurHash3.hash(key, ThetaUtil.DEFAULT_UPDATE_SEED)[0] >>> 1, value);
+    insertOrIgnore(MurmurHash3.hash64(key, ThetaUtil.DEFAULT_UPDATE_SEED) >>> 1, value);
   }
 
   /**
@@ -148,7 +148,7 @@ public class UpdatableSketch<U, S extends UpdatableSummary<U>> extends QuickSele
    */
   public void update(final ByteBuffer buffer, final U value) {
     if (buffer == null || buffer.hasRemaining() == false) { return; }
-    insertOrIgnore(MurmurHash3.hash(buffer, ThetaUtil.DEFAULT_UPDATE_SEED)[0] >>> 1, value);
+    insertOrIgnore(MurmurHash3.hash64(buffer, ThetaUtil.DEFAULT_UPDATE_SEED) >>> 1, value);
   }
 
   /**
@@ -160,7 +160,7 @@ public class UpdatableSketch<U, S extends UpdatableSummary<U>> extends QuickSele
    */
   public void update(final int[] key, final U value) {
     if ((key == null) || (key.length == 0)) { return; }
-    insertOrIgnore(MurmurHash3.hash(key, ThetaUtil.DEFAULT_UPDATE_SEED)[0] >>> 1, value);
+    insertOrIgnore(MurmurHash3.hash64(key, ThetaUtil.DEFAULT_UPDATE_SEED) >>> 1, value);
   }
 
   /**
@@ -172,7 +172,7 @@ public class UpdatableSketch<U, S extends UpdatableSummary<U>> extends QuickSele
    */
   public void update(final long[] key, final U value) {
     if ((key == null) || (key.length == 0)) { return; }
-    insertOrIgnore(MurmurHash3.hash(key, ThetaUtil.DEFAULT_UPDATE_SEED)[0] >>> 1, value);
+    insertOrIgnore(MurmurHash3.hash64(key, ThetaUtil.DEFAULT_UPDATE_SEED) >>> 1, value);
   }
 
   void insertOrIgnore(final long hash, final U value) {
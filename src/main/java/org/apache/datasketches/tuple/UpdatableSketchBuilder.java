@@ -19,8 +19,11 @@
 
 package org.apache.datasketches.tuple;
 
+import java.util.concurrent.Executor;
+
 import org.apache.datasketches.common.ResizeFactor;
 import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesStateException;
 import org.apache.datasketches.thetacommon.ThetaUtil;
 
 /**
@@ -34,9 +37,12 @@ public class UpdatableSketchBuilder<U, S extends UpdatableSummary<U>> {
   private ResizeFactor resizeFactor_;
   private float samplingProbability_;
   private final SummaryFactory<S> summaryFactory_;
+  private int localNomEntries_;
+  private Executor propagationExecutor_;
 
   private static final float DEFAULT_SAMPLING_PROBABILITY = 1;
   private static final ResizeFactor DEFAULT_RESIZE_FACTOR = ResizeFactor.X8;
+  private static final int DEFAULT_LOCAL_NOMINAL_ENTRIES = 16;
 
   /**
    * Creates an instance of UpdatableSketchBuilder with default parameters
@@ -47,6 +53,8 @@ public class UpdatableSketchBuilder<U, S extends UpdatableSummary<U>> {
     resizeFactor_ = DEFAULT_RESIZE_FACTOR;
     samplingProbability_ = DEFAULT_SAMPLING_PROBABILITY;
     summaryFactory_ = summaryFactory;
+    localNomEntries_ = DEFAULT_LOCAL_NOMINAL_ENTRIES;
+    propagationExecutor_ = null;
   }
 
   /**
@@ -86,6 +94,32 @@ public class UpdatableSketchBuilder<U, S extends UpdatableSummary<U>> {
     return this;
   }
 
+  /**
+   * This is to set the nominal number of entries of the local buffers of a concurrent sketch.
+   * A local buffer propagates to the shared sketch each time it holds this many entries.
+   * Default is 16.
+   * @param localNomEntries Nominal number of entries of a local buffer. Forced to the nearest power
+   * of 2 greater than or equal to the given value.
+   * @return this UpdatableSketchBuilder
+   */
+  public UpdatableSketchBuilder<U, S> setLocalNominalEntries(final int localNomEntries) {
+    localNomEntries_ = 1 << ThetaUtil.checkNomLongs(localNomEntries);
+    return this;
+  }
+
+  /**
+   * This is to set the Executor that absorbs the local buffers into a concurrent shared sketch.
+   * Any Executor may be given, including one that starts a virtual thread per task. If it rejects
+   * a propagation, the updating thread absorbs the buffer itself. The executor is never shut down
+   * by the sketch. If null, which is the default, an internal pool of daemon threads is used.
+   * @param executor the given Executor, or null for the internal pool
+   * @return this UpdatableSketchBuilder
+   */
+  public UpdatableSketchBuilder<U, S> setPropagationExecutor(final Executor executor) {
+    propagationExecutor_ = executor;
+    return this;
+  }
+
   /**
    * Returns an UpdatableSketch with the current configuration of this Builder.
    * @return an UpdatableSketch
@@ -96,12 +130,43 @@ public class UpdatableSketchBuilder<U, S extends UpdatableSummary<U>> {
   }
 
   /**
-   * Resets the Nominal Entries, Resize Factor and Sampling Probability to their default values.
+   * Returns a concurrent shared sketch with the current configuration of this Builder.
+   * It is updated only through the local buffers returned by {@link #buildLocal}.
+   * @param summarySetOps combines the summaries of keys present both in the shared sketch and in a
+   * propagated local buffer. Its <i>union</i> must be consistent with how summaries are updated.
+   * @return a concurrent shared sketch
+   */
+  public ConcurrentSharedTupleSketch<S> buildShared(final SummarySetOperations<S> summarySetOps) {
+    if (summarySetOps == null) {
+      throw new SketchesArgumentException("SummarySetOperations cannot be null.");
+    }
+    return new ConcurrentSharedTupleSketch<>(nomEntries_, resizeFactor_.lg(), samplingProbability_,
+        summaryFactory_, summarySetOps, propagationExecutor_);
+  }
+
+  /**
+   * Returns a local buffer to be used by a single updating thread along with the given concurrent
+   * shared sketch. Its size is set by {@link #setLocalNominalEntries(int)}.
+   * @param shared the concurrent shared sketch to be updated through the returned local buffer
+   * @return a local buffer of the given shared sketch
+   */
+  public ConcurrentHeapTupleBuffer<U, S> buildLocal(final ConcurrentSharedTupleSketch<S> shared) {
+    if (shared == null) {
+      throw new SketchesStateException("The concurrent shared sketch must be built first.");
+    }
+    return new ConcurrentHeapTupleBuffer<>(localNomEntries_, summaryFactory_, shared);
+  }
+
+  /**
+   * Resets the Nominal Entries, Resize Factor, Sampling Probability and the concurrent settings
+   * to their default values.
    * The assignment of <i>U</i> and <i>S</i> remain the same.
    */
   public void reset() {
     nomEntries_ = ThetaUtil.DEFAULT_NOMINAL_ENTRIES;
     resizeFactor_ = DEFAULT_RESIZE_FACTOR;
     samplingProbability_ = DEFAULT_SAMPLING_PROBABILITY;
+    localNomEntries_ = DEFAULT_LOCAL_NOMINAL_ENTRIES;
+    propagationExecutor_ = null;
   }
 }
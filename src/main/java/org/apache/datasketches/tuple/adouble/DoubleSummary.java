@@ -21,7 +21,9 @@ package org.apache.datasketches.tuple.adouble;
 
 import org.apache.datasketches.common.ByteArrayUtil;
 import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
 import org.apache.datasketches.tuple.DeserializeResult;
+import org.apache.datasketches.tuple.FixedWidthSummary;
 import org.apache.datasketches.tuple.UpdatableSummary;
 
 /**
@@ -30,7 +32,7 @@ import org.apache.datasketches.tuple.UpdatableSummary;
  * the mode.
  * Supported modes: Sum, Min, Max, AlwaysOne, Increment. The default mode is Sum.
  */
-public final class DoubleSummary implements UpdatableSummary<Double> {
+public final class DoubleSummary implements UpdatableSummary<Double>, FixedWidthSummary {
   private double value_;
   private final Mode mode_;
 
@@ -127,7 +129,31 @@ public final class DoubleSummary implements UpdatableSummary<Double> {
     return value_;
   }
 
-  private static final int SERIALIZED_SIZE_BYTES = 9;
+  /**
+   * @return the update mode of the DoubleSummary
+   */
+  public Mode getMode() {
+    return mode_;
+  }
+
+  private static final int FIXED_WIDTH_BYTES = 8;
+
+  @Override
+  public int getFixedWidthBytes() {
+    return FIXED_WIDTH_BYTES;
+  }
+
+  @Override
+  public void write(final WritableMemory mem, final long offsetBytes) {
+    mem.putDouble(offsetBytes, value_);
+  }
+
+  @Override
+  public void read(final Memory mem, final long offsetBytes) {
+    value_ = mem.getDouble(offsetBytes);
+  }
+
+  static final int SERIALIZED_SIZE_BYTES = 9;
   private static final int VALUE_INDEX = 0;
   private static final int MODE_BYTE_INDEX = 8;
 
@@ -33,4 +33,9 @@ public class DoubleSummaryDeserializer implements SummaryDeserializer<DoubleSumm
     return DoubleSummary.fromMemory(mem);
   }
 
+  @Override
+  public int getSummarySizeBytes(final Memory mem, final long offsetBytes) {
+    return DoubleSummary.SERIALIZED_SIZE_BYTES;
+  }
+
 }
@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple.adouble;
+
+import static org.apache.datasketches.common.Util.checkBounds;
+
+import java.util.Objects;
+
+import org.apache.datasketches.common.ByteArrayUtil;
+import org.apache.datasketches.common.Family;
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.tuple.SerializerDeserializer;
+import org.apache.datasketches.tuple.Sketch;
+import org.apache.datasketches.tuple.Sketches;
+import org.apache.datasketches.tuple.TupleSketchIterator;
+
+/**
+ * The primitive-specialized equivalent of CompactSketch&lt;DoubleSummary&gt;. It consists of a
+ * compact array of hash values, a parallel array of double values, and a value for theta.
+ * The arrays may or may not be ordered. This sketch is read-only.
+ * The serialized form is the same as the one of CompactSketch&lt;DoubleSummary&gt;.
+ */
+public final class PrimitiveDoubleCompactSketch extends PrimitiveDoubleSketch {
+  private static final byte serialVersionUID = 3;
+  private static final short defaultSeedHash = (short) 37836; // for compatibility with C++
+  private static final int SUMMARY_SIZE_BYTES = 9; // value and mode of a serialized DoubleSummary
+
+  private enum Flags { IS_BIG_ENDIAN, IS_READ_ONLY, IS_EMPTY, IS_COMPACT, IS_ORDERED }
+
+  private final long[] hashArr_;
+  private final double[] valueArr_;
+
+  /**
+   * Create a PrimitiveDoubleCompactSketch from correct components
+   * @param hashArr compacted hash array, or null if there are no entries
+   * @param valueArr compacted value array, or null if there are no entries
+   * @param thetaLong long value of theta
+   * @param empty empty flag
+   * @param mode the mode of the values
+   */
+  PrimitiveDoubleCompactSketch(final long[] hashArr, final double[] valueArr, final long thetaLong,
+      final boolean empty, final DoubleSummary.Mode mode) {
+    super(thetaLong, empty, mode);
+    hashArr_ = hashArr == null ? new long[0] : hashArr;
+    valueArr_ = valueArr == null ? new double[0] : valueArr;
+  }
+
+  /**
+   * Heapifies the serialized form of a CompactSketch&lt;DoubleSummary&gt;, which is also the serialized
+   * form of this sketch. The current serial version is read directly into primitive arrays, other
+   * serial versions are read through the generic CompactSketch.
+   * The mode of this sketch is the mode of the first serialized summary, or Sum if there are none.
+   * @param mem the given Memory
+   * @return a PrimitiveDoubleCompactSketch
+   */
+  public static PrimitiveDoubleCompactSketch heapify(final Memory mem) {
+    Objects.requireNonNull(mem, "SourceMemory must not be null.");
+    checkBounds(0, 8, mem.getCapacity());
+    int offset = 0;
+    final byte preambleLongs = mem.getByte(offset++);
+    final byte version = mem.getByte(offset++);
+    final byte familyId = mem.getByte(offset++);
+    SerializerDeserializer.validateFamily(familyId, preambleLongs);
+    SerializerDeserializer.validateType(mem.getByte(offset++),
+        SerializerDeserializer.SketchType.CompactSketch);
+    if (version != serialVersionUID) {
+      return copyOf(Sketches.heapifySketch(mem, new DoubleSummaryDeserializer()));
+    }
+    offset++; //skip unused byte
+    final byte flags = mem.getByte(offset++);
+    offset += 2; //skip seed hash
+    final boolean empty = (flags & 1 << Flags.IS_EMPTY.ordinal()) > 0;
+    long thetaLong = Long.MAX_VALUE;
+    int count = 0;
+    if (!empty) {
+      if (preambleLongs == 1) {
+        count = 1;
+      } else {
+        count = mem.getInt(offset);
+        offset += Integer.BYTES;
+        offset += 4; // unused
+        if (preambleLongs > 2) {
+          thetaLong = mem.getLong(offset);
+          offset += Long.BYTES;
+        }
+      }
+    }
+    checkBounds(offset, (long) count * (Long.BYTES + SUMMARY_SIZE_BYTES), mem.getCapacity());
+    final long[] hashArr = new long[count];
+    final double[] valueArr = new double[count];
+    DoubleSummary.Mode mode = DoubleSummary.Mode.Sum;
+    for (int i = 0; i < count; i++) {
+      hashArr[i] = mem.getLong(offset);
+      offset += Long.BYTES;
+      valueArr[i] = mem.getDouble(offset);
+      offset += Double.BYTES;
+      if (i == 0) { mode = DoubleSummary.Mode.values()[mem.getByte(offset)]; }
+      offset++;
+    }
+    return new PrimitiveDoubleCompactSketch(hashArr, valueArr, thetaLong, empty, mode);
+  }
+
+  /**
+   * Copies the entries of any generic tuple sketch of DoubleSummary into a new
+   * PrimitiveDoubleCompactSketch. The mode is the mode of the first summary, or Sum if there are
+   * none.
+   * @param sketch the given generic sketch
+   * @return a PrimitiveDoubleCompactSketch
+   */
+  public static PrimitiveDoubleCompactSketch copyOf(final Sketch<DoubleSummary> sketch) {
+    if (sketch == null) { throw new SketchesArgumentException("Sketch must not be null"); }
+    final int count = sketch.getRetainedEntries();
+    final long[] hashArr = new long[count];
+    final double[] valueArr = new double[count];
+    DoubleSummary.Mode mode = DoubleSummary.Mode.Sum;
+    final TupleSketchIterator<DoubleSummary> it = sketch.iterator();
+    int i = 0;
+    while (it.next()) {
+      final DoubleSummary summary = it.getSummary();
+      if (i == 0) { mode = summary.getMode(); }
+      hashArr[i] = it.getHash();
+      valueArr[i] = summary.getValue();
+      i++;
+    }
+    return new PrimitiveDoubleCompactSketch(hashArr, valueArr, sketch.getThetaLong(), sketch.isEmpty(), mode);
+  }
+
+  @Override
+  public PrimitiveDoubleCompactSketch compact() {
+    return this;
+  }
+
+  @Override
+  public int getRetainedEntries() {
+    return hashArr_.length;
+  }
+
+  // Layout of first 8 bytes:
+  // Long || Start Byte Adr:
+  // Adr:
+  //      ||    7   |    6   |    5   |    4   |    3   |    2   |    1   |     0              |
+  //  0   ||    seed hash    |  Flags | unused | SkType | FamID  | SerVer |  Preamble_Longs    |
+  @Override
+  public byte[] toByteArray() {
+    final int count = getRetainedEntries();
+    final boolean isSingleItem = count == 1 && !isEstimationMode();
+    final int preambleLongs = isEmpty() || isSingleItem ? 1 : isEstimationMode() ? 3 : 2;
+    final int sizeBytes = Long.BYTES * preambleLongs + (Long.BYTES + SUMMARY_SIZE_BYTES) * count;
+    final byte[] bytes = new byte[sizeBytes];
+    int offset = 0;
+    bytes[offset++] = (byte) preambleLongs;
+    bytes[offset++] = serialVersionUID;
+    bytes[offset++] = (byte) Family.TUPLE.getID();
+    bytes[offset++] = (byte) SerializerDeserializer.SketchType.CompactSketch.ordinal();
+    offset++; // unused
+    bytes[offset++] = (byte) (
+        (1 << Flags.IS_COMPACT.ordinal())
+      | (1 << Flags.IS_READ_ONLY.ordinal())
+      | (isEmpty() ? 1 << Flags.IS_EMPTY.ordinal() : 0)
+    );
+    ByteArrayUtil.putShortLE(bytes, offset, defaultSeedHash);
+    offset += Short.BYTES;
+    if (!isEmpty()) {
+      if (!isSingleItem) {
+        ByteArrayUtil.putIntLE(bytes, offset, count);
+        offset += Integer.BYTES;
+        offset += 4; // unused
+        if (isEstimationMode()) {
+          ByteArrayUtil.putLongLE(bytes, offset, thetaLong_);
+          offset += Long.BYTES;
+        }
+      }
+    }
+    final byte modeByte = (byte) mode_.ordinal();
+    for (int i = 0; i < count; i++) {
+      ByteArrayUtil.putLongLE(bytes, offset, hashArr_[i]);
+      offset += Long.BYTES;
+      ByteArrayUtil.putDoubleLE(bytes, offset, valueArr_[i]);
+      offset += Double.BYTES;
+      bytes[offset++] = modeByte;
+    }
+    return bytes;
+  }
+
+  @Override
+  public PrimitiveDoubleSketchIterator iterator() {
+    return new PrimitiveDoubleSketchIterator(hashArr_, valueArr_);
+  }
+
+  //restricted
+
+  long[] getHashArr() {
+    return hashArr_;
+  }
+
+  double[] getValueArr() {
+    return valueArr_;
+  }
+
+}
@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple.adouble;
+
+import static org.apache.datasketches.common.Util.LS;
+
+import org.apache.datasketches.thetacommon.BinomialBoundsN;
+
+/**
+ * The top level for tuple sketches that keep a primitive double value per retained hash.
+ *
+ * <p>These sketches are the primitive-specialized equivalents of {@link DoubleSketch} and of the
+ * CompactSketch&lt;DoubleSummary&gt; results of its set operations. The hashes and the values are
+ * kept in parallel long[] and double[] arrays instead of one DoubleSummary object per retained
+ * hash, and the aggregation of the values is done inline according to the
+ * {@link DoubleSummary.Mode}. The serialized forms are the same as the ones of the generic
+ * sketches, so they can be freely exchanged with them.</p>
+ */
+public abstract class PrimitiveDoubleSketch {
+
+  final DoubleSummary.Mode mode_;
+  long thetaLong_;
+  boolean empty_;
+
+  PrimitiveDoubleSketch(final long thetaLong, final boolean empty, final DoubleSummary.Mode mode) {
+    thetaLong_ = thetaLong;
+    empty_ = empty;
+    mode_ = mode;
+  }
+
+  /**
+   * Converts this sketch to a PrimitiveDoubleCompactSketch
+   * @return compact sketch
+   */
+  public abstract PrimitiveDoubleCompactSketch compact();
+
+  /**
+   * Estimates the cardinality of the set (number of unique values presented to the sketch)
+   * @return best estimate of the number of unique values
+   */
+  public double getEstimate() {
+    if (!isEstimationMode()) { return getRetainedEntries(); }
+    return getRetainedEntries() / getTheta();
+  }
+
+  /**
+   * Gets the approximate upper error bound given the specified number of Standard Deviations.
+   * This will return getEstimate() if isEmpty() is true.
+   *
+   * @param numStdDev
+   * <a href="{@docRoot}/resources/dictionary.html#numStdDev">See Number of Standard Deviations</a>
+   * @return the upper bound.
+   */
+  public double getUpperBound(final int numStdDev) {
+    if (!isEstimationMode()) { return getRetainedEntries(); }
+    return BinomialBoundsN.getUpperBound(getRetainedEntries(), getTheta(), numStdDev, empty_);
+  }
+
+  /**
+   * Gets the approximate lower error bound given the specified number of Standard Deviations.
+   * This will return getEstimate() if isEmpty() is true.
+   *
+   * @param numStdDev
+   * <a href="{@docRoot}/resources/dictionary.html#numStdDev">See Number of Standard Deviations</a>
+   * @return the lower bound.
+   */
+  public double getLowerBound(final int numStdDev) {
+    if (!isEstimationMode()) { return getRetainedEntries(); }
+    return BinomialBoundsN.getLowerBound(getRetainedEntries(), getTheta(), numStdDev, empty_);
+  }
+
+  /**
+   * <a href="{@docRoot}/resources/dictionary.html#empty">See Empty</a>
+   * @return true if empty.
+   */
+  public boolean isEmpty() {
+    return empty_;
+  }
+
+  /**
+   * Returns true if the sketch is Estimation Mode (as opposed to Exact Mode).
+   * This is true if theta &lt; 1.0 AND isEmpty() is false.
+   * @return true if the sketch is in estimation mode.
+   */
+  public boolean isEstimationMode() {
+    return thetaLong_ < Long.MAX_VALUE && !isEmpty();
+  }
+
+  /**
+   * Gets the value of theta as a double between zero and one
+   * @return the value of theta as a double
+   */
+  public double getTheta() {
+    return getThetaLong() / (double) Long.MAX_VALUE;
+  }
+
+  /**
+   * Returns Theta as a long
+   * @return Theta as a long
+   */
+  public long getThetaLong() {
+    return isEmpty() ? Long.MAX_VALUE : thetaLong_;
+  }
+
+  /**
+   * Gets the DoubleSummary mode of the values of this sketch
+   * @return the mode of the values
+   */
+  public DoubleSummary.Mode getMode() {
+    return mode_;
+  }
+
+  /**
+   * Returns number of retained entries
+   * @return number of retained entries
+   */
+  public abstract int getRetainedEntries();
+
+  /**
+   * This is to serialize a sketch instance to a byte array.
+   * The result is the same as the one of the equivalent generic sketch.
+   * @return serialized representation of the sketch
+   */
+  public abstract byte[] toByteArray();
+
+  /**
+   * Returns a PrimitiveDoubleSketchIterator
+   * @return a PrimitiveDoubleSketchIterator
+   */
+  public abstract PrimitiveDoubleSketchIterator iterator();
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder();
+    sb.append("### ").append(this.getClass().getSimpleName()).append(" SUMMARY: ").append(LS);
+    sb.append("   Estimate                : ").append(getEstimate()).append(LS);
+    sb.append("   Upper Bound, 95% conf   : ").append(getUpperBound(2)).append(LS);
+    sb.append("   Lower Bound, 95% conf   : ").append(getLowerBound(2)).append(LS);
+    sb.append("   Theta (double)          : ").append(this.getTheta()).append(LS);
+    sb.append("   Theta (long)            : ").append(this.getThetaLong()).append(LS);
+    sb.append("   EstMode?                : ").append(isEstimationMode()).append(LS);
+    sb.append("   Empty?                  : ").append(isEmpty()).append(LS);
+    sb.append("   Retained Entries        : ").append(this.getRetainedEntries()).append(LS);
+    sb.append("   Mode                    : ").append(mode_).append(LS);
+    sb.append("### END SKETCH SUMMARY").append(LS);
+    return sb.toString();
+  }
+
+  //restricted
+
+  /**
+   * Returns the value of a new DoubleSummary of the given mode.
+   * @param mode the given mode
+   * @return the starting value
+   */
+  static double initialValue(final DoubleSummary.Mode mode) {
+    switch (mode) {
+      case Min: return Double.POSITIVE_INFINITY;
+      case Max: return Double.NEGATIVE_INFINITY;
+      case AlwaysOne: return 1.0;
+      default: return 0;
+    }
+  }
+
+  /**
+   * Applies the update of a DoubleSummary of the given mode to a retained value.
+   * @param mode the given mode
+   * @param current the retained value
+   * @param value the incoming value
+   * @return the new retained value
+   */
+  static double update(final DoubleSummary.Mode mode, final double current, final double value) {
+    switch (mode) {
+      case Sum: return current + value;
+      case Min: return value < current ? value : current;
+      case Max: return value > current ? value : current;
+      default: return 1.0;
+    }
+  }
+
+  /**
+   * Combines two values the same way as DoubleSummarySetOperations with the given mode.
+   * @param mode the given mode
+   * @param a the first value
+   * @param b the second value
+   * @return the combined value
+   */
+  static double combine(final DoubleSummary.Mode mode, final double a, final double b) {
+    return update(mode, update(mode, initialValue(mode), a), b);
+  }
+
+}
@@ -18,6 +18,7 @@
  */
 
 /**
- * This package is for a generic implementation of the Tuple sketch for single Double value.
+ * This package is for a generic implementation of the Tuple sketch for single Double value,
+ * and for a primitive-specialized implementation that keeps the values in a double[].
  */
 package org.apache.datasketches.tuple.adouble;
@@ -33,4 +33,9 @@ public class IntegerSummaryDeserializer implements SummaryDeserializer<IntegerSu
     return IntegerSummary.fromMemory(mem);
   }
 
+  @Override
+  public int getSummarySizeBytes(final Memory mem, final long offsetBytes) {
+    return IntegerSummary.SERIALIZED_SIZE_BYTES;
+  }
+
 }
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple.aninteger;
+
+import static java.lang.Math.min;
+import static org.apache.datasketches.common.Util.exactLog2OfLong;
+import static org.apache.datasketches.thetacommon.HashOperations.convertToHashTable;
+import static org.apache.datasketches.thetacommon.HashOperations.hashSearch;
+
+import java.util.Arrays;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.thetacommon.SetOperationCornerCases;
+import org.apache.datasketches.thetacommon.SetOperationCornerCases.AnotbAction;
+import org.apache.datasketches.thetacommon.SetOperationCornerCases.CornerCase;
+import org.apache.datasketches.thetacommon.ThetaUtil;
+
+/**
+ * Computes a set difference, A-AND-NOT-B, of two PrimitiveIntegerSketches.
+ * This is the primitive-specialized equivalent of the stateless AnotB&lt;IntegerSummary&gt;
+ * operation. The values of A are copied directly from its value array, so no IntegerSummary
+ * objects are created.
+ */
+public final class PrimitiveIntegerAnotB {
+
+  private PrimitiveIntegerAnotB() { }
+
+  /**
+   * Returns the A-and-not-B set operation on the two given sketches.
+   * The result has the mode of sketch A.
+   *
+   * <p>If either argument is null an exception is thrown.</p>
+   *
+   * @param skA The incoming sketch for the first argument
+   * @param skB The incoming sketch for the second argument
+   * @return the result as an unordered PrimitiveIntegerCompactSketch
+   */
+  public static PrimitiveIntegerCompactSketch aNotB(final PrimitiveIntegerSketch skA,
+      final PrimitiveIntegerSketch skB) {
+    if (skA == null || skB == null) {
+      throw new SketchesArgumentException("Neither argument may be null for this stateless operation.");
+    }
+
+    final long thetaLongA = skA.getThetaLong();
+    final int countA = skA.getRetainedEntries();
+    final boolean emptyA = skA.isEmpty();
+
+    final long thetaLongB = skB.getThetaLong();
+    final int countB = skB.getRetainedEntries();
+    final boolean emptyB = skB.isEmpty();
+
+    final int id =
+        SetOperationCornerCases.createCornerCaseId(thetaLongA, countA, emptyA, thetaLongB, countB, emptyB);
+    final CornerCase cCase = CornerCase.caseIdToCornerCase(id);
+    final AnotbAction anotbAction = cCase.getAnotbAction();
+    final IntegerSummary.Mode mode = skA.getMode();
+    final long minThetaLong = min(thetaLongA, thetaLongB);
+
+    switch (anotbAction) {
+      case EMPTY_1_0_T: {
+        return new PrimitiveIntegerCompactSketch(null, null, Long.MAX_VALUE, true, mode);
+      }
+      case DEGEN_MIN_0_F: {
+        return new PrimitiveIntegerCompactSketch(null, null, minThetaLong, false, mode);
+      }
+      case DEGEN_THA_0_F: {
+        return new PrimitiveIntegerCompactSketch(null, null, thetaLongA, false, mode);
+      }
+      case TRIM_A: {
+        final PrimitiveIntegerCompactSketch cskA = skA.compact();
+        return filter(cskA.getHashArr(), cskA.getValueArr(), null, minThetaLong, skA.isEmpty(), mode);
+      }
+      case SKETCH_A: {
+        final PrimitiveIntegerCompactSketch cskA = skA.compact();
+        return new PrimitiveIntegerCompactSketch(cskA.getHashArr().clone(), cskA.getValueArr().clone(),
+            thetaLongA, skA.isEmpty(), mode);
+      }
+      default: { //FULL_ANOTB: both A and B have valid entries.
+        final PrimitiveIntegerCompactSketch cskA = skA.compact();
+        final long[] hashTableB;
+        if (skB instanceof PrimitiveIntegerUpdatableSketch) {
+          hashTableB = ((PrimitiveIntegerUpdatableSketch) skB).getHashTable();
+        } else {
+          hashTableB = convertToHashTable(((PrimitiveIntegerCompactSketch) skB).getHashArr(), countB,
+              minThetaLong, ThetaUtil.REBUILD_THRESHOLD);
+        }
+        final PrimitiveIntegerCompactSketch result =
+            filter(cskA.getHashArr(), cskA.getValueArr(), hashTableB, minThetaLong, false, mode);
+        if (result.getRetainedEntries() == 0) {
+          return new PrimitiveIntegerCompactSketch(null, null, minThetaLong, minThetaLong == Long.MAX_VALUE, mode);
+        }
+        return result;
+      }
+    }
+  }
+
+  /**
+   * Copies the entries of A with hashes less than the given theta and, if a hash table of B is
+   * given, not found in B.
+   */
+  private static PrimitiveIntegerCompactSketch filter(final long[] hashArrA, final int[] valueArrA,
+      final long[] hashTableB, final long minThetaLong, final boolean empty, final IntegerSummary.Mode mode) {
+    final int countA = hashArrA.length;
+    final long[] tmpHashArr = new long[countA];
+    final int[] tmpValueArr = new int[countA];
+    final int lgHTBLen = hashTableB == null ? 0 : exactLog2OfLong(hashTableB.length);
+    int count = 0;
+    for (int i = 0; i < countA; i++) {
+      final long hash = hashArrA[i];
+      if (hash == 0 || hash >= minThetaLong) { continue; }
+      if (hashTableB != null && hashSearch(hashTableB, lgHTBLen, hash) != -1) { continue; }
+      tmpHashArr[count] = hash;
+      tmpValueArr[count] = valueArrA[i];
+      count++;
+    }
+    return new PrimitiveIntegerCompactSketch(Arrays.copyOf(tmpHashArr, count), Arrays.copyOf(tmpValueArr, count),
+        minThetaLong, empty, mode);
+  }
+
+}
@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple.aninteger;
+
+import static java.lang.Math.ceil;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static org.apache.datasketches.common.Util.ceilingPowerOf2;
+import static org.apache.datasketches.thetacommon.HashOperations.hashInsertOnly;
+import static org.apache.datasketches.thetacommon.HashOperations.hashSearch;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesStateException;
+import org.apache.datasketches.thetacommon.ThetaUtil;
+
+/**
+ * Computes an intersection of two or more PrimitiveIntegerSketches.
+ * This is the primitive-specialized equivalent of Intersection&lt;IntegerSummary&gt; with a
+ * IntegerSummarySetOperations. The values of matching hashes are combined inline according to the
+ * intersection mode, so no IntegerSummary objects are created.
+ *
+ * <p>A new instance represents the Universal Set. Because the Universal Set
+ * cannot be realized a <i>getResult()</i> on a new instance will produce an error.
+ * Every update() computes an intersection with the internal state, which will never
+ * grow larger and may be reduced to zero.</p>
+ */
+public final class PrimitiveIntegerIntersection {
+  private final IntegerSummary.Mode intersectionMode_;
+  private boolean empty_;
+  private long thetaLong_;
+  private long[] hashTable_;
+  private int[] valueTable_;
+  private int lgTableSize_;
+  private int numKeys_;
+  private boolean firstCall_;
+
+  /**
+   * Creates new Intersection instance with instructions on how to process two values that have
+   * the same hash.
+   * @param intersectionMode the IntegerSummary mode used to combine values of the same hash
+   */
+  public PrimitiveIntegerIntersection(final IntegerSummary.Mode intersectionMode) {
+    intersectionMode_ = intersectionMode;
+    hardReset();
+  }
+
+  /**
+   * Perform a stateless intersection set operation on the two given sketches and returns the
+   * result as an unordered PrimitiveIntegerCompactSketch.
+   * @param sketchA The first argument
+   * @param sketchB The second argument
+   * @return the result as an unordered PrimitiveIntegerCompactSketch.
+   */
+  public PrimitiveIntegerCompactSketch intersect(final PrimitiveIntegerSketch sketchA,
+      final PrimitiveIntegerSketch sketchB) {
+    reset();
+    intersect(sketchA);
+    intersect(sketchB);
+    final PrimitiveIntegerCompactSketch csk = getResult();
+    reset();
+    return csk;
+  }
+
+  /**
+   * Performs a stateful intersection of the internal set with the given sketch.
+   * @param sketch input sketch to intersect with the internal state.
+   */
+  public void intersect(final PrimitiveIntegerSketch sketch) {
+    if (sketch == null) { throw new SketchesArgumentException("Sketch must not be null"); }
+    final boolean firstCall = firstCall_;
+    firstCall_ = false;
+
+    if (empty_ || sketch.isEmpty()) { //empty rule
+      //Whatever the current internal state, we make our local empty.
+      resetToEmpty();
+      return;
+    }
+    thetaLong_ = min(thetaLong_, sketch.getThetaLong()); //Theta rule
+
+    final int countIn = sketch.getRetainedEntries();
+    if (countIn == 0) {
+      clearTables();
+      return;
+    }
+    // input sketch will have valid entries > 0
+
+    final PrimitiveIntegerSketchIterator it = sketch.iterator();
+    if (firstCall) {
+      //Copy first sketch data into the local hash table
+      final long[] hashArr = new long[countIn];
+      final int[] valueArr = new int[countIn];
+      int i = 0;
+      while (it.next()) {
+        hashArr[i] = it.getHash();
+        valueArr[i] = it.getValue();
+        i++;
+      }
+      fromArrays(hashArr, valueArr, i);
+    } else {
+      if (numKeys_ == 0) { return; }
+      //Match the input sketch data with local data, filtering by theta
+      final int maxMatchSize = min(numKeys_, countIn);
+      final long[] matchHashArr = new long[maxMatchSize];
+      final int[] matchValueArr = new int[maxMatchSize];
+      int matchCount = 0;
+      while (it.next()) {
+        final long hash = it.getHash();
+        if (hash >= thetaLong_) { continue; }
+        final int index = hashSearch(hashTable_, lgTableSize_, hash);
+        if (index < 0) { continue; }
+        matchHashArr[matchCount] = hash;
+        matchValueArr[matchCount] = PrimitiveIntegerSketch.combine(intersectionMode_, valueTable_[index],
+            it.getValue());
+        matchCount++;
+      }
+      fromArrays(matchHashArr, matchValueArr, matchCount);
+    }
+  }
+
+  /**
+   * Gets the internal set as an unordered PrimitiveIntegerCompactSketch
+   * @return result of the intersections so far
+   */
+  public PrimitiveIntegerCompactSketch getResult() {
+    if (firstCall_) {
+      throw new SketchesStateException(
+        "getResult() with no intervening intersections is not a legal result.");
+    }
+    if (numKeys_ == 0) {
+      return new PrimitiveIntegerCompactSketch(null, null, thetaLong_, empty_, intersectionMode_);
+    }
+    final long[] hashArr = new long[numKeys_];
+    final int[] valueArr = new int[numKeys_];
+    int cnt = 0;
+    for (int i = 0; i < hashTable_.length; i++) {
+      final long hash = hashTable_[i];
+      if (hash == 0 || hash > thetaLong_) { continue; }
+      hashArr[cnt] = hash;
+      valueArr[cnt] = valueTable_[i];
+      cnt++;
+    }
+    assert cnt == numKeys_;
+    return new PrimitiveIntegerCompactSketch(hashArr, valueArr, thetaLong_, empty_, intersectionMode_);
+  }
+
+  /**
+   * Returns true if there is a valid intersection result available
+   * @return true if there is a valid intersection result available
+   */
+  public boolean hasResult() {
+    return !firstCall_;
+  }
+
+  /**
+   * Resets the internal set to the initial state, which represents the Universal Set
+   */
+  public void reset() {
+    hardReset();
+  }
+
+  private void hardReset() {
+    empty_ = false;
+    thetaLong_ = Long.MAX_VALUE;
+    clearTables();
+    firstCall_ = true;
+  }
+
+  private void resetToEmpty() {
+    empty_ = true;
+    thetaLong_ = Long.MAX_VALUE;
+    clearTables();
+    firstCall_ = false;
+  }
+
+  private void clearTables() {
+    hashTable_ = null;
+    valueTable_ = null;
+    lgTableSize_ = 0;
+    numKeys_ = 0;
+  }
+
+  private void fromArrays(final long[] hashArr, final int[] valueArr, final int count) {
+    numKeys_ = count;
+    lgTableSize_ = getLgTableSize(count);
+    hashTable_ = new long[1 << lgTableSize_];
+    valueTable_ = new int[1 << lgTableSize_];
+    for (int i = 0; i < count; i++) {
+      final int index = hashInsertOnly(hashTable_, lgTableSize_, hashArr[i]);
+      valueTable_[index] = valueArr[i];
+    }
+  }
+
+  private static int getLgTableSize(final int count) {
+    final int tableSize = max(ceilingPowerOf2((int) ceil(count / 0.75)), 1 << ThetaUtil.MIN_LG_NOM_LONGS);
+    return Integer.numberOfTrailingZeros(tableSize);
+  }
+
+}
@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple.aninteger;
+
+import static java.lang.Math.min;
+import static org.apache.datasketches.common.Util.ceilingPowerOf2;
+
+import org.apache.datasketches.common.ResizeFactor;
+import org.apache.datasketches.thetacommon.QuickSelect;
+import org.apache.datasketches.thetacommon.ThetaUtil;
+
+/**
+ * Compute the union of two or more PrimitiveIntegerSketches.
+ * This is the primitive-specialized equivalent of Union&lt;IntegerSummary&gt; with a
+ * IntegerSummarySetOperations. The values of matching hashes are combined inline according to the
+ * union mode, so no IntegerSummary objects are created.
+ */
+public final class PrimitiveIntegerUnion {
+  private final IntegerSummary.Mode unionMode_;
+  private final PrimitiveIntegerUpdatableSketch qsk_;
+  private long unionThetaLong_; // need to maintain outside of the sketch
+  private boolean empty_;
+
+  /**
+   * Creates new Union instance with instructions on how to process two values that have the same
+   * hash. The default nominal entries is used.
+   * @param unionMode the IntegerSummary mode used to combine values of the same hash
+   */
+  public PrimitiveIntegerUnion(final IntegerSummary.Mode unionMode) {
+    this(ThetaUtil.DEFAULT_NOMINAL_ENTRIES, unionMode);
+  }
+
+  /**
+   * Creates new Union instance.
+   * @param nomEntries nominal entries (K). Forced to the nearest power of 2 greater than
+   * given value.
+   * @param unionMode the IntegerSummary mode used to combine values of the same hash
+   */
+  public PrimitiveIntegerUnion(final int nomEntries, final IntegerSummary.Mode unionMode) {
+    unionMode_ = unionMode;
+    qsk_ = new PrimitiveIntegerUpdatableSketch(Integer.numberOfTrailingZeros(ceilingPowerOf2(nomEntries)),
+        ResizeFactor.X8.lg(), 1f, unionMode);
+    unionThetaLong_ = qsk_.getThetaLong();
+    empty_ = true;
+  }
+
+  /**
+   * Perform a stateless, pair-wise union operation between two sketches.
+   * The returned sketch will be cut back to the smaller of the two k values if required.
+   *
+   * <p>This method does not modify the internal state of this Union.</p>
+   *
+   * @param sketchA The first argument
+   * @param sketchB The second argument
+   * @return the result as a PrimitiveIntegerCompactSketch
+   */
+  public PrimitiveIntegerCompactSketch union(final PrimitiveIntegerSketch sketchA,
+      final PrimitiveIntegerSketch sketchB) {
+    reset();
+    union(sketchA);
+    union(sketchB);
+    return getResult(true);
+  }
+
+  /**
+   * Performs a stateful union of the internal set with the given sketch.
+   * @param sketch input sketch to add to the internal set.
+   * If the sketch is null or empty it is ignored.
+   */
+  public void union(final PrimitiveIntegerSketch sketch) {
+    if (sketch == null || sketch.isEmpty()) { return; }
+    empty_ = false;
+    unionThetaLong_ = min(sketch.thetaLong_, unionThetaLong_);
+    final PrimitiveIntegerSketchIterator it = sketch.iterator();
+    while (it.next()) {
+      qsk_.merge(it.getHash(), it.getValue());
+    }
+    unionThetaLong_ = min(unionThetaLong_, qsk_.thetaLong_);
+  }
+
+  /**
+   * Gets the result of a sequence of stateful <i>union</i> operations as an unordered
+   * PrimitiveIntegerCompactSketch
+   * @return result of the stateful unions so far. The state of this operation is not reset after
+   * the result is returned.
+   */
+  public PrimitiveIntegerCompactSketch getResult() {
+    return getResult(false);
+  }
+
+  /**
+   * Gets the result of a sequence of stateful <i>union</i> operations as an unordered
+   * PrimitiveIntegerCompactSketch.
+   * @param reset If <i>true</i>, clears this operator to the empty state after this result is
+   * returned. Set this to <i>false</i> if you wish to obtain an intermediate result.
+   * @return result of the stateful union
+   */
+  public PrimitiveIntegerCompactSketch getResult(final boolean reset) {
+    final PrimitiveIntegerCompactSketch result;
+    if (empty_) {
+      result = qsk_.compact();
+    } else if (unionThetaLong_ >= qsk_.thetaLong_ && qsk_.getRetainedEntries() <= qsk_.getNominalEntries()) {
+      result = qsk_.compact();
+    } else {
+      final long tmpThetaLong = min(unionThetaLong_, qsk_.thetaLong_);
+
+      //count the number of valid hashes in because Alpha can have dirty values
+      int numHashesIn = 0;
+      PrimitiveIntegerSketchIterator it = qsk_.iterator();
+      while (it.next()) {
+        if (it.getHash() < tmpThetaLong) { numHashesIn++; }
+      }
+
+      if (numHashesIn == 0) {
+        //numHashes == 0 && empty == false means Theta < 1.0
+        //Therefore, this is a degenerate sketch: theta < 1.0, count = 0, empty = false
+        result = new PrimitiveIntegerCompactSketch(null, null, tmpThetaLong, empty_, unionMode_);
+      } else {
+        final int numHashesOut;
+        final long thetaLongOut;
+        if (numHashesIn > qsk_.getNominalEntries()) {
+          //we need to trim hashes and need a new thetaLong
+          final long[] tmpHashArr = new long[numHashesIn]; // order will be destroyed by quick select
+          it = qsk_.iterator();
+          int i = 0;
+          while (it.next()) {
+            final long hash = it.getHash();
+            if (hash < tmpThetaLong) { tmpHashArr[i++] = hash; }
+          }
+          numHashesOut = qsk_.getNominalEntries();
+          thetaLongOut = QuickSelect.select(tmpHashArr, 0, numHashesIn - 1, numHashesOut);
+        } else {
+          numHashesOut = numHashesIn;
+          thetaLongOut = tmpThetaLong;
+        }
+        final long[] hashArr = new long[numHashesOut];
+        final int[] valueArr = new int[numHashesOut];
+        it = qsk_.iterator();
+        int i = 0;
+        while (it.next()) {
+          final long hash = it.getHash();
+          if (hash < thetaLongOut) {
+            hashArr[i] = hash;
+            valueArr[i] = it.getValue();
+            i++;
+          }
+        }
+        result = new PrimitiveIntegerCompactSketch(hashArr, valueArr, thetaLongOut, empty_, unionMode_);
+      }
+    }
+    if (reset) { reset(); }
+    return result;
+  }
+
+  /**
+   * Resets the internal set to the initial state, which represents an empty set. This is only
+   * useful after sequences of stateful union operations.
+   */
+  public void reset() {
+    qsk_.reset();
+    unionThetaLong_ = qsk_.getThetaLong();
+    empty_ = true;
+  }
+}
@@ -0,0 +1,513 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple.aninteger;
+
+import static org.apache.datasketches.common.Util.checkBounds;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+import org.apache.datasketches.common.ByteArrayUtil;
+import org.apache.datasketches.common.Family;
+import org.apache.datasketches.common.ResizeFactor;
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.hash.MurmurHash3;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.thetacommon.HashOperations;
+import org.apache.datasketches.thetacommon.QuickSelect;
+import org.apache.datasketches.thetacommon.ThetaUtil;
+import org.apache.datasketches.tuple.SerializerDeserializer;
+import org.apache.datasketches.tuple.Util;
+
+/**
+ * The primitive-specialized equivalent of {@link IntegerSketch}, using the QuickSelect algorithm.
+ * The hash table is a long[] with a parallel int[] of values, which are updated inline
+ * according to the mode, so no IntegerSummary objects are created.
+ * The serialized form is the same as the one of IntegerSketch.
+ */
+public final class PrimitiveIntegerUpdatableSketch extends PrimitiveIntegerSketch {
+  private static final byte serialVersionUID = 2;
+  private static final int SUMMARY_SIZE_BYTES = 5; // value and mode of a serialized IntegerSummary
+
+  private enum Flags { IS_BIG_ENDIAN, IS_IN_SAMPLING_MODE, IS_EMPTY, HAS_ENTRIES, IS_THETA_INCLUDED }
+
+  private final int nomEntries_;
+  private final int lgResizeFactor_;
+  private final float samplingProbability_;
+  private int lgCurrentCapacity_;
+  private int retEntries_;
+  private int rebuildThreshold_;
+  private long[] hashTable_;
+  private int[] valueTable_;
+
+  /**
+   * Constructs this sketch with given <i>lgK</i>.
+   * @param lgK Log_base2 of <i>Nominal Entries</i>.
+   * <a href="{@docRoot}/resources/dictionary.html#nomEntries">See Nominal Entries</a>
+   * @param mode The IntegerSummary mode to be used
+   */
+  public PrimitiveIntegerUpdatableSketch(final int lgK, final IntegerSummary.Mode mode) {
+    this(lgK, ResizeFactor.X8.lg(), 1.0F, mode);
+  }
+
+  /**
+   * Creates this sketch with the following parameters:
+   * @param lgK Log_base2 of <i>Nominal Entries</i>.
+   * @param lgResizeFactor log2(resizeFactor) - value from 0 to 3:
+   * <pre>
+   * 0 - no resizing (max size allocated),
+   * 1 - double internal hash table each time it reaches a threshold
+   * 2 - grow four times
+   * 3 - grow eight times (default)
+   * </pre>
+   * @param samplingProbability
+   * <a href="{@docRoot}/resources/dictionary.html#p">See Sampling Probability</a>
+   * @param mode The IntegerSummary mode to be used
+   */
+  public PrimitiveIntegerUpdatableSketch(final int lgK, final int lgResizeFactor,
+      final float samplingProbability, final IntegerSummary.Mode mode) {
+    super((long) (Long.MAX_VALUE * (double) samplingProbability), true, mode);
+    nomEntries_ = 1 << lgK;
+    lgResizeFactor_ = lgResizeFactor;
+    samplingProbability_ = samplingProbability;
+    final int startingCapacity = Util.getStartingCapacity(nomEntries_, lgResizeFactor);
+    lgCurrentCapacity_ = Integer.numberOfTrailingZeros(startingCapacity);
+    retEntries_ = 0;
+    hashTable_ = new long[startingCapacity];
+    valueTable_ = new int[startingCapacity];
+    rebuildThreshold_ = getRebuildThreshold(hashTable_.length, nomEntries_);
+  }
+
+  /**
+   * Copy constructor
+   * @param sketch the sketch to be deep copied.
+   */
+  public PrimitiveIntegerUpdatableSketch(final PrimitiveIntegerUpdatableSketch sketch) {
+    super(sketch.thetaLong_, sketch.empty_, sketch.mode_);
+    nomEntries_ = sketch.nomEntries_;
+    lgResizeFactor_ = sketch.lgResizeFactor_;
+    samplingProbability_ = sketch.samplingProbability_;
+    lgCurrentCapacity_ = sketch.lgCurrentCapacity_;
+    retEntries_ = sketch.retEntries_;
+    rebuildThreshold_ = sketch.rebuildThreshold_;
+    hashTable_ = sketch.hashTable_.clone();
+    valueTable_ = sketch.valueTable_.clone();
+  }
+
+  private PrimitiveIntegerUpdatableSketch(final long thetaLong, final boolean empty,
+      final IntegerSummary.Mode mode, final int nomEntries, final int lgResizeFactor,
+      final float samplingProbability, final long[] hashTable, final int[] valueTable,
+      final int retEntries) {
+    super(thetaLong, empty, mode);
+    nomEntries_ = nomEntries;
+    lgResizeFactor_ = lgResizeFactor;
+    samplingProbability_ = samplingProbability;
+    lgCurrentCapacity_ = Integer.numberOfTrailingZeros(hashTable.length);
+    retEntries_ = retEntries;
+    hashTable_ = hashTable;
+    valueTable_ = valueTable;
+    rebuildThreshold_ = getRebuildThreshold(hashTable.length, nomEntries);
+  }
+
+  /**
+   * Heapifies the serialized form of a IntegerSketch, which is also the serialized form of this
+   * sketch. The values are read directly into the value table.
+   * @param mem the given Memory
+   * @param mode The IntegerSummary mode to be used
+   * @return a PrimitiveIntegerUpdatableSketch
+   */
+  public static PrimitiveIntegerUpdatableSketch heapify(final Memory mem, final IntegerSummary.Mode mode) {
+    Objects.requireNonNull(mem, "SourceMemory must not be null.");
+    checkBounds(0, 8, mem.getCapacity());
+    int offset = 0;
+    final byte preambleLongs = mem.getByte(offset++); //byte 0 PreLongs
+    final byte version = mem.getByte(offset++);       //byte 1 SerVer
+    final byte familyId = mem.getByte(offset++);      //byte 2 FamID
+    SerializerDeserializer.validateFamily(familyId, preambleLongs);
+    if (version > serialVersionUID) {
+      throw new SketchesArgumentException(
+          "Unsupported serial version. Expected: " + serialVersionUID + " or lower, actual: " + version);
+    }
+    SerializerDeserializer.validateType(mem.getByte(offset++), //byte 3
+        SerializerDeserializer.SketchType.QuickSelectSketch);
+    final byte flags = mem.getByte(offset++); //byte 4
+    final boolean isBigEndian = (flags & 1 << Flags.IS_BIG_ENDIAN.ordinal()) > 0;
+    if (isBigEndian ^ ByteOrder.nativeOrder().equals(ByteOrder.BIG_ENDIAN)) {
+      throw new SketchesArgumentException("Endian byte order mismatch");
+    }
+    final int nomEntries = 1 << mem.getByte(offset++); //byte 5
+    final int lgCurrentCapacity = mem.getByte(offset++); //byte 6
+    final int lgResizeFactor = mem.getByte(offset++); //byte 7
+
+    checkBounds(0, preambleLongs * 8L, mem.getCapacity());
+    final boolean isInSamplingMode = (flags & 1 << Flags.IS_IN_SAMPLING_MODE.ordinal()) > 0;
+    final float samplingProbability = isInSamplingMode ? mem.getFloat(offset) : 1f; //bytes 8 - 11
+    if (isInSamplingMode) {
+      offset += Float.BYTES;
+    }
+    final long thetaLong;
+    if ((flags & 1 << Flags.IS_THETA_INCLUDED.ordinal()) > 0) {
+      thetaLong = mem.getLong(offset);
+      offset += Long.BYTES;
+    } else {
+      thetaLong = (long) (Long.MAX_VALUE * (double) samplingProbability);
+    }
+    int count = 0;
+    if ((flags & (1 << Flags.HAS_ENTRIES.ordinal())) > 0) {
+      count = mem.getInt(offset);
+      offset += Integer.BYTES;
+    }
+    checkBounds(offset, (long) count * (Long.BYTES + SUMMARY_SIZE_BYTES), mem.getCapacity());
+    final long[] hashTable = new long[1 << lgCurrentCapacity];
+    final int[] valueTable = new int[1 << lgCurrentCapacity];
+    for (int i = 0; i < count; i++) {
+      final long hash = mem.getLong(offset);
+      offset += Long.BYTES;
+      final int index = HashOperations.hashInsertOnly(hashTable, lgCurrentCapacity, hash);
+      valueTable[index] = mem.getInt(offset);
+      offset += SUMMARY_SIZE_BYTES;
+    }
+    final boolean empty = (flags & 1 << Flags.IS_EMPTY.ordinal()) > 0;
+    return new PrimitiveIntegerUpdatableSketch(thetaLong, empty, mode, nomEntries, lgResizeFactor,
+        samplingProbability, hashTable, valueTable, count);
+  }
+
+  /**
+   * Updates this sketch with a long key and int value.
+   * The value is aggregated with the one associated with the key according to the mode.
+   *
+   * @param key The given long key
+   * @param value The given int value
+   */
+  public void update(final long key, final int value) {
+    insertOrIgnore(MurmurHash3.hash64(key, ThetaUtil.DEFAULT_UPDATE_SEED) >>> 1, value);
+  }
+
+  /**
+   * Updates this sketch with a double key and int value.
+   * The value is aggregated with the one associated with the key according to the mode.
+   *
+   * @param key The given double key
+   * @param value The given int value
+   */
+  public void update(final double key, final int value) {
+    update(Util.doubleToLongArray(key), value);
+  }
+
+  /**
+   * Updates this sketch with a String key and int value.
+   * The value is aggregated with the one associated with the key according to the mode.
+   *
+   * @param key The given String key
+   * @param value The given int value
+   */
+  public void update(final String key, final int value) {
+    update(Util.stringToByteArray(key), value);
+  }
+
+  /**
+   * Updates this sketch with a byte[] key and int value.
+   * The value is aggregated with the one associated with the key according to the mode.
+   *
+   * @param key The given byte[] key
+   * @param value The given int value
+   */
+  public void update(final byte[] key, final int value) {
+    if ((key == null) || (key.length == 0)) { return; }
+    insertOrIgnore(MurmurHash3.hash64(key, ThetaUtil.DEFAULT_UPDATE_SEED) >>> 1, value);
+  }
+
+  /**
+   * Updates this sketch with a ByteBuffer key and int value.
+   * The value is aggregated with the one associated with the key according to the mode.
+   *
+   * @param buffer The given ByteBuffer key
+   * @param value The given int value
+   */
+  public void update(final ByteBuffer buffer, final int value) {
+    if (buffer == null || buffer.hasRemaining() == false) { return; }
+    insertOrIgnore(MurmurHash3.hash64(buffer, ThetaUtil.DEFAULT_UPDATE_SEED) >>> 1, value);
+  }
+
+  /**
+   * Updates this sketch with a int[] key and int value.
+   * The value is aggregated with the one associated with the key according to the mode.
+   *
+   * @param key The given int[] key
+   * @param value The given int value
+   */
+  public void update(final int[] key, final int value) {
+    if ((key == null) || (key.length == 0)) { return; }
+    insertOrIgnore(MurmurHash3.hash64(key, ThetaUtil.DEFAULT_UPDATE_SEED) >>> 1, value);
+  }
+
+  /**
+   * Updates this sketch with a long[] key and int value.
+   * The value is aggregated with the one associated with the key according to the mode.
+   *
+   * @param key The given long[] key
+   * @param value The given int value
+   */
+  public void update(final long[] key, final int value) {
+    if ((key == null) || (key.length == 0)) { return; }
+    insertOrIgnore(MurmurHash3.hash64(key, ThetaUtil.DEFAULT_UPDATE_SEED) >>> 1, value);
+  }
+
+  @Override
+  public int getRetainedEntries() {
+    return retEntries_;
+  }
+
+  /**
+   * Get configured nominal number of entries
+   * @return nominal number of entries
+   */
+  public int getNominalEntries() {
+    return nomEntries_;
+  }
+
+  /**
+   * Get log_base2 of Nominal Entries
+   * @return log_base2 of Nominal Entries
+   */
+  public int getLgK() {
+    return Integer.numberOfTrailingZeros(nomEntries_);
+  }
+
+  /**
+   * Get configured sampling probability
+   * @return sampling probability
+   */
+  public float getSamplingProbability() {
+    return samplingProbability_;
+  }
+
+  /**
+   * Get current capacity
+   * @return current capacity
+   */
+  public int getCurrentCapacity() {
+    return 1 << lgCurrentCapacity_;
+  }
+
+  /**
+   * Get configured resize factor
+   * @return resize factor
+   */
+  public ResizeFactor getResizeFactor() {
+    return ResizeFactor.getRF(lgResizeFactor_);
+  }
+
+  /**
+   * Rebuilds reducing the actual number of entries to the nominal number of entries if needed
+   */
+  public void trim() {
+    if (retEntries_ > nomEntries_) {
+      updateTheta();
+      resize(hashTable_.length);
+    }
+  }
+
+  /**
+   * Resets this sketch an empty state.
+   */
+  public void reset() {
+    empty_ = true;
+    retEntries_ = 0;
+    thetaLong_ = (long) (Long.MAX_VALUE * (double) samplingProbability_);
+    final int startingCapacity = Util.getStartingCapacity(nomEntries_, lgResizeFactor_);
+    lgCurrentCapacity_ = Integer.numberOfTrailingZeros(startingCapacity);
+    hashTable_ = new long[startingCapacity];
+    valueTable_ = new int[startingCapacity];
+    rebuildThreshold_ = getRebuildThreshold(hashTable_.length, nomEntries_);
+  }
+
+  @Override
+  public PrimitiveIntegerCompactSketch compact() {
+    if (retEntries_ == 0) {
+      if (empty_) { return new PrimitiveIntegerCompactSketch(null, null, Long.MAX_VALUE, true, mode_); }
+      return new PrimitiveIntegerCompactSketch(null, null, thetaLong_, false, mode_);
+    }
+    final long[] hashArr = new long[retEntries_];
+    final int[] valueArr = new int[retEntries_];
+    int i = 0;
+    for (int j = 0; j < hashTable_.length; j++) {
+      if (hashTable_[j] != 0) {
+        hashArr[i] = hashTable_[j];
+        valueArr[i] = valueTable_[j];
+        i++;
+      }
+    }
+    return new PrimitiveIntegerCompactSketch(hashArr, valueArr, thetaLong_, empty_, mode_);
+  }
+
+  /**
+   * This serializes this sketch in the same form as IntegerSketch.
+   * @return serialized representation of the sketch
+   */
+  @Override
+  public byte[] toByteArray() {
+    int sizeBytes = 8; // preamble
+    if (isInSamplingMode()) {
+      sizeBytes += Float.BYTES; // samplingProbability
+    }
+    final boolean isThetaIncluded = isInSamplingMode()
+        ? thetaLong_ < samplingProbability_ : thetaLong_ < Long.MAX_VALUE;
+    if (isThetaIncluded) {
+      sizeBytes += Long.BYTES;
+    }
+    if (retEntries_ > 0) {
+      sizeBytes += Integer.BYTES; // count
+    }
+    sizeBytes += (Long.BYTES + SUMMARY_SIZE_BYTES) * retEntries_;
+    final byte[] bytes = new byte[sizeBytes];
+    int offset = 0;
+    bytes[offset++] = 1; // preamble longs
+    bytes[offset++] = serialVersionUID;
+    bytes[offset++] = (byte) Family.TUPLE.getID();
+    bytes[offset++] = (byte) SerializerDeserializer.SketchType.QuickSelectSketch.ordinal();
+    final boolean isBigEndian = ByteOrder.nativeOrder().equals(ByteOrder.BIG_ENDIAN);
+    bytes[offset++] = (byte) (
+      (isBigEndian ? 1 << Flags.IS_BIG_ENDIAN.ordinal() : 0)
+      | (isInSamplingMode() ? 1 << Flags.IS_IN_SAMPLING_MODE.ordinal() : 0)
+      | (empty_ ? 1 << Flags.IS_EMPTY.ordinal() : 0)
+      | (retEntries_ > 0 ? 1 << Flags.HAS_ENTRIES.ordinal() : 0)
+      | (isThetaIncluded ? 1 << Flags.IS_THETA_INCLUDED.ordinal() : 0)
+    );
+    bytes[offset++] = (byte) Integer.numberOfTrailingZeros(nomEntries_);
+    bytes[offset++] = (byte) lgCurrentCapacity_;
+    bytes[offset++] = (byte) lgResizeFactor_;
+    if (samplingProbability_ < 1f) {
+      ByteArrayUtil.putFloatLE(bytes, offset, samplingProbability_);
+      offset += Float.BYTES;
+    }
+    if (isThetaIncluded) {
+      ByteArrayUtil.putLongLE(bytes, offset, thetaLong_);
+      offset += Long.BYTES;
+    }
+    if (retEntries_ > 0) {
+      ByteArrayUtil.putIntLE(bytes, offset, retEntries_);
+      offset += Integer.BYTES;
+    }
+    final byte modeByte = (byte) mode_.ordinal();
+    for (int j = 0; j < hashTable_.length; j++) {
+      if (hashTable_[j] != 0) {
+        ByteArrayUtil.putLongLE(bytes, offset, hashTable_[j]);
+        offset += Long.BYTES;
+        ByteArrayUtil.putIntLE(bytes, offset, valueTable_[j]);
+        offset += Integer.BYTES;
+        bytes[offset++] = modeByte;
+      }
+    }
+    return bytes;
+  }
+
+  @Override
+  public PrimitiveIntegerSketchIterator iterator() {
+    return new PrimitiveIntegerSketchIterator(hashTable_, valueTable_);
+  }
+
+  //restricted
+
+  long[] getHashTable() {
+    return hashTable_;
+  }
+
+  void insertOrIgnore(final long hash, final int value) {
+    empty_ = false;
+    if (hash >= thetaLong_) { return; }
+    int index = HashOperations.hashSearchOrInsert(hashTable_, lgCurrentCapacity_, hash);
+    if (index < 0) {
+      index = ~index;
+      retEntries_++;
+      valueTable_[index] = initialValue(mode_);
+    }
+    valueTable_[index] = PrimitiveIntegerSketch.update(mode_, valueTable_[index], value);
+    rebuildIfNeeded();
+  }
+
+  // this is a special back door insert for merging
+  // not sufficient by itself without keeping track of theta of another sketch
+  void merge(final long hash, final int value) {
+    empty_ = false;
+    if (hash > 0 && hash < thetaLong_) {
+      final int index = HashOperations.hashSearchOrInsert(hashTable_, lgCurrentCapacity_, hash);
+      if (index < 0) {
+        retEntries_++;
+        valueTable_[~index] = value; //did not find, so insert
+      } else {
+        valueTable_[index] = combine(mode_, valueTable_[index], value);
+      }
+      rebuildIfNeeded();
+    }
+  }
+
+  private boolean isInSamplingMode() {
+    return samplingProbability_ < 1f;
+  }
+
+  private void rebuildIfNeeded() {
+    if (retEntries_ <= rebuildThreshold_) { return; }
+    if (hashTable_.length > nomEntries_) {
+      updateTheta();
+      resize(hashTable_.length);
+    } else {
+      resize(hashTable_.length * (1 << lgResizeFactor_));
+    }
+  }
+
+  private void updateTheta() {
+    final long[] hashArr = new long[retEntries_];
+    int i = 0;
+    for (int j = 0; j < hashTable_.length; j++) {
+      if (hashTable_[j] != 0) {
+        hashArr[i++] = hashTable_[j];
+      }
+    }
+    thetaLong_ = QuickSelect.select(hashArr, 0, retEntries_ - 1, nomEntries_);
+  }
+
+  private void resize(final int newSize) {
+    final long[] oldHashTable = hashTable_;
+    final int[] oldValueTable = valueTable_;
+    hashTable_ = new long[newSize];
+    valueTable_ = new int[newSize];
+    lgCurrentCapacity_ = Integer.numberOfTrailingZeros(newSize);
+    retEntries_ = 0;
+    for (int i = 0; i < oldHashTable.length; i++) {
+      if (oldHashTable[i] != 0 && oldHashTable[i] < thetaLong_) {
+        final int index = HashOperations.hashInsertOnly(hashTable_, lgCurrentCapacity_, oldHashTable[i]);
+        valueTable_[index] = oldValueTable[i];
+        retEntries_++;
+      }
+    }
+    rebuildThreshold_ = getRebuildThreshold(hashTable_.length, nomEntries_);
+  }
+
+  private static int getRebuildThreshold(final int capacity, final int nomEntries) {
+    if (capacity > nomEntries) {
+      return (int) (capacity * ThetaUtil.REBUILD_THRESHOLD);
+    } else {
+      return (int) (capacity * ThetaUtil.RESIZE_THRESHOLD);
+    }
+  }
+
+}
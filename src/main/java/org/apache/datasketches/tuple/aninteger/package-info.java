@@ -18,6 +18,7 @@
  */
 
 /**
- * This package is for a generic implementation of the Tuple sketch for single Integer value.
+ * This package is for a generic implementation of the Tuple sketch for single Integer value,
+ * and for a primitive-specialized implementation that keeps the values in an int[].
  */
 package org.apache.datasketches.tuple.aninteger;
@@ -19,6 +19,14 @@
 
 package org.apache.datasketches.tuple.arrayofdoubles;
 
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import org.apache.datasketches.common.Family;
+import org.apache.datasketches.memory.WritableMemory;
+import org.apache.datasketches.theta.BitPacking;
+import org.apache.datasketches.tuple.SerializerDeserializer;
+
 /**
  * Top level compact tuple sketch of type ArrayOfDoubles. Compact sketches are never created
  * directly.  They are created as a result of the compact() method on a QuickSelectSketch
@@ -30,6 +38,7 @@ package org.apache.datasketches.tuple.arrayofdoubles;
 public abstract class ArrayOfDoublesCompactSketch extends ArrayOfDoublesSketch {
 
   static final byte serialVersionUID = 1;
+  static final byte serialVersionUIDCompressed = 2;
 
   // Layout of retained entries:
   // Long || Start Byte Adr:
@@ -42,6 +51,17 @@ public abstract class ArrayOfDoublesCompactSketch extends ArrayOfDoublesSketch {
   // 4 bytes of padding for 8 byte alignment
   static final int ENTRIES_START = 24;
 
+  // Layout of retained entries of the compressed (Serial Version 2) form:
+  // Long || Start Byte Adr:
+  // Adr:
+  //      ||   23   |   22   |   21   |   20   |   19   |   18   |   17   |    16     |
+  //  3   ||--------unused-----------|  #Bits |----------Retained Entries------------|
+  // followed by the hash deltas in ascending hash order, bit-packed with #Bits bits each
+  // (the same layout as the compressed theta CompactSketch), and then the values in the same order,
+  // column by column, either as raw doubles or XOR encoded if the HAS_XOR_VALUES flag is set.
+
+  static final int ENTRY_BITS_BYTE = 20;
+
   ArrayOfDoublesCompactSketch(final int numValues) {
     super(numValues);
   }
@@ -61,4 +81,71 @@ public abstract class ArrayOfDoublesCompactSketch extends ArrayOfDoublesSketch {
   public int getMaxBytes() {
     return getCurrentBytes();
   }
+
+  /**
+   * Gets the sketch as a compressed byte array with XOR encoded values.
+   * See {@link #toByteArrayCompressed(boolean)}.
+   * @return the sketch as a compressed byte array
+   */
+  public byte[] toByteArrayCompressed() {
+    return toByteArrayCompressed(true);
+  }
+
+  /**
+   * Gets the sketch as a compressed byte array. The hashes are stored in ascending order as
+   * bit-packed deltas. The values are stored column by column, which keeps similar values together,
+   * and are optionally XOR encoded against the previous value of the same column. XOR encoding
+   * pays off for columns with repeated or slowly changing values, such as counts, while raw columns
+   * are preferable for values that look random.
+   * A sketch without retained entries is not compressed.
+   * Both forms can be read back by heapify and wrap. Wrapping a compressed image decodes it onto
+   * the heap.
+   * @param xorValues if true the values are XOR encoded, otherwise they are stored as raw doubles
+   * @return the sketch as a compressed byte array
+   */
+  public byte[] toByteArrayCompressed(final boolean xorValues) {
+    final int count = getRetainedEntries();
+    if (count == 0) { return toByteArray(); }
+    final long[] keys = getKeys();
+    final double[] values = getValuesAsOneDimension();
+    final long[] sortedKeys = keys.clone();
+    Arrays.sort(sortedKeys);
+    final double[] columns = new double[count * numValues_];
+    for (int i = 0; i < count; i++) {
+      final int index = Arrays.binarySearch(sortedKeys, keys[i]);
+      for (int j = 0; j < numValues_; j++) {
+        columns[(j * count) + index] = values[(i * numValues_) + j];
+      }
+    }
+    final int entryBits = BitPacking.computeDeltaBits(sortedKeys, count);
+    final int keysBytes = (int) ((((long) count * entryBits) + 7) >>> 3);
+    final byte[] encodedValues = xorValues ? XorDoubleCodec.encode(columns, count, numValues_) : null;
+    final int valuesBytes = xorValues ? encodedValues.length : SIZE_OF_VALUE_BYTES * columns.length;
+    final byte[] bytes = new byte[ENTRIES_START + keysBytes + valuesBytes];
+    final WritableMemory mem = WritableMemory.writableWrap(bytes);
+    mem.putByte(PREAMBLE_LONGS_BYTE, (byte) 1);
+    mem.putByte(SERIAL_VERSION_BYTE, serialVersionUIDCompressed);
+    mem.putByte(FAMILY_ID_BYTE, (byte) Family.TUPLE.getID());
+    mem.putByte(SKETCH_TYPE_BYTE,
+        (byte) SerializerDeserializer.SketchType.ArrayOfDoublesCompactSketch.ordinal());
+    final boolean isBigEndian = ByteOrder.nativeOrder().equals(ByteOrder.BIG_ENDIAN);
+    mem.putByte(FLAGS_BYTE, (byte) (
+      ((isBigEndian ? 1 : 0) << Flags.IS_BIG_ENDIAN.ordinal())
+      | ((isEmpty() ? 1 : 0) << Flags.IS_EMPTY.ordinal())
+      | (1 << Flags.HAS_ENTRIES.ordinal())
+      | ((xorValues ? 1 : 0) << Flags.HAS_XOR_VALUES.ordinal())
+    ));
+    mem.putByte(NUM_VALUES_BYTE, (byte) numValues_);
+    mem.putShort(SEED_HASH_SHORT, getSeedHash());
+    mem.putLong(THETA_LONG, thetaLong_);
+    mem.putInt(RETAINED_ENTRIES_INT, count);
+    mem.putByte(ENTRY_BITS_BYTE, (byte) entryBits);
+    BitPacking.packDeltas(sortedKeys, count, entryBits, bytes, ENTRIES_START);
+    if (xorValues) {
+      mem.putByteArray(ENTRIES_START + keysBytes, encodedValues, 0, valuesBytes);
+    } else {
+      mem.putDoubleArray(ENTRIES_START + keysBytes, columns, 0, columns.length);
+    }
+    return bytes;
+  }
 }
@@ -23,8 +23,8 @@ import static org.apache.datasketches.common.Util.ceilingPowerOf2;
 
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.memory.WritableMemory;
+import org.apache.datasketches.thetacommon.HashTableLayout;
 import org.apache.datasketches.thetacommon.QuickSelect;
-import org.apache.datasketches.thetacommon.ThetaUtil;
 
 /**
  * Top level class for hash table based implementations of tuple sketch of type
@@ -136,6 +136,21 @@ abstract class ArrayOfDoublesQuickSelectSketch extends ArrayOfDoublesUpdatableSk
     }
   }
 
+  // same as above, but the values of a duplicate key are combined by the given combiner
+  // instead of being summed
+  void merge(final long key, final double[] values, final ArrayOfDoublesCombiner combiner) {
+    setNotEmpty();
+    if (key < thetaLong_) {
+      final double[] existing = find(key);
+      if (existing == null) {
+        insert(key, values);
+        rebuildIfNeeded();
+      } else {
+        setValues(findOrInsertKey(key), combiner.combine(existing, values));
+      }
+    }
+  }
+
   void rebuildIfNeeded() {
     if (getRetainedEntries() <= rebuildThreshold_) { return; }
     if (getCurrentCapacity() > getNominalEntries()) {
@@ -157,13 +172,18 @@ abstract class ArrayOfDoublesQuickSelectSketch extends ArrayOfDoublesUpdatableSk
   }
 
   final void setRebuildThreshold() {
+    final HashTableLayout layout = getHashTableLayout();
     if (getCurrentCapacity() > getNominalEntries()) {
-      rebuildThreshold_ = (int) (getCurrentCapacity() * ThetaUtil.REBUILD_THRESHOLD);
+      rebuildThreshold_ = (int) (getCurrentCapacity() * layout.getRebuildThreshold());
     } else {
-      rebuildThreshold_ = (int) (getCurrentCapacity() * ThetaUtil.RESIZE_THRESHOLD);
+      rebuildThreshold_ = (int) (getCurrentCapacity() * layout.getResizeThreshold());
     }
   }
 
+  HashTableLayout getHashTableLayout() {
+    return HashTableLayout.DOUBLE_HASHING;
+  }
+
   @Override
   void insertOrIgnore(final long key, final double[] values) {
     if (values.length != getNumValues()) {
@@ -39,7 +39,8 @@ public abstract class ArrayOfDoublesSketch {
   // So a sketch can be non-empty, and have no entries.
   // For example, as a result of a sampling, when some data was presented to the sketch, but no
   //  entries were retained.
-  static enum Flags { IS_BIG_ENDIAN, IS_IN_SAMPLING_MODE, IS_EMPTY, HAS_ENTRIES }
+  // HAS_XOR_VALUES is only used by the compressed form of the compact sketch.
+  static enum Flags { IS_BIG_ENDIAN, IS_IN_SAMPLING_MODE, IS_EMPTY, HAS_ENTRIES, HAS_XOR_VALUES }
 
   static final int SIZE_OF_KEY_BYTES = Long.BYTES;
   static final int SIZE_OF_VALUE_BYTES = Double.BYTES;
@@ -113,6 +114,9 @@ public abstract class ArrayOfDoublesSketch {
     if (sketchType == SerializerDeserializer.SketchType.ArrayOfDoublesQuickSelectSketch) {
       return new DirectArrayOfDoublesQuickSelectSketchR(mem, seed);
     }
+    if (mem.getByte(SERIAL_VERSION_BYTE) == ArrayOfDoublesCompactSketch.serialVersionUIDCompressed) {
+      return new HeapArrayOfDoublesCompactSketch(mem, seed); //the packed entries must be decoded
+    }
     return new DirectArrayOfDoublesCompactSketch(mem, seed);
   }
 
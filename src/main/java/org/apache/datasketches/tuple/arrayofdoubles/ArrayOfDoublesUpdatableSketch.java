@@ -25,6 +25,7 @@ import org.apache.datasketches.common.ResizeFactor;
 import org.apache.datasketches.hash.MurmurHash3;
 import org.apache.datasketches.memory.Memory;
 import org.apache.datasketches.memory.WritableMemory;
+import org.apache.datasketches.thetacommon.HashTableLayout;
 import org.apache.datasketches.thetacommon.ThetaUtil;
 import org.apache.datasketches.tuple.Util;
 
@@ -59,6 +60,22 @@ public abstract class ArrayOfDoublesUpdatableSketch extends ArrayOfDoublesSketch
     return new HeapArrayOfDoublesQuickSelectSketch(mem, seed);
   }
 
+  /**
+   * Heapify the given Memory and seed as a ArrayOfDoublesUpdatableSketch with the given
+   * hash table layout
+   * @param mem the given Memory
+   * @param seed the given seed
+   * @param layout the layout of the hash table of the returned sketch
+   * @return an ArrayOfDoublesUpdatableSketch
+   */
+  public static ArrayOfDoublesUpdatableSketch heapify(final Memory mem, final long seed,
+      final HashTableLayout layout) {
+    if (layout == HashTableLayout.LINEAR_PROBING) {
+      return new HeapInterleavedArrayOfDoublesQuickSelectSketch(mem, seed);
+    }
+    return heapify(mem, seed);
+  }
+
   /**
    * Wrap the given WritableMemory as an ArrayOfDoublesUpdatableSketch
    * @param mem the given Memory
@@ -86,7 +103,7 @@ public abstract class ArrayOfDoublesUpdatableSketch extends ArrayOfDoublesSketch
    * @param values The given values
    */
   public void update(final long key, final double[] values) {
-    update(new long[] {key}, values);
+    insertOrIgnore(MurmurHash3.hash64(key, seed_) >>> 1, values);
   }
 
   /**
@@ -120,7 +137,7 @@ public abstract class ArrayOfDoublesUpdatableSketch extends ArrayOfDoublesSketch
    */
   public void update(final byte[] key, final double[] values) {
     if (key == null || key.length == 0) { return; }
-    insertOrIgnore(MurmurHash3.hash(key, seed_)[0] >>> 1, values);
+    insertOrIgnore(MurmurHash3.hash64(key, seed_) >>> 1, values);
   }
 
   /**
@@ -132,7 +149,7 @@ public abstract class ArrayOfDoublesUpdatableSketch extends ArrayOfDoublesSketch
    */
   public void update(final ByteBuffer key, final double[] values) {
     if (key == null || key.hasRemaining() == false) { return; }
-    insertOrIgnore(MurmurHash3.hash(key, seed_)[0] >>> 1, values);
+    insertOrIgnore(MurmurHash3.hash64(key, seed_) >>> 1, values);
   }
 
   /**
@@ -144,7 +161,7 @@ public abstract class ArrayOfDoublesUpdatableSketch extends ArrayOfDoublesSketch
    */
   public void update(final int[] key, final double[] values) {
     if (key == null || key.length == 0) { return; }
-    insertOrIgnore(MurmurHash3.hash(key, seed_)[0] >>> 1, values);
+    insertOrIgnore(MurmurHash3.hash64(key, seed_) >>> 1, values);
   }
 
   /**
@@ -156,7 +173,7 @@ public abstract class ArrayOfDoublesUpdatableSketch extends ArrayOfDoublesSketch
    */
   public void update(final long[] key, final double[] values) {
     if (key == null || key.length == 0) { return; }
-    insertOrIgnore(MurmurHash3.hash(key, seed_)[0] >>> 1, values);
+    insertOrIgnore(MurmurHash3.hash64(key, seed_) >>> 1, values);
   }
 
   /**
@@ -19,9 +19,14 @@
 
 package org.apache.datasketches.tuple.arrayofdoubles;
 
+import java.util.Objects;
+import java.util.concurrent.Executor;
+
 import org.apache.datasketches.common.ResizeFactor;
 import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesStateException;
 import org.apache.datasketches.memory.WritableMemory;
+import org.apache.datasketches.thetacommon.HashTableLayout;
 import org.apache.datasketches.thetacommon.ThetaUtil;
 
 /**
@@ -34,8 +39,12 @@ public class ArrayOfDoublesUpdatableSketchBuilder {
   private int numValues_;
   private float samplingProbability_;
   private long seed_;
+  private int localNomEntries_;
+  private Executor propagationExecutor_;
+  private HashTableLayout layout_;
 
   private static final int DEFAULT_NUMBER_OF_VALUES = 1;
+  private static final int DEFAULT_LOCAL_NOMINAL_ENTRIES = 16;
   private static final float DEFAULT_SAMPLING_PROBABILITY = 1;
   private static final ResizeFactor DEFAULT_RESIZE_FACTOR = ResizeFactor.X8;
 
@@ -48,6 +57,9 @@ public class ArrayOfDoublesUpdatableSketchBuilder {
     numValues_ = DEFAULT_NUMBER_OF_VALUES;
     samplingProbability_ = DEFAULT_SAMPLING_PROBABILITY;
     seed_ = ThetaUtil.DEFAULT_UPDATE_SEED;
+    localNomEntries_ = DEFAULT_LOCAL_NOMINAL_ENTRIES;
+    propagationExecutor_ = null;
+    layout_ = HashTableLayout.DOUBLE_HASHING;
   }
 
   /**
@@ -108,13 +120,57 @@ public class ArrayOfDoublesUpdatableSketchBuilder {
     return this;
   }
 
+  /**
+   * This is to set the nominal number of entries of the local buffers of a concurrent sketch.
+   * A local buffer propagates to the shared sketch each time it holds this many entries.
+   * Default is 16.
+   * @param localNomEntries Nominal number of entries of a local buffer. Forced to the nearest power
+   * of 2 greater than or equal to given value.
+   * @return this builder
+   */
+  public ArrayOfDoublesUpdatableSketchBuilder setLocalNominalEntries(final int localNomEntries) {
+    localNomEntries_ = 1 << ThetaUtil.checkNomLongs(localNomEntries);
+    return this;
+  }
+
+  /**
+   * This is to set the Executor that absorbs the local buffers into a concurrent shared sketch.
+   * Any Executor may be given, including one that starts a virtual thread per task. If it rejects
+   * a propagation, the updating thread absorbs the buffer itself. The executor is never shut down
+   * by the sketch. If null, which is the default, an internal pool of daemon threads is used.
+   * @param executor the given Executor, or null for the internal pool
+   * @return this builder
+   */
+  public ArrayOfDoublesUpdatableSketchBuilder setPropagationExecutor(final Executor executor) {
+    propagationExecutor_ = executor;
+    return this;
+  }
+
+  /**
+   * This is to set the layout of the hash table of an on-heap sketch.
+   * With {@link HashTableLayout#LINEAR_PROBING} each key is stored next to its values and
+   * collisions probe adjacent slots, which favors large numbers of values and large tables.
+   * The serialized form does not depend on the layout.
+   * Default is {@link HashTableLayout#DOUBLE_HASHING}.
+   * @param layout the given HashTableLayout
+   * @return this builder
+   */
+  public ArrayOfDoublesUpdatableSketchBuilder setHashTableLayout(final HashTableLayout layout) {
+    layout_ = Objects.requireNonNull(layout, "layout must not be null");
+    return this;
+  }
+
   /**
    * Returns an ArrayOfDoublesUpdatableSketch with the current configuration of this Builder.
    * @return an ArrayOfDoublesUpdatableSketch
    */
   public ArrayOfDoublesUpdatableSketch build() {
-      return new HeapArrayOfDoublesQuickSelectSketch(nomEntries_, resizeFactor_.lg(),
+    if (layout_ == HashTableLayout.LINEAR_PROBING) {
+      return new HeapInterleavedArrayOfDoublesQuickSelectSketch(nomEntries_, resizeFactor_.lg(),
           samplingProbability_, numValues_, seed_);
+    }
+    return new HeapArrayOfDoublesQuickSelectSketch(nomEntries_, resizeFactor_.lg(),
+        samplingProbability_, numValues_, seed_);
   }
 
   /**
@@ -123,8 +179,47 @@ public class ArrayOfDoublesUpdatableSketchBuilder {
    * @return an ArrayOfDoublesUpdatableSketch
    */
   public ArrayOfDoublesUpdatableSketch build(final WritableMemory dstMem) {
+    if (layout_ != HashTableLayout.DOUBLE_HASHING) {
+      throw new SketchesArgumentException("The " + layout_ + " layout is only supported on-heap.");
+    }
     return new DirectArrayOfDoublesQuickSelectSketch(nomEntries_, resizeFactor_.lg(),
         samplingProbability_, numValues_, seed_, dstMem);
   }
 
+  /**
+   * Returns a concurrent shared sketch with the current configuration of this Builder, which sums
+   * the values of duplicate keys when absorbing local buffers.
+   * It is updated only through the local buffers returned by {@link #buildLocal}.
+   * @return a concurrent shared sketch
+   */
+  public ConcurrentSharedArrayOfDoublesSketch buildShared() {
+    return buildShared(null);
+  }
+
+  /**
+   * Returns a concurrent shared sketch with the current configuration of this Builder.
+   * It is updated only through the local buffers returned by {@link #buildLocal}.
+   * @param combiner combines the values of keys present both in the shared sketch and in a
+   * propagated local buffer. If null, the values are summed.
+   * @return a concurrent shared sketch
+   */
+  public ConcurrentSharedArrayOfDoublesSketch buildShared(final ArrayOfDoublesCombiner combiner) {
+    return new ConcurrentSharedArrayOfDoublesSketch(nomEntries_, resizeFactor_.lg(),
+        samplingProbability_, numValues_, seed_, combiner, propagationExecutor_);
+  }
+
+  /**
+   * Returns a local buffer to be used by a single updating thread along with the given concurrent
+   * shared sketch. Its size is set by {@link #setLocalNominalEntries(int)}. The number of values and
+   * the seed are those of the shared sketch.
+   * @param shared the concurrent shared sketch to be updated through the returned local buffer
+   * @return a local buffer of the given shared sketch
+   */
+  public ConcurrentHeapArrayOfDoublesBuffer buildLocal(final ConcurrentSharedArrayOfDoublesSketch shared) {
+    if (shared == null) {
+      throw new SketchesStateException("The concurrent shared sketch must be built first.");
+    }
+    return new ConcurrentHeapArrayOfDoublesBuffer(localNomEntries_, shared);
+  }
+
 }
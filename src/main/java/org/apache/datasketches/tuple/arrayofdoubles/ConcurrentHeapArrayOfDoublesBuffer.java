@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple.arrayofdoubles;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.datasketches.common.ResizeFactor;
+
+/**
+ * The local buffer of a concurrent shared ArrayOfDoubles sketch. It is owned by a single updating
+ * thread, which updates it like any ArrayOfDoublesUpdatableSketch. Once it holds its nominal number
+ * of entries, its content is handed to the shared sketch for background propagation and the
+ * buffer starts over, filtering new updates by the latest theta of the shared sketch.
+ *
+ * <p>At most one propagation per buffer is in flight. If the previous one has not completed when
+ * the buffer fills up again, the updating thread waits for it, which bounds the memory held by
+ * pending propagations.</p>
+ *
+ * <p>Estimates and bounds are served by the shared sketch.</p>
+ */
+public final class ConcurrentHeapArrayOfDoublesBuffer extends HeapArrayOfDoublesQuickSelectSketch {
+
+  private final ConcurrentSharedArrayOfDoublesSketch shared_;
+
+  // Set to true while propagation is in progress (or pending), cleared by the shared sketch.
+  private final AtomicBoolean localPropagationInProgress_;
+
+  ConcurrentHeapArrayOfDoublesBuffer(final int localNomEntries,
+      final ConcurrentSharedArrayOfDoublesSketch shared) {
+    super(localNomEntries, ResizeFactor.X1.lg(), 1f, shared.getNumValues(), shared.getSeed());
+    shared_ = shared;
+    localPropagationInProgress_ = new AtomicBoolean(false);
+    setThetaLong(shared.getThetaLong());
+  }
+
+  /**
+   * Propagates the content of this buffer to the shared sketch and waits until it is absorbed.
+   * Call this when the updating thread is done so that no data is left behind in the buffer.
+   */
+  public void flush() {
+    if (!isEmpty_) { propagateToSharedSketch(); }
+    awaitLocalPropagation();
+  }
+
+  //Proxies to shared concurrent sketch
+
+  @Override
+  public double getEstimate() {
+    return shared_.getEstimate();
+  }
+
+  @Override
+  public double getLowerBound(final int numStdDev) {
+    return shared_.getLowerBound(numStdDev);
+  }
+
+  @Override
+  public double getUpperBound(final int numStdDev) {
+    return shared_.getUpperBound(numStdDev);
+  }
+
+  //End of proxies
+
+  @Override
+  public byte[] toByteArray() {
+    throw new UnsupportedOperationException("Local ArrayOfDoubles buffer need not be serialized");
+  }
+
+  /**
+   * Resets this local buffer, discarding any content not yet propagated.
+   */
+  @Override
+  public void reset() {
+    super.reset();
+    setThetaLong(shared_.getThetaLong());
+  }
+
+  @Override
+  void insertOrIgnore(final long key, final double[] values) {
+    super.insertOrIgnore(key, values);
+    if (getRetainedEntries() >= getNominalEntries()) {
+      propagateToSharedSketch();
+    }
+  }
+
+  //restricted
+
+  private void propagateToSharedSketch() {
+    awaitLocalPropagation();
+    final ArrayOfDoublesCompactSketch compactSketch = new HeapArrayOfDoublesCompactSketch(this);
+    localPropagationInProgress_.set(true);
+    shared_.propagate(localPropagationInProgress_, compactSketch);
+    reset();
+  }
+
+  private void awaitLocalPropagation() {
+    shared_.awaitLocalPropagation(localPropagationInProgress_);
+  }
+}
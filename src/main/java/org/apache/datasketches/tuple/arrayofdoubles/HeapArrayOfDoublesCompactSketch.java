@@ -26,6 +26,7 @@ import org.apache.datasketches.common.Family;
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.memory.Memory;
 import org.apache.datasketches.memory.WritableMemory;
+import org.apache.datasketches.theta.BitPacking;
 import org.apache.datasketches.thetacommon.ThetaUtil;
 import org.apache.datasketches.tuple.SerializerDeserializer;
 import org.apache.datasketches.tuple.Util;
@@ -119,9 +120,9 @@ final class HeapArrayOfDoublesCompactSketch extends ArrayOfDoublesCompactSketch
     SerializerDeserializer.validateType(mem.getByte(SKETCH_TYPE_BYTE),
         SerializerDeserializer.SketchType.ArrayOfDoublesCompactSketch);
     final byte version = mem.getByte(SERIAL_VERSION_BYTE);
-    if (version != serialVersionUID) {
-      throw new SketchesArgumentException(
-          "Serial version mismatch. Expected: " + serialVersionUID + ", actual: " + version);
+    if (version != serialVersionUID && version != serialVersionUIDCompressed) {
+      throw new SketchesArgumentException("Serial version mismatch. Expected: " + serialVersionUID
+          + " or " + serialVersionUIDCompressed + ", actual: " + version);
     }
     final boolean isBigEndian =
         (mem.getByte(FLAGS_BYTE) & (1 << Flags.IS_BIG_ENDIAN.ordinal())) != 0;
@@ -137,8 +138,26 @@ final class HeapArrayOfDoublesCompactSketch extends ArrayOfDoublesCompactSketch
       final int count = mem.getInt(RETAINED_ENTRIES_INT);
       keys_ = new long[count];
       values_ = new double[count * numValues_];
-      mem.getLongArray(ENTRIES_START, keys_, 0, count);
-      mem.getDoubleArray(ENTRIES_START + ((long) SIZE_OF_KEY_BYTES * count), values_, 0, values_.length);
+      if (version == serialVersionUIDCompressed) {
+        readCompressedEntries(mem, count);
+      } else {
+        mem.getLongArray(ENTRIES_START, keys_, 0, count);
+        mem.getDoubleArray(ENTRIES_START + ((long) SIZE_OF_KEY_BYTES * count), values_, 0, values_.length);
+      }
+    }
+  }
+
+  private void readCompressedEntries(final Memory mem, final int count) {
+    final int entryBits = mem.getByte(ENTRY_BITS_BYTE) & 0xff;
+    final long valuesStart = ENTRIES_START + BitPacking.unpackDeltas(mem, ENTRIES_START, keys_, count, entryBits);
+    if ((mem.getByte(FLAGS_BYTE) & (1 << Flags.HAS_XOR_VALUES.ordinal())) != 0) {
+      XorDoubleCodec.decode(mem, valuesStart, values_, count, numValues_);
+    } else {
+      for (int j = 0; j < numValues_; j++) {
+        for (int i = 0; i < count; i++) {
+          values_[(i * numValues_) + j] = mem.getDouble(valuesStart + ((long) SIZE_OF_VALUE_BYTES * ((j * count) + i)));
+        }
+      }
     }
   }
 
@@ -38,7 +38,7 @@ import org.apache.datasketches.tuple.Util;
  * The on-heap implementation of the tuple QuickSelect sketch of type ArrayOfDoubles.
  */
 
-final class HeapArrayOfDoublesQuickSelectSketch extends ArrayOfDoublesQuickSelectSketch {
+class HeapArrayOfDoublesQuickSelectSketch extends ArrayOfDoublesQuickSelectSketch {
 
   private final int lgNomEntries_;
   private final int lgResizeFactor_;
@@ -0,0 +1,374 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple.arrayofdoubles;
+
+import static org.apache.datasketches.common.Util.ceilingPowerOf2;
+import static org.apache.datasketches.common.Util.exactLog2OfLong;
+
+import java.nio.ByteOrder;
+
+import org.apache.datasketches.common.ResizeFactor;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+import org.apache.datasketches.thetacommon.HashOperations;
+import org.apache.datasketches.thetacommon.HashTableLayout;
+import org.apache.datasketches.tuple.Util;
+
+/**
+ * The on-heap implementation of the tuple QuickSelect sketch of type ArrayOfDoubles with the
+ * {@link HashTableLayout#LINEAR_PROBING} layout. Each slot of the hash table holds the key followed
+ * by its values, stored as the raw long bits of the doubles, in a single long[]. A lookup probes
+ * adjacent slots and finds the values next to the key, instead of reading a second array.
+ *
+ * <p>The serialized form is the same as that of the default on-heap sketch, with the keys and
+ * values in separate arrays in the {@link HashTableLayout#DOUBLE_HASHING} layout.</p>
+ */
+final class HeapInterleavedArrayOfDoublesQuickSelectSketch extends ArrayOfDoublesQuickSelectSketch {
+
+  private final int lgNomEntries_;
+  private final int lgResizeFactor_;
+  private final float samplingProbability_;
+  private final int slotLongs_; //key and values
+
+  private int count_;
+  private long[] entries_;
+
+  /**
+   * This is to create an instance of a QuickSelectSketch with custom resize factor and sampling
+   * probability
+   * @param nomEntries Nominal number of entries. Forced to the smallest power of 2 greater than
+   * or equal to the given value.
+   * @param lgResizeFactor log2(resize factor) - value from 0 to 3
+   * @param samplingProbability
+   * <a href="{@docRoot}/resources/dictionary.html#p">See Sampling Probability</a>
+   * @param numValues number of double values to keep for each key
+   * @param seed <a href="{@docRoot}/resources/dictionary.html#seed">See seed</a>
+   */
+  HeapInterleavedArrayOfDoublesQuickSelectSketch(final int nomEntries, final int lgResizeFactor,
+      final float samplingProbability, final int numValues, final long seed) {
+    super(numValues, seed);
+    lgNomEntries_ = exactLog2OfLong(ceilingPowerOf2(nomEntries));
+    lgResizeFactor_ = lgResizeFactor;
+    samplingProbability_ = samplingProbability;
+    slotLongs_ = 1 + numValues;
+    thetaLong_ = (long) (Long.MAX_VALUE * (double) samplingProbability);
+    final int startingCapacity = Util.getStartingCapacity(nomEntries, lgResizeFactor);
+    entries_ = new long[startingCapacity * slotLongs_];
+    lgCurrentCapacity_ = Integer.numberOfTrailingZeros(startingCapacity);
+    setRebuildThreshold();
+  }
+
+  /**
+   * This is to create an instance given a serialized form of a QuickSelect sketch.
+   * The serialized hash table is converted to this layout.
+   * @param mem <a href="{@docRoot}/resources/dictionary.html#mem">See Memory</a>
+   * @param seed <a href="{@docRoot}/resources/dictionary.html#seed">See seed</a>
+   */
+  HeapInterleavedArrayOfDoublesQuickSelectSketch(final Memory mem, final long seed) {
+    this(new HeapArrayOfDoublesQuickSelectSketch(mem, seed), seed);
+  }
+
+  private HeapInterleavedArrayOfDoublesQuickSelectSketch(final HeapArrayOfDoublesQuickSelectSketch sketch,
+      final long seed) {
+    super(sketch.getNumValues(), seed);
+    lgNomEntries_ = Integer.numberOfTrailingZeros(sketch.getNominalEntries());
+    lgResizeFactor_ = sketch.getResizeFactor().lg();
+    samplingProbability_ = sketch.getSamplingProbability();
+    slotLongs_ = 1 + numValues_;
+    isEmpty_ = sketch.isEmpty();
+    thetaLong_ = sketch.getThetaLong();
+    final int capacity = sketch.getCurrentCapacity();
+    entries_ = new long[capacity * slotLongs_];
+    lgCurrentCapacity_ = Integer.numberOfTrailingZeros(capacity);
+    setRebuildThreshold();
+    final ArrayOfDoublesSketchIterator it = sketch.iterator();
+    while (it.next()) {
+      insert(it.getKey(), it.getValues());
+    }
+    if (count_ > rebuildThreshold_) { rebuildIfNeeded(); } //the lower load factor of this layout
+  }
+
+  @Override
+  public double[][] getValues() {
+    final double[][] values = new double[count_][];
+    int cnt = 0;
+    for (int j = 0; j < entries_.length; j += slotLongs_) {
+      if (entries_[j] == 0) { continue; }
+      values[cnt++] = readValues(j);
+    }
+    return values;
+  }
+
+  @Override
+  double[] getValuesAsOneDimension() {
+    final double[] values = new double[count_ * numValues_];
+    int offset = 0;
+    for (int j = 0; j < entries_.length; j += slotLongs_) {
+      if (entries_[j] == 0) { continue; }
+      for (int i = 1; i < slotLongs_; i++) {
+        values[offset++] = Double.longBitsToDouble(entries_[j + i]);
+      }
+    }
+    return values;
+  }
+
+  @Override
+  long[] getKeys() {
+    final long[] keysArr = new long[count_];
+    int cnt = 0;
+    for (int j = 0; j < entries_.length; j += slotLongs_) {
+      if (entries_[j] == 0) { continue; }
+      keysArr[cnt++] = entries_[j];
+    }
+    return keysArr;
+  }
+
+  @Override
+  public int getRetainedEntries() {
+    return count_;
+  }
+
+  @Override
+  public int getNominalEntries() {
+    return 1 << lgNomEntries_;
+  }
+
+  @Override
+  public float getSamplingProbability() {
+    return samplingProbability_;
+  }
+
+  @Override
+  public ResizeFactor getResizeFactor() {
+    return ResizeFactor.getRF(lgResizeFactor_);
+  }
+
+  @Override
+  public byte[] toByteArray() {
+    final byte[] byteArray = new byte[getSerializedSizeBytes()];
+    serializeInto(WritableMemory.writableWrap(byteArray));
+    return byteArray;
+  }
+
+  @Override
+  public ArrayOfDoublesSketchIterator iterator() {
+    return new InterleavedIterator();
+  }
+
+  @Override
+  int getSerializedSizeBytes() {
+    return ENTRIES_START + ((SIZE_OF_KEY_BYTES + (SIZE_OF_VALUE_BYTES * numValues_)) * getCurrentCapacity());
+  }
+
+  // The same layout as HeapArrayOfDoublesQuickSelectSketch, which the hash table is converted to.
+  @Override
+  void serializeInto(final WritableMemory mem) {
+    mem.putByte(PREAMBLE_LONGS_BYTE, (byte) 1);
+    mem.putByte(SERIAL_VERSION_BYTE, serialVersionUID);
+    mem.putByte(FAMILY_ID_BYTE, (byte) org.apache.datasketches.common.Family.TUPLE.getID());
+    mem.putByte(SKETCH_TYPE_BYTE, (byte)
+        org.apache.datasketches.tuple.SerializerDeserializer.SketchType.ArrayOfDoublesQuickSelectSketch.ordinal());
+    final boolean isBigEndian = ByteOrder.nativeOrder().equals(ByteOrder.BIG_ENDIAN);
+    mem.putByte(FLAGS_BYTE, (byte)(
+      (isBigEndian ? 1 << Flags.IS_BIG_ENDIAN.ordinal() : 0)
+      | (isInSamplingMode() ? 1 << Flags.IS_IN_SAMPLING_MODE.ordinal() : 0)
+      | (isEmpty_ ? 1 << Flags.IS_EMPTY.ordinal() : 0)
+      | (count_ > 0 ? 1 << Flags.HAS_ENTRIES.ordinal() : 0)
+    ));
+    mem.putByte(NUM_VALUES_BYTE, (byte) numValues_);
+    mem.putShort(SEED_HASH_SHORT, Util.computeSeedHash(seed_));
+    mem.putLong(THETA_LONG, thetaLong_);
+    mem.putByte(LG_NOM_ENTRIES_BYTE, (byte) lgNomEntries_);
+    mem.putByte(LG_CUR_CAPACITY_BYTE, (byte) lgCurrentCapacity_);
+    mem.putByte(LG_RESIZE_FACTOR_BYTE, (byte) lgResizeFactor_);
+    mem.putFloat(SAMPLING_P_FLOAT, samplingProbability_);
+    mem.putInt(RETAINED_ENTRIES_INT, count_);
+    if (count_ > 0) {
+      final int capacity = getCurrentCapacity();
+      final long[] keys = new long[capacity];
+      final double[] values = new double[capacity * numValues_];
+      for (int j = 0; j < entries_.length; j += slotLongs_) {
+        if (entries_[j] == 0) { continue; }
+        final int index = HashOperations.hashInsertOnly(keys, lgCurrentCapacity_, entries_[j]);
+        for (int i = 0; i < numValues_; i++) {
+          values[index * numValues_ + i] = Double.longBitsToDouble(entries_[j + 1 + i]);
+        }
+      }
+      mem.putLongArray(ENTRIES_START, keys, 0, capacity);
+      mem.putDoubleArray(ENTRIES_START + ((long) SIZE_OF_KEY_BYTES * capacity), values, 0, values.length);
+    }
+  }
+
+  @Override
+  public boolean hasMemory() { return false; }
+
+  @Override
+  Memory getMemory() { return null; }
+
+  @Override
+  public void reset() {
+    isEmpty_ = true;
+    count_ = 0;
+    thetaLong_ = (long) (Long.MAX_VALUE * (double) samplingProbability_);
+    final int startingCapacity = Util.getStartingCapacity(1 << lgNomEntries_, lgResizeFactor_);
+    entries_ = new long[startingCapacity * slotLongs_];
+    lgCurrentCapacity_ = Integer.numberOfTrailingZeros(startingCapacity);
+    setRebuildThreshold();
+  }
+
+  @Override
+  HashTableLayout getHashTableLayout() {
+    return HashTableLayout.LINEAR_PROBING;
+  }
+
+  @Override
+  long getKey(final int index) {
+    return entries_[index * slotLongs_];
+  }
+
+  @Override
+  void incrementCount() {
+    count_++;
+  }
+
+  @Override
+  void setValues(final int index, final double[] values) {
+    final int offset = index * slotLongs_ + 1;
+    for (int i = 0; i < numValues_; i++) {
+      entries_[offset + i] = Double.doubleToRawLongBits(values[i]);
+    }
+  }
+
+  @Override
+  void updateValues(final int index, final double[] values) {
+    final int offset = index * slotLongs_ + 1;
+    for (int i = 0; i < numValues_; i++) {
+      entries_[offset + i] = Double.doubleToRawLongBits(Double.longBitsToDouble(entries_[offset + i]) + values[i]);
+    }
+  }
+
+  @Override
+  void setNotEmpty() {
+    isEmpty_ = false;
+  }
+
+  @Override
+  boolean isInSamplingMode() {
+    return samplingProbability_ < 1f;
+  }
+
+  @Override
+  void setThetaLong(final long thetaLong) {
+    thetaLong_ = thetaLong;
+  }
+
+  @Override
+  int getCurrentCapacity() {
+    return entries_.length / slotLongs_;
+  }
+
+  @Override
+  void rebuild(final int newCapacity) {
+    final long[] oldEntries = entries_;
+    entries_ = new long[newCapacity * slotLongs_];
+    count_ = 0;
+    lgCurrentCapacity_ = Integer.numberOfTrailingZeros(newCapacity);
+    for (int j = 0; j < oldEntries.length; j += slotLongs_) {
+      final long key = oldEntries[j];
+      if ((key != 0) && (key < thetaLong_)) {
+        final int index = insertKey(key);
+        System.arraycopy(oldEntries, j + 1, entries_, index * slotLongs_ + 1, numValues_);
+        count_++;
+      }
+    }
+    setRebuildThreshold();
+  }
+
+  @Override
+  int insertKey(final long key) {
+    final int mask = (1 << lgCurrentCapacity_) - 1;
+    int index = (int) (key & mask);
+    while (entries_[index * slotLongs_] != 0) {
+      index = (index + 1) & mask;
+    }
+    entries_[index * slotLongs_] = key;
+    return index;
+  }
+
+  @Override
+  int findOrInsertKey(final long key) {
+    final int mask = (1 << lgCurrentCapacity_) - 1;
+    int index = (int) (key & mask);
+    while (true) {
+      final long slotKey = entries_[index * slotLongs_];
+      if (slotKey == 0) {
+        entries_[index * slotLongs_] = key;
+        return ~index;
+      }
+      if (slotKey == key) { return index; }
+      index = (index + 1) & mask;
+    }
+  }
+
+  @Override
+  double[] find(final long key) {
+    final int mask = (1 << lgCurrentCapacity_) - 1;
+    int index = (int) (key & mask);
+    while (true) {
+      final long slotKey = entries_[index * slotLongs_];
+      if (slotKey == 0) { return null; }
+      if (slotKey == key) { return readValues(index * slotLongs_); }
+      index = (index + 1) & mask;
+    }
+  }
+
+  private double[] readValues(final int slotOffset) {
+    final double[] values = new double[numValues_];
+    for (int i = 0; i < numValues_; i++) {
+      values[i] = Double.longBitsToDouble(entries_[slotOffset + 1 + i]);
+    }
+    return values;
+  }
+
+  private final class InterleavedIterator implements ArrayOfDoublesSketchIterator {
+    private int offset_ = -slotLongs_;
+
+    @Override
+    public boolean next() {
+      offset_ += slotLongs_;
+      while (offset_ < entries_.length) {
+        if (entries_[offset_] != 0) { return true; }
+        offset_ += slotLongs_;
+      }
+      return false;
+    }
+
+    @Override
+    public long getKey() {
+      return entries_[offset_];
+    }
+
+    @Override
+    public double[] getValues() {
+      return readValues(offset_);
+    }
+  }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.tuple.arrayofdoubles;
+
+import java.util.Arrays;
+
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.theta.BitPacking;
+
+/**
+ * XOR encoding of columns of doubles, as used for floating point time series (Gorilla, VLDB 2015).
+ * Each value is XORed with the previous value of its column. A zero result takes one bit.
+ * Otherwise only the meaningful bits between the leading and trailing zeros are stored, reusing
+ * the window of the previous value when it fits. Columns of similar values, such as counts or
+ * constant weights, shrink to a few bits per value.
+ *
+ * <p>The encoding is lossless on the raw bits, so NaN payloads and -0.0 are preserved.</p>
+ */
+final class XorDoubleCodec {
+  // control bits, followed by 5 bits of leading zeros and 6 bits of (length - 1) for NEW_WINDOW
+  private static final int SAME_VALUE = 0;      // "0"
+  private static final int SAME_WINDOW = 2;     // "10"
+  private static final int NEW_WINDOW = 3;      // "11"
+  private static final int MAX_LEADING_ZEROS = 31;
+  private static final int MAX_BITS_PER_VALUE = 2 + 5 + 6 + 64;
+
+  private XorDoubleCodec() {}
+
+  /**
+   * Encodes the given columns.
+   * @param columns the values, column by column, each column holding <i>count</i> values
+   * @param count the number of values in each column
+   * @param numColumns the number of columns
+   * @return the encoded bytes
+   */
+  static byte[] encode(final double[] columns, final int count, final int numColumns) {
+    final byte[] buf = new byte[(int) (((long) count * numColumns * MAX_BITS_PER_VALUE + 7) >>> 3)];
+    final BitWriter out = new BitWriter(buf);
+    for (int j = 0; j < numColumns; j++) {
+      long prevBits = 0;
+      int prevLeading = -1; //no window yet
+      int prevTrailing = 0;
+      for (int i = j * count; i < (j + 1) * count; i++) {
+        final long bits = Double.doubleToRawLongBits(columns[i]);
+        final long xor = bits ^ prevBits;
+        prevBits = bits;
+        if (xor == 0) {
+          out.write(SAME_VALUE, 1);
+          continue;
+        }
+        final int leading = Math.min(Long.numberOfLeadingZeros(xor), MAX_LEADING_ZEROS);
+        final int trailing = Long.numberOfTrailingZeros(xor);
+        if ((prevLeading >= 0) && (leading >= prevLeading) && (trailing >= prevTrailing)) {
+          out.write(SAME_WINDOW, 2);
+          out.write(xor >>> prevTrailing, 64 - prevLeading - prevTrailing);
+        } else {
+          final int length = 64 - leading - trailing;
+          out.write(NEW_WINDOW, 2);
+          out.write(leading, 5);
+          out.write(length - 1, 6);
+          out.write(xor >>> trailing, length);
+          prevLeading = leading;
+          prevTrailing = trailing;
+        }
+      }
+    }
+    return Arrays.copyOf(buf, out.bytes());
+  }
+
+  /**
+   * Decodes columns that were encoded by {@link #encode(double[], int, int)}.
+   * @param mem the Memory that holds the encoded bytes
+   * @param offsetBytes the offset of the encoded bytes in the Memory
+   * @param values receives the values in row order, <i>numColumns</i> values per row
+   * @param count the number of values in each column
+   * @param numColumns the number of columns
+   */
+  static void decode(final Memory mem, final long offsetBytes, final double[] values, final int count,
+      final int numColumns) {
+    final byte[] buf = new byte[(int) (mem.getCapacity() - offsetBytes)];
+    mem.getByteArray(offsetBytes, buf, 0, buf.length);
+    final BitReader in = new BitReader(buf);
+    for (int j = 0; j < numColumns; j++) {
+      long bits = 0;
+      int prevLeading = 0;
+      int prevTrailing = 0;
+      for (int i = 0; i < count; i++) {
+        if (in.read(1) != 0) {
+          if (in.read(1) == 0) { //SAME_WINDOW
+            bits ^= in.read(64 - prevLeading - prevTrailing) << prevTrailing;
+          } else { //NEW_WINDOW
+            prevLeading = (int) in.read(5);
+            final int length = (int) in.read(6) + 1;
+            prevTrailing = 64 - prevLeading - length;
+            bits ^= in.read(length) << prevTrailing;
+          }
+        }
+        values[i * numColumns + j] = Double.longBitsToDouble(bits);
+      }
+    }
+  }
+
+  private static final class BitWriter {
+    private final byte[] buf;
+    private int offsetBytes;
+    private int offsetBits;
+
+    BitWriter(final byte[] buf) {
+      this.buf = buf;
+    }
+
+    void write(final long value, final int bits) {
+      BitPacking.packBits(value, bits, buf, offsetBytes, offsetBits);
+      offsetBytes += (offsetBits + bits) >>> 3;
+      offsetBits = (offsetBits + bits) & 7;
+    }
+
+    int bytes() {
+      return offsetBytes + (offsetBits > 0 ? 1 : 0);
+    }
+  }
+
+  private static final class BitReader {
+    private final byte[] buf;
+    private final long[] value = new long[1];
+    private int offsetBytes;
+    private int offsetBits;
+
+    BitReader(final byte[] buf) {
+      this.buf = buf;
+    }
+
+    long read(final int bits) {
+      BitPacking.unpackBits(value, 0, bits, buf, offsetBytes, offsetBits);
+      offsetBytes += (offsetBits + bits) >>> 3;
+      offsetBits = (offsetBits + bits) & 7;
+      return value[0];
+    }
+  }
+}
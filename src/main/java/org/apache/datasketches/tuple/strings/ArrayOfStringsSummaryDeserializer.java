@@ -33,6 +33,11 @@ public class ArrayOfStringsSummaryDeserializer implements SummaryDeserializer<Ar
     return ArrayOfStringsSummaryDeserializer.fromMemory(mem);
   }
 
+  @Override
+  public int getSummarySizeBytes(final Memory mem, final long offsetBytes) {
+    return mem.getInt(offsetBytes);
+  }
+
   /**
    * Also used in test.
    * @param mem the given memory
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.common;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+public class ConcurrentPropagatorTest {
+
+  @Test
+  public void checkSerialExecutorOrderAndExclusion() throws Exception {
+    final ExecutorService pool = Executors.newFixedThreadPool(4);
+    try {
+      final ConcurrentSerialExecutor serial = new ConcurrentSerialExecutor(pool);
+      final AtomicBoolean running = new AtomicBoolean(false);
+      final AtomicInteger overlaps = new AtomicInteger();
+      final List<Integer> order = new ArrayList<>();
+      final int n = 1000;
+      for (int i = 0; i < n; i++) {
+        final int id = i;
+        serial.execute(() -> {
+          if (!running.compareAndSet(false, true)) { overlaps.incrementAndGet(); }
+          order.add(id);
+          running.set(false);
+        });
+      }
+      final CountDownLatch done = new CountDownLatch(1);
+      serial.execute(done::countDown);
+      assertTrue(done.await(10, TimeUnit.SECONDS));
+      assertEquals(overlaps.get(), 0);
+      assertEquals(order.size(), n);
+      for (int i = 0; i < n; i++) { assertEquals(order.get(i).intValue(), i); }
+    } finally {
+      pool.shutdown();
+      pool.awaitTermination(1, TimeUnit.SECONDS);
+    }
+  }
+
+  @Test
+  public void checkSerialExecutorDelegateFailure() {
+    final AtomicBoolean broken = new AtomicBoolean(true);
+    final ConcurrentSerialExecutor serial = new ConcurrentSerialExecutor(job -> {
+      if (broken.get()) { throw new IllegalStateException("shut down"); }
+      job.run();
+    });
+    final AtomicInteger runs = new AtomicInteger();
+    try {
+      serial.execute(runs::incrementAndGet);
+      fail();
+    } catch (IllegalStateException e) {
+      //expected
+    }
+    assertEquals(runs.get(), 0);
+    broken.set(false);
+    serial.execute(runs::incrementAndGet); //not stuck, and the first job is not lost
+    assertEquals(runs.get(), 2);
+  }
+
+  @Test
+  public void checkAwaitPropagation() throws Exception {
+    final ExecutorService pool = Executors.newSingleThreadExecutor();
+    try {
+      final CountDownLatch release = new CountDownLatch(1);
+      final ConcurrentPropagator propagator = new ConcurrentPropagator(pool);
+      final ConcurrentPropagationMetrics metrics = propagator.getMetrics();
+      final AtomicBoolean flag = new AtomicBoolean(true);
+      final AtomicInteger absorbed = new AtomicInteger();
+      propagator.propagate(flag, () -> {
+        try {
+          release.await();
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        absorbed.incrementAndGet();
+      });
+      propagator.execute(absorbed::incrementAndGet);
+      assertEquals(metrics.getSubmittedPropagations(), 2);
+      assertTrue(metrics.getPendingPropagations() > 0);
+      assertTrue(flag.get());
+      release.countDown();
+      propagator.awaitPropagation();
+      assertEquals(absorbed.get(), 2);
+      assertFalse(flag.get());
+      assertEquals(metrics.getPendingPropagations(), 0);
+      assertEquals(metrics.getCompletedPropagations(), 2);
+      propagator.awaitPropagation(); //nothing pending
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void checkRejectingExecutorRunsInCaller() {
+    final Executor rejecting = r -> { throw new RejectedExecutionException(); };
+    final ConcurrentPropagator propagator = new ConcurrentPropagator(rejecting);
+    final AtomicBoolean flag = new AtomicBoolean(true);
+    final AtomicInteger absorbed = new AtomicInteger();
+    propagator.propagate(flag, absorbed::incrementAndGet);
+    propagator.execute(rejecting, absorbed::incrementAndGet);
+    assertEquals(absorbed.get(), 2);
+    assertFalse(flag.get());
+    assertEquals(propagator.getMetrics().getPendingPropagations(), 0);
+    propagator.awaitLocalPropagation(flag);
+    assertEquals(propagator.getMetrics().getLocalBufferBlockedCount(), 0);
+  }
+
+  @Test
+  public void checkEpochAndDefaultPool() throws Exception {
+    final ConcurrentPropagator propagator = new ConcurrentPropagator(null);
+    final long epoch = propagator.getEpoch();
+    assertTrue(propagator.isCurrentEpoch(epoch));
+    propagator.advanceEpoch();
+    assertFalse(propagator.isCurrentEpoch(epoch));
+    final Thread[] worker = new Thread[1];
+    final AtomicBoolean flag = new AtomicBoolean(true);
+    propagator.propagate(flag, () -> { worker[0] = Thread.currentThread(); });
+    propagator.awaitLocalPropagation(flag);
+    assertTrue(worker[0].isDaemon());
+    assertEquals(worker[0].getName(), "datasketches-propagation");
+    assertTrue(propagator.getMetrics().toString().length() > 0);
+  }
+
+}
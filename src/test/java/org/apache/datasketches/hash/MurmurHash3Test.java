@@ -20,11 +20,14 @@
 package org.apache.datasketches.hash;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.copyOfRange;
 import static org.apache.datasketches.hash.MurmurHash3.hash;
+import static org.apache.datasketches.hash.MurmurHash3.hash64;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
+import org.apache.datasketches.memory.Memory;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -365,6 +368,59 @@ public class MurmurHash3Test {
     Assert.assertEquals(result1[1], h2);
   }
 
+  @Test
+  public void checkNonAllocatingVariantsMatch() {
+    final long seed = 9001L;
+    final long[] out = new long[2];
+    for (int len = 1; len <= 40; len++) {
+      final byte[] bArr = new byte[len];
+      final char[] cArr = new char[len];
+      final int[] iArr = new int[len];
+      final long[] lArr = new long[len];
+      for (int i = 0; i < len; i++) {
+        bArr[i] = (byte) (i * 31 + len);
+        cArr[i] = (char) (i * 7919 + len);
+        iArr[i] = i * 104729 + len;
+        lArr[i] = i * 0x9E3779B97F4A7C15L + len;
+      }
+      checkSame(hash(bArr, seed), hash(bArr, seed, out), hash64(bArr, seed));
+      checkSame(hash(cArr, seed), hash(cArr, seed, out), hash64(cArr, seed));
+      checkSame(hash(iArr, seed), hash(iArr, seed, out), hash64(iArr, seed));
+      checkSame(hash(lArr, seed), hash(lArr, seed, out), hash64(lArr, seed));
+      final int off = len / 2;
+      final int n = len - off;
+      checkSame(hash(copyOfRange(bArr, off, len), seed), hash(bArr, off, n, seed, out), hash64(bArr, off, n, seed));
+      checkSame(hash(copyOfRange(cArr, off, len), seed), hash(cArr, off, n, seed, out), hash64(cArr, off, n, seed));
+      checkSame(hash(copyOfRange(iArr, off, len), seed), hash(iArr, off, n, seed, out), hash64(iArr, off, n, seed));
+      checkSame(hash(copyOfRange(lArr, off, len), seed), hash(lArr, off, n, seed, out), hash64(lArr, off, n, seed));
+      final ByteBuffer buf = ByteBuffer.wrap(bArr);
+      checkSame(hash(buf, seed), hash(buf, seed, out), hash64(buf, seed));
+      final ByteBuffer bufBE = ByteBuffer.allocateDirect(len + 3).order(ByteOrder.BIG_ENDIAN);
+      bufBE.position(3);
+      bufBE.put(bArr).position(3);
+      checkSame(hash(bArr, seed), hash(bufBE, seed, out), hash64(bufBE, seed));
+      Assert.assertEquals(bufBE.position(), 3);
+      Assert.assertEquals(bufBE.order(), ByteOrder.BIG_ENDIAN);
+      final Memory mem = Memory.wrap(bArr);
+      checkSame(hash(mem, seed), hash(mem, seed, out), hash64(mem, seed));
+      final Memory memBE = Memory.wrap(bArr, ByteOrder.BIG_ENDIAN);
+      checkSame(hash(bArr, seed), hash(memBE, seed, out), hash64(memBE, seed));
+      checkSame(hash(lArr[len - 1], seed), hash(lArr[len - 1], seed, out), hash64(lArr[len - 1], seed));
+      checkSame(hash(new long[] { lArr[len - 1] }, seed), out, hash64(lArr[len - 1], seed));
+    }
+  }
+
+  @Test(expectedExceptions = NullPointerException.class)
+  public void checkNullHashOut() {
+    hash(1L, 9001L, null);
+  }
+
+  private static void checkSame(long[] expected, long[] out, long h64) {
+    Assert.assertEquals(out[0], expected[0]);
+    Assert.assertEquals(out[1], expected[1]);
+    Assert.assertEquals(h64, expected[0]);
+  }
+
   @Test
   public void printlnTest() {
     println("PRINTING: "+this.getClass().getName());
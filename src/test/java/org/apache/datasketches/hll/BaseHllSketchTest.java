@@ -24,6 +24,7 @@ import static org.testng.Assert.assertTrue;
 
 import org.testng.annotations.Test;
 
+import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.memory.WritableMemory;
 
 import java.nio.ByteBuffer;
@@ -97,6 +98,46 @@ public class BaseHllSketchTest {
     u.update("1234");
   }
 
+  @Test
+  public void checkVectorUpdatesMatchItemUpdates() {
+    final int lgK = 10;
+    for (TgtHllType type : TgtHllType.values()) {
+      for (int n : new int[] {0, 5, 100, 1500, 5000}) {
+        long[] longs = new long[n + 3];
+        String[] strs = new String[n + 3];
+        byte[][] bytes = new byte[n + 3][];
+        for (int i = 0; i < n; i++) {
+          longs[i + 3] = i;
+          strs[i + 3] = (i % 7 == 0) ? null : Integer.toString(i);
+          bytes[i + 3] = (i % 11 == 0) ? new byte[0] : new byte[] {(byte) i, (byte) (i >>> 8)};
+        }
+        HllSketch expected = new HllSketch(lgK, type);
+        for (int i = 3; i < n + 3; i++) { expected.update(longs[i]); }
+        for (int i = 3; i < n + 3; i++) { expected.update(strs[i]); }
+        for (int i = 3; i < n + 3; i++) { expected.update(bytes[i]); }
+        int bytesReq = HllSketch.getMaxUpdatableSerializationBytes(lgK, type);
+        HllSketch heapSk = new HllSketch(lgK, type);
+        HllSketch directSk = new HllSketch(lgK, type, WritableMemory.allocate(bytesReq));
+        Union union = new Union(lgK);
+        for (BaseHllSketch sk : new BaseHllSketch[] {heapSk, directSk, union}) {
+          sk.updateItems(longs, 3, n);
+          sk.updateItems(strs, 3, n);
+          sk.updateItems(bytes, 3, n);
+        }
+        assertEquals(heapSk.toUpdatableByteArray(), expected.toUpdatableByteArray());
+        assertEquals(directSk.toUpdatableByteArray(), expected.toUpdatableByteArray());
+        assertEquals(heapSk.getEstimate(), expected.getEstimate());
+        assertEquals(union.getResult(type).getEstimate(), expected.getEstimate(), expected.getEstimate() * 0.01);
+      }
+    }
+  }
+
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void checkVectorUpdateBounds() {
+    HllSketch sk = new HllSketch(10);
+    sk.updateItems(new long[4], 2, 3);
+  }
+
   @Test
   public void misc() {
     HllSketch sk = new HllSketch(10, TgtHllType.HLL_4);
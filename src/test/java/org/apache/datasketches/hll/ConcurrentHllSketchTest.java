@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.hll;
+
+import static org.apache.datasketches.hll.PreambleUtil.HLL_BYTE_ARR_START;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import org.testng.annotations.Test;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.WritableMemory;
+
+public class ConcurrentHllSketchTest {
+
+  @Test
+  public void checkSingleThreadMatchesHllSketch() {
+    final int lgK = 10;
+    final int n = 20000;
+    final ConcurrentHllSketch shared = new ConcurrentHllSketch(lgK);
+    assertTrue(shared.isEmpty());
+    final ConcurrentHllBuffer buf = shared.newLocalBuffer(100);
+    final HllSketch expected = new HllSketch(lgK, TgtHllType.HLL_8);
+    for (int i = 0; i < n; i++) {
+      buf.update(i);
+      expected.update(i);
+    }
+    assertTrue(shared.getEstimate() > 0);
+    assertTrue(buf.getNumBuffered() < 100);
+    buf.flush();
+    assertEquals(buf.getNumBuffered(), 0);
+    assertFalse(shared.isEmpty());
+    checkRegisters(shared.getResult(), expected);
+    assertEquals(shared.getEstimate(), expected.getCompositeEstimate(), 1e-9);
+    assertEquals(buf.getEstimate(), shared.getEstimate());
+    final HllSketch result = shared.getResult();
+    assertEquals(result.getEstimate(), shared.getEstimate(), 1e-9);
+    assertEquals(result.getLowerBound(2), shared.getLowerBound(2), 1e-9);
+    assertEquals(result.getUpperBound(2), shared.getUpperBound(2), 1e-9);
+    assertEquals(shared.getResult(TgtHllType.HLL_4).getEstimate(), shared.getEstimate(), 1e-9);
+    final HllSketch heapified = HllSketch.heapify(shared.toCompactByteArray());
+    assertEquals(heapified.getEstimate(), shared.getEstimate(), 1e-9);
+  }
+
+  @Test
+  public void checkMultiThreadedHeap() throws InterruptedException {
+    checkMultiThreaded(new ConcurrentHllSketch(12));
+  }
+
+  @Test
+  public void checkMultiThreadedDirect() throws InterruptedException {
+    final int bytes = HllSketch.getMaxUpdatableSerializationBytes(12, TgtHllType.HLL_8);
+    final WritableMemory wmem = WritableMemory.allocate(bytes);
+    final ConcurrentHllSketch shared = new ConcurrentHllSketch(12, wmem);
+    assertTrue(shared.isSameResource(wmem));
+    checkMultiThreaded(shared);
+    final Union union = new Union(12);
+    union.update(HllSketch.heapify(wmem));
+    assertEquals(union.getEstimate(), shared.getEstimate(), 1e-9);
+  }
+
+  @Test
+  public void checkMultiThreadedDirectBigEndian() throws InterruptedException {
+    final int bytes = HllSketch.getMaxUpdatableSerializationBytes(12, TgtHllType.HLL_8);
+    final WritableMemory wmem = WritableMemory.allocate(bytes, ByteOrder.BIG_ENDIAN);
+    checkMultiThreaded(new ConcurrentHllSketch(12, wmem));
+  }
+
+  private static void checkMultiThreaded(final ConcurrentHllSketch shared)
+      throws InterruptedException {
+    final int numThreads = 4;
+    final int n = 50000;
+    final Thread[] threads = new Thread[numThreads];
+    for (int t = 0; t < numThreads; t++) {
+      final int start = t * n;
+      final int capacity = 1 << t;
+      threads[t] = new Thread(() -> {
+        final ConcurrentHllBuffer buf = shared.newLocalBuffer(capacity);
+        for (int i = 0; i < (2 * n); i++) { buf.update(start + i); } //overlapping ranges
+        buf.flush();
+      });
+    }
+    for (Thread thread : threads) { thread.start(); }
+    for (Thread thread : threads) { thread.join(); }
+
+    final HllSketch expected = new HllSketch(shared.getLgConfigK(), TgtHllType.HLL_8);
+    for (int i = 0; i < ((numThreads + 1) * n); i++) { expected.update(i); }
+    checkRegisters(shared.getResult(), expected);
+    assertEquals(shared.getEstimate(), expected.getCompositeEstimate(), 1e-9);
+  }
+
+  private static void checkRegisters(final HllSketch actual, final HllSketch expected) {
+    final byte[] act = actual.toUpdatableByteArray();
+    final byte[] exp = expected.toUpdatableByteArray();
+    assertEquals(Arrays.copyOfRange(act, HLL_BYTE_ARR_START, act.length),
+        Arrays.copyOfRange(exp, HLL_BYTE_ARR_START, exp.length));
+  }
+
+  @Test
+  public void checkVectorUpdateAndReset() {
+    final ConcurrentHllSketch shared = new ConcurrentHllSketch(8);
+    final ConcurrentHllBuffer buf = shared.newLocalBuffer();
+    final long[] items = new long[1000];
+    for (int i = 0; i < items.length; i++) { items[i] = i; }
+    buf.update(-1L);
+    buf.updateItems(items, 0, items.length);
+    assertEquals(buf.getNumBuffered(), 0);
+    final HllSketch expected = new HllSketch(8, TgtHllType.HLL_8);
+    expected.update(-1L);
+    for (long item : items) { expected.update(item); }
+    checkRegisters(shared.getResult(), expected);
+
+    buf.update(5000L);
+    buf.reset();
+    assertEquals(buf.getNumBuffered(), 0);
+    assertTrue(shared.isEmpty());
+    assertTrue(buf.isEmpty());
+    assertEquals(shared.getEstimate(), 0.0);
+    println(buf.toString());
+  }
+
+  @Test
+  public void checkWritableWrap() {
+    final int bytes = HllSketch.getMaxUpdatableSerializationBytes(10, TgtHllType.HLL_8);
+    final WritableMemory wmem = WritableMemory.allocate(bytes);
+    final ConcurrentHllSketch first = new ConcurrentHllSketch(10, wmem);
+    final ConcurrentHllBuffer buf1 = first.newLocalBuffer();
+    for (int i = 0; i < 5000; i++) { buf1.update(i); }
+    buf1.flush();
+
+    final ConcurrentHllSketch second = ConcurrentHllSketch.writableWrap(wmem);
+    assertEquals(second.getLgConfigK(), 10);
+    assertFalse(second.isEmpty());
+    assertEquals(second.getEstimate(), first.getEstimate(), 1e-9);
+    final ConcurrentHllBuffer buf2 = second.newLocalBuffer();
+    for (int i = 5000; i < 10000; i++) { buf2.update(i); }
+    buf2.flush();
+    final HllSketch expected = new HllSketch(10, TgtHllType.HLL_8);
+    for (int i = 0; i < 10000; i++) { expected.update(i); }
+    checkRegisters(second.getResult(), expected);
+    assertEquals(second.getEstimate(), expected.getCompositeEstimate(), 1e-9);
+
+    //a standard HLL_8 image in HLL mode
+    final WritableMemory wmem2 = WritableMemory.allocate(bytes);
+    final HllSketch direct = new HllSketch(10, TgtHllType.HLL_8, wmem2);
+    for (int i = 0; i < 10000; i++) { direct.update(i); }
+    final ConcurrentHllSketch third = ConcurrentHllSketch.writableWrap(wmem2);
+    assertEquals(third.getEstimate(), expected.getCompositeEstimate(), 1e-9);
+  }
+
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void checkWritableWrapListMode() {
+    final int bytes = HllSketch.getMaxUpdatableSerializationBytes(10, TgtHllType.HLL_8);
+    final WritableMemory wmem = WritableMemory.allocate(bytes);
+    final HllSketch direct = new HllSketch(10, TgtHllType.HLL_8, wmem);
+    direct.update(1);
+    ConcurrentHllSketch.writableWrap(wmem);
+  }
+
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void checkMemoryTooSmall() {
+    new ConcurrentHllSketch(10, WritableMemory.allocate(100));
+  }
+
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void checkMisalignedMemory() {
+    final int bytes = HllSketch.getMaxUpdatableSerializationBytes(10, TgtHllType.HLL_8);
+    final WritableMemory wmem = WritableMemory.allocate(bytes + 8);
+    new ConcurrentHllSketch(10, wmem.writableRegion(1, bytes));
+  }
+
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void checkBadBufferCapacity() {
+    new ConcurrentHllSketch(10).newLocalBuffer(0);
+  }
+
+  @Test
+  public void printlnTest() {
+    println("PRINTING: " + this.getClass().getName());
+  }
+
+  /**
+   * @param s value to print
+   */
+  static void println(String s) {
+    //System.out.println(s); //disable here
+  }
+}
@@ -20,6 +20,7 @@
 package org.apache.datasketches.hll;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
@@ -158,6 +159,125 @@ public class DirectHllSketchTest {
     assertEquals(udByteArr2, udByteArr);
   }
 
+  @Test
+  public void checkAtomicModeMultiThreaded() throws InterruptedException {
+    final int lgK = 12;
+    final int n = 50000;
+    final int numThreads = 4;
+    final int bytes = HllSketch.getMaxUpdatableSerializationBytes(lgK, TgtHllType.HLL_8);
+    final WritableMemory wmem = WritableMemory.allocate(bytes);
+    final HllSketch creator = HllSketch.newAtomicInstance(lgK, wmem);
+    assertEquals(creator.getCurMode(), CurMode.HLL);
+    assertEquals(creator.getEstimate(), 0.0);
+    final Thread[] threads = new Thread[numThreads];
+    for (int t = 0; t < numThreads; t++) {
+      final int start = t * n;
+      threads[t] = new Thread(() -> {
+        final HllSketch sk = HllSketch.writableWrapAtomic(wmem); //one wrapper per thread
+        for (int i = 0; i < (2 * n); i++) { sk.update(start + i); } //overlapping ranges
+      });
+    }
+    for (Thread thread : threads) { thread.start(); }
+    for (Thread thread : threads) { thread.join(); }
+
+    final HllSketch expected = new HllSketch(lgK, TgtHllType.HLL_8);
+    for (int i = 0; i < ((numThreads + 1) * n); i++) { expected.update(i); }
+    final byte[] act = creator.toUpdatableByteArray();
+    final byte[] exp = expected.toUpdatableByteArray();
+    for (int i = PreambleUtil.HLL_BYTE_ARR_START; i < exp.length; i++) {
+      assertEquals(act[i], exp[i]);
+    }
+    final double est = expected.getCompositeEstimate();
+    assertEquals(creator.getEstimate(), est, 1e-9);
+    final HllSketch heapified = HllSketch.heapify(act);
+    assertEquals(heapified.getEstimate(), est, 1e-9);
+    assertEquals(heapified.getLowerBound(2), creator.getLowerBound(2), 1e-9);
+    assertEquals(heapified.getUpperBound(2), creator.getUpperBound(2), 1e-9);
+    assertEquals(creator.copy().getEstimate(), est, 1e-9);
+    assertEquals(creator.copyAs(TgtHllType.HLL_4).getEstimate(), est, 1e-9);
+
+    creator.reset();
+    assertEquals(creator.getCurMode(), CurMode.HLL);
+    assertEquals(creator.getEstimate(), 0.0);
+  }
+
+  @Test
+  public void checkAtomicModeVectorUpdate() {
+    final int lgK = 10;
+    final int bytes = HllSketch.getMaxUpdatableSerializationBytes(lgK, TgtHllType.HLL_8);
+    final HllSketch sk = HllSketch.newAtomicInstance(lgK, WritableMemory.allocate(bytes));
+    final HllSketch expected = new HllSketch(lgK, TgtHllType.HLL_8);
+    final long[] items = new long[3000];
+    for (int i = 0; i < items.length; i++) {
+      items[i] = i;
+      expected.update(i);
+    }
+    sk.updateItems(items, 0, items.length);
+    assertEquals(sk.getEstimate(), expected.getCompositeEstimate(), 1e-9);
+  }
+
+  @Test
+  public void checkAtomicModeEmpty() {
+    final int lgK = 10;
+    final int bytes = HllSketch.getMaxUpdatableSerializationBytes(lgK, TgtHllType.HLL_8);
+    final WritableMemory wmem = WritableMemory.allocate(bytes);
+    final HllSketch sk = HllSketch.newAtomicInstance(lgK, wmem);
+    assertTrue(sk.isEmpty());
+    assertTrue(HllSketch.writableWrapAtomic(wmem).isEmpty()); //attaching keeps it empty
+    assertTrue(HllSketch.wrap((Memory) wmem).isEmpty());
+    sk.update(1);
+    assertFalse(sk.isEmpty());
+    assertFalse(HllSketch.writableWrapAtomic(wmem).isEmpty());
+    sk.reset();
+    assertTrue(sk.isEmpty());
+  }
+
+  @Test
+  public void checkAtomicModeReadOnlyWrap() {
+    final int lgK = 10;
+    final int bytes = HllSketch.getMaxUpdatableSerializationBytes(lgK, TgtHllType.HLL_8);
+    final WritableMemory wmem = WritableMemory.allocate(bytes);
+    final HllSketch sk = HllSketch.newAtomicInstance(lgK, wmem);
+    final HllSketch expected = new HllSketch(lgK, TgtHllType.HLL_8);
+    for (int i = 0; i < 5000; i++) {
+      sk.update(i);
+      expected.update(i);
+    }
+    final HllSketch ro = HllSketch.wrap((Memory) wmem);
+    assertTrue(ro.isMemory());
+    assertFalse(ro.isEmpty());
+    assertEquals(ro.getEstimate(), expected.getCompositeEstimate(), 1e-9);
+    assertEquals(ro.getLowerBound(2), sk.getLowerBound(2), 1e-9);
+    assertEquals(ro.getUpperBound(2), sk.getUpperBound(2), 1e-9);
+    assertTrue(PreambleUtil.extractRebuildCurMinNumKxQFlag(wmem)); //nothing written back
+  }
+
+  @Test
+  public void checkAtomicModeBadImages() {
+    final int lgK = 10;
+    final int bytes = HllSketch.getMaxUpdatableSerializationBytes(lgK, TgtHllType.HLL_8);
+    final WritableMemory wmem = WritableMemory.allocate(bytes + 8);
+    new HllSketch(lgK, TgtHllType.HLL_8, wmem); //LIST mode
+    try {
+      HllSketch.writableWrapAtomic(wmem);
+      fail();
+    } catch (SketchesArgumentException e) {
+      //expected
+    }
+    try {
+      HllSketch.newAtomicInstance(lgK, wmem.writableRegion(4, bytes));
+      fail();
+    } catch (SketchesArgumentException e) {
+      //expected
+    }
+    try {
+      HllSketch.newAtomicInstance(lgK, WritableMemory.allocate(bytes - 1));
+      fail();
+    } catch (SketchesArgumentException e) {
+      //expected
+    }
+  }
+
   @Test
   public void printlnTest() {
     println("PRINTING: "+this.getClass().getName());
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.hll;
+
+import static org.apache.datasketches.hll.HllUtil.KEY_BITS_26;
+import static org.testng.Assert.assertEquals;
+
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+import org.apache.datasketches.memory.WritableMemory;
+
+public class HllArrayMergeTest {
+
+  @Test
+  public void checkMaxLanes() {
+    final Random rand = new Random(1);
+    for (int n = 0; n < 10000; n++) {
+      final long a = rand.nextLong() & 0x7F7F7F7F7F7F7F7FL;
+      final long b = rand.nextLong() & 0x7F7F7F7F7F7F7F7FL;
+      final long max = HllArrayMerge.maxLanes(a, b);
+      for (int lane = 0; lane < 8; lane++) {
+        final int shift = lane << 3;
+        final long expected = Math.max((a >>> shift) & 0xFF, (b >>> shift) & 0xFF);
+        assertEquals((max >>> shift) & 0xFF, expected);
+      }
+    }
+  }
+
+  @Test
+  public void checkMergeAllTypesAndMemories() {
+    final int tgtLgK = 8;
+    for (TgtHllType srcType : TgtHllType.values()) {
+      for (int srcLgK = tgtLgK; srcLgK <= (tgtLgK + 2); srcLgK++) {
+        for (int srcMem = 0; srcMem < 3; srcMem++) {
+          for (int tgtMem = 0; tgtMem < 3; tgtMem++) {
+            checkMerge(srcType, srcLgK, srcMem, tgtLgK, tgtMem);
+          }
+        }
+      }
+    }
+  }
+
+  //mem: 0 = heap, 1 = little endian memory, 2 = big endian memory
+  private static void checkMerge(final TgtHllType srcType, final int srcLgK, final int srcMem,
+      final int tgtLgK, final int tgtMem) {
+    final HllSketch src = newHllModeSketch(srcLgK, srcType, srcMem, 11);
+    final HllSketch tgt = newHllModeSketch(tgtLgK, TgtHllType.HLL_8, tgtMem, 22);
+    final AbstractHllArray srcArr = (AbstractHllArray) src.hllSketchImpl;
+    final AbstractHllArray tgtArr = (AbstractHllArray) tgt.hllSketchImpl;
+    final int tgtK = 1 << tgtLgK;
+    final int[] expected = new int[tgtK];
+    for (int slot = 0; slot < tgtK; slot++) { expected[slot] = tgtArr.getSlotValue(slot); }
+    final PairIterator itr = srcArr.iterator();
+    while (itr.nextAll()) {
+      final int slot = itr.getSlot() & (tgtK - 1);
+      expected[slot] = Math.max(expected[slot], itr.getValue());
+    }
+    HllArrayMerge.merge(srcArr, tgtArr, srcLgK, tgtLgK);
+    for (int slot = 0; slot < tgtK; slot++) {
+      assertEquals(tgtArr.getSlotValue(slot), expected[slot],
+          srcType + " srcLgK=" + srcLgK + " srcMem=" + srcMem + " tgtMem=" + tgtMem + " slot=" + slot);
+    }
+  }
+
+  private static HllSketch newHllModeSketch(final int lgK, final TgtHllType type, final int mem,
+      final long seed) {
+    final HllSketch sk;
+    if (mem == 0) {
+      sk = new HllSketch(lgK, type);
+    } else {
+      final int bytes = HllSketch.getMaxUpdatableSerializationBytes(lgK, type);
+      final ByteOrder order = (mem == 1) ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+      sk = new HllSketch(lgK, type, WritableMemory.allocate(bytes, order));
+    }
+    final Random rand = new Random(seed);
+    final int k = 1 << lgK;
+    for (int slot = 0; slot < k; slot++) { //every slot at least 3, so HLL_4 curMin > 0
+      sk.couponUpdate(((3 + rand.nextInt(6)) << KEY_BITS_26) | slot);
+    }
+    for (int n = 0; n < 3; n++) { //large values produce HLL_4 aux exceptions
+      sk.couponUpdate(((10 + rand.nextInt(50)) << KEY_BITS_26) | rand.nextInt(k));
+    }
+    assertEquals(sk.getCurMode(), CurMode.HLL);
+    return sk;
+  }
+
+  @Test
+  public void printlnTest() {
+    println("PRINTING: " + this.getClass().getName());
+  }
+
+  /**
+   * @param s value to print
+   */
+  static void println(String s) {
+    //System.out.println(s); //disable here
+  }
+}
@@ -28,6 +28,13 @@ import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.memory.Memory;
 import org.apache.datasketches.memory.WritableMemory;
@@ -503,6 +510,118 @@ public class UnionTest {
     return est / (1.0 + re);
   }
 
+  @Test
+  public void checkUpdateWithImages() {
+    final List<Memory> images = buildImages(7);
+    for (int lgMaxK : new int[] {4, 10, 12}) {
+      final Union expected = new Union(lgMaxK);
+      for (Memory image : images) {
+        if (image != null) { expected.update(HllSketch.wrap(image)); }
+      }
+      final Union heapUnion = new Union(lgMaxK);
+      heapUnion.update(images);
+      assertSameResult(heapUnion, expected);
+
+      final WritableMemory wmem = WritableMemory.allocate(Union.getMaxSerializationBytes(lgMaxK));
+      final Union directUnion = new Union(lgMaxK, wmem);
+      directUnion.update(images);
+      assertSameResult(directUnion, expected);
+
+      final Union fjUnion = new Union(lgMaxK);
+      fjUnion.update(HllSketch.wrap(images.get(images.size() - 1)));
+      fjUnion.updateAll(images, new ForkJoinPool(3));
+      assertSameResult(fjUnion, expected);
+    }
+  }
+
+  @Test
+  public void checkUpdateWithSparseImagesOnly() {
+    final List<Memory> images = new ArrayList<>();
+    final Union expected = new Union(12);
+    for (int i = 0; i < 4; i++) {
+      final HllSketch sk = new HllSketch(11, HLL_6);
+      for (int j = 0; j < (20 * i); j++) { sk.update((i * 1000) + j); }
+      images.add(Memory.wrap(sk.toCompactByteArray()));
+      images.add(Memory.wrap(sk.toUpdatableByteArray()));
+      expected.update(sk);
+    }
+    final Union union = new Union(12);
+    union.update(images);
+    assertEquals(union.getCurMode(), expected.getCurMode());
+    assertEquals(union.getEstimate(), expected.getEstimate());
+    final Union fjUnion = new Union(12);
+    fjUnion.updateAll(images, null);
+    assertEquals(fjUnion.getEstimate(), expected.getEstimate());
+    fjUnion.updateAll(new ArrayList<Memory>(), null);
+    assertEquals(fjUnion.getEstimate(), expected.getEstimate());
+  }
+
+  @Test
+  public void checkUpdateWithBadImage() {
+    final HllSketch sk = new HllSketch(10, HLL_8);
+    for (int i = 0; i < 10000; i++) { sk.update(i); }
+    final byte[] bytes = sk.toCompactByteArray();
+    final Union union = new Union(10);
+    union.update(sk);
+    try {
+      union.update(Arrays.asList(Memory.wrap(bytes, 0, bytes.length / 2, ByteOrder.LITTLE_ENDIAN)));
+      fail();
+    } catch (SketchesArgumentException e) {
+      //expected
+    }
+    bytes[PreambleUtil.FAMILY_BYTE] = 0;
+    try {
+      union.update(Arrays.asList(Memory.wrap(bytes)));
+      fail();
+    } catch (SketchesArgumentException e) {
+      //expected
+    }
+  }
+
+  //Mixed LIST, SET and HLL images of all types, lgKs, forms and byte orders, plus nulls and empties
+  private static List<Memory> buildImages(final long seed) {
+    final Random rand = new Random(seed);
+    final TgtHllType[] types = TgtHllType.values();
+    final int[] ns = {0, 3, 60, 400, 5000, 40000};
+    final List<Memory> images = new ArrayList<>();
+    images.add(null);
+    for (int i = 0; i < 600; i++) {
+      final TgtHllType type = types[i % 3];
+      final int lgK = 6 + rand.nextInt(8);
+      final int n = ns[rand.nextInt(ns.length)];
+      final int form = rand.nextInt(3);
+      final HllSketch sk;
+      if (form < 2) {
+        sk = new HllSketch(lgK, type);
+      } else {
+        final int bytes = HllSketch.getMaxUpdatableSerializationBytes(lgK, type);
+        final ByteOrder order = rand.nextBoolean() ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+        sk = new HllSketch(lgK, type, WritableMemory.allocate(bytes, order));
+      }
+      final long base = rand.nextInt(1000) * 100_000L;
+      for (int j = 0; j < n; j++) { sk.update(base + j); }
+      switch (form) {
+        case 0: images.add(Memory.wrap(sk.toCompactByteArray())); break;
+        case 1: images.add(Memory.wrap(sk.toUpdatableByteArray())); break;
+        default: images.add(sk.getMemory()); break;
+      }
+    }
+    return images;
+  }
+
+  private static void assertSameResult(final Union union, final Union expected) {
+    final HllSketch result = union.getResult(HLL_8);
+    final HllSketch expResult = expected.getResult(HLL_8);
+    assertEquals(result.getCurMode(), expResult.getCurMode());
+    assertEquals(result.getLgConfigK(), expResult.getLgConfigK());
+    final AbstractHllArray arr = (AbstractHllArray) result.hllSketchImpl;
+    final AbstractHllArray expArr = (AbstractHllArray) expResult.hllSketchImpl;
+    for (int slot = 0; slot < (1 << result.getLgConfigK()); slot++) {
+      assertEquals(arr.getSlotValue(slot), expArr.getSlotValue(slot));
+    }
+    assertEquals(union.getEstimate(), expected.getEstimate(), expected.getEstimate() * 0.01);
+  }
+
   @Test
   public void printlnTest() {
     println("PRINTING: "+this.getClass().getName());
@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.kll;
+
+import static org.apache.datasketches.quantilescommon.QuantileSearchCriteria.INCLUSIVE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.datasketches.common.ConcurrentPropagationMetrics;
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.DefaultMemoryRequestServer;
+import org.apache.datasketches.memory.WritableMemory;
+import org.testng.annotations.Test;
+
+public class ConcurrentSharedKllDoublesSketchTest {
+
+  //thread t updates the items t, t + numThreads, t + 2 * numThreads, ... below n
+  private static void updateConcurrently(final ConcurrentSharedKllDoublesSketch shared, final int numThreads,
+      final int n, final int localBufferSize) throws InterruptedException {
+    final Thread[] writers = new Thread[numThreads];
+    for (int t = 0; t < numThreads; t++) {
+      final ConcurrentHeapKllDoublesBuffer local = shared.newLocalBuffer(localBufferSize);
+      final int first = t;
+      writers[t] = new Thread(() -> {
+        for (int i = first; i < n; i += numThreads) { local.update(i); }
+        local.flush();
+      });
+      writers[t].start();
+    }
+    for (Thread w : writers) { w.join(); }
+  }
+
+  private static void checkRanks(final ConcurrentSharedKllDoublesSketch shared, final int n) {
+    final double eps = shared.getNormalizedRankError(false);
+    for (double r = 0.1; r < 1.0; r += 0.1) {
+      assertEquals(shared.getRank(r * n, INCLUSIVE), r, 2 * eps);
+    }
+  }
+
+  @Test
+  public void checkHeapInstance() throws InterruptedException {
+    final ConcurrentSharedKllDoublesSketch shared = ConcurrentSharedKllDoublesSketch.newHeapInstance(200, null);
+    assertTrue(shared.isEmpty());
+    assertFalse(shared.hasMemory());
+    final int n = 100_000;
+    updateConcurrently(shared, 8, n, shared.getK());
+    assertEquals(shared.getPendingPropagations(), 0);
+    final ConcurrentPropagationMetrics metrics = shared.getPropagationMetrics();
+    assertTrue(metrics.getSubmittedPropagations() > 0);
+    assertEquals(metrics.getCompletedPropagations(), metrics.getSubmittedPropagations());
+    assertEquals(shared.getN(), n);
+    assertEquals(shared.getMinItem(), 0.0);
+    assertEquals(shared.getMaxItem(), n - 1.0);
+    checkRanks(shared, n);
+    final double q = shared.getQuantile(0.5, INCLUSIVE);
+    assertEquals(q, n / 2.0, n * shared.getNormalizedRankError(false));
+    assertEquals(shared.getQuantiles(new double[] {0.5}, INCLUSIVE)[0], q);
+    assertEquals(shared.getCDF(new double[] {n / 2.0}, INCLUSIVE)[1], 1.0);
+    assertEquals(shared.getPMF(new double[] {n / 2.0}, INCLUSIVE).length, 2);
+
+    final KllDoublesSketch snapshot = shared.snapshot();
+    assertEquals(snapshot.getN(), n);
+    assertEquals(snapshot.getQuantile(0.5, INCLUSIVE), q);
+    assertEquals(snapshot.toByteArray(), shared.toByteArray());
+    assertTrue(shared.toString().length() > 0);
+  }
+
+  @Test
+  public void checkSmallBuffersMatchSingleSketch() throws InterruptedException {
+    //buffers of at most k items are merged item by item, as by direct updates
+    final int k = 50;
+    final int n = 20_000;
+    final ConcurrentSharedKllDoublesSketch shared =
+        ConcurrentSharedKllDoublesSketch.newHeapInstance(k, Runnable::run);
+    updateConcurrently(shared, 1, n, k);
+    final KllDoublesSketch single = KllDoublesSketch.newHeapInstance(k);
+    for (int i = 0; i < n; i++) { single.update(i); }
+    final KllDoublesSketch snapshot = shared.snapshot();
+    assertEquals(snapshot.getN(), single.getN());
+    assertEquals(snapshot.getNumRetained(), single.getNumRetained());
+    assertEquals(snapshot.getMinItem(), single.getMinItem());
+    assertEquals(snapshot.getMaxItem(), single.getMaxItem());
+    checkRanks(shared, n);
+  }
+
+  @Test
+  public void checkDirectInstanceLargeBuffers() throws InterruptedException {
+    final ExecutorService pool = Executors.newFixedThreadPool(2);
+    try {
+      final WritableMemory wmem = WritableMemory.allocate(1000);
+      final ConcurrentSharedKllDoublesSketch shared = ConcurrentSharedKllDoublesSketch.newDirectInstance(
+          100, wmem, new DefaultMemoryRequestServer(), pool);
+      assertTrue(shared.hasMemory());
+      final int n = 200_000;
+      updateConcurrently(shared, 4, n, 5000); //local buffers compact
+      assertEquals(shared.getN(), n);
+      checkRanks(shared, n);
+      assertFalse(pool.isShutdown());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void checkVectorUpdate() {
+    final ConcurrentSharedKllDoublesSketch shared =
+        ConcurrentSharedKllDoublesSketch.newHeapInstance(200, Runnable::run);
+    final ConcurrentHeapKllDoublesBuffer local = shared.newLocalBuffer(64);
+    assertEquals(local.getLocalBufferSize(), 64);
+    assertTrue(local.getSharedSketch() == shared);
+    final double[] items = new double[1000];
+    for (int i = 0; i < items.length; i++) { items[i] = i; }
+    local.update(items, 10, 990);
+    assertEquals(shared.getN() + local.getNumBuffered(), 990);
+    assertTrue(local.getNumBuffered() < 64);
+    local.flush();
+    assertEquals(shared.getN(), 990);
+    assertEquals(local.getNumBuffered(), 0);
+    assertEquals(shared.getMinItem(), 10.0);
+  }
+
+  @Test
+  public void checkRejectingExecutorAndReset() {
+    final Executor rejecting = r -> { throw new RejectedExecutionException(); };
+    final ConcurrentSharedKllDoublesSketch shared = ConcurrentSharedKllDoublesSketch.newHeapInstance(200, rejecting);
+    final ConcurrentHeapKllDoublesBuffer local = shared.newLocalBuffer();
+    for (int i = 0; i < 1000; i++) { local.update(i); }
+    //the updating thread propagated every full buffer itself
+    assertEquals(shared.getN(), 1000);
+    assertEquals(local.getNumBuffered(), 0);
+    local.update(1.0);
+    local.reset();
+    local.flush();
+    assertEquals(shared.getN(), 1000);
+    shared.reset();
+    assertTrue(shared.isEmpty());
+    assertEquals(shared.getK(), 200);
+    local.update(5.0);
+    local.flush();
+    assertEquals(shared.getN(), 1);
+    shared.awaitPropagation();
+  }
+
+  @Test
+  public void checkBadLocalBufferSize() {
+    try {
+      ConcurrentSharedKllDoublesSketch.newHeapInstance(200, null).newLocalBuffer(0);
+      fail();
+    } catch (SketchesArgumentException e) {
+      //expected
+    }
+  }
+
+  @Test
+  public void printlnTest() {
+    println("PRINTING: " + this.getClass().getName());
+  }
+
+  /**
+   * @param s value to print
+   */
+  static void println(final String s) {
+    //System.out.println(s); //disable here
+  }
+
+}
@@ -29,6 +29,8 @@ import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
+import java.util.Random;
+
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.memory.DefaultMemoryRequestServer;
 import org.apache.datasketches.memory.Memory;
@@ -708,6 +710,37 @@ public class KllDoublesSketchTest {
     printf("  nS / Update : %,12.3f" + LS, updateTime);
   }
 
+  @Test
+  public void checkSortedViewPatching() {
+    final Random rand = new Random(1);
+    final int k = 100;
+    final KllDoublesSketch heap = KllDoublesSketch.newHeapInstance(k);
+    final KllDoublesSketch direct = KllDoublesSketch.newDirectInstance(k, WritableMemory.allocate(10000),
+        new DefaultMemoryRequestServer());
+    for (KllDoublesSketch sk : new KllDoublesSketch[] {heap, direct}) {
+      for (int i = 0; i < 5000; i++) { sk.update(rand.nextDouble()); }
+      sk.getQuantile(0.5);
+      assertEquals(sk.getSortedViewBuildCount(), 1);
+      for (int round = 0; round < 200; round++) {
+        sk.update(rand.nextDouble());
+        sk.update(rand.nextDouble());
+        final DoublesSortedView sv = sk.getSortedView();
+        final KllDoublesSketch fresh = KllDoublesSketch.heapify(Memory.wrap(sk.toByteArray()));
+        final DoublesSortedView expected = fresh.getSortedView();
+        assertEquals(sv.getQuantiles(), expected.getQuantiles());
+        assertEquals(sv.getCumulativeWeights(), expected.getCumulativeWeights());
+        assertTrue(sk.getSortedView() == sv); //cached until the next update
+      }
+      //most views were patched, the others were rebuilt after level 0 was compacted
+      assertTrue(sk.getSortedViewPatchCount() > 100);
+      assertTrue(sk.getSortedViewBuildCount() > 1);
+      assertEquals(sk.getSortedViewBuildCount() + sk.getSortedViewPatchCount(), 201);
+      sk.reset();
+      sk.update(1.0);
+      assertEquals(sk.getQuantile(0.5), 1.0);
+    }
+  }
+
   private final static boolean enablePrinting = false;
 
   /**
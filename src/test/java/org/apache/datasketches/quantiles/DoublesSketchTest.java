@@ -26,6 +26,7 @@ import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
 import java.nio.ByteOrder;
+import java.util.Random;
 
 import org.apache.datasketches.memory.DefaultMemoryRequestServer;
 import org.apache.datasketches.memory.WritableHandle;
@@ -259,6 +260,32 @@ public class DoublesSketchTest {
     println(sk.toString(true, false));
   }
 
+  @Test
+  public void checkSortedViewPatching() {
+    final Random rand = new Random(1);
+    final UpdateDoublesSketch heap = DoublesSketch.builder().setK(64).build();
+    final UpdateDoublesSketch direct = DoublesSketch.builder().setK(64).build(WritableMemory.allocate(100000));
+    for (UpdateDoublesSketch sk : new UpdateDoublesSketch[] {heap, direct}) {
+      for (int i = 0; i < 1000; i++) { sk.update(rand.nextDouble()); }
+      sk.getQuantile(0.5);
+      assertEquals(sk.getSortedViewBuildCount(), 1);
+      for (int round = 0; round < 200; round++) {
+        sk.update(rand.nextDouble());
+        final DoublesSortedView sv = sk.getSortedView();
+        final DoublesSketch fresh = DoublesSketch.heapify(WritableMemory.writableWrap(sk.toByteArray()));
+        final DoublesSortedView expected = fresh.getSortedView();
+        assertEquals(sv.getQuantiles(), expected.getQuantiles());
+        assertEquals(sv.getCumulativeWeights(), expected.getCumulativeWeights());
+      }
+      //the base buffer of 2k items was propagated to the levels once or twice
+      assertTrue(sk.getSortedViewPatchCount() >= 195);
+      assertEquals(sk.getSortedViewBuildCount() + sk.getSortedViewPatchCount(), 201);
+      sk.reset();
+      sk.update(1.0);
+      assertEquals(sk.getQuantile(0.5), 1.0);
+    }
+  }
+
   @Test
   public void printlnTest() {
     println("PRINTING: " + this.getClass().getName());
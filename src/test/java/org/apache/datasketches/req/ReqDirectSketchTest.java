@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.req;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.Random;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.DefaultMemoryRequestServer;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+import org.apache.datasketches.quantilescommon.FloatsSortedView;
+import org.apache.datasketches.quantilescommon.QuantilesFloatsSketchIterator;
+import org.testng.annotations.Test;
+
+public class ReqDirectSketchTest {
+
+  @Test
+  public void checkExactModeMatchesHeap() {
+    for (boolean hra : new boolean[] {true, false}) {
+      final ReqSketchBuilder bldr = ReqSketch.builder().setK(12).setHighRankAccuracy(hra);
+      final ReqSketch heap = bldr.build();
+      final WritableMemory wmem = WritableMemory.allocate((int) ReqDirectSketch.getInitialStorageBytes(12));
+      final ReqDirectSketch direct = bldr.build(wmem, null);
+      assertTrue(direct.isEmpty());
+      assertTrue(direct.hasMemory());
+      assertFalse(direct.isReadOnly());
+      assertEquals(direct.toByteArray(), heap.toByteArray());
+      for (int i = 0; i < 60; i++) {
+        heap.update(i % 7);
+        direct.update(i % 7);
+        assertEquals(direct.toByteArray(), heap.toByteArray());
+        assertEquals(direct.getSerializedSizeBytes(), heap.getSerializedSizeBytes());
+      }
+      assertEquals(direct.getMemory(), wmem);
+      assertEquals(direct.getSortedView().getQuantiles(), heap.getSortedView().getQuantiles());
+      assertEquals(direct.getSortedView().getCumulativeWeights(), heap.getSortedView().getCumulativeWeights());
+      assertEquals(direct.getQuantile(0.5), heap.getQuantile(0.5));
+    }
+  }
+
+  @Test
+  public void checkEstimationModeAndGrowth() {
+    final Random rand = new Random(1);
+    final int n = 100_000;
+    for (boolean hra : new boolean[] {true, false}) {
+      final long initialBytes = ReqDirectSketch.getInitialStorageBytes(12);
+      final WritableMemory wmem = WritableMemory.allocate((int) initialBytes);
+      final ReqDirectSketch direct = ReqSketch.builder().setHighRankAccuracy(hra)
+          .build(wmem, new DefaultMemoryRequestServer());
+      float min = Float.MAX_VALUE;
+      float max = -Float.MAX_VALUE;
+      for (int i = 0; i < n; i++) {
+        final float item = rand.nextFloat();
+        min = Math.min(min, item);
+        max = Math.max(max, item);
+        direct.update(item);
+      }
+      assertTrue(direct.getMemory().getCapacity() > initialBytes);
+      assertTrue(direct.isEstimationMode());
+      assertEquals(direct.getN(), n);
+      assertEquals(direct.getMinItem(), min);
+      assertEquals(direct.getMaxItem(), max);
+
+      //the memory image and the heapified image agree
+      final ReqSketch heap = ReqSketch.heapify(direct.getMemory());
+      assertEquals(heap.getN(), n);
+      assertEquals(heap.getNumRetained(), direct.getNumRetained());
+      assertEquals(direct.toByteArray(), heap.toByteArray());
+      assertEquals(direct.getSerializedSizeBytes(), heap.getSerializedSizeBytes());
+      final FloatsSortedView sv = direct.getSortedView();
+      assertEquals(sv.getQuantiles(), heap.getSortedView().getQuantiles());
+      assertEquals(sv.getCumulativeWeights(), heap.getSortedView().getCumulativeWeights());
+      for (double rank = 0.05; rank < 1.0; rank += 0.05) {
+        assertEquals(direct.getRank(direct.getQuantile(rank)), rank, 0.02);
+      }
+
+      long weight = 0;
+      int count = 0;
+      final QuantilesFloatsSketchIterator itr = direct.iterator();
+      while (itr.next()) {
+        weight += itr.getWeight();
+        count++;
+      }
+      assertEquals(weight, n);
+      assertEquals(count, direct.getNumRetained());
+    }
+  }
+
+  @Test
+  public void checkReadOnlyWrapOfCompactImages() {
+    for (int n : new int[] {0, 3, 50, 10_000}) {
+      final ReqSketch heap = ReqSketch.builder().setK(12).build();
+      for (int i = 1; i <= n; i++) { heap.update(i); }
+      final byte[] bytes = heap.toByteArray();
+      final ReqDirectSketch direct = ReqDirectSketch.wrap(Memory.wrap(bytes));
+      assertTrue(direct.isReadOnly());
+      assertEquals(direct.getN(), n);
+      assertEquals(direct.getNumRetained(), heap.getNumRetained());
+      assertEquals(direct.isEstimationMode(), heap.isEstimationMode());
+      assertEquals(direct.getSerializedSizeBytes(), bytes.length);
+      assertEquals(direct.toByteArray(), bytes);
+      if (n > 0) {
+        assertEquals(direct.getMinItem(), heap.getMinItem());
+        assertEquals(direct.getMaxItem(), heap.getMaxItem());
+        assertEquals(direct.getSortedView().getQuantiles(), heap.getSortedView().getQuantiles());
+        assertEquals(direct.getSortedView().getCumulativeWeights(), heap.getSortedView().getCumulativeWeights());
+        assertEquals(direct.getRankUpperBound(0.5), heap.getRankUpperBound(0.5));
+      }
+      try {
+        direct.update(1.0f);
+        fail();
+      } catch (SketchesArgumentException e) {
+        //expected
+      }
+      try {
+        ReqDirectSketch.writableWrap(WritableMemory.writableWrap(bytes), null);
+        fail();
+      } catch (SketchesArgumentException e) {
+        //expected
+      }
+    }
+  }
+
+  @Test
+  public void checkWritableWrapMergeAndReset() {
+    final ReqSketch heap = ReqSketch.builder().build();
+    for (int i = 0; i < 1000; i++) { heap.update(i); }
+    final WritableMemory wmem = WritableMemory.allocate((int) ReqDirectSketch.getInitialStorageBytes(12));
+    final ReqDirectSketch direct = ReqSketch.builder().build(wmem, new DefaultMemoryRequestServer());
+    for (int i = 1000; i < 2000; i++) { direct.update(i); }
+    direct.merge(heap);
+    assertEquals(direct.getN(), 2000);
+    assertEquals(direct.getMinItem(), 0f);
+    assertEquals(direct.getMaxItem(), 1999f);
+
+    final ReqDirectSketch rewrapped = ReqDirectSketch.writableWrap((WritableMemory) direct.getMemory(), null);
+    rewrapped.update(2000f);
+    assertEquals(rewrapped.getN(), 2001);
+    final ReqDirectSketch readOnly = ReqDirectSketch.wrap(rewrapped.getMemory());
+    assertEquals(readOnly.getN(), 2001);
+    assertEquals(readOnly.getQuantile(0.5), rewrapped.getQuantile(0.5));
+
+    rewrapped.reset();
+    assertTrue(rewrapped.isEmpty());
+    assertEquals(rewrapped.getNumRetained(), 0);
+    rewrapped.update(5f);
+    assertEquals(rewrapped.getQuantile(1.0), 5f);
+  }
+
+  @Test
+  public void checkBadArguments() {
+    try {
+      ReqSketch.builder().build(WritableMemory.allocate(16), null);
+      fail();
+    } catch (SketchesArgumentException e) {
+      //expected
+    }
+    try {
+      ReqDirectSketch.wrap(Memory.wrap(new byte[8]));
+      fail();
+    } catch (SketchesArgumentException e) {
+      //expected
+    }
+    final ReqDirectSketch direct = ReqSketch.builder().build(WritableMemory.allocate(1000), null);
+    try {
+      direct.getQuantile(0.5);
+      fail();
+    } catch (IllegalArgumentException e) {
+      //expected
+    }
+  }
+
+  @Test
+  public void printlnTest() {
+    println("PRINTING: " + this.getClass().getName());
+  }
+
+  /**
+   * @param s value to print
+   */
+  static void println(final String s) {
+    //System.out.println(s); //disable here
+  }
+}
@@ -26,6 +26,8 @@ import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.fail;
 
+import java.util.Random;
+
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.memory.Memory;
 import org.apache.datasketches.quantilescommon.FloatsSketchSortedView;
@@ -305,6 +307,36 @@ public class ReqSketchTest {
     assertEquals(sk2.getSerializedSizeBytes(), sk1.getSerializedSizeBytes());
   }
 
+  @Test
+  public void checkVectorUpdateMatchesItemUpdates() {
+    final Random rand = new Random(7);
+    final int n = 20_000;
+    final float[] items = new float[n + 3];
+    for (int i = 3; i < n + 3; i++) {
+      items[i] = (i % 997 == 0) ? Float.NaN : rand.nextFloat();
+    }
+    for (final boolean hra : new boolean[] {true, false}) {
+      for (final int batch : new int[] {1, 16, 500, n}) {
+        final ReqSketch expected = ReqSketch.builder().setK(12).setHighRankAccuracy(hra)
+            .setReqDebug(new ReqDebugImplTest(0, "%5.0f")).build();
+        final ReqSketch sk = ReqSketch.builder().setK(12).setHighRankAccuracy(hra)
+            .setReqDebug(new ReqDebugImplTest(0, "%5.0f")).build();
+        for (int i = 3; i < n + 3; i++) { expected.update(items[i]); }
+        for (int i = 3; i < n + 3; i += batch) { sk.update(items, i, Math.min(batch, n + 3 - i)); }
+        assertEquals(sk.getN(), expected.getN());
+        assertEquals(sk.getMinItem(), expected.getMinItem());
+        assertEquals(sk.getMaxItem(), expected.getMaxItem());
+        assertEquals(sk.toByteArray(), expected.toByteArray());
+      }
+    }
+  }
+
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void checkVectorUpdateBounds() {
+    final ReqSketch sk = ReqSketch.builder().build();
+    sk.update(new float[4], 2, 3);
+  }
+
   @Test
   public void checkK() {
     try {
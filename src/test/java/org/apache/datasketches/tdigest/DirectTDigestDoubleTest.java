@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.tdigest;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesStateException;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+import org.testng.annotations.Test;
+
+public class DirectTDigestDoubleTest {
+
+  private static final double[] RANKS = {0, 0.001, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 0.999, 1};
+
+  @Test
+  public void empty() {
+    final short k = 100;
+    final DirectTDigestDouble td = DirectTDigestDouble.newInstance(k,
+        WritableMemory.allocate(DirectTDigestDouble.getUpdatableStorageBytes(k)));
+    assertTrue(td.isEmpty());
+    assertFalse(td.isReadOnly());
+    assertEquals(td.getK(), 100);
+    assertEquals(td.getTotalWeight(), 0);
+    assertThrows(SketchesStateException.class, () -> td.getMinValue());
+    assertThrows(SketchesStateException.class, () -> td.getRank(0));
+    assertThrows(SketchesStateException.class, () -> td.getQuantile(0.5));
+    assertEquals(td.toByteArray(), new TDigestDouble(k).toByteArray());
+  }
+
+  @Test
+  public void updatableMatchesHeap() {
+    final Random rand = new Random(1);
+    for (final int n : new int[] {1, 10, 1000, 100_000}) {
+      final TDigestDouble heap = new TDigestDouble();
+      final DirectTDigestDouble direct = DirectTDigestDouble.newInstance(TDigestDouble.DEFAULT_K,
+          WritableMemory.allocate(DirectTDigestDouble.getUpdatableStorageBytes(TDigestDouble.DEFAULT_K)));
+      for (int i = 0; i < n; i++) {
+        final double value = rand.nextGaussian();
+        heap.update(value);
+        direct.update(value);
+      }
+      assertEquals(direct.getTotalWeight(), n);
+      assertEquals(direct.getMinValue(), heap.getMinValue());
+      assertEquals(direct.getMaxValue(), heap.getMaxValue());
+      for (final double rank : RANKS) {
+        assertEquals(direct.getQuantile(rank), heap.getQuantile(rank));
+        final double quantile = heap.getQuantile(rank);
+        assertEquals(direct.getRank(quantile), heap.getRank(quantile));
+      }
+      assertEquals(direct.toByteArray(), heap.toByteArray());
+    }
+  }
+
+  @Test
+  public void wrapSerializedForm() {
+    for (final int n : new int[] {0, 1, 10_000}) {
+      final TDigestDouble heap = new TDigestDouble((short) 100);
+      for (int i = 0; i < n; i++) { heap.update(i); }
+      final byte[] bytes = heap.toByteArray();
+      final DirectTDigestDouble direct = DirectTDigestDouble.wrap(Memory.wrap(bytes));
+      assertTrue(direct.isReadOnly());
+      assertEquals(direct.getK(), 100);
+      assertEquals(direct.isEmpty(), n == 0);
+      assertEquals(direct.getTotalWeight(), n);
+      assertEquals(direct.toByteArray(), bytes);
+      if (n > 0) {
+        assertEquals(direct.getMinValue(), heap.getMinValue());
+        assertEquals(direct.getMaxValue(), heap.getMaxValue());
+        for (final double rank : RANKS) {
+          assertEquals(direct.getQuantile(rank), heap.getQuantile(rank));
+          assertEquals(direct.getRank(rank * n), heap.getRank(rank * n));
+        }
+      }
+      assertThrows(SketchesArgumentException.class, () -> direct.update(1));
+      assertThrows(SketchesArgumentException.class, () -> DirectTDigestDouble.writableWrap(WritableMemory.writableWrap(bytes)));
+    }
+  }
+
+  @Test
+  public void wrapUpdatableForm() {
+    final short k = 50;
+    final TDigestDouble heap = new TDigestDouble(k);
+    for (int i = 0; i < 1000; i++) { heap.update(i); }
+    final WritableMemory wmem = WritableMemory.allocate(DirectTDigestDouble.getUpdatableStorageBytes(k));
+    final DirectTDigestDouble direct = DirectTDigestDouble.newInstance(heap, wmem);
+    for (int i = 1000; i < 1100; i++) {
+      heap.update(i);
+      direct.update(i);
+    }
+
+    // read-only, with buffered values
+    final DirectTDigestDouble readOnly = DirectTDigestDouble.wrap(wmem);
+    assertEquals(readOnly.getTotalWeight(), 1100);
+    assertEquals(readOnly.getQuantile(0.5), heap.getQuantile(0.5));
+    assertThrows(SketchesArgumentException.class, () -> readOnly.compress());
+
+    // the same memory wrapped again as updatable, and heapified
+    final DirectTDigestDouble rewrapped = DirectTDigestDouble.writableWrap(wmem);
+    rewrapped.compress(); // the heap digest was compressed by getQuantile()
+    for (int i = 1100; i < 2000; i++) {
+      heap.update(i);
+      rewrapped.update(i);
+    }
+    assertEquals(TDigestDouble.heapify(wmem).toByteArray(), heap.toByteArray());
+    assertEquals(rewrapped.getRank(1500), heap.getRank(1500));
+    assertEquals(rewrapped.toByteArray(), heap.toByteArray());
+  }
+
+  @Test
+  public void badArguments() {
+    final short k = 100;
+    assertThrows(SketchesArgumentException.class, () -> DirectTDigestDouble.newInstance(k, WritableMemory.allocate(100)));
+    assertThrows(SketchesArgumentException.class, () -> DirectTDigestDouble.wrap(Memory.wrap(new byte[8])));
+  }
+}
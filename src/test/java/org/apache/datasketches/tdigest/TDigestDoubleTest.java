@@ -24,6 +24,7 @@ import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertThrows;
 import static org.testng.Assert.assertTrue;
 
+import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.common.SketchesStateException;
 import org.apache.datasketches.common.TestUtil;
 import org.apache.datasketches.memory.Memory;
@@ -139,6 +140,26 @@ public class TDigestDoubleTest {
     assertEquals(td2.getQuantile(0.5), td1.getQuantile(0.5));
   }
 
+  @Test
+  public void vectorUpdateMatchesItemUpdates() {
+    final int n = 10000;
+    final double[] values = new double[n + 3];
+    for (int i = 3; i < n + 3; i++) { values[i] = (i % 101 == 0) ? Double.NaN : Math.sin(i) * n; }
+    for (final int batch : new int[] {1, 16, 500, n}) {
+      final TDigestDouble expected = new TDigestDouble((short) 100);
+      final TDigestDouble td = new TDigestDouble((short) 100);
+      for (int i = 3; i < n + 3; i++) { expected.update(values[i]); }
+      for (int i = 3; i < n + 3; i += batch) { td.update(values, i, Math.min(batch, n + 3 - i)); }
+      assertEquals(td.toByteArray(), expected.toByteArray());
+      assertEquals(td.getMinValue(), expected.getMinValue());
+      assertEquals(td.getMaxValue(), expected.getMaxValue());
+    }
+    final TDigestDouble td = new TDigestDouble((short) 100);
+    td.update(new double[] {Double.NaN, Double.NaN}, 0, 2);
+    assertTrue(td.isEmpty());
+    assertThrows(SketchesArgumentException.class, () -> td.update(new double[4], 2, 3));
+  }
+
   @Test
   public void deserializeFromReferenceImplementationDouble() {
     final byte[] bytes = TestUtil.getResourceBytes("tdigest_ref_k100_n10000_double.sk");
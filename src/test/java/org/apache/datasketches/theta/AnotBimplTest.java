@@ -27,6 +27,7 @@ import static org.testng.Assert.fail;
 import org.apache.datasketches.common.Family;
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.memory.WritableMemory;
+import org.apache.datasketches.thetacommon.HashTableLayout;
 import org.apache.datasketches.thetacommon.ThetaUtil;
 import org.testng.annotations.Test;
 
@@ -305,6 +306,23 @@ public class AnotBimplTest {
     assertEquals(csk.getCurrentBytes(), 8);
   }
 
+  @Test
+  public void checkLinearProbingB() {
+    final UpdateSketch skA = UpdateSketch.builder().build();
+    final UpdateSketch skB = UpdateSketch.builder().setHashTableLayout(HashTableLayout.LINEAR_PROBING).build();
+    for (int i = 0; i < 3000; i++) {
+      skA.update(i);
+      skB.update(i);
+    }
+    final AnotB aNotB = SetOperation.builder().buildANotB();
+    assertEquals(aNotB.aNotB(skA, skB).getRetainedEntries(true), 0);
+    aNotB.setA(skA);
+    aNotB.notB(skB);
+    assertEquals(aNotB.getResult(true).getRetainedEntries(true), 0);
+    //and the other way around
+    assertEquals(aNotB.aNotB(skB, skA).getRetainedEntries(true), 0);
+  }
+
   @Test
   public void checkGetFamily() {
     //cheap trick
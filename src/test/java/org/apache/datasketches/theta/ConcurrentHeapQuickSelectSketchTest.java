@@ -28,7 +28,12 @@ import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
 import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
+import org.apache.datasketches.common.ConcurrentPropagationMetrics;
 import org.apache.datasketches.common.Family;
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.memory.Memory;
@@ -656,6 +661,103 @@ public class ConcurrentHeapQuickSelectSketchTest {
     assertEquals(bldr.getMaxNumLocalThreads(), 4);
   }
 
+  @Test
+  public void checkCallerSuppliedExecutor() throws Exception {
+    final int lgK = 12;
+    final int numThreads = 4;
+    final int n = 100_000;
+    final ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+    try {
+      final UpdateSketchBuilder bldr = new UpdateSketchBuilder().setPropagationExecutor(pool);
+      bldr.setLogNominalEntries(lgK);
+      assertTrue(bldr.getPropagationExecutor() == pool);
+      final UpdateSketch shared = bldr.buildShared();
+      final Thread[] writers = new Thread[numThreads];
+      for (int t = 0; t < numThreads; t++) {
+        final UpdateSketch local = bldr.buildLocal(shared);
+        final int start = t;
+        writers[t] = new Thread(() -> {
+          for (int i = start; i < n; i += numThreads) { local.update(i); }
+        });
+        writers[t].start();
+      }
+      for (Thread w : writers) { w.join(); }
+      ((ConcurrentSharedThetaSketch) shared).awaitBgPropagationTermination();
+      assertFalse(pool.isShutdown());
+
+      assertEquals(shared.getEstimate(), n, n * 0.1);
+
+      final ConcurrentPropagationMetrics metrics = shared.getPropagationMetrics();
+      assertEquals(metrics.getPendingPropagations(), 0);
+      assertTrue(metrics.getSubmittedPropagations() > 0);
+      assertEquals(metrics.getCompletedPropagations(), metrics.getSubmittedPropagations());
+      assertTrue(metrics.getMaxPropagationLatencyNanos() > 0);
+      assertTrue(metrics.getTotalPropagationLatencyNanos() >= metrics.getMaxPropagationLatencyNanos());
+      assertTrue(metrics.getMeanPropagationLatencyNanos() > 0);
+      println(metrics.toString());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void checkRejectingExecutorRunsInCaller() {
+    final Executor rejecting = r -> { throw new RejectedExecutionException(); };
+    final UpdateSketchBuilder bldr = new UpdateSketchBuilder().setPropagationExecutor(rejecting);
+    bldr.setLogNominalEntries(8);
+    final UpdateSketch shared = bldr.buildShared();
+    final UpdateSketch local = bldr.buildLocal(shared);
+    final int n = 10_000;
+    for (int i = 0; i < n; i++) { local.update(i); }
+    final ConcurrentPropagationMetrics metrics = local.getPropagationMetrics();
+    assertTrue(metrics == shared.getPropagationMetrics());
+    assertEquals(metrics.getPendingPropagations(), 0);
+    assertTrue(metrics.getCompletedPropagations() > 0);
+    assertEquals(metrics.getLocalBufferBlockedCount(), 0);
+    assertEquals(shared.getEstimate(), n, n * 0.25);
+    shared.reset();
+    assertTrue(shared.isEmpty());
+  }
+
+  @Test
+  public void checkLocalBufferBlockedMetric() {
+    final ExecutorService pool = Executors.newSingleThreadExecutor();
+    try {
+      final Executor slow = r -> pool.execute(() -> {
+        try { Thread.sleep(1); } catch (InterruptedException e) { }
+        r.run();
+      });
+      final UpdateSketchBuilder bldr = new UpdateSketchBuilder().setPropagationExecutor(slow);
+      bldr.setLogNominalEntries(4);
+      bldr.setLocalLogNominalEntries(4);
+      final UpdateSketch shared = bldr.buildShared();
+      final UpdateSketch local = bldr.buildLocal(shared);
+      for (int i = 0; i < 1000; i++) { local.update(i); }
+      final ConcurrentPropagationMetrics metrics = shared.getPropagationMetrics();
+      assertTrue(metrics.getLocalBufferBlockedCount() > 0);
+      assertTrue(metrics.getLocalBufferBlockedNanos() > 0);
+      ((ConcurrentSharedThetaSketch) shared).awaitBgPropagationTermination();
+      assertEquals(metrics.getPendingPropagations(), 0);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void checkDefaultPoolThreads() throws Exception {
+    final long id = Thread.currentThread().getId();
+    final ExecutorService svc = ConcurrentPropagationService.getExecutorService(id);
+    final Thread[] worker = new Thread[1];
+    svc.submit(() -> { worker[0] = Thread.currentThread(); }).get();
+    assertTrue(worker[0].isDaemon());
+    assertTrue(worker[0].getName().startsWith("datasketches-theta-propagation-"));
+    assertTrue(UpdateSketch.builder().build().getPropagationMetrics() == null);
+    SharedLocal sl = new SharedLocal();
+    assertTrue(sl.bldr.getPropagationExecutor() == null);
+    assertTrue(sl.bldr.toString().contains("PropagationExecutor"));
+    assertTrue(sl.local.getPropagationMetrics() == sl.shared.getPropagationMetrics());
+  }
+
   @Test(expectedExceptions = UnsupportedOperationException.class)
   public void checkToByteArray() {
     SharedLocal sl = new SharedLocal();
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.theta;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+import org.testng.annotations.Test;
+
+public class DirectCompressedCompactSketchTest {
+
+  @Test
+  public void checkWrapMatchesHeapify() {
+    for (int n : new int[] {2, 7, 8, 9, 17, 100, 4096, 100_000}) {
+      final CompactSketch src = buildSketch(4096, 0, n);
+      final byte[] bytes = src.toByteArrayCompressed();
+      final Memory mem = Memory.wrap(bytes);
+      final CompactSketch wrapped = CompactSketch.wrap(mem);
+      final CompactSketch heapified = CompactSketch.heapify(mem);
+      assertTrue(wrapped instanceof DirectCompressedCompactSketch);
+      assertTrue(wrapped.hasMemory());
+      assertTrue(wrapped.isOrdered());
+      assertTrue(Sketch.wrap(mem) instanceof DirectCompressedCompactSketch);
+      assertEquals(wrapped.getRetainedEntries(true), src.getRetainedEntries(true));
+      assertEquals(wrapped.getThetaLong(), src.getThetaLong());
+      assertEquals(wrapped.getEstimate(), src.getEstimate());
+      assertEquals(wrapped.isEmpty(), src.isEmpty());
+      assertEquals(wrapped.isEstimationMode(), src.isEstimationMode());
+      assertEquals(wrapped.getCurrentBytes(), src.getCurrentBytes());
+      assertEquals(wrapped.getCache(), heapified.getCache());
+      final HashIterator it = wrapped.iterator();
+      final long[] cache = src.getCache();
+      int i = 0;
+      while (it.next()) { assertEquals(it.get(), cache[i++]); }
+      assertEquals(i, cache.length);
+      assertEquals(wrapped.toByteArray(), src.toByteArray());
+      assertEquals(wrapped.toByteArrayCompressed(), bytes);
+      final CompactSketch direct = wrapped.compact(true, WritableMemory.allocate(src.getCurrentBytes()));
+      assertEquals(direct.toByteArray(), src.toByteArray());
+      assertEquals(wrapped.compact(false, null).getEstimate(), src.getEstimate());
+    }
+  }
+
+  @Test
+  public void checkSingleItemEstimationMode() {
+    final UpdateSketch sk = Sketches.updateSketchBuilder().setP(0.5f).build();
+    for (int i = 0; sk.getRetainedEntries() < 1; i++) { sk.update(i); }
+    final CompactSketch src = sk.compact();
+    final CompactSketch wrapped = CompactSketch.wrap(Memory.wrap(src.toByteArrayCompressed()));
+    assertTrue(wrapped instanceof DirectCompressedCompactSketch);
+    assertEquals(wrapped.getRetainedEntries(true), 1);
+    assertEquals(wrapped.getThetaLong(), src.getThetaLong());
+    assertEquals(wrapped.toByteArray(), src.toByteArray());
+  }
+
+  @Test
+  public void checkSetOperations() {
+    final SetOperationBuilder bldr = Sketches.setOperationBuilder();
+    for (int n : new int[] {9, 1000, 100_000}) {
+      final CompactSketch a = buildSketch(4096, 0, n);
+      final CompactSketch b = buildSketch(1024, n / 2, n);
+      final Memory aMem = Memory.wrap(a.toByteArrayCompressed());
+      final Memory bMem = Memory.wrap(b.toByteArrayCompressed());
+      final CompactSketch aWrap = CompactSketch.wrap(aMem);
+      final CompactSketch bWrap = CompactSketch.wrap(bMem);
+
+      final Union expectedUnion = bldr.buildUnion();
+      expectedUnion.union(a);
+      expectedUnion.union(b);
+      final Union union = bldr.buildUnion();
+      union.union(aWrap);
+      union.union(bMem);
+      assertEquals(union.getResult().toByteArray(), expectedUnion.getResult().toByteArray());
+
+      for (boolean direct : new boolean[] {false, true}) {
+        final Intersection expectedInter = bldr.buildIntersection();
+        expectedInter.intersect(a);
+        expectedInter.intersect(b);
+        final Intersection inter = direct
+            ? bldr.buildIntersection(WritableMemory.allocate(Sketches.getMaxIntersectionBytes(8192)))
+            : bldr.buildIntersection();
+        inter.intersect(aWrap);
+        inter.intersect(bWrap);
+        assertEquals(inter.getResult().toByteArray(), expectedInter.getResult().toByteArray());
+      }
+
+      final AnotB aNotB = bldr.buildANotB();
+      final CompactSketch expected = aNotB.aNotB(a, b);
+      assertEquals(aNotB.aNotB(aWrap, bWrap).toByteArray(), expected.toByteArray());
+      aNotB.setA(aWrap);
+      aNotB.notB(bWrap);
+      assertEquals(aNotB.getResult(true).toByteArray(), expected.toByteArray());
+    }
+  }
+
+  private static CompactSketch buildSketch(final int k, final long start, final int n) {
+    final UpdateSketch sk = Sketches.updateSketchBuilder().setNominalEntries(k).build();
+    for (int i = 0; i < n; i++) { sk.update(start + i); }
+    return sk.compact();
+  }
+
+  @Test
+  public void printlnTest() {
+    println("PRINTING: " + this.getClass().getName());
+  }
+
+  /**
+   * @param s value to print
+   */
+  static void println(String s) {
+    //System.out.println(s); //disable here
+  }
+}
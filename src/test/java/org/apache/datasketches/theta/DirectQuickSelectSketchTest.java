@@ -38,7 +38,13 @@ import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.datasketches.common.Family;
 import org.apache.datasketches.common.ResizeFactor;
@@ -913,6 +919,121 @@ public class DirectQuickSelectSketchTest {
   }
 
 
+  @Test
+  public void checkBackgroundRebuildMatchesSynchronous() {
+    final int k = 4096;
+    final int n = 100_000;
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      final UpdateSketch sync = UpdateSketch.builder().setNominalEntries(k).build(WritableMemory.allocate(getMaxBytes(k)));
+      final WritableMemory dstMem = WritableMemory.allocate(getMaxBytes(k));
+      final UpdateSketch bg = UpdateSketch.builder().setNominalEntries(k).setRebuildExecutor(executor)
+          .build(dstMem);
+      for (int i = 0; i < n; i++) { sync.update(i); bg.update(i); }
+      checkSameSketch(bg, sync);
+      assertTrue(bg.isSameResource(dstMem)); //rebuilt in place, never moved to server memory
+      assertEquals(Sketch.wrap(dstMem).getEstimate(), bg.getEstimate());
+      final RebuildMetrics metrics = bg.getRebuildMetrics();
+      assertEquals(metrics.getRebuilds(), sync.getRebuildMetrics().getRebuilds());
+      assertEquals(metrics.getBackgroundRebuilds(), metrics.getRebuilds());
+      assertTrue(metrics.getRebuilds() > 0);
+      assertTrue(metrics.getMaxPauseNanos() > 0);
+      println(metrics.toString());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void checkSideTableWhileRebuildPending() {
+    final int k = 4096;
+    final Queue<Runnable> tasks = new ArrayDeque<>();
+    final UpdateSketch sync = UpdateSketch.builder().setNominalEntries(k).build(WritableMemory.allocate(getMaxBytes(k)));
+    final UpdateSketch bg = UpdateSketch.builder().setNominalEntries(k).setRebuildExecutor(tasks::add)
+        .build(WritableMemory.allocate(getMaxBytes(k)));
+    int pendingUpdates = 0;
+    for (int i = 0; i < 50_000; i++) {
+      sync.update(i);
+      bg.update(i);
+      if (!tasks.isEmpty() && ++pendingUpdates == 300) { //the side table holds k/8 = 512
+        tasks.poll().run();
+        pendingUpdates = 0;
+      }
+    }
+    while (!tasks.isEmpty()) { tasks.poll().run(); }
+    checkSameSketch(bg, sync);
+    assertTrue(bg.getRebuildMetrics().getBackgroundRebuilds() > 0);
+  }
+
+  @Test
+  public void checkRebuildBlocksWhenRead() throws InterruptedException {
+    final int k = 512;
+    final CountDownLatch release = new CountDownLatch(1);
+    final Queue<Thread> workers = new ArrayDeque<>();
+    //the rebuild runs on its own thread, but only once the latch is released
+    final UpdateSketch bg = UpdateSketch.builder().setNominalEntries(k).setRebuildExecutor(r -> {
+      final Thread worker = new Thread(() -> {
+        try { release.await(); } catch (final InterruptedException e) { return; }
+        r.run();
+      });
+      workers.add(worker);
+      worker.start();
+    }).build(WritableMemory.allocate(getMaxBytes(k)));
+    final UpdateSketch sync = UpdateSketch.builder().setNominalEntries(k).build(WritableMemory.allocate(getMaxBytes(k)));
+    int i = 0;
+    while (workers.isEmpty()) { sync.update(i); bg.update(i++); }
+    sync.update(i);
+    bg.update(i);
+    //release the rebuild only once the reading thread below is waiting for it
+    final Thread reader = Thread.currentThread();
+    final Thread releaser = new Thread(() -> {
+      while (reader.getState() != Thread.State.WAITING) { Thread.yield(); }
+      release.countDown();
+    });
+    releaser.start();
+    checkSameSketch(bg, sync);
+    releaser.join();
+    workers.poll().join();
+    assertEquals(bg.getRebuildMetrics().getBlockedCount(), 1);
+    assertEquals(bg.getRebuildMetrics().getBackgroundRebuilds(), 1);
+  }
+
+  @Test
+  public void checkRejectedRebuildRunsInline() {
+    final int k = 1024;
+    final UpdateSketch sync = UpdateSketch.builder().setNominalEntries(k).build(WritableMemory.allocate(getMaxBytes(k)));
+    final UpdateSketch bg = UpdateSketch.builder().setNominalEntries(k)
+        .setRebuildExecutor(r -> { throw new RejectedExecutionException(); })
+        .build(WritableMemory.allocate(getMaxBytes(k)));
+    for (int i = 0; i < 20_000; i++) { sync.update(i); bg.update(i); }
+    checkSameSketch(bg, sync);
+    bg.reset();
+    assertTrue(bg.isEmpty());
+    assertEquals(bg.getRetainedEntries(true), 0);
+  }
+
+  @Test
+  public void checkSynchronousRebuildMetrics() {
+    final int k = 1024;
+    final UpdateSketch sk = UpdateSketch.builder().setNominalEntries(k).build(WritableMemory.allocate(getMaxBytes(k)));
+    assertEquals(sk.getRebuildMetrics().getMeanPauseNanos(), 0.0);
+    for (int i = 0; i < 20_000; i++) { sk.update(i); }
+    final RebuildMetrics metrics = sk.getRebuildMetrics();
+    assertTrue(metrics.getRebuilds() > 0);
+    assertEquals(metrics.getBackgroundRebuilds(), 0);
+    assertEquals(metrics.getBlockedCount(), 0);
+    assertTrue(metrics.getTotalPauseNanos() >= metrics.getMaxPauseNanos());
+    assertTrue(metrics.getMeanPauseNanos() > 0);
+    assertEquals(UpdateSketch.builder().build().getRebuildMetrics(), null);
+  }
+
+  private static void checkSameSketch(final UpdateSketch actual, final UpdateSketch expected) {
+    assertEquals(actual.getThetaLong(), expected.getThetaLong());
+    assertEquals(actual.getRetainedEntries(true), expected.getRetainedEntries(true));
+    assertEquals(actual.getEstimate(), expected.getEstimate());
+    assertEquals(actual.compact(true, null).toByteArray(), expected.compact(true, null).toByteArray());
+  }
+
   @Test
   public void printlnTest() {
     println("PRINTING: "+this.getClass().getName());
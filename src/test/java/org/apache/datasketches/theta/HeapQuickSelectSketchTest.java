@@ -43,6 +43,7 @@ import org.apache.datasketches.common.ResizeFactor;
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.memory.Memory;
 import org.apache.datasketches.memory.WritableMemory;
+import org.apache.datasketches.thetacommon.HashTableLayout;
 import org.apache.datasketches.thetacommon.ThetaUtil;
 import org.testng.annotations.Test;
 
@@ -615,6 +616,79 @@ public class HeapQuickSelectSketchTest {
     assertEquals(hqss.getResizeFactor(), ResizeFactor.X2); // force-promote to X2
   }
 
+  @Test
+  public void checkLinearProbingLayout() {
+    int k = 512;
+    for (int u : new int[] {k / 2, 10 * k}) {
+      UpdateSketch dh = UpdateSketch.builder().setNominalEntries(k).build();
+      UpdateSketch lp = UpdateSketch.builder().setNominalEntries(k)
+          .setHashTableLayout(HashTableLayout.LINEAR_PROBING).build();
+      assertEquals(((HeapQuickSelectSketch) lp).getHashTableLayout(), HashTableLayout.LINEAR_PROBING);
+      for (int i = 0; i < u; i++) {
+        dh.update(i);
+        lp.update(i);
+      }
+      assertEquals(lp.getEstimate(), u, u * 0.1);
+      dh.rebuild();
+      lp.rebuild();
+      assertEquals(lp.getRetainedEntries(true), dh.getRetainedEntries(true));
+      assertEquals(lp.compact().toByteArray(), dh.compact().toByteArray());
+
+      //the serialized form is always that of the default layout
+      UpdateSketch fromLp = UpdateSketch.heapify(Memory.wrap(lp.toByteArray()));
+      assertEquals(((HeapQuickSelectSketch) fromLp).getHashTableLayout(), HashTableLayout.DOUBLE_HASHING);
+      assertEquals(fromLp.compact().toByteArray(), dh.compact().toByteArray());
+
+      UpdateSketch toLp = UpdateSketch.heapify(Memory.wrap(dh.toByteArray()), ThetaUtil.DEFAULT_UPDATE_SEED,
+          HashTableLayout.LINEAR_PROBING);
+      assertEquals(((HeapQuickSelectSketch) toLp).getHashTableLayout(), HashTableLayout.LINEAR_PROBING);
+      assertEquals(toLp.compact().toByteArray(), dh.compact().toByteArray());
+      toLp.update(u + 1);
+      assertTrue(toLp.getRetainedEntries(true) > 0);
+    }
+  }
+
+  @Test
+  public void checkLinearProbingLayoutResizeAndReset() {
+    int k = 4096;
+    UpdateSketch lp = UpdateSketch.builder().setNominalEntries(k).setResizeFactor(X2)
+        .setHashTableLayout(HashTableLayout.LINEAR_PROBING).build();
+    for (int i = 0; i < k; i++) { lp.update(i); }
+    assertEquals(lp.getEstimate(), k, 0.0);
+    lp.reset();
+    assertTrue(lp.isEmpty());
+    lp.update(1);
+    assertEquals(lp.getEstimate(), 1.0, 0.0);
+  }
+
+  @Test
+  public void checkLinearProbingLayoutNotDirect() {
+    try {
+      UpdateSketch.builder().setHashTableLayout(HashTableLayout.LINEAR_PROBING)
+          .build(WritableMemory.allocate(1 << 16));
+      fail();
+    } catch (SketchesArgumentException e) {
+      //expected
+    }
+  }
+
+  @Test
+  public void checkLinearProbingLayoutNotShared() {
+    UpdateSketchBuilder bldr = UpdateSketch.builder().setHashTableLayout(HashTableLayout.LINEAR_PROBING);
+    try {
+      bldr.buildShared();
+      fail();
+    } catch (SketchesArgumentException e) {
+      //expected
+    }
+    try {
+      bldr.buildSharedFromSketch(UpdateSketch.builder().build(), null);
+      fail();
+    } catch (SketchesArgumentException e) {
+      //expected
+    }
+  }
+
   private static void tryBadMem(WritableMemory mem, int byteOffset, int byteValue) {
     try {
       mem.putByte(byteOffset, (byte) byteValue); //Corrupt
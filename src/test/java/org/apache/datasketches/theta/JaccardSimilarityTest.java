@@ -21,9 +21,17 @@ package org.apache.datasketches.theta;
 
 import static org.apache.datasketches.theta.JaccardSimilarity.exactlyEqual;
 import static org.apache.datasketches.theta.JaccardSimilarity.jaccard;
+import static org.apache.datasketches.theta.JaccardSimilarity.jaccardMatrix;
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.Memory;
 import org.testng.annotations.Test;
 
 /**
@@ -233,6 +241,87 @@ public class JaccardSimilarityTest {
     println(result[0] + ", " + result[1] + ", " + result[2]);
   }
 
+  private static Sketch[] matrixSketches() {
+    Sketch[] sketches = new Sketch[40];
+    for (int s = 0; s < 34; s++) {
+      int k = 1 << (9 + (s % 3));
+      int n = (s % 4 == 0) ? 300 : 5000 + (100 * s);
+      UpdateSketch sk = UpdateSketch.builder().setNominalEntries(k).build();
+      int start = (s % 5) * 1000;
+      for (int i = 0; i < n; i++) { sk.update(start + i); }
+      sketches[s] = (s % 2 == 0) ? sk.compact() : sk; //mix of ordered compact and update sketches
+    }
+    sketches[34] = null;
+    sketches[35] = UpdateSketch.builder().build(); //empty
+    sketches[36] = UpdateSketch.builder().build().compact();
+    UpdateSketch sampled = UpdateSketch.builder().setP(0.001f).build();
+    sampled.update(1); //not empty, no entries
+    sketches[37] = sampled;
+    sketches[38] = sketches[3]; //same object
+    sketches[39] = Sketch.heapify(Memory.wrap(sketches[2].toByteArray()));
+    return sketches;
+  }
+
+  private static void checkMatrix(Sketch[] sketches, double[][][] matrix) {
+    assertEquals(matrix.length, 3);
+    for (int i = 0; i < sketches.length; i++) {
+      for (int j = 0; j < sketches.length; j++) {
+        double[] expected = jaccard(sketches[i], sketches[j]);
+        for (int b = 0; b < 3; b++) {
+          assertEquals(matrix[b][i][j], expected[b], 1e-12, "[" + b + "][" + i + "][" + j + "]");
+        }
+      }
+    }
+  }
+
+  @Test
+  public void checkJaccardMatrix() {
+    Sketch[] sketches = matrixSketches();
+    checkMatrix(sketches, jaccardMatrix(sketches));
+    assertEquals(jaccardMatrix(new Sketch[0])[1].length, 0);
+  }
+
+  @Test
+  public void checkJaccardMatrixParallelAndMemory() throws Exception {
+    Sketch[] sketches = matrixSketches();
+    Memory[] images = new Memory[sketches.length];
+    Sketch[] wrapped = new Sketch[sketches.length];
+    for (int i = 0; i < sketches.length; i++) {
+      if (sketches[i] == null) { continue; }
+      images[i] = Memory.wrap(sketches[i].compact().toByteArray());
+      wrapped[i] = Sketch.wrap(images[i]);
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      double[][][] parallel = jaccardMatrix(sketches, executor);
+      checkMatrix(sketches, parallel);
+      double[][][] fromMemory = jaccardMatrix(images, executor);
+      checkMatrix(wrapped, fromMemory);
+    } finally {
+      executor.shutdown();
+    }
+    //a shut down executor rejects every block, which the calling thread then runs
+    checkMatrix(sketches, jaccardMatrix(sketches, executor));
+  }
+
+  @Test
+  public void checkJaccardMatrixErrors() {
+    try {
+      jaccardMatrix((Sketch[]) null);
+      fail();
+    } catch (SketchesArgumentException e) {
+      //expected
+    }
+    UpdateSketch otherSeed = UpdateSketch.builder().setSeed(123).build();
+    otherSeed.update(1);
+    try {
+      jaccardMatrix(new Sketch[] {otherSeed, otherSeed});
+      fail();
+    } catch (SketchesArgumentException e) {
+      //expected
+    }
+  }
+
   @Test
   public void printlnTest() {
     println("PRINTING: "+this.getClass().getName());
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.theta;
+
+import static org.apache.datasketches.theta.OrderedCompactIntersectionTest.buildImage;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+import org.testng.annotations.Test;
+
+public class OrderedCompactAnotBTest {
+
+  @Test
+  public void checkSameAsAnotB() {
+    final Random rand = new Random(29);
+    for (int numBs : new int[] {0, 1, 3, 10}) {
+      for (int lgK : new int[] {6, 10, 14}) {
+        for (int trial = 0; trial < 5; trial++) {
+          final Memory a = buildImage(1 << lgK, 0, rand.nextInt(40_000), rand.nextBoolean());
+          final List<Memory> bs = new ArrayList<>();
+          for (int i = 0; i < numBs; i++) {
+            final int n = rand.nextInt(20_000);
+            bs.add(buildImage(1 << (lgK - rand.nextInt(3)), rand.nextInt(40_000), n, rand.nextBoolean()));
+          }
+          checkImages(a, bs);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void checkEmptyRules() {
+    final Memory a = buildImage(1024, 0, 100, true);     //exact
+    final Memory b = buildImage(1024, 0, 200, true);     //exact, covers a
+    final Memory c = buildImage(16, 0, 100_000, true);   //estimation mode
+    final Memory empty = buildImage(16, 0, 0, true);
+    checkImages(a, Arrays.asList(b));
+    checkImages(a, Arrays.asList(b, c));   //empty while exact, then c is ignored
+    checkImages(a, Arrays.asList(c, b));
+    checkImages(a, Arrays.asList(empty, null, c));
+    checkImages(empty, Arrays.asList(a));
+    checkImages(c, Arrays.asList(a, b));
+    checkImages(buildImage(1024, 0, 1, true), Arrays.asList(empty)); //single item
+  }
+
+  @Test
+  public void checkExceptions() {
+    final SetOperationBuilder bldr = Sketches.setOperationBuilder();
+    try {
+      OrderedCompactAnotB.aNotB(null, new ArrayList<Memory>(), bldr, null);
+      fail();
+    } catch (SketchesArgumentException e) {
+      //expected
+    }
+    try {
+      OrderedCompactAnotB.aNotB(buildImage(16, 0, 10, true), new ArrayList<Memory>(),
+          Sketches.setOperationBuilder().setSeed(123), null);
+      fail();
+    } catch (SketchesArgumentException e) {
+      //expected
+    }
+    final Memory full = buildImage(16, 0, 10, true);
+    try {
+      OrderedCompactAnotB.aNotB(full, Arrays.asList(full.region(0, 8)), bldr, null);
+      fail();
+    } catch (SketchesArgumentException e) {
+      //expected
+    }
+  }
+
+  private static void checkImages(final Memory a, final List<Memory> bs) {
+    final SetOperationBuilder bldr = Sketches.setOperationBuilder();
+    final AnotB aNotB = bldr.buildANotB();
+    aNotB.setA(Sketch.wrap(a));
+    for (Memory b : bs) { aNotB.notB(b == null ? null : Sketch.wrap(b)); }
+    final CompactSketch expected = aNotB.getResult(true, null, false);
+    final CompactSketch heapResult = OrderedCompactAnotB.aNotB(a, bs, bldr, null);
+    assertEquals(heapResult.toByteArray(), expected.toByteArray());
+    final WritableMemory wmem = WritableMemory.allocate(expected.getCurrentBytes());
+    final CompactSketch directResult = OrderedCompactAnotB.aNotB(a, bs, bldr, wmem);
+    assertEquals(directResult.isEmpty(), expected.isEmpty());
+    assertEquals(directResult.getThetaLong(), expected.getThetaLong());
+    //direct images keep the seed hash even when empty
+    final CompactSketch expectedDirect =
+        aNotB.getResult(true, WritableMemory.allocate(expected.getCurrentBytes()), false);
+    assertEquals(directResult.toByteArray(), expectedDirect.toByteArray());
+  }
+
+  @Test
+  public void printlnTest() {
+    println("PRINTING: " + this.getClass().getName());
+  }
+
+  /**
+   * @param s value to print
+   */
+  static void println(String s) {
+    //System.out.println(s); //disable here
+  }
+}
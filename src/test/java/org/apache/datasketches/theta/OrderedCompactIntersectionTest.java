@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.theta;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesStateException;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+import org.testng.annotations.Test;
+
+public class OrderedCompactIntersectionTest {
+
+  @Test
+  public void checkSameAsIntersection() {
+    final Random rand = new Random(23);
+    for (int numImages : new int[] {1, 2, 5, 20}) {
+      for (int lgK : new int[] {6, 10, 14}) {
+        for (int trial = 0; trial < 5; trial++) {
+          final List<Memory> images = new ArrayList<>();
+          for (int i = 0; i < numImages; i++) {
+            //overlapping ranges, so the intersection is usually not empty
+            final int n = rand.nextInt(50_000);
+            final long start = rand.nextInt(10_000);
+            images.add(buildImage(1 << (lgK - rand.nextInt(3)), start, n, rand.nextBoolean()));
+          }
+          checkImages(images);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void checkEmptyRules() {
+    final Memory a = buildImage(1024, 0, 100, true);     //exact
+    final Memory b = buildImage(1024, 1000, 100, true);  //exact, disjoint from a
+    final Memory c = buildImage(16, 0, 100_000, true);   //estimation mode
+    final Memory empty = buildImage(16, 0, 0, true);
+    checkImages(Arrays.asList(a, b));
+    checkImages(Arrays.asList(a, b, c));   //empty while exact, then stays empty
+    checkImages(Arrays.asList(a, c, b));   //estimation mode before the sets become disjoint
+    checkImages(Arrays.asList(c, a, b));
+    checkImages(Arrays.asList(a, empty, c));
+    checkImages(Arrays.asList(c));
+    checkImages(Arrays.asList(a, buildImage(1024, 0, 1, true))); //single item
+  }
+
+  @Test
+  public void checkExceptions() {
+    final SetOperationBuilder bldr = Sketches.setOperationBuilder();
+    try {
+      OrderedCompactIntersection.intersect(new ArrayList<Memory>(), bldr, null);
+      fail();
+    } catch (SketchesStateException e) {
+      //expected
+    }
+    try {
+      OrderedCompactIntersection.intersect(Arrays.asList(buildImage(16, 0, 10, true), null), bldr, null);
+      fail();
+    } catch (SketchesArgumentException e) {
+      //expected
+    }
+    try {
+      OrderedCompactIntersection.intersect(Arrays.asList(buildImage(16, 0, 10, true)),
+          Sketches.setOperationBuilder().setSeed(123), null);
+      fail();
+    } catch (SketchesArgumentException e) {
+      //expected
+    }
+    final Memory full = buildImage(16, 0, 10, true);
+    final Memory truncated = full.region(0, full.getCapacity() - 8);
+    try {
+      OrderedCompactIntersection.intersect(Arrays.asList(full, truncated), bldr, null);
+      fail();
+    } catch (SketchesArgumentException e) {
+      //expected
+    }
+  }
+
+  private static void checkImages(final List<Memory> images) {
+    final SetOperationBuilder bldr = Sketches.setOperationBuilder();
+    final Intersection inter = bldr.buildIntersection();
+    for (Memory image : images) { inter.intersect(Sketch.wrap(image)); }
+    final CompactSketch expected = inter.getResult();
+    final CompactSketch heapResult = OrderedCompactIntersection.intersect(images, bldr, null);
+    assertEquals(heapResult.toByteArray(), expected.toByteArray());
+    final WritableMemory wmem = WritableMemory.allocate(expected.getCurrentBytes());
+    final CompactSketch directResult = OrderedCompactIntersection.intersect(images, bldr, wmem);
+    assertTrue(directResult.isOrdered());
+    assertEquals(directResult.isEmpty(), expected.isEmpty());
+    assertEquals(directResult.getThetaLong(), expected.getThetaLong());
+    //direct images keep the seed hash even when empty
+    final CompactSketch expectedDirect =
+        inter.getResult(true, WritableMemory.allocate(expected.getCurrentBytes()));
+    assertEquals(directResult.toByteArray(), expectedDirect.toByteArray());
+  }
+
+  static Memory buildImage(final int k, final long start, final int n, final boolean ordered) {
+    final UpdateSketch sk = Sketches.updateSketchBuilder().setNominalEntries(k).build();
+    for (int i = 0; i < n; i++) { sk.update(start + i); }
+    return Memory.wrap(ordered ? sk.compact().toByteArray() : sk.toByteArray());
+  }
+
+  @Test
+  public void printlnTest() {
+    println("PRINTING: " + this.getClass().getName());
+  }
+
+  /**
+   * @param s value to print
+   */
+  static void println(String s) {
+    //System.out.println(s); //disable here
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.theta;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+import org.testng.annotations.Test;
+
+public class OrderedCompactUnionTest {
+
+  @Test
+  public void checkSameAsUnion() {
+    final Random rand = new Random(17);
+    for (int lgK : new int[] {5, 9, 12}) {
+      for (float p : new float[] {1.0f, 0.3f}) {
+        for (int numImages : new int[] {1, 2, 7, 60}) {
+          for (int maxN : new int[] {1, 20, 3000, 30000}) {
+            final SetOperationBuilder bldr = Sketches.setOperationBuilder().setLogNominalEntries(lgK).setP(p);
+            final List<Memory> images = buildImages(rand, numImages, maxN);
+            checkImages(images, bldr);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void checkMixedForms() {
+    final List<Memory> images = new ArrayList<>();
+    final UpdateSketch sk1 = Sketches.updateSketchBuilder().setNominalEntries(256).build();
+    final UpdateSketch sk2 = Sketches.updateSketchBuilder().setNominalEntries(256).build();
+    for (int i = 0; i < 1000; i++) { sk1.update(i); sk2.update(i + 500); }
+    images.add(Memory.wrap(sk1.toByteArray()));                          //update sketch
+    images.add(Memory.wrap(sk2.compact(false, null).toByteArray()));    //unordered compact
+    images.add(Memory.wrap(Sketches.updateSketchBuilder().build().compact().toByteArray())); //empty
+    images.add(null);
+    final UpdateSketch single = Sketches.updateSketchBuilder().build();
+    single.update(-1);
+    images.add(Memory.wrap(single.compact().toByteArray()));            //single item
+    images.add(Memory.wrap(Sketches.updateSketchBuilder().build().compact().toByteArray())); //empty
+    checkImages(images, Sketches.setOperationBuilder().setNominalEntries(512));
+    checkImages(images, Sketches.setOperationBuilder().setNominalEntries(4096));
+  }
+
+  @Test
+  public void checkEmptyAndSingle() {
+    final SetOperationBuilder bldr = Sketches.setOperationBuilder();
+    final WritableMemory wmem = WritableMemory.allocate(8);
+    final CompactSketch result = OrderedCompactUnion.union(new ArrayList<Memory>(), bldr, wmem);
+    assertTrue(result.isEmpty());
+    assertEquals(result.getEstimate(), 0.0);
+
+    final UpdateSketch single = Sketches.updateSketchBuilder().build();
+    single.update(1);
+    final Memory mem = Memory.wrap(single.compact().toByteArray());
+    checkImages(Arrays.asList(mem, mem), bldr);
+  }
+
+  @Test
+  public void checkExceptions() {
+    final UpdateSketch sk = Sketches.updateSketchBuilder().build();
+    for (int i = 0; i < 100; i++) { sk.update(i); }
+    final List<Memory> images = Arrays.asList(Memory.wrap(sk.compact().toByteArray()));
+    try {
+      OrderedCompactUnion.union(images, Sketches.setOperationBuilder(), WritableMemory.allocate(100));
+      fail();
+    } catch (SketchesArgumentException e) {
+      //expected
+    }
+    try {
+      OrderedCompactUnion.union(images, Sketches.setOperationBuilder().setSeed(123),
+          WritableMemory.allocate(1000));
+      fail();
+    } catch (SketchesArgumentException e) {
+      //expected
+    }
+  }
+
+  @Test
+  public void checkTruncatedImages() {
+    final UpdateSketch sk = Sketches.updateSketchBuilder().build();
+    for (int i = 0; i < 100; i++) { sk.update(i); }
+    final byte[] bytes = sk.compact().toByteArray();
+    final UpdateSketch single = Sketches.updateSketchBuilder().build();
+    single.update(1);
+    final Memory[] truncated = {
+        Memory.wrap(bytes, 0, 8, ByteOrder.LITTLE_ENDIAN),
+        Memory.wrap(bytes, 0, bytes.length - 8, ByteOrder.LITTLE_ENDIAN),
+        Memory.wrap(single.compact().toByteArray(), 0, 8, ByteOrder.LITTLE_ENDIAN),
+        Memory.wrap(new byte[4]),
+        Memory.wrap(new byte[8])
+    };
+    for (Memory image : truncated) {
+      try {
+        OrderedCompactUnion.union(Arrays.asList(image), Sketches.setOperationBuilder(),
+            WritableMemory.allocate(1 << 16));
+        fail();
+      } catch (SketchesArgumentException e) {
+        //expected
+      }
+    }
+  }
+
+  private static void checkImages(final List<Memory> images, final SetOperationBuilder bldr) {
+    final Union union = bldr.buildUnion();
+    long total = 0;
+    for (Memory image : images) {
+      union.union(image);
+      if (image != null) {
+        total += Sketch.wrap(image).getRetainedEntries(true);
+      }
+    }
+    final int k = 1 << bldr.getLgNominalEntries();
+    final int bytes = (int) (24 + (8 * Math.min(k, total)));
+    final CompactSketch expected = union.getResult(true, WritableMemory.allocate(bytes));
+    final CompactSketch result = OrderedCompactUnion.union(images, bldr, WritableMemory.allocate(bytes));
+    assertTrue(result.isOrdered());
+    assertEquals(result.isEmpty(), expected.isEmpty());
+    assertEquals(result.getThetaLong(), expected.getThetaLong());
+    assertEquals(result.getRetainedEntries(), expected.getRetainedEntries());
+    assertEquals(result.toByteArray(), expected.toByteArray());
+  }
+
+  private static List<Memory> buildImages(final Random rand, final int numImages, final int maxN) {
+    final List<Memory> images = new ArrayList<>();
+    for (int i = 0; i < numImages; i++) {
+      final UpdateSketch sk = Sketches.updateSketchBuilder()
+          .setNominalEntries(1 << (4 + rand.nextInt(9))).build();
+      final int n = rand.nextInt(maxN + 1);
+      final long base = rand.nextInt(4) * 1000L;
+      for (int j = 0; j < n; j++) { sk.update(base + j); }
+      images.add(Memory.wrap(sk.compact(true, null).toByteArray()));
+    }
+    return images;
+  }
+
+  @Test
+  public void printlnTest() {
+    println("PRINTING: " + this.getClass().getName());
+  }
+
+  /**
+   * @param s value to print
+   */
+  static void println(String s) {
+    //System.out.println(s); //disable here
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.theta;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.Memory;
+import org.testng.annotations.Test;
+
+public class ParallelUnionTest {
+
+  @Test
+  public void checkSameAsSequentialUnion() {
+    final ForkJoinPool pool = new ForkJoinPool(4);
+    for (float p : new float[] {1.0f, 0.5f}) {
+      final SetOperationBuilder bldr = Sketches.setOperationBuilder().setNominalEntries(1 << 9).setP(p);
+      final List<Sketch> sketches = buildSketches(1000, 11);
+      final Union expected = bldr.buildUnion();
+      for (Sketch sk : sketches) { expected.union(sk); }
+      final CompactSketch expResult = expected.getResult();
+
+      for (int perTask : new int[] {1, 7, 64, ParallelUnion.DEFAULT_INPUTS_PER_TASK}) {
+        assertSameSketch(ParallelUnion.union(sketches, bldr, pool, perTask), expResult);
+      }
+      assertSameSketch(ParallelUnion.union(sketches, bldr, pool), expResult);
+
+      final List<Memory> images = new ArrayList<>();
+      for (Sketch sk : sketches) {
+        if (sk != null) { images.add(Memory.wrap(sk.toByteArray())); }
+      }
+      assertSameSketch(ParallelUnion.unionImages(images, bldr, pool, 50), expResult);
+      Collections.reverse(images);
+      assertSameSketch(ParallelUnion.unionImages(images, bldr, pool), expResult);
+    }
+    pool.shutdown();
+  }
+
+  @Test
+  public void checkExactModeAndEmpty() {
+    final ExecutorService exec = Executors.newFixedThreadPool(2);
+    final SetOperationBuilder bldr = Sketches.setOperationBuilder().setNominalEntries(1 << 12);
+    final List<Sketch> sketches = new ArrayList<>();
+    final Union expected = bldr.buildUnion();
+    for (int i = 0; i < 40; i++) {
+      final UpdateSketch sk = Sketches.updateSketchBuilder().build();
+      for (int j = 0; j < i; j++) { sk.update((i * 10) + j); }
+      sketches.add(sk);
+      expected.union(sk);
+    }
+    final CompactSketch result = ParallelUnion.union(sketches, bldr, exec, 3);
+    assertSameSketch(result, expected.getResult());
+    assertEquals(result.getEstimate(), expected.getResult().getEstimate());
+    assertTrue(ParallelUnion.union(new ArrayList<Sketch>(), bldr, exec).isEmpty());
+    final List<Sketch> empties = new ArrayList<>();
+    empties.add(null);
+    empties.add(Sketches.updateSketchBuilder().build());
+    assertTrue(ParallelUnion.union(empties, bldr, exec, 1).isEmpty());
+    exec.shutdown();
+  }
+
+  @Test
+  public void checkExceptions() {
+    final SetOperationBuilder bldr = Sketches.setOperationBuilder();
+    final List<Sketch> sketches = new ArrayList<>();
+    final UpdateSketch sk = Sketches.updateSketchBuilder().setSeed(123).build();
+    sk.update(1);
+    sk.update(2);
+    sketches.add(sk);
+    try {
+      ParallelUnion.union(sketches, bldr, ForkJoinPool.commonPool());
+      fail();
+    } catch (SketchesArgumentException e) {
+      //expected
+    }
+    try {
+      ParallelUnion.union(sketches, bldr, ForkJoinPool.commonPool(), 0);
+      fail();
+    } catch (SketchesArgumentException e) {
+      //expected
+    }
+  }
+
+  //Mix of update sketches, ordered and unordered compact sketches, nulls and empties
+  private static List<Sketch> buildSketches(final int num, final long seed) {
+    final Random rand = new Random(seed);
+    final List<Sketch> sketches = new ArrayList<>();
+    for (int i = 0; i < num; i++) {
+      if ((i % 97) == 0) { sketches.add(null); continue; }
+      final UpdateSketch sk = Sketches.updateSketchBuilder().setNominalEntries(1 << (6 + rand.nextInt(6))).build();
+      final int n = (i % 13) == 0 ? 0 : rand.nextInt(5000);
+      final long base = rand.nextInt(100) * 1000L;
+      for (int j = 0; j < n; j++) { sk.update(base + j); }
+      switch (i % 3) {
+        case 0: sketches.add(sk); break;
+        case 1: sketches.add(sk.compact(true, null)); break;
+        default: sketches.add(sk.compact(false, null)); break;
+      }
+    }
+    return sketches;
+  }
+
+  private static void assertSameSketch(final CompactSketch result, final CompactSketch expected) {
+    assertEquals(result.isEmpty(), expected.isEmpty());
+    assertEquals(result.getThetaLong(), expected.getThetaLong());
+    assertEquals(result.getRetainedEntries(), expected.getRetainedEntries());
+    assertEquals(result.toByteArray(), expected.toByteArray());
+  }
+
+  @Test
+  public void printlnTest() {
+    println("PRINTING: " + this.getClass().getName());
+  }
+
+  /**
+   * @param s value to print
+   */
+  static void println(String s) {
+    //System.out.println(s); //disable here
+  }
+}
@@ -24,11 +24,15 @@ import static org.apache.datasketches.thetacommon.HashOperations.checkHashCorrup
 import static org.apache.datasketches.thetacommon.HashOperations.checkThetaCorruption;
 import static org.apache.datasketches.thetacommon.HashOperations.continueCondition;
 import static org.apache.datasketches.thetacommon.HashOperations.hashArrayInsert;
+import static org.apache.datasketches.thetacommon.HashOperations.hashArrayInsertLinear;
 import static org.apache.datasketches.thetacommon.HashOperations.hashInsertOnly;
+import static org.apache.datasketches.thetacommon.HashOperations.hashInsertOnlyLinear;
 import static org.apache.datasketches.thetacommon.HashOperations.hashInsertOnlyMemory;
 import static org.apache.datasketches.thetacommon.HashOperations.hashSearch;
+import static org.apache.datasketches.thetacommon.HashOperations.hashSearchLinear;
 import static org.apache.datasketches.thetacommon.HashOperations.hashSearchMemory;
 import static org.apache.datasketches.thetacommon.HashOperations.hashSearchOrInsert;
+import static org.apache.datasketches.thetacommon.HashOperations.hashSearchOrInsertLinear;
 import static org.apache.datasketches.thetacommon.HashOperations.hashSearchOrInsertMemory;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
@@ -202,6 +206,79 @@ public class HashOperationsTest {
   }
 
 
+  @Test
+  public void checkLinearProbing() {
+    final int lgArrLongs = 4;
+    final long[] table = new long[1 << lgArrLongs];
+    //all collide on slot 3
+    final long[] hashes = {3, 19, 35, 51};
+    for (int i = 0; i < hashes.length; i++) {
+      assertEquals(hashSearchOrInsertLinear(table, lgArrLongs, hashes[i]), ~(3 + i));
+    }
+    assertEquals(hashSearchOrInsertLinear(table, lgArrLongs, 35), 5);
+    assertEquals(hashSearchLinear(table, lgArrLongs, 51), 6);
+    assertEquals(hashSearchLinear(table, lgArrLongs, 67), -1);
+    assertEquals(hashInsertOnlyLinear(table, lgArrLongs, 67), 7);
+    //wraps around the end of the table
+    assertEquals(hashInsertOnlyLinear(table, lgArrLongs, 15), 15);
+    assertEquals(hashInsertOnlyLinear(table, lgArrLongs, 31), 0);
+    assertEquals(hashSearchLinear(table, lgArrLongs, 31), 0);
+    try {
+      hashSearchLinear(table, lgArrLongs, 0);
+      fail();
+    } catch (final SketchesArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void checkLinearProbingFullTable() {
+    final int lgArrLongs = 2;
+    final long[] table = {1, 2, 3, 4};
+    assertEquals(hashSearchLinear(table, lgArrLongs, 5), -1);
+    try {
+      hashInsertOnlyLinear(table, lgArrLongs, 5);
+      fail();
+    } catch (final SketchesArgumentException e) {
+      // expected
+    }
+    try {
+      hashSearchOrInsertLinear(table, lgArrLongs, 5);
+      fail();
+    } catch (final SketchesArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void checkHashArrayInsertLinear() {
+    final long[] src = {10, 20, 30, 20, 0, 40};
+    final long[] table = new long[16];
+    assertEquals(hashArrayInsertLinear(src, table, 4, 35), 3);
+    assertTrue(hashSearchLinear(table, 4, 30) >= 0);
+    assertEquals(hashSearchLinear(table, 4, 40), -1);
+  }
+
+  @Test
+  public void checkLayoutsFindTheSameHashes() {
+    final int lgArrLongs = 8;
+    final long[] src = new long[150];
+    for (int i = 0; i < src.length; i++) { src[i] = hash(new long[] {i}, 0)[0] >>> 1; }
+    for (final HashTableLayout layout : HashTableLayout.values()) {
+      final long[] table = new long[1 << lgArrLongs];
+      assertEquals(layout.hashArrayInsert(src, table, lgArrLongs, Long.MAX_VALUE), src.length);
+      for (int i = 0; i < src.length; i++) {
+        assertTrue(layout.hashSearch(table, lgArrLongs, src[i]) >= 0);
+        assertTrue(layout.hashSearchOrInsert(table, lgArrLongs, src[i]) >= 0);
+      }
+      assertEquals(layout.hashSearch(table, lgArrLongs, 12345L), -1);
+      assertTrue(layout.hashInsertOnly(table, lgArrLongs, 12345L) >= 0);
+    }
+    assertTrue(HashTableLayout.LINEAR_PROBING.getRebuildThreshold()
+        < HashTableLayout.DOUBLE_HASHING.getRebuildThreshold());
+  }
+
+
   @Test
   public void printlnTest() {
     println("PRINTING: " + this.getClass().getName());
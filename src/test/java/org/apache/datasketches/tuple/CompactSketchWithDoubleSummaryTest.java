@@ -19,6 +19,9 @@
 
 package org.apache.datasketches.tuple;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.memory.Memory;
 import org.apache.datasketches.tuple.adouble.DoubleSummary;
@@ -172,6 +175,49 @@ public class CompactSketchWithDoubleSummaryTest {
     Assert.assertEquals(count, 4096);
   }
 
+  @Test
+  public void serializeDeserializeCompressed() {
+    for (int n : new int[] {1, 2, 9, 1000, 8192}) {
+      UpdatableSketch<Double, DoubleSummary> us =
+          new UpdatableSketchBuilder<>(new DoubleSummaryFactory(mode)).build();
+      for (int i = 0; i < n; i++) {
+        us.update(i, (double) i);
+      }
+      CompactSketch<DoubleSummary> sketch1 = us.compact();
+      byte[] bytes = sketch1.toByteArrayCompressed();
+      if (n > 1) { Assert.assertTrue(bytes.length < sketch1.toByteArray().length); }
+      CompactSketch<DoubleSummary> sketch2 =
+          (CompactSketch<DoubleSummary>) Sketches.heapifySketch(Memory.wrap(bytes), new DoubleSummaryDeserializer());
+      Assert.assertEquals(sketch2.isEmpty(), sketch1.isEmpty());
+      Assert.assertEquals(sketch2.getRetainedEntries(), sketch1.getRetainedEntries());
+      Assert.assertEquals(sketch2.getThetaLong(), sketch1.getThetaLong());
+      Assert.assertEquals(sketch2.getEstimate(), sketch1.getEstimate());
+      // the compressed form is ordered, so match the entries by hash
+      final Map<Long, Double> expected = new HashMap<>();
+      TupleSketchIterator<DoubleSummary> it1 = sketch1.iterator();
+      while (it1.next()) { expected.put(it1.getHash(), it1.getSummary().getValue()); }
+      TupleSketchIterator<DoubleSummary> it2 = sketch2.iterator();
+      long previous = 0;
+      while (it2.next()) {
+        Assert.assertTrue(it2.getHash() > previous);
+        previous = it2.getHash();
+        Assert.assertEquals(it2.getSummary().getValue(), expected.remove(it2.getHash()));
+      }
+      Assert.assertTrue(expected.isEmpty());
+    }
+  }
+
+  @Test
+  public void serializeDeserializeCompressedEmpty() {
+    UpdatableSketch<Double, DoubleSummary> us =
+        new UpdatableSketchBuilder<>(new DoubleSummaryFactory(mode)).build();
+    CompactSketch<DoubleSummary> sketch1 = us.compact();
+    Assert.assertEquals(sketch1.toByteArrayCompressed(), sketch1.toByteArray());
+    Sketch<DoubleSummary> sketch2 = Sketches.heapifySketch(Memory.wrap(sketch1.toByteArrayCompressed()),
+        new DoubleSummaryDeserializer());
+    Assert.assertTrue(sketch2.isEmpty());
+  }
+
   @Test(expectedExceptions = SketchesArgumentException.class)
   public void deserializeWrongType() {
     UpdatableSketch<Double, DoubleSummary> us =
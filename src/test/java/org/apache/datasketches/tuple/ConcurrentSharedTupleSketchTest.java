@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.datasketches.common.ConcurrentPropagationMetrics;
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesStateException;
+import org.apache.datasketches.tuple.adouble.DoubleSummary;
+import org.apache.datasketches.tuple.adouble.DoubleSummaryFactory;
+import org.apache.datasketches.tuple.adouble.DoubleSummarySetOperations;
+import org.testng.annotations.Test;
+
+public class ConcurrentSharedTupleSketchTest {
+
+  private static UpdatableSketchBuilder<Double, DoubleSummary> builder() {
+    return new UpdatableSketchBuilder<>(new DoubleSummaryFactory(DoubleSummary.Mode.Sum));
+  }
+
+  private static void updateConcurrently(final UpdatableSketchBuilder<Double, DoubleSummary> bldr,
+      final ConcurrentSharedTupleSketch<DoubleSummary> shared, final int numThreads,
+      final int n, final int keysPerThread) throws InterruptedException {
+    final Thread[] writers = new Thread[numThreads];
+    for (int t = 0; t < numThreads; t++) {
+      final ConcurrentHeapTupleBuffer<Double, DoubleSummary> local = bldr.buildLocal(shared);
+      final int offset = t * keysPerThread;
+      writers[t] = new Thread(() -> {
+        for (int i = 0; i < n; i++) { local.update(offset + i, 1.0); }
+        local.flush();
+      });
+      writers[t].start();
+    }
+    for (Thread w : writers) { w.join(); }
+  }
+
+  @Test
+  public void checkExactModeSums() throws InterruptedException {
+    final UpdatableSketchBuilder<Double, DoubleSummary> bldr = builder().setNominalEntries(4096);
+    final ConcurrentSharedTupleSketch<DoubleSummary> shared =
+        bldr.buildShared(new DoubleSummarySetOperations());
+    assertTrue(shared.isEmpty());
+    final int numThreads = 4;
+    final int n = 1000;
+    updateConcurrently(bldr, shared, numThreads, n, 0); //all threads update the same keys
+    assertEquals(shared.getPendingPropagations(), 0);
+    final ConcurrentPropagationMetrics metrics = shared.getPropagationMetrics();
+    assertTrue(metrics.getSubmittedPropagations() > 0);
+    assertEquals(metrics.getCompletedPropagations(), metrics.getSubmittedPropagations());
+    assertFalse(shared.isEmpty());
+    assertFalse(shared.isEstimationMode());
+    assertEquals(shared.getRetainedEntries(), n);
+    assertEquals(shared.getEstimate(), n);
+    final CompactSketch<DoubleSummary> result = shared.compact();
+    assertEquals(result.getRetainedEntries(), n);
+    final TupleSketchIterator<DoubleSummary> it = result.iterator();
+    while (it.next()) {
+      assertEquals(it.getSummary().getValue(), numThreads);
+    }
+  }
+
+  @Test
+  public void checkEstimationModeWithCallerExecutor() throws InterruptedException {
+    final ExecutorService pool = Executors.newFixedThreadPool(2);
+    try {
+      final UpdatableSketchBuilder<Double, DoubleSummary> bldr = builder()
+          .setNominalEntries(4096).setLocalNominalEntries(64).setPropagationExecutor(pool);
+      final ConcurrentSharedTupleSketch<DoubleSummary> shared =
+          bldr.buildShared(new DoubleSummarySetOperations());
+      final int n = 50_000;
+      //each key is updated by exactly two of the four threads
+      updateConcurrently(bldr, shared, 4, n, n / 2);
+      final double expected = 2.5 * n;
+      assertTrue(shared.isEstimationMode());
+      assertEquals(shared.getEstimate(), expected, expected * 0.1);
+      assertTrue(shared.getLowerBound(2) <= shared.getEstimate());
+      assertTrue(shared.getUpperBound(2) >= shared.getEstimate());
+      assertTrue(shared.getTheta() < 1.0);
+      final CompactSketch<DoubleSummary> result = shared.compact();
+      assertEquals(result.getEstimate(), expected, expected * 0.1);
+      final TupleSketchIterator<DoubleSummary> it = result.iterator();
+      while (it.next()) {
+        final long key = it.getHash();
+        assertTrue(key < shared.getThetaLong());
+        final double v = it.getSummary().getValue();
+        assertTrue(v == 1.0 || v == 2.0, "value " + v);
+      }
+      assertFalse(pool.isShutdown());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void checkRejectingExecutorAndReset() {
+    final Executor rejecting = r -> { throw new RejectedExecutionException(); };
+    final UpdatableSketchBuilder<Double, DoubleSummary> bldr = builder().setPropagationExecutor(rejecting);
+    final ConcurrentSharedTupleSketch<DoubleSummary> shared =
+        bldr.buildShared(new DoubleSummarySetOperations());
+    final ConcurrentHeapTupleBuffer<Double, DoubleSummary> local = bldr.buildLocal(shared);
+    for (int i = 0; i < 100; i++) { local.update(i, 2.0); }
+    assertEquals(shared.getRetainedEntries(), 96); //six full buffers of 16 entries
+    assertEquals(local.getEstimate(), shared.getEstimate());
+    assertEquals(local.getLowerBound(1), shared.getLowerBound(1));
+    assertEquals(local.getUpperBound(1), shared.getUpperBound(1));
+    local.flush();
+    assertEquals(shared.getRetainedEntries(), 100);
+    assertEquals(shared.compact().getRetainedEntries(), 100);
+    shared.reset();
+    assertTrue(shared.isEmpty());
+    assertEquals(shared.getEstimate(), 0.0);
+    local.update(1, 1.0);
+    local.reset();
+    local.flush();
+    assertTrue(shared.isEmpty());
+    println(shared.toString());
+  }
+
+  @SuppressWarnings("deprecation")
+  @Test
+  public void checkBuilderAndBufferExceptions() {
+    final UpdatableSketchBuilder<Double, DoubleSummary> bldr = builder();
+    try {
+      bldr.buildShared(null);
+      fail();
+    } catch (SketchesArgumentException e) {
+      //expected
+    }
+    try {
+      bldr.buildLocal(null);
+      fail();
+    } catch (SketchesStateException e) {
+      //expected
+    }
+    try {
+      bldr.setLocalNominalEntries(8);
+      fail();
+    } catch (SketchesArgumentException e) {
+      //expected
+    }
+    final DoubleSummarySetOperations ops = new DoubleSummarySetOperations();
+    final ConcurrentSharedTupleSketch<DoubleSummary> shared = bldr.buildShared(ops);
+    assertTrue(shared.getSummarySetOperations() == ops);
+    try {
+      bldr.buildLocal(shared).toByteArray();
+      fail();
+    } catch (UnsupportedOperationException e) {
+      //expected
+    }
+    bldr.reset();
+  }
+
+  @Test
+  public void printlnTest() {
+    println("PRINTING: " + this.getClass().getName());
+  }
+
+  /**
+   * @param s value to print
+   */
+  static void println(String s) {
+    //System.out.println(s); //disable here
+  }
+}
@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesReadOnlyException;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+import org.apache.datasketches.tuple.adouble.DoubleSketch;
+import org.apache.datasketches.tuple.adouble.DoubleSummary;
+import org.apache.datasketches.tuple.adouble.DoubleSummaryFactory;
+import org.apache.datasketches.tuple.adouble.DoubleSummarySetOperations;
+import org.apache.datasketches.tuple.aninteger.IntegerSummary;
+import org.apache.datasketches.tuple.aninteger.IntegerSummaryFactory;
+import org.testng.annotations.Test;
+
+public class DirectUpdatableSketchTest {
+
+  @Test
+  public void checkEmpty() {
+    final DirectUpdatableSketch<Double, DoubleSummary> sketch = newDoubleSketch(12, DoubleSummary.Mode.Sum);
+    assertTrue(sketch.isEmpty());
+    assertFalse(sketch.isEstimationMode());
+    assertEquals(sketch.getEstimate(), 0.0);
+    assertEquals(sketch.getTheta(), 1.0);
+    assertEquals(sketch.getRetainedEntries(), 0);
+    assertFalse(sketch.iterator().next());
+    assertTrue(sketch.compact().isEmpty());
+  }
+
+  @Test
+  public void checkExactModeMatchesHeap() {
+    for (final DoubleSummary.Mode mode : DoubleSummary.Mode.values()) {
+      final DirectUpdatableSketch<Double, DoubleSummary> direct = newDoubleSketch(12, mode);
+      final DoubleSketch heap = new DoubleSketch(12, mode);
+      for (int i = 0; i < 1000; i++) {
+        direct.update(i % 300, (double) i);
+        heap.update(i % 300, (double) i);
+      }
+      assertFalse(direct.isEmpty());
+      assertFalse(direct.isEstimationMode());
+      assertEquals(direct.getRetainedEntries(), 300);
+      assertEquals(direct.getEstimate(), 300.0);
+      assertEquals(toMap(direct.iterator()), toMap(heap.iterator()));
+    }
+  }
+
+  @Test
+  public void checkEstimationModeMatchesHeap() {
+    final DirectUpdatableSketch<Double, DoubleSummary> direct = newDoubleSketch(10, DoubleSummary.Mode.Sum);
+    final DoubleSketch heap = new DoubleSketch(10, DoubleSummary.Mode.Sum);
+    for (int i = 0; i < 20000; i++) {
+      direct.update(i, 1.0);
+      heap.update(i, 1.0);
+    }
+    assertTrue(direct.isEstimationMode());
+    assertEquals(direct.getThetaLong(), heap.getThetaLong());
+    assertEquals(direct.getRetainedEntries(), heap.getRetainedEntries());
+    assertEquals(direct.getEstimate(), heap.getEstimate());
+    assertEquals(toMap(direct.iterator()), toMap(heap.iterator()));
+    direct.trim();
+    heap.trim();
+    assertEquals(direct.getRetainedEntries(), heap.getRetainedEntries());
+    assertEquals(toMap(direct.iterator()), toMap(heap.iterator()));
+
+    final CompactSketch<DoubleSummary> csk = direct.compact();
+    assertEquals(csk.getEstimate(), heap.getEstimate());
+    assertEquals(toMap(csk.iterator()), toMap(heap.iterator()));
+
+    final Union<DoubleSummary> union = new Union<>(new DoubleSummarySetOperations());
+    union.union(direct);
+    assertEquals(union.getResult().getEstimate(), heap.getEstimate(), heap.getEstimate() * 0.05);
+  }
+
+  @Test
+  public void checkIntegerSummary() {
+    final IntegerSummaryFactory factory = new IntegerSummaryFactory(IntegerSummary.Mode.Max);
+    final int bytes = DirectUpdatableSketch.getMaxBytes(64, Integer.BYTES);
+    final DirectUpdatableSketch<Integer, IntegerSummary> sketch =
+        new DirectUpdatableSketch<>(64, 3, 1f, factory, WritableMemory.allocate(bytes));
+    for (int i = 0; i < 100; i++) {
+      sketch.update("a", i);
+      sketch.update("b", -i);
+    }
+    final TupleSketchIterator<IntegerSummary> it = sketch.iterator();
+    int sum = 0;
+    while (it.next()) { sum += it.getSummary().getValue(); }
+    assertEquals(sum, 99);
+  }
+
+  @Test
+  public void checkWrapRoundTrip() {
+    final DoubleSummaryFactory factory = new DoubleSummaryFactory(DoubleSummary.Mode.Sum);
+    final DirectUpdatableSketch<Double, DoubleSummary> sketch = newDoubleSketch(10, DoubleSummary.Mode.Sum);
+    for (int i = 0; i < 5000; i++) { sketch.update(i, 1.0); }
+
+    final DirectUpdatableSketch<Double, DoubleSummary> wrapped =
+        DirectUpdatableSketch.wrap(sketch.getMemory(), factory);
+    assertTrue(wrapped.isReadOnly());
+    assertEquals(wrapped.getEstimate(), sketch.getEstimate());
+    assertEquals(toMap(wrapped.iterator()), toMap(sketch.iterator()));
+    try {
+      wrapped.update(1, 1.0);
+      fail();
+    } catch (final SketchesReadOnlyException e) {
+      //expected
+    }
+
+    final WritableMemory copy = WritableMemory.writableWrap(sketch.toByteArray());
+    final DirectUpdatableSketch<Double, DoubleSummary> writable =
+        DirectUpdatableSketch.writableWrap(copy, factory);
+    assertFalse(writable.isReadOnly());
+    writable.update(0, 1.0);
+    sketch.update(0, 1.0);
+    assertEquals(toMap(writable.iterator()), toMap(sketch.iterator()));
+    writable.reset();
+    assertTrue(writable.isEmpty());
+    assertEquals(writable.getRetainedEntries(), 0);
+    assertTrue(DirectUpdatableSketch.wrap(copy, factory).isEmpty());
+  }
+
+  @Test
+  public void checkSamplingProbability() {
+    final DoubleSummaryFactory factory = new DoubleSummaryFactory(DoubleSummary.Mode.Sum);
+    final DirectUpdatableSketch<Double, DoubleSummary> sketch = new DirectUpdatableSketch<>(
+        1024, 3, 0.5f, factory, WritableMemory.allocate(DirectUpdatableSketch.getMaxBytes(1024, 8)));
+    final UpdatableSketch<Double, DoubleSummary> heap =
+        new UpdatableSketchBuilder<>(factory).setSamplingProbability(0.5f).build();
+    for (int i = 0; i < 100; i++) {
+      sketch.update(i, 1.0);
+      heap.update(i, 1.0);
+    }
+    assertEquals(sketch.getSamplingProbability(), 0.5f);
+    assertTrue(sketch.isEstimationMode());
+    assertEquals(sketch.getEstimate(), heap.getEstimate());
+  }
+
+  @Test
+  public void checkMemoryTooSmall() {
+    final DoubleSummaryFactory factory = new DoubleSummaryFactory(DoubleSummary.Mode.Sum);
+    try {
+      new DirectUpdatableSketch<>(1024, 3, 1f, factory, WritableMemory.allocate(64));
+      fail();
+    } catch (final SketchesArgumentException e) {
+      //expected
+    }
+    // room for the starting capacity only
+    final DirectUpdatableSketch<Double, DoubleSummary> sketch = new DirectUpdatableSketch<>(
+        1024, 3, 1f, factory, WritableMemory.allocate(DirectUpdatableSketch.ENTRIES_START + (32 * 16)));
+    try {
+      for (int i = 0; i < 1000; i++) { sketch.update(i, 1.0); }
+      fail();
+    } catch (final SketchesArgumentException e) {
+      //expected
+    }
+  }
+
+  @Test
+  public void checkSummaryWidthMismatch() {
+    final DirectUpdatableSketch<Double, DoubleSummary> sketch = newDoubleSketch(10, DoubleSummary.Mode.Sum);
+    sketch.update(1, 1.0);
+    try {
+      DirectUpdatableSketch.wrap(sketch.getMemory(), new IntegerSummaryFactory(IntegerSummary.Mode.Sum));
+      fail();
+    } catch (final SketchesArgumentException e) {
+      //expected
+    }
+  }
+
+  @Test
+  public void checkWrongImage() {
+    final DoubleSketch heap = new DoubleSketch(10, DoubleSummary.Mode.Sum);
+    heap.update(1, 1.0);
+    try {
+      DirectUpdatableSketch.wrap(Memory.wrap(heap.compact().toByteArray()),
+          new DoubleSummaryFactory(DoubleSummary.Mode.Sum));
+      fail();
+    } catch (final SketchesArgumentException e) {
+      //expected
+    }
+  }
+
+  @Test
+  public void printlnTest() {
+    println("PRINTING: " + this.getClass().getName());
+  }
+
+  private static DirectUpdatableSketch<Double, DoubleSummary> newDoubleSketch(final int lgK,
+      final DoubleSummary.Mode mode) {
+    final int bytes = DirectUpdatableSketch.getMaxBytes(1 << lgK, Double.BYTES);
+    return new DirectUpdatableSketch<>(1 << lgK, 3, 1f, new DoubleSummaryFactory(mode),
+        WritableMemory.allocate(bytes));
+  }
+
+  private static Map<Long, Double> toMap(final TupleSketchIterator<DoubleSummary> it) {
+    final Map<Long, Double> map = new HashMap<>();
+    while (it.next()) { map.put(it.getHash(), it.getSummary().getValue()); }
+    return map;
+  }
+
+  /**
+   * @param s value to print
+   */
+  static void println(final String s) {
+    //System.out.println(s); //disable here
+  }
+}
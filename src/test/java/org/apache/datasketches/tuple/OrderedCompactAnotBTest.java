@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+import org.apache.datasketches.tuple.adouble.DoubleSummary;
+import org.apache.datasketches.tuple.adouble.DoubleSummaryDeserializer;
+import org.apache.datasketches.tuple.adouble.DoubleSummaryFactory;
+import org.apache.datasketches.tuple.aninteger.IntegerSketch;
+import org.apache.datasketches.tuple.aninteger.IntegerSummary;
+import org.apache.datasketches.tuple.aninteger.IntegerSummaryDeserializer;
+import org.apache.datasketches.tuple.strings.ArrayOfStringsSketch;
+import org.apache.datasketches.tuple.strings.ArrayOfStringsSummary;
+import org.apache.datasketches.tuple.strings.ArrayOfStringsSummaryDeserializer;
+import org.testng.annotations.Test;
+
+public class OrderedCompactAnotBTest {
+  private static final DoubleSummaryDeserializer deserializer = new DoubleSummaryDeserializer();
+
+  private static UpdatableSketch<Double, DoubleSummary> newSketch(final int lgK, final int start, final int n) {
+    final UpdatableSketch<Double, DoubleSummary> sk =
+        new UpdatableSketchBuilder<>(new DoubleSummaryFactory(DoubleSummary.Mode.Sum)).setNominalEntries(1 << lgK).build();
+    for (int i = start; i < start + n; i++) { sk.update(i, (double) i); }
+    return sk;
+  }
+
+  private static <S extends Summary> void checkSame(final Memory result, final Sketch<S> expected,
+      final SummaryDeserializer<S> deser) {
+    final Sketch<S> actual = Sketches.heapifySketch(result, deser);
+    assertEquals(actual.isEmpty(), expected.isEmpty());
+    assertEquals(actual.getThetaLong(), expected.getThetaLong());
+    assertEquals(actual.getRetainedEntries(), expected.getRetainedEntries());
+    final Map<Long, S> map = new HashMap<>();
+    final TupleSketchIterator<S> it = expected.iterator();
+    while (it.next()) { map.put(it.getHash(), it.getSummary()); }
+    final TupleSketchIterator<S> it2 = actual.iterator();
+    long prev = -1;
+    while (it2.next()) {
+      assertTrue(it2.getHash() > prev);
+      prev = it2.getHash();
+      assertEquals(it2.getSummary().toByteArray(), map.get(it2.getHash()).toByteArray());
+    }
+  }
+
+  private static void checkDouble(final CompactSketch<DoubleSummary> a, final CompactSketch<DoubleSummary> b,
+      final boolean compressed) {
+    final byte[] imageA = compressed ? a.toByteArrayCompressed() : a.toByteArray();
+    final byte[] imageB = compressed ? b.toByteArrayCompressed() : b.toByteArray();
+    final WritableMemory dst = WritableMemory.allocate(a.toByteArray().length + 32);
+    final long bytes = OrderedCompactAnotB.aNotB(Memory.wrap(imageA), Memory.wrap(imageB), deserializer, dst);
+    final CompactSketch<DoubleSummary> expected = AnotB.aNotB(a, b);
+    assertEquals(bytes, expected.toByteArray().length);
+    checkSame(dst.region(0, bytes), expected, deserializer);
+  }
+
+  @Test
+  public void checkExactAndEstimating() {
+    final int[][] cases = {{1000, 500, 0}, {1000, 500, 3000}, {10000, 5000, 500}, {500, 10000, 400}, {10000, 10000, 0}};
+    for (final int[] c : cases) {
+      final CompactSketch<DoubleSummary> a = newSketch(12, 0, c[0]).compact();
+      final CompactSketch<DoubleSummary> b = newSketch(10, c[2], c[1]).compact();
+      checkDouble(a, b, false);
+      checkDouble(a, b, true);
+    }
+  }
+
+  @Test
+  public void checkCornerCases() {
+    final CompactSketch<DoubleSummary> empty = newSketch(12, 0, 0).compact();
+    final CompactSketch<DoubleSummary> single = newSketch(12, 0, 1).compact();
+    final CompactSketch<DoubleSummary> exact = newSketch(12, 0, 100).compact();
+    final CompactSketch<DoubleSummary> estimating = newSketch(10, 50, 5000).compact();
+    final UpdatableSketch<Double, DoubleSummary> sampled =
+        new UpdatableSketchBuilder<>(new DoubleSummaryFactory(DoubleSummary.Mode.Sum)).setSamplingProbability(0.001f).build();
+    sampled.update(1, 1.0);
+    final CompactSketch<DoubleSummary> degenerate = sampled.compact();
+    final List<CompactSketch<DoubleSummary>> sketches = Arrays.asList(empty, single, exact, estimating, degenerate);
+    for (final CompactSketch<DoubleSummary> a : sketches) {
+      for (final CompactSketch<DoubleSummary> b : sketches) {
+        checkDouble(a, b, false);
+        checkDouble(a, b, true);
+      }
+    }
+  }
+
+  @Test
+  public void checkVariableSizeSummaries() {
+    final ArrayOfStringsSketch a = new ArrayOfStringsSketch();
+    final ArrayOfStringsSketch b = new ArrayOfStringsSketch();
+    for (int i = 0; i < 100; i++) {
+      a.update(new String[] {Integer.toString(i)}, new String[] {"a" + i, "x"});
+      if (i % 3 == 0) { b.update(new String[] {Integer.toString(i)}, new String[] {"b"}); }
+    }
+    final ArrayOfStringsSummaryDeserializer deser = new ArrayOfStringsSummaryDeserializer();
+    final byte[] imageA = a.compact().toByteArray();
+    final WritableMemory dst = WritableMemory.allocate(imageA.length);
+    final long bytes = OrderedCompactAnotB.aNotB(Memory.wrap(imageA), Memory.wrap(b.compact().toByteArray()), deser, dst);
+    final CompactSketch<ArrayOfStringsSummary> expected = AnotB.aNotB(a, b);
+    assertEquals(expected.getRetainedEntries(), 66);
+    checkSame(dst.region(0, bytes), expected, deser);
+  }
+
+  @Test
+  public void checkDefaultSummarySize() {
+    final SummaryDeserializer<DoubleSummary> deser = DoubleSummary::fromMemory;
+    final CompactSketch<DoubleSummary> a = newSketch(12, 0, 100).compact();
+    final CompactSketch<DoubleSummary> b = newSketch(12, 50, 100).compact();
+    final WritableMemory dst = WritableMemory.allocate(1000);
+    final long bytes = OrderedCompactAnotB.aNotB(Memory.wrap(a.toByteArray()), Memory.wrap(b.toByteArray()), deser, dst);
+    checkSame(dst.region(0, bytes), AnotB.aNotB(a, b), deser);
+  }
+
+  @Test
+  public void checkSummarySizeOverrides() {
+    final CompactSketch<DoubleSummary> d = newSketch(12, 0, 10).compact();
+    checkSummarySizes(Memory.wrap(d.toByteArray()), d.getRetainedEntries(), new DoubleSummaryDeserializer());
+    final IntegerSketch i = new IntegerSketch(12, IntegerSummary.Mode.Sum);
+    for (int k = 0; k < 10; k++) { i.update(k, k); }
+    final CompactSketch<IntegerSummary> ic = i.compact();
+    checkSummarySizes(Memory.wrap(ic.toByteArray()), ic.getRetainedEntries(), new IntegerSummaryDeserializer());
+    final ArrayOfStringsSketch s = new ArrayOfStringsSketch();
+    for (int k = 0; k < 10; k++) { s.update(new String[] {Integer.toString(k)}, new String[] {"v" + k, "xx"}); }
+    final CompactSketch<ArrayOfStringsSummary> sc = s.compact();
+    checkSummarySizes(Memory.wrap(sc.toByteArray()), sc.getRetainedEntries(), new ArrayOfStringsSummaryDeserializer());
+  }
+
+  // walks a serial version 3 exact-mode image comparing the overridden size with the heapified size
+  private static <S extends Summary> void checkSummarySizes(final Memory mem, final int count,
+      final SummaryDeserializer<S> deser) {
+    long offset = 2L * Long.BYTES;
+    for (int k = 0; k < count; k++) {
+      offset += Long.BYTES;
+      final int size = deser.getSummarySizeBytes(mem, offset);
+      assertEquals(size, deser.heapifySummary(mem.region(offset, mem.getCapacity() - offset)).getSize());
+      offset += size;
+    }
+    assertEquals(offset, mem.getCapacity());
+  }
+
+  @Test
+  public void checkDestinationTooSmall() {
+    final CompactSketch<DoubleSummary> a = newSketch(12, 0, 100).compact();
+    final CompactSketch<DoubleSummary> b = newSketch(12, 50, 100).compact();
+    try {
+      OrderedCompactAnotB.aNotB(Memory.wrap(a.toByteArray()), Memory.wrap(b.toByteArray()), deserializer,
+          WritableMemory.allocate(100));
+      fail();
+    } catch (final SketchesArgumentException e) {
+      //expected
+    }
+  }
+
+  @Test
+  public void checkNullArguments() {
+    final Memory image = Memory.wrap(newSketch(12, 0, 10).compact().toByteArray());
+    try {
+      OrderedCompactAnotB.aNotB(image, null, deserializer, WritableMemory.allocate(1000));
+      fail();
+    } catch (final SketchesArgumentException e) {
+      //expected
+    }
+    try {
+      OrderedCompactAnotB.aNotB(image, image, deserializer, null);
+      fail();
+    } catch (final SketchesArgumentException e) {
+      //expected
+    }
+  }
+
+  @Test
+  public void printlnTest() {
+    println("PRINTING: " + this.getClass().getName());
+  }
+
+  /**
+   * @param s value to print
+   */
+  static void println(final String s) {
+    //System.out.println(s); //disable here
+  }
+}
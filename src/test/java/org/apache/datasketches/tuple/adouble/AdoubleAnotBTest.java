@@ -26,6 +26,7 @@ import static org.testng.Assert.fail;
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.theta.UpdateSketch;
 import org.apache.datasketches.theta.UpdateSketchBuilder;
+import org.apache.datasketches.thetacommon.HashTableLayout;
 import org.apache.datasketches.tuple.AnotB;
 import org.apache.datasketches.tuple.CompactSketch;
 import org.apache.datasketches.tuple.Sketch;
@@ -178,6 +179,21 @@ public class AdoubleAnotBTest {
     threeMethodsWithTheta(aNotB, sketch, sketch, skTheta, results);
   }
 
+  @Test
+  public void aNotBWithLinearProbingThetaB() {
+    final UpdatableSketch<Double, DoubleSummary> skA = buildUpdatableTuple();
+    final UpdateSketch skThetaB = new UpdateSketchBuilder().setHashTableLayout(HashTableLayout.LINEAR_PROBING).build();
+    for (int i = 0; i < 3000; i++) {
+      skA.update(i, 1.0);
+      skThetaB.update(i);
+    }
+    assertEquals(AnotB.aNotB(skA, skThetaB).getRetainedEntries(), 0);
+    final AnotB<DoubleSummary> aNotB = new AnotB<>();
+    aNotB.setA(skA);
+    aNotB.notB(skThetaB);
+    assertEquals(aNotB.getResult(true).getRetainedEntries(), 0);
+  }
+
   @Test
   public void aNotBCheckDoubleSetAs() {
     final UpdatableSketch<Double, DoubleSummary> skA = buildUpdatableTuple();
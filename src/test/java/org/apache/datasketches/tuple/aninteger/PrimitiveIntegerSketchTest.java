@@ -0,0 +1,341 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple.aninteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesStateException;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.tuple.AnotB;
+import org.apache.datasketches.tuple.CompactSketch;
+import org.apache.datasketches.tuple.Intersection;
+import org.apache.datasketches.tuple.Sketch;
+import org.apache.datasketches.tuple.Sketches;
+import org.apache.datasketches.tuple.TupleSketchIterator;
+import org.apache.datasketches.tuple.Union;
+import org.apache.datasketches.tuple.aninteger.IntegerSummary.Mode;
+import org.testng.annotations.Test;
+
+public class PrimitiveIntegerSketchTest {
+
+  @Test
+  @SuppressWarnings("deprecation")
+  public void checkEmpty() {
+    final PrimitiveIntegerUpdatableSketch sketch = new PrimitiveIntegerUpdatableSketch(12, Mode.Sum);
+    assertTrue(sketch.isEmpty());
+    assertFalse(sketch.isEstimationMode());
+    assertEquals(sketch.getEstimate(), 0.0);
+    assertEquals(sketch.getUpperBound(1), 0.0);
+    assertEquals(sketch.getLowerBound(1), 0.0);
+    assertEquals(sketch.getTheta(), 1.0);
+    assertFalse(sketch.iterator().next());
+    assertEquals(sketch.toByteArray(), new IntegerSketch(12, Mode.Sum).toByteArray());
+    assertEquals(sketch.compact().toByteArray(), new IntegerSketch(12, Mode.Sum).compact().toByteArray());
+    assertTrue(sketch.compact().isEmpty());
+    assertTrue(sketch.toString().contains("Mode"));
+  }
+
+  @Test
+  @SuppressWarnings("deprecation")
+  public void checkUpdatesMatchIntegerSketch() {
+    for (final Mode mode : Mode.values()) {
+      for (final int n : new int[] {1, 100, 5000, 50000}) {
+        final PrimitiveIntegerUpdatableSketch primitive = new PrimitiveIntegerUpdatableSketch(10, mode);
+        final IntegerSketch generic = new IntegerSketch(10, mode);
+        for (int i = 0; i < n; i++) {
+          final int value = (i * 7) % 13 - 5;
+          primitive.update(i % 3000, value);
+          generic.update(i % 3000, value);
+        }
+        assertEquals(primitive.getRetainedEntries(), generic.getRetainedEntries());
+        assertEquals(primitive.getThetaLong(), generic.getThetaLong());
+        assertEquals(primitive.getEstimate(), generic.getEstimate());
+        assertEquals(primitive.getUpperBound(2), generic.getUpperBound(2));
+        assertEquals(primitive.getLowerBound(2), generic.getLowerBound(2));
+        assertEquals(primitive.toByteArray(), generic.toByteArray());
+        assertEquals(primitive.compact().toByteArray(), generic.compact().toByteArray());
+        primitive.trim();
+        generic.trim();
+        assertEquals(primitive.toByteArray(), generic.toByteArray());
+      }
+    }
+  }
+
+  @Test
+  @SuppressWarnings("deprecation")
+  public void checkUpdateKeyTypes() {
+    final PrimitiveIntegerUpdatableSketch primitive = new PrimitiveIntegerUpdatableSketch(12, Mode.Max);
+    final IntegerSketch generic = new IntegerSketch(12, Mode.Max);
+    primitive.update(1.0, 2);
+    generic.update(1.0, 2);
+    primitive.update("a", 3);
+    generic.update("a", 3);
+    primitive.update(new byte[] {1, 2}, 4);
+    generic.update(new byte[] {1, 2}, 4);
+    primitive.update(java.nio.ByteBuffer.wrap(new byte[] {3}), 5);
+    generic.update(java.nio.ByteBuffer.wrap(new byte[] {3}), 5);
+    primitive.update(new int[] {1}, 6);
+    generic.update(new int[] {1}, 6);
+    primitive.update(new long[] {1}, 7);
+    generic.update(new long[] {1}, 7);
+    primitive.update((byte[]) null, 1);
+    primitive.update(new int[0], 1);
+    primitive.update(new long[0], 1);
+    primitive.update((java.nio.ByteBuffer) null, 1);
+    assertEquals(primitive.getRetainedEntries(), 6);
+    assertEquals(primitive.toByteArray(), generic.toByteArray());
+  }
+
+  @Test
+  @SuppressWarnings("deprecation")
+  public void checkSamplingAndCopy() {
+    final PrimitiveIntegerUpdatableSketch primitive = new PrimitiveIntegerUpdatableSketch(10, 0, 0.5f, Mode.Sum);
+    final IntegerSketch generic = new IntegerSketch(10, 0, 0.5f, Mode.Sum);
+    for (int i = 0; i < 300; i++) {
+      primitive.update(i, 1);
+      generic.update(i, 1);
+    }
+    assertEquals(primitive.getSamplingProbability(), 0.5f);
+    assertEquals(primitive.getResizeFactor(), generic.getResizeFactor());
+    assertEquals(primitive.getCurrentCapacity(), generic.getCurrentCapacity());
+    assertEquals(primitive.getLgK(), 10);
+    assertEquals(primitive.toByteArray(), generic.toByteArray());
+    final PrimitiveIntegerUpdatableSketch copy = new PrimitiveIntegerUpdatableSketch(primitive);
+    copy.update(1000, 1);
+    assertEquals(primitive.toByteArray(), generic.toByteArray());
+    primitive.reset();
+    assertTrue(primitive.isEmpty());
+    assertEquals(primitive.getRetainedEntries(), 0);
+  }
+
+  @Test
+  @SuppressWarnings("deprecation")
+  public void checkSerDe() {
+    final IntegerSketch generic = new IntegerSketch(10, Mode.Min);
+    for (int i = 0; i < 5000; i++) { generic.update(i, i); }
+
+    final PrimitiveIntegerUpdatableSketch primitive =
+        PrimitiveIntegerUpdatableSketch.heapify(Memory.wrap(generic.toByteArray()), Mode.Min);
+    final IntegerSketch generic2 = new IntegerSketch(Memory.wrap(generic.toByteArray()), Mode.Min);
+    assertEquals(primitive.toByteArray(), generic2.toByteArray());
+    assertEquals(toMap(primitive.iterator()), toMap(generic.iterator()));
+    final IntegerSketch generic3 = new IntegerSketch(Memory.wrap(primitive.toByteArray()), Mode.Min);
+    assertEquals(toMap(generic3.iterator()), toMap(generic.iterator()));
+
+    final PrimitiveIntegerCompactSketch csk =
+        PrimitiveIntegerCompactSketch.heapify(Memory.wrap(generic.compact().toByteArray()));
+    assertEquals(csk.getMode(), Mode.Min);
+    assertEquals(csk.toByteArray(), generic.compact().toByteArray());
+    final Sketch<IntegerSummary> generic4 =
+        Sketches.heapifySketch(Memory.wrap(csk.toByteArray()), new IntegerSummaryDeserializer());
+    assertEquals(toMap(generic4.iterator()), toMap(csk.iterator()));
+
+    // compressed form is read through the generic sketch
+    final PrimitiveIntegerCompactSketch csk2 =
+        PrimitiveIntegerCompactSketch.heapify(Memory.wrap(generic.compact().toByteArrayCompressed()));
+    assertEquals(toMap(csk2.iterator()), toMap(csk.iterator()));
+    assertEquals(csk2.getThetaLong(), csk.getThetaLong());
+
+    try {
+      PrimitiveIntegerCompactSketch.heapify(Memory.wrap(generic.toByteArray()));
+      fail();
+    } catch (final SketchesArgumentException e) {
+      //expected
+    }
+  }
+
+  @Test
+  public void checkSingleItemAndDegenerateSerDe() {
+    final PrimitiveIntegerUpdatableSketch single = new PrimitiveIntegerUpdatableSketch(10, Mode.Sum);
+    single.update(1, 2);
+    final PrimitiveIntegerCompactSketch csk = PrimitiveIntegerCompactSketch.heapify(
+        Memory.wrap(single.compact().toByteArray()));
+    assertEquals(csk.getRetainedEntries(), 1);
+    assertEquals(csk.getEstimate(), 1.0);
+
+    final PrimitiveIntegerUpdatableSketch sampled = new PrimitiveIntegerUpdatableSketch(10, 0, 0.001f, Mode.Sum);
+    sampled.update(1, 2);
+    final PrimitiveIntegerCompactSketch degenerate = sampled.compact();
+    assertFalse(degenerate.isEmpty());
+    final PrimitiveIntegerCompactSketch degenerate2 =
+        PrimitiveIntegerCompactSketch.heapify(Memory.wrap(degenerate.toByteArray()));
+    assertEquals(degenerate2.getThetaLong(), degenerate.getThetaLong());
+    assertEquals(degenerate2.getRetainedEntries(), degenerate.getRetainedEntries());
+  }
+
+  @Test
+  public void checkUnionMatchesGeneric() {
+    for (final Mode mode : Mode.values()) {
+      final IntegerSketch gA = new IntegerSketch(10, mode);
+      final IntegerSketch gB = new IntegerSketch(11, mode);
+      final PrimitiveIntegerUpdatableSketch pA = new PrimitiveIntegerUpdatableSketch(10, mode);
+      final PrimitiveIntegerUpdatableSketch pB = new PrimitiveIntegerUpdatableSketch(11, mode);
+      for (int i = 0; i < 4000; i++) {
+        gA.update(i, i % 10);
+        pA.update(i, i % 10);
+        gB.update(i + 2000, i % 7);
+        pB.update(i + 2000, i % 7);
+      }
+      final Union<IntegerSummary> gUnion = new Union<>(1024, new IntegerSummarySetOperations(mode, mode));
+      final PrimitiveIntegerUnion pUnion = new PrimitiveIntegerUnion(1024, mode);
+      gUnion.union(gA);
+      gUnion.union(gB.compact());
+      pUnion.union(pA);
+      pUnion.union(pB.compact());
+      final CompactSketch<IntegerSummary> gResult = gUnion.getResult();
+      final PrimitiveIntegerCompactSketch pResult = pUnion.getResult(true);
+      assertEquals(pResult.getThetaLong(), gResult.getThetaLong());
+      assertEquals(pResult.getRetainedEntries(), gResult.getRetainedEntries());
+      assertEquals(toMap(pResult.iterator()), toMap(gResult.iterator()));
+      assertEquals(pResult.toByteArray(), gResult.toByteArray());
+      assertTrue(pUnion.getResult().isEmpty());
+
+      final PrimitiveIntegerCompactSketch pResult2 = pUnion.union(pA, pB);
+      assertEquals(toMap(pResult2.iterator()), toMap(new Union<>(1024, new IntegerSummarySetOperations(mode, mode))
+          .union(gA, gB).iterator()));
+    }
+  }
+
+  @Test
+  public void checkIntersectionMatchesGeneric() {
+    for (final Mode mode : Mode.values()) {
+      final IntegerSketch gA = new IntegerSketch(10, mode);
+      final IntegerSketch gB = new IntegerSketch(12, mode);
+      final PrimitiveIntegerUpdatableSketch pA = new PrimitiveIntegerUpdatableSketch(10, mode);
+      final PrimitiveIntegerUpdatableSketch pB = new PrimitiveIntegerUpdatableSketch(12, mode);
+      for (int i = 0; i < 8000; i++) {
+        gA.update(i, i % 10);
+        pA.update(i, i % 10);
+        gB.update(i + 4000, i % 7);
+        pB.update(i + 4000, i % 7);
+      }
+      final CompactSketch<IntegerSummary> gResult =
+          new Intersection<>(new IntegerSummarySetOperations(mode, mode)).intersect(gA, gB);
+      final PrimitiveIntegerIntersection pInter = new PrimitiveIntegerIntersection(mode);
+      final PrimitiveIntegerCompactSketch pResult = pInter.intersect(pA, pB.compact());
+      assertEquals(pResult.getThetaLong(), gResult.getThetaLong());
+      assertEquals(pResult.getRetainedEntries(), gResult.getRetainedEntries());
+      assertEquals(toMap(pResult.iterator()), toMap(gResult.iterator()));
+      assertFalse(pInter.hasResult());
+    }
+  }
+
+  @Test
+  public void checkIntersectionCornerCases() {
+    final PrimitiveIntegerIntersection inter = new PrimitiveIntegerIntersection(Mode.Sum);
+    try {
+      inter.getResult();
+      fail();
+    } catch (final SketchesStateException e) {
+      //expected
+    }
+    try {
+      inter.intersect(null);
+      fail();
+    } catch (final SketchesArgumentException e) {
+      //expected
+    }
+    final PrimitiveIntegerUpdatableSketch sketch = new PrimitiveIntegerUpdatableSketch(10, Mode.Sum);
+    sketch.update(1, 1);
+    inter.reset();
+    inter.intersect(sketch);
+    assertTrue(inter.hasResult());
+    assertEquals(inter.getResult().getRetainedEntries(), 1);
+    inter.intersect(new PrimitiveIntegerUpdatableSketch(10, Mode.Sum));
+    assertTrue(inter.getResult().isEmpty());
+    inter.intersect(sketch);
+    assertTrue(inter.getResult().isEmpty());
+  }
+
+  @Test
+  public void checkAnotBMatchesGeneric() {
+    final int[][] sizes = {{0, 0}, {0, 100}, {100, 0}, {3000, 4000}, {100, 100}};
+    for (final int[] size : sizes) {
+      final IntegerSketch gA = new IntegerSketch(10, Mode.Sum);
+      final IntegerSketch gB = new IntegerSketch(10, Mode.Sum);
+      final PrimitiveIntegerUpdatableSketch pA = new PrimitiveIntegerUpdatableSketch(10, Mode.Sum);
+      final PrimitiveIntegerUpdatableSketch pB = new PrimitiveIntegerUpdatableSketch(10, Mode.Sum);
+      for (int i = 0; i < size[0]; i++) {
+        gA.update(i, 1);
+        pA.update(i, 1);
+      }
+      for (int i = 0; i < size[1]; i++) {
+        gB.update(i + size[0] / 2, 2);
+        pB.update(i + size[0] / 2, 2);
+      }
+      final CompactSketch<IntegerSummary> gResult = AnotB.aNotB(gA, gB);
+      for (final PrimitiveIntegerCompactSketch pResult : new PrimitiveIntegerCompactSketch[] {
+          PrimitiveIntegerAnotB.aNotB(pA, pB), PrimitiveIntegerAnotB.aNotB(pA.compact(), pB.compact())}) {
+        assertEquals(pResult.isEmpty(), gResult.isEmpty());
+        assertEquals(pResult.getThetaLong(), gResult.getThetaLong());
+        assertEquals(pResult.getRetainedEntries(), gResult.getRetainedEntries());
+        assertEquals(toMap(pResult.iterator()), toMap(gResult.iterator()));
+      }
+    }
+    try {
+      PrimitiveIntegerAnotB.aNotB(null, new PrimitiveIntegerUpdatableSketch(10, Mode.Sum));
+      fail();
+    } catch (final SketchesArgumentException e) {
+      //expected
+    }
+  }
+
+  @Test
+  public void checkCopyOf() {
+    final IntegerSketch generic = new IntegerSketch(10, Mode.Max);
+    for (int i = 0; i < 5000; i++) { generic.update(i, i); }
+    final PrimitiveIntegerCompactSketch csk = PrimitiveIntegerCompactSketch.copyOf(generic);
+    assertEquals(csk.getMode(), Mode.Max);
+    assertEquals(csk.getThetaLong(), generic.getThetaLong());
+    assertEquals(toMap(csk.iterator()), toMap(generic.iterator()));
+    assertTrue(PrimitiveIntegerCompactSketch.copyOf(new IntegerSketch(10, Mode.Max)).isEmpty());
+  }
+
+  @Test
+  public void printlnTest() {
+    println("PRINTING: " + this.getClass().getName());
+  }
+
+  private static Map<Long, Integer> toMap(final PrimitiveIntegerSketchIterator it) {
+    final Map<Long, Integer> map = new HashMap<>();
+    while (it.next()) { map.put(it.getHash(), it.getValue()); }
+    return map;
+  }
+
+  private static Map<Long, Integer> toMap(final TupleSketchIterator<IntegerSummary> it) {
+    final Map<Long, Integer> map = new HashMap<>();
+    while (it.next()) { map.put(it.getHash(), it.getSummary().getValue()); }
+    return map;
+  }
+
+  /**
+   * @param s value to print
+   */
+  static void println(final String s) {
+    //System.out.println(s); //disable here
+  }
+}
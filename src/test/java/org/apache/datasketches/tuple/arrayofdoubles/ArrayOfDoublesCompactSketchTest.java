@@ -20,6 +20,12 @@
 package org.apache.datasketches.tuple.arrayofdoubles;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.datasketches.common.SketchesArgumentException;
 
 import org.apache.datasketches.memory.Memory;
 import org.apache.datasketches.memory.WritableMemory;
@@ -136,4 +142,68 @@ public class ArrayOfDoublesCompactSketchTest {
     assertEquals(keys4, keys);
   }
 
+  @Test
+  public void compressedRoundTrip() {
+    for (boolean xorValues : new boolean[] {true, false}) {
+      for (int n : new int[] {1, 9, 1000, 100_000}) {
+        ArrayOfDoublesUpdatableSketch us =
+            new ArrayOfDoublesUpdatableSketchBuilder().setNumberOfValues(3).build();
+        for (int i = 0; i < n; i++) {
+          us.update(i, new double[] {1.0, i % 7, Math.sqrt(i)});
+        }
+        us.update(0, new double[] {Double.NaN, -0.0, Double.NEGATIVE_INFINITY});
+        ArrayOfDoublesCompactSketch csk = us.compact();
+        byte[] bytes = csk.toByteArrayCompressed(xorValues);
+        if (n > 1) { assertTrue(bytes.length < csk.toByteArray().length); }
+        checkSameEntries(ArrayOfDoublesSketch.heapify(Memory.wrap(bytes)), csk);
+        checkSameEntries(ArrayOfDoublesSketches.wrapSketch(Memory.wrap(bytes)), csk);
+        checkSameEntries(ArrayOfDoublesSketch.heapify(Memory.wrap(csk.compact(
+            WritableMemory.allocate(csk.getCurrentBytes())).toByteArrayCompressed(xorValues))), csk);
+      }
+    }
+  }
+
+  @Test
+  public void compressedEmptyAndSetOperations() {
+    ArrayOfDoublesUpdatableSketch us = new ArrayOfDoublesUpdatableSketchBuilder().build();
+    ArrayOfDoublesCompactSketch empty = us.compact();
+    assertEquals(empty.toByteArrayCompressed(), empty.toByteArray());
+    for (int i = 0; i < 10_000; i++) { us.update(i, new double[] {1.0}); }
+    ArrayOfDoublesUnion union = new ArrayOfDoublesSetOperationBuilder().buildUnion();
+    union.union(ArrayOfDoublesSketch.wrap(Memory.wrap(us.compact().toByteArrayCompressed())));
+    union.union(ArrayOfDoublesSketch.wrap(Memory.wrap(empty.toByteArrayCompressed())));
+    ArrayOfDoublesUnion expected = new ArrayOfDoublesSetOperationBuilder().buildUnion();
+    expected.union(us.compact());
+    assertEquals(union.getResult().getEstimate(), expected.getResult().getEstimate());
+  }
+
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void compressedWrongSeed() {
+    ArrayOfDoublesUpdatableSketch us = new ArrayOfDoublesUpdatableSketchBuilder().build();
+    us.update(1, new double[] {1.0});
+    us.update(2, new double[] {1.0});
+    ArrayOfDoublesSketch.wrap(Memory.wrap(us.compact().toByteArrayCompressed()), 123);
+  }
+
+  private static void checkSameEntries(final ArrayOfDoublesSketch actual, final ArrayOfDoublesSketch expected) {
+    assertEquals(actual.isEmpty(), expected.isEmpty());
+    assertEquals(actual.getThetaLong(), expected.getThetaLong());
+    assertEquals(actual.getRetainedEntries(), expected.getRetainedEntries());
+    assertEquals(actual.getNumValues(), expected.getNumValues());
+    final Map<Long, double[]> entries = new HashMap<>();
+    final ArrayOfDoublesSketchIterator expectedIt = expected.iterator();
+    while (expectedIt.next()) { entries.put(expectedIt.getKey(), expectedIt.getValues()); }
+    final ArrayOfDoublesSketchIterator it = actual.iterator();
+    long previous = 0;
+    while (it.next()) {
+      assertTrue(it.getKey() > previous); //ordered
+      previous = it.getKey();
+      final double[] values = entries.remove(it.getKey());
+      for (int j = 0; j < values.length; j++) { //compare bits to cover NaN and -0.0
+        assertEquals(Double.doubleToRawLongBits(it.getValues()[j]), Double.doubleToRawLongBits(values[j]));
+      }
+    }
+    assertTrue(entries.isEmpty());
+  }
+
 }
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple.arrayofdoubles;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.datasketches.common.ConcurrentPropagationMetrics;
+import org.apache.datasketches.common.SketchesStateException;
+import org.testng.annotations.Test;
+
+public class ConcurrentSharedArrayOfDoublesSketchTest {
+
+  private static void updateConcurrently(final ArrayOfDoublesUpdatableSketchBuilder bldr,
+      final ConcurrentSharedArrayOfDoublesSketch shared, final int numThreads, final int n,
+      final int keysPerThread) throws InterruptedException {
+    final Thread[] writers = new Thread[numThreads];
+    for (int t = 0; t < numThreads; t++) {
+      final ConcurrentHeapArrayOfDoublesBuffer local = bldr.buildLocal(shared);
+      final int offset = t * keysPerThread;
+      final double[] values = {1.0, t};
+      writers[t] = new Thread(() -> {
+        for (int i = 0; i < n; i++) { local.update(offset + i, values); }
+        local.flush();
+      });
+      writers[t].start();
+    }
+    for (Thread w : writers) { w.join(); }
+  }
+
+  @Test
+  public void checkExactModeSums() throws InterruptedException {
+    final ArrayOfDoublesUpdatableSketchBuilder bldr = new ArrayOfDoublesUpdatableSketchBuilder()
+        .setNominalEntries(4096).setNumberOfValues(2);
+    final ConcurrentSharedArrayOfDoublesSketch shared = bldr.buildShared();
+    assertTrue(shared.isEmpty());
+    assertEquals(shared.getNumValues(), 2);
+    final int n = 1000;
+    updateConcurrently(bldr, shared, 4, n, 0); //all threads update the same keys
+    assertEquals(shared.getPendingPropagations(), 0);
+    final ConcurrentPropagationMetrics metrics = shared.getPropagationMetrics();
+    assertTrue(metrics.getSubmittedPropagations() > 0);
+    assertEquals(metrics.getCompletedPropagations(), metrics.getSubmittedPropagations());
+    assertFalse(shared.isEstimationMode());
+    assertEquals(shared.getRetainedEntries(), n);
+    assertEquals(shared.getEstimate(), n);
+    final ArrayOfDoublesSketchIterator it = shared.compact().iterator();
+    while (it.next()) {
+      assertEquals(it.getValues()[0], 4.0);
+      assertEquals(it.getValues()[1], 0.0 + 1 + 2 + 3);
+    }
+  }
+
+  @Test
+  public void checkEstimationModeWithCombiner() throws InterruptedException {
+    final ArrayOfDoublesUpdatableSketchBuilder bldr = new ArrayOfDoublesUpdatableSketchBuilder()
+        .setNominalEntries(4096).setNumberOfValues(2).setLocalNominalEntries(64);
+    final ArrayOfDoublesCombiner max = (a, b) -> new double[] {Math.max(a[0], b[0]), Math.max(a[1], b[1])};
+    final ConcurrentSharedArrayOfDoublesSketch shared = bldr.buildShared(max);
+    final int n = 50_000;
+    //each key is updated by exactly two of the four threads
+    updateConcurrently(bldr, shared, 4, n, n / 2);
+    final double expected = 2.5 * n;
+    assertTrue(shared.isEstimationMode());
+    assertEquals(shared.getEstimate(), expected, expected * 0.1);
+    assertTrue(shared.getLowerBound(2) <= shared.getEstimate());
+    assertTrue(shared.getUpperBound(2) >= shared.getEstimate());
+    assertTrue(shared.getTheta() < 1.0);
+    final ArrayOfDoublesCompactSketch result = shared.compact();
+    assertEquals(result.getEstimate(), expected, expected * 0.1);
+    final ArrayOfDoublesSketchIterator it = result.iterator();
+    while (it.next()) {
+      final long key = it.getKey();
+      assertTrue(key < shared.getThetaLong());
+      assertEquals(it.getValues()[0], 1.0);
+    }
+  }
+
+  @Test
+  public void checkRejectingExecutorAndReset() {
+    final Executor rejecting = r -> { throw new RejectedExecutionException(); };
+    final ArrayOfDoublesUpdatableSketchBuilder bldr = new ArrayOfDoublesUpdatableSketchBuilder()
+        .setPropagationExecutor(rejecting).setSeed(123);
+    final ConcurrentSharedArrayOfDoublesSketch shared = bldr.buildShared();
+    final ConcurrentHeapArrayOfDoublesBuffer local = bldr.buildLocal(shared);
+    assertEquals(local.getSeed(), 123);
+    for (int i = 0; i < 100; i++) { local.update(i, new double[] {2.0}); }
+    assertEquals(shared.getRetainedEntries(), 96); //six full buffers of 16 entries
+    assertEquals(local.getEstimate(), shared.getEstimate());
+    assertEquals(local.getLowerBound(1), shared.getLowerBound(1));
+    assertEquals(local.getUpperBound(1), shared.getUpperBound(1));
+    local.flush();
+    assertEquals(shared.getRetainedEntries(), 100);
+    shared.reset();
+    assertTrue(shared.isEmpty());
+    assertEquals(shared.getEstimate(), 0.0);
+    local.update(1, new double[] {1.0});
+    local.reset();
+    local.flush();
+    assertTrue(shared.isEmpty());
+    println(shared.toString());
+  }
+
+  @Test
+  public void checkExceptions() {
+    final ArrayOfDoublesUpdatableSketchBuilder bldr = new ArrayOfDoublesUpdatableSketchBuilder();
+    try {
+      bldr.buildLocal(null);
+      fail();
+    } catch (SketchesStateException e) {
+      //expected
+    }
+    try {
+      bldr.buildLocal(bldr.buildShared()).toByteArray();
+      fail();
+    } catch (UnsupportedOperationException e) {
+      //expected
+    }
+  }
+
+  @Test
+  public void printlnTest() {
+    println("PRINTING: " + this.getClass().getName());
+  }
+
+  /**
+   * @param s value to print
+   */
+  static void println(String s) {
+    //System.out.println(s); //disable here
+  }
+}
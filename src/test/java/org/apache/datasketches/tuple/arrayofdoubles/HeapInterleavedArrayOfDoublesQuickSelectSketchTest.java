@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple.arrayofdoubles;
+
+import java.util.Arrays;
+import java.util.TreeMap;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+import org.apache.datasketches.thetacommon.HashTableLayout;
+import org.apache.datasketches.thetacommon.ThetaUtil;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class HeapInterleavedArrayOfDoublesQuickSelectSketchTest {
+
+  private static ArrayOfDoublesUpdatableSketch build(final HashTableLayout layout, final int numValues) {
+    return new ArrayOfDoublesUpdatableSketchBuilder().setNominalEntries(1024).setNumberOfValues(numValues)
+        .setHashTableLayout(layout).build();
+  }
+
+  @Test
+  public void isEmpty() {
+    final ArrayOfDoublesUpdatableSketch sketch = build(HashTableLayout.LINEAR_PROBING, 1);
+    Assert.assertTrue(sketch instanceof HeapInterleavedArrayOfDoublesQuickSelectSketch);
+    Assert.assertTrue(sketch.isEmpty());
+    Assert.assertEquals(sketch.getEstimate(), 0.0);
+    Assert.assertEquals(sketch.getRetainedEntries(), 0);
+    Assert.assertFalse(sketch.iterator().next());
+    Assert.assertEquals(sketch.toByteArray(), build(HashTableLayout.DOUBLE_HASHING, 1).toByteArray());
+  }
+
+  @Test
+  public void exactModeMatchesDefaultLayout() {
+    final ArrayOfDoublesUpdatableSketch lp = build(HashTableLayout.LINEAR_PROBING, 3);
+    final ArrayOfDoublesUpdatableSketch dh = build(HashTableLayout.DOUBLE_HASHING, 3);
+    for (int i = 0; i < 1000; i++) {
+      final double[] values = {i, 1.0, -i};
+      lp.update(i % 700, values);
+      dh.update(i % 700, values);
+    }
+    Assert.assertFalse(lp.isEstimationMode());
+    Assert.assertEquals(lp.getRetainedEntries(), 700);
+    Assert.assertEquals(lp.getCurrentCapacity(), dh.getCurrentCapacity());
+    // same hash table size, but the slots of colliding keys depend on the order of insertion
+    Assert.assertEquals(lp.toByteArray().length, dh.toByteArray().length);
+    Assert.assertEquals(toMap(ArrayOfDoublesUpdatableSketch.heapify(Memory.wrap(lp.toByteArray()))), toMap(dh));
+    Assert.assertEquals(toMap(lp.compact()), toMap(dh.compact()));
+    Assert.assertEquals(toMap(lp), toMap(dh));
+  }
+
+  @Test
+  public void estimationModeMatchesDefaultLayout() {
+    final ArrayOfDoublesUpdatableSketch lp = build(HashTableLayout.LINEAR_PROBING, 2);
+    final ArrayOfDoublesUpdatableSketch dh = build(HashTableLayout.DOUBLE_HASHING, 2);
+    for (int i = 0; i < 20000; i++) {
+      lp.update(i % 15000, new double[] {1.0, i});
+      dh.update(i % 15000, new double[] {1.0, i});
+    }
+    Assert.assertTrue(lp.isEstimationMode());
+    Assert.assertEquals(lp.getEstimate(), 15000, 15000 * 0.1);
+    // below the smaller theta both sketches retain the same keys with the same values
+    final long theta = Math.min(lp.getThetaLong(), dh.getThetaLong());
+    Assert.assertEquals(toMap(lp).headMap(theta), toMap(dh).headMap(theta));
+
+    lp.trim();
+    Assert.assertTrue(lp.getRetainedEntries() <= 1024);
+    Assert.assertEquals(lp.getValues().length, lp.getRetainedEntries());
+  }
+
+  @Test
+  public void serializeAndHeapify() {
+    final ArrayOfDoublesUpdatableSketch lp = build(HashTableLayout.LINEAR_PROBING, 2);
+    for (int i = 0; i < 5000; i++) {
+      lp.update(i, new double[] {1.0, 2.0});
+    }
+    // the serialized form is that of the default layout
+    final ArrayOfDoublesUpdatableSketch dh = ArrayOfDoublesUpdatableSketch.heapify(Memory.wrap(lp.toByteArray()));
+    Assert.assertTrue(dh instanceof HeapArrayOfDoublesQuickSelectSketch);
+    Assert.assertEquals(toMap(dh), toMap(lp));
+    Assert.assertEquals(dh.getThetaLong(), lp.getThetaLong());
+
+    final ArrayOfDoublesUpdatableSketch lp2 = ArrayOfDoublesUpdatableSketch.heapify(
+        Memory.wrap(dh.toByteArray()), ThetaUtil.DEFAULT_UPDATE_SEED, HashTableLayout.LINEAR_PROBING);
+    Assert.assertTrue(lp2 instanceof HeapInterleavedArrayOfDoublesQuickSelectSketch);
+    Assert.assertEquals(toMap(lp2), toMap(lp));
+    Assert.assertEquals(lp2.getNominalEntries(), lp.getNominalEntries());
+    Assert.assertEquals(lp2.getResizeFactor(), lp.getResizeFactor());
+
+    lp2.reset();
+    Assert.assertTrue(lp2.isEmpty());
+    Assert.assertEquals(lp2.getRetainedEntries(), 0);
+  }
+
+  @Test
+  public void unionAndSetOperations() {
+    final ArrayOfDoublesUpdatableSketch a = build(HashTableLayout.LINEAR_PROBING, 1);
+    final ArrayOfDoublesUpdatableSketch b = build(HashTableLayout.DOUBLE_HASHING, 1);
+    for (int i = 0; i < 600; i++) {
+      a.update(i, new double[] {1.0});
+      b.update(i + 300, new double[] {1.0});
+    }
+    final ArrayOfDoublesUnion union = new ArrayOfDoublesSetOperationBuilder().buildUnion();
+    union.union(a);
+    union.union(b);
+    final ArrayOfDoublesCompactSketch result = union.getResult();
+    Assert.assertEquals(result.getEstimate(), 900.0);
+    double sum = 0;
+    final ArrayOfDoublesSketchIterator it = result.iterator();
+    while (it.next()) { sum += it.getValues()[0]; }
+    Assert.assertEquals(sum, 1200.0);
+
+    final ArrayOfDoublesIntersection inter = new ArrayOfDoublesSetOperationBuilder().buildIntersection();
+    inter.intersect(a, (x, y) -> x);
+    inter.intersect(b, (x, y) -> x);
+    Assert.assertEquals(inter.getResult().getEstimate(), 300.0);
+  }
+
+  @Test
+  public void directNotSupported() {
+    try {
+      new ArrayOfDoublesUpdatableSketchBuilder().setHashTableLayout(HashTableLayout.LINEAR_PROBING)
+          .build(WritableMemory.allocate(1 << 20));
+      Assert.fail();
+    } catch (final SketchesArgumentException e) {
+      //expected
+    }
+  }
+
+  private static TreeMap<Long, String> toMap(final ArrayOfDoublesSketch sketch) {
+    final TreeMap<Long, String> map = new TreeMap<>();
+    final ArrayOfDoublesSketchIterator it = sketch.iterator();
+    while (it.next()) {
+      map.put(it.getKey(), Arrays.toString(it.getValues()));
+    }
+    return map;
+  }
+
+  @Test
+  public void printlnTest() {
+    println("PRINTING: " + this.getClass().getName());
+  }
+
+  /**
+   * @param s value to print
+   */
+  static void println(final String s) {
+    //System.out.println(s); //disable here
+  }
+
+}